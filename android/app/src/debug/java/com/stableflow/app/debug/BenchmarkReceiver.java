@@ -0,0 +1,30 @@
+package com.stableflow.app.debug;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.util.Log;
+
+/**
+ * BenchmarkReceiver
+ * Debug-only entry point that runs the Solana client benchmark and logs its report
+ */
+public class BenchmarkReceiver extends BroadcastReceiver {
+
+    private static final String TAG = "BenchmarkReceiver";
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        PendingResult result = goAsync();
+        Context appContext = context.getApplicationContext();
+        new Thread(() -> {
+            try {
+                new SolanaClientBenchmark(appContext).run();
+            } catch (Exception e) {
+                Log.e(TAG, "Benchmark error: " + e.getMessage());
+            } finally {
+                result.finish();
+            }
+        }, "SolanaClientBenchmark").start();
+    }
+}
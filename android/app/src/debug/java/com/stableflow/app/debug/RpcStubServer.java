@@ -0,0 +1,386 @@
+package com.stableflow.app.debug;
+
+import android.content.res.AssetManager;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * RpcStubServer
+ * Local JSON-RPC server that replays recorded Solana RPC results, for offline benchmarking.
+ * Fixtures hold only the "result" of a response and are keyed by method name; results may be
+ * objects, arrays or plain values. Batch requests get an array of responses. In record mode
+ * the server proxies to a real endpoint and saves each method's result as a fixture file.
+ * Latency, JSON-RPC errors and HTTP 429 rate limiting can be injected, once per HTTP request.
+ */
+public class RpcStubServer {
+
+    private static final String TAG = "RpcStubServer";
+
+    public static final String FIXTURE_ASSET_DIR = "rpc_fixtures";
+
+    private final Map<String, String> fixtures = new ConcurrentHashMap<>();
+    private final ExecutorService connectionExecutor = Executors.newCachedThreadPool();
+    private final Random random;
+
+    private ServerSocket serverSocket;
+
+    // Fault injection; read on connection threads
+    private volatile long latencyMs;
+    private volatile long latencyJitterMs;
+    private volatile double errorRate;
+    private volatile double rateLimitRate;
+
+    // Record mode
+    private volatile String upstreamUrl;
+    private volatile File recordDir;
+
+    public RpcStubServer(long seed) {
+        random = new Random(seed);
+    }
+
+    // ==================
+    // CONFIGURATION
+    // ==================
+
+    /**
+     * Load every fixture under assets/rpc_fixtures, one file per method
+     */
+    public RpcStubServer loadFixtures(AssetManager assets) throws IOException {
+        String[] files = assets.list(FIXTURE_ASSET_DIR);
+        if (files == null)
+            return this;
+
+        for (String file : files) {
+            if (!file.endsWith(".json"))
+                continue;
+            try (InputStream is = assets.open(FIXTURE_ASSET_DIR + "/" + file)) {
+                putFixture(file.substring(0, file.length() - ".json".length()), readFully(is));
+            }
+        }
+        return this;
+    }
+
+    public RpcStubServer putFixture(String method, String resultJson) {
+        fixtures.put(method, resultJson);
+        return this;
+    }
+
+    /**
+     * Delay every response by a base latency plus uniform random jitter
+     */
+    public RpcStubServer setLatency(long latencyMs, long jitterMs) {
+        this.latencyMs = latencyMs;
+        this.latencyJitterMs = jitterMs;
+        return this;
+    }
+
+    /**
+     * Fraction of requests (0-1) answered with a JSON-RPC internal error
+     */
+    public RpcStubServer setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Fraction of requests (0-1) answered with HTTP 429 Too Many Requests
+     */
+    public RpcStubServer setRateLimitRate(double rateLimitRate) {
+        this.rateLimitRate = rateLimitRate;
+        return this;
+    }
+
+    /**
+     * Proxy requests to a real endpoint and save each result into a directory as a fixture
+     */
+    public RpcStubServer record(String upstreamUrl, File recordDir) {
+        this.upstreamUrl = upstreamUrl;
+        this.recordDir = recordDir;
+        return this;
+    }
+
+    // ==================
+    // LIFECYCLE
+    // ==================
+
+    /**
+     * Start listening on an ephemeral loopback port
+     */
+    public void start() throws IOException {
+        serverSocket = new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+        Thread acceptThread = new Thread(this::acceptLoop, TAG);
+        acceptThread.setDaemon(true);
+        acceptThread.start();
+    }
+
+    public String getUrl() {
+        return "http://127.0.0.1:" + serverSocket.getLocalPort();
+    }
+
+    public void stop() {
+        try {
+            if (serverSocket != null) {
+                serverSocket.close();
+            }
+        } catch (IOException e) {
+            Log.e(TAG, "Stop error: " + e.getMessage());
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connectionExecutor.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed()) {
+                    Log.e(TAG, "Accept error: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    // ==================
+    // HTTP
+    // ==================
+
+    /**
+     * Serve requests on one keep-alive connection until the client closes it
+     */
+    private void serve(Socket socket) {
+        try (Socket s = socket;
+                InputStream in = new BufferedInputStream(s.getInputStream());
+                OutputStream out = s.getOutputStream()) {
+            while (true) {
+                int contentLength = readHeaders(in);
+                if (contentLength < 0)
+                    return;
+
+                byte[] body = new byte[contentLength];
+                int read = 0;
+                while (read < contentLength) {
+                    int n = in.read(body, read, contentLength - read);
+                    if (n < 0)
+                        return;
+                    read += n;
+                }
+
+                handle(new String(body, StandardCharsets.UTF_8), out);
+            }
+        } catch (Exception e) {
+            Log.e(TAG, "Connection error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Consume the request line and headers, returning Content-Length or -1 at end of stream
+     */
+    private int readHeaders(InputStream in) throws IOException {
+        int contentLength = 0;
+        boolean sawRequestLine = false;
+        while (true) {
+            String line = readLine(in);
+            if (line == null)
+                return -1;
+            if (line.isEmpty()) {
+                if (sawRequestLine)
+                    return contentLength;
+                continue;
+            }
+            sawRequestLine = true;
+            if (line.toLowerCase(Locale.US).startsWith("content-length:")) {
+                contentLength = Integer.parseInt(line.substring("content-length:".length()).trim());
+            }
+        }
+    }
+
+    private void handle(String requestBody, OutputStream out) throws Exception {
+        Object request = new JSONTokener(requestBody).nextValue();
+
+        long delay = latencyMs;
+        double roll;
+        synchronized (random) {
+            if (latencyJitterMs > 0) {
+                delay += (long) (random.nextDouble() * latencyJitterMs);
+            }
+            roll = random.nextDouble();
+        }
+        if (delay > 0) {
+            Thread.sleep(delay);
+        }
+
+        if (roll < rateLimitRate) {
+            writeResponse(out, 429, "Too Many Requests", "{\"error\":\"rate limited\"}");
+            return;
+        }
+        boolean injectError = roll < rateLimitRate + errorRate;
+
+        if (request instanceof JSONArray) {
+            // A batch: one response per request, in request order
+            JSONArray requests = (JSONArray) request;
+            JSONArray responses = new JSONArray();
+            for (int i = 0; i < requests.length(); i++) {
+                responses.put(answer(requests.getJSONObject(i), injectError));
+            }
+            writeResponse(out, 200, "OK", responses.toString());
+        } else {
+            writeResponse(out, 200, "OK", answer((JSONObject) request, injectError).toString());
+        }
+    }
+
+    /**
+     * Response to a single JSON-RPC request
+     */
+    private JSONObject answer(JSONObject request, boolean injectError) throws Exception {
+        String method = request.optString("method");
+        Object id = request.opt("id");
+
+        if (injectError)
+            return errorResponse(id, -32603, "Internal error (injected)");
+        if (upstreamUrl != null)
+            return recordResponse(method, request);
+
+        String result = fixtures.get(method);
+        if (result == null)
+            return errorResponse(id, -32601, "Method not found: " + method);
+
+        JSONObject response = new JSONObject();
+        response.put("jsonrpc", "2.0");
+        response.put("result", shapeResult(method, request, new JSONTokener(result).nextValue()));
+        response.put("id", id);
+        return response;
+    }
+
+    /**
+     * Fit a recorded result to the request where the response size depends on its parameters.
+     * Array and plain results are returned untouched.
+     */
+    private Object shapeResult(String method, JSONObject request, Object result) throws Exception {
+        if (!(result instanceof JSONObject))
+            return result;
+
+        JSONObject shaped = (JSONObject) result;
+        if ("getSignatureStatuses".equals(method) || "getMultipleAccounts".equals(method)) {
+            // One value per requested signature or account, all copies of the recorded ones
+            int requested = request.getJSONArray("params").getJSONArray(0).length();
+            JSONArray recorded = shaped.getJSONArray("value");
+            JSONArray values = new JSONArray();
+            for (int i = 0; i < requested; i++) {
+                values.put(recorded.length() > 0 ? recorded.get(i % recorded.length()) : JSONObject.NULL);
+            }
+            shaped.put("value", values);
+        }
+        return shaped;
+    }
+
+    /**
+     * Forward one request upstream and relay its response. A non-null result is saved as this
+     * method's fixture; a null one, e.g. getTransaction for an unknown signature, is passed
+     * through without replacing a useful fixture.
+     */
+    private JSONObject recordResponse(String method, JSONObject request) throws Exception {
+        HttpURLConnection conn = (HttpURLConnection) new URL(upstreamUrl).openConnection();
+        try {
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setDoOutput(true);
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(request.toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            JSONObject response;
+            try (InputStream is = conn.getInputStream()) {
+                response = new JSONObject(readFully(is));
+            }
+            if (!response.has("result") || response.isNull("result"))
+                return response;
+
+            String result = response.get("result").toString();
+            fixtures.put(method, result);
+            File dir = recordDir;
+            if (dir != null && (dir.isDirectory() || dir.mkdirs())) {
+                try (FileOutputStream fos = new FileOutputStream(new File(dir, method + ".json"))) {
+                    fos.write(result.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+            return response;
+        } finally {
+            conn.disconnect();
+        }
+    }
+
+    private static JSONObject errorResponse(Object id, int code, String message) throws Exception {
+        JSONObject error = new JSONObject();
+        error.put("code", code);
+        error.put("message", message);
+
+        JSONObject response = new JSONObject();
+        response.put("jsonrpc", "2.0");
+        response.put("error", error);
+        response.put("id", id);
+        return response;
+    }
+
+    private static void writeResponse(OutputStream out, int status, String reason, String body)
+            throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        String head = "HTTP/1.1 " + status + " " + reason + "\r\n"
+                + "Content-Type: application/json\r\n"
+                + "Content-Length: " + bytes.length + "\r\n"
+                + "Connection: keep-alive\r\n"
+                + "\r\n";
+        out.write(head.getBytes(StandardCharsets.US_ASCII));
+        out.write(bytes);
+        out.flush();
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        StringBuilder line = new StringBuilder();
+        int c;
+        while ((c = in.read()) != -1) {
+            if (c == '\n') {
+                int length = line.length();
+                if (length > 0 && line.charAt(length - 1) == '\r') {
+                    line.setLength(length - 1);
+                }
+                return line.toString();
+            }
+            line.append((char) c);
+        }
+        return line.length() > 0 ? line.toString() : null;
+    }
+
+    private static String readFully(InputStream is) throws IOException {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        byte[] chunk = new byte[8192];
+        int read;
+        while ((read = is.read(chunk)) != -1) {
+            buffer.write(chunk, 0, read);
+        }
+        return buffer.toString("UTF-8");
+    }
+}
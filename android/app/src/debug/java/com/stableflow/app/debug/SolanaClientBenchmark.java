@@ -0,0 +1,293 @@
+package com.stableflow.app.debug;
+
+import android.content.Context;
+import android.os.Debug;
+import android.util.Log;
+import android.util.SparseLongArray;
+
+import com.stableflow.app.data.solana.LatencyHistogram;
+import com.stableflow.app.data.solana.PayoutTransactionBuilder;
+import com.stableflow.app.data.solana.SolanaClient;
+import com.stableflow.app.data.solana.TransactionDetails;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SolanaClientBenchmark
+ * Measures latency, throughput and allocations of SolanaClient's public methods against
+ * RpcStubServer, under several latency and failure profiles: balances, confirmations and
+ * transaction details, the batched signature lookups behind history sync, and the blockhash,
+ * fee and simulation calls a payout makes first. Run from a debug build with
+ * adb shell am broadcast -a com.stableflow.app.debug.RUN_RPC_BENCHMARK -p com.stableflow.app
+ */
+public class SolanaClientBenchmark {
+
+    private static final String TAG = "SolanaClientBenchmark";
+
+    private static final String WALLET = "7xKXtg2CW87d97TXJSDpbD5jBkheTqA83TZRuJosgAsU";
+    private static final String SIGNATURE =
+            "5VERv8NMvzbJMEkV8xnrLkEaWRtSz9CosKDYjCJjBRnbJLgp8uirBgmQpjKhoR4tjF3ZpRzrFmBV6UjKdiSZkQUW";
+
+    private static final String RECIPIENT = "9WzDXwBbmkg8ZTbNMqUxvQRAyrZzDsGYdLVL9zYtAWWM";
+    private static final String BLOCKHASH = "EkSnNWid2cvwEVnVx9aBqawnmiCNiDgp3gUdkDPTKN1N";
+
+    private static final int WARMUP_ITERATIONS = 20;
+    private static final int MEASURED_ITERATIONS = 200;
+    private static final long CALL_TIMEOUT_SECONDS = 60;
+
+    /**
+     * One public client method, reporting through onSuccess or onError when its callback fires
+     */
+    private interface Operation {
+        void invoke(SolanaClient client, Runnable onSuccess, Runnable onError);
+    }
+
+    /**
+     * Latency and failure profile the stub server is configured with
+     */
+    private static class Profile {
+        final String name;
+        final long latencyMs;
+        final long jitterMs;
+        final double errorRate;
+        final double rateLimitRate;
+
+        Profile(String name, long latencyMs, long jitterMs, double errorRate, double rateLimitRate) {
+            this.name = name;
+            this.latencyMs = latencyMs;
+            this.jitterMs = jitterMs;
+            this.errorRate = errorRate;
+            this.rateLimitRate = rateLimitRate;
+        }
+    }
+
+    private final Context context;
+
+    public SolanaClientBenchmark(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    /**
+     * Run every operation under every profile and return the report. Blocks; call off the main thread.
+     */
+    public String run() throws Exception {
+        List<Profile> profiles = new ArrayList<>();
+        profiles.add(new Profile("loopback", 0, 0, 0, 0));
+        profiles.add(new Profile("mobile-rtt", 80, 40, 0, 0));
+        profiles.add(new Profile("flaky", 80, 40, 0.05, 0));
+        profiles.add(new Profile("rate-limited", 80, 40, 0, 0.10));
+
+        StringBuilder report = new StringBuilder();
+        for (Profile profile : profiles) {
+            RpcStubServer server = new RpcStubServer(42)
+                    .loadFixtures(context.getAssets())
+                    .setLatency(profile.latencyMs, profile.jitterMs)
+                    .setErrorRate(profile.errorRate)
+                    .setRateLimitRate(profile.rateLimitRate);
+            server.start();
+            SolanaClient client = new SolanaClient(true, server.getUrl());
+            try {
+                report.append("== ").append(profile.name).append(" ==\n");
+                runProfile(client, report);
+            } finally {
+                client.shutdown();
+                server.stop();
+            }
+        }
+
+        Log.i(TAG, "Benchmark report:\n" + report);
+        return report.toString();
+    }
+
+    private void runProfile(SolanaClient client, StringBuilder report) throws Exception {
+        List<String> signatures = new ArrayList<>();
+        List<String> wallets = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            signatures.add(SIGNATURE);
+            wallets.add(WALLET);
+        }
+
+        measure(report, client, "getBalances", (c, ok, err) -> c.getBalances(WALLET, balanceCallback(ok, err)));
+        measure(report, client, "getSolBalance", (c, ok, err) -> c.getSolBalance(WALLET, balanceCallback(ok, err)));
+        measure(report, client, "getUsdcBalance",
+                (c, ok, err) -> c.getUsdcBalance(WALLET, balanceCallback(ok, err)));
+        measure(report, client, "getUsdcBalances(50)",
+                (c, ok, err) -> c.getUsdcBalances(wallets, new SolanaClient.BulkBalanceCallback() {
+                    @Override
+                    public void onSuccess(SparseLongArray balances) {
+                        ok.run();
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        err.run();
+                    }
+                }));
+        measure(report, client, "isTransactionConfirmed",
+                (c, ok, err) -> c.isTransactionConfirmed(SIGNATURE, transactionCallback(ok, err)));
+        measure(report, client, "getSignatureStatuses(50)",
+                (c, ok, err) -> c.getSignatureStatuses(signatures, new SolanaClient.SignatureStatusCallback() {
+                    @Override
+                    public void onSuccess(Map<String, SolanaClient.ConfirmationStatus> statuses) {
+                        ok.run();
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        err.run();
+                    }
+                }));
+        measure(report, client, "getTransaction",
+                (c, ok, err) -> c.getTransaction(SIGNATURE, transactionCallback(ok, err)));
+        measure(report, client, "getTransactionDetails",
+                (c, ok, err) -> c.getTransactionDetails(SIGNATURE, new SolanaClient.TransactionDetailsCallback() {
+                    @Override
+                    public void onSuccess(TransactionDetails details) {
+                        ok.run();
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        err.run();
+                    }
+                }));
+
+        List<String> addresses = wallets.subList(0, 10);
+        measure(report, client, "getSignaturesForAddresses(10)",
+                (c, ok, err) -> settle(c.getSignaturesForAddressesAsync(addresses, 25, SolanaClient.DEFAULT_TIMEOUT_MS),
+                        ok, err));
+        measure(report, client, "getLatestBlockhash",
+                (c, ok, err) -> settle(c.getLatestBlockhashAsync(SolanaClient.DEFAULT_TIMEOUT_MS), ok, err));
+        measure(report, client, "getPriorityFeeEstimate",
+                (c, ok, err) -> settle(c.getPriorityFeeEstimateAsync(Collections.singletonList(WALLET),
+                        SolanaClient.DEFAULT_TIMEOUT_MS), ok, err));
+        byte[] payout = buildPayout(client);
+        measure(report, client, "simulateTransaction",
+                (c, ok, err) -> settle(c.simulateTransactionAsync(payout, SolanaClient.DEFAULT_TIMEOUT_MS), ok, err));
+
+        report.append("-- client metrics --\n").append(client.getMetrics().dump());
+    }
+
+    /**
+     * Sequential calls for latency and allocations, then a burst of queued calls for throughput
+     */
+    private void measure(StringBuilder report, SolanaClient client, String name, Operation operation)
+            throws Exception {
+        for (int i = 0; i < WARMUP_ITERATIONS; i++) {
+            invokeAndWait(client, operation, new AtomicInteger());
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        AtomicInteger errors = new AtomicInteger();
+        long allocatedBefore = allocatedBytes();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            long start = System.nanoTime();
+            invokeAndWait(client, operation, errors);
+            latency.record((System.nanoTime() - start) / 1000);
+        }
+        long allocatedAfter = allocatedBytes();
+        long allocatedPerCall = allocatedBefore < 0 || allocatedAfter < 0
+                ? -1
+                : (allocatedAfter - allocatedBefore) / MEASURED_ITERATIONS;
+
+        CountDownLatch burst = new CountDownLatch(MEASURED_ITERATIONS);
+        long burstStart = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.invoke(client, burst::countDown, burst::countDown);
+        }
+        burst.await(CALL_TIMEOUT_SECONDS * MEASURED_ITERATIONS, TimeUnit.SECONDS);
+        double seconds = (System.nanoTime() - burstStart) / 1e9;
+
+        LatencyHistogram.Snapshot snapshot = latency.snapshot();
+        report.append(String.format(Locale.US,
+                "%-26s p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms errors=%d throughput=%.1f/s alloc=%s%n",
+                name,
+                snapshot.getPercentileMicros(50) / 1000.0,
+                snapshot.getPercentileMicros(90) / 1000.0,
+                snapshot.getPercentileMicros(99) / 1000.0,
+                snapshot.getMaxMicros() / 1000.0,
+                errors.get(),
+                MEASURED_ITERATIONS / seconds,
+                allocatedPerCall >= 0 ? allocatedPerCall + "B/call" : "n/a"));
+    }
+
+    private static void invokeAndWait(SolanaClient client, Operation operation, AtomicInteger errors)
+            throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(1);
+        operation.invoke(client, done::countDown, () -> {
+            errors.incrementAndGet();
+            done.countDown();
+        });
+        done.await(CALL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Bytes allocated by the whole runtime so far; the client's work runs on its own executor
+     * thread, so per-thread counters would miss it. Returns -1 when ART does not report it.
+     */
+    private static long allocatedBytes() {
+        try {
+            return Long.parseLong(Debug.getRuntimeStat("art.gc.bytes-allocated"));
+        } catch (Exception e) {
+            return -1;
+        }
+    }
+
+    /**
+     * A one-payout USDC transfer to simulate; the stub does not decode it
+     */
+    private static byte[] buildPayout(SolanaClient client) throws Exception {
+        return new PayoutTransactionBuilder(WALLET, client.getTokenRegistry().getUsdc())
+                .setRecentBlockhash(BLOCKHASH)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT, 25_000_000L, "benchmark"))
+                .build()
+                .get(0)
+                .serialize();
+    }
+
+    private static void settle(CompletableFuture<?> call, Runnable ok, Runnable err) {
+        call.whenComplete((result, error) -> {
+            if (error == null) {
+                ok.run();
+            } else {
+                err.run();
+            }
+        });
+    }
+
+    private static SolanaClient.BalanceCallback balanceCallback(Runnable ok, Runnable err) {
+        return new SolanaClient.BalanceCallback() {
+            @Override
+            public void onSuccess(long lamports, long usdcMicros) {
+                ok.run();
+            }
+
+            @Override
+            public void onError(String error) {
+                err.run();
+            }
+        };
+    }
+
+    private static SolanaClient.TransactionCallback transactionCallback(Runnable ok, Runnable err) {
+        return new SolanaClient.TransactionCallback() {
+            @Override
+            public void onSuccess(String signature) {
+                ok.run();
+            }
+
+            @Override
+            public void onError(String error) {
+                err.run();
+            }
+        };
+    }
+}
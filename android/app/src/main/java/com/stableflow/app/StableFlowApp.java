@@ -4,6 +4,7 @@ import android.app.Application;
 import android.content.Context;
 
 import com.google.firebase.FirebaseApp;
+import com.stableflow.app.data.solana.SolanaManager;
 import com.stableflow.app.util.LocaleHelper;
 
 /**
@@ -24,5 +25,8 @@ public class StableFlowApp extends Application {
 
         // Initialize Firebase
         FirebaseApp.initializeApp(this);
+
+        // Give the Solana layer access to local storage
+        SolanaManager.getInstance().init(this);
     }
 }
@@ -1,5 +1,8 @@
 package com.stableflow.app.data.model;
 
+import com.google.firebase.database.Exclude;
+import com.stableflow.app.util.TokenAmount;
+
 import java.io.Serializable;
 
 /**
@@ -26,6 +29,7 @@ public class ExpenseRequest implements Serializable {
     private String txExplorerUrl;
     private String paidAt;
     private String payerAddress;
+    private String reconciliationStatus;
     private Double latitude;
     private Double longitude;
     private String locationAddress;
@@ -88,6 +92,19 @@ public class ExpenseRequest implements Serializable {
         this.amount = amount;
     }
 
+    /**
+     * Amount in micro-USDC; the stored field stays a decimal so existing records still load
+     */
+    @Exclude
+    public long getAmountMicros() {
+        return TokenAmount.fromDecimal(amount, TokenAmount.USDC_DECIMALS);
+    }
+
+    @Exclude
+    public void setAmountMicros(long amountMicros) {
+        this.amount = TokenAmount.toDecimal(amountMicros, TokenAmount.USDC_DECIMALS);
+    }
+
     public String getCurrency() {
         return currency;
     }
@@ -192,6 +209,14 @@ public class ExpenseRequest implements Serializable {
         this.payerAddress = payerAddress;
     }
 
+    public String getReconciliationStatus() {
+        return reconciliationStatus;
+    }
+
+    public void setReconciliationStatus(String reconciliationStatus) {
+        this.reconciliationStatus = reconciliationStatus;
+    }
+
     public Double getLatitude() {
         return latitude;
     }
@@ -233,6 +258,18 @@ public class ExpenseRequest implements Serializable {
         return "REJECTED".equals(status);
     }
 
+    public boolean hasPayoutMismatch() {
+        return "AMOUNT_MISMATCH".equals(reconciliationStatus);
+    }
+
+    public boolean hasUnmatchedPayout() {
+        return "UNMATCHED".equals(reconciliationStatus);
+    }
+
+    public boolean hasUnconfirmedPayout() {
+        return "AMOUNT_ONLY".equals(reconciliationStatus);
+    }
+
     public String getStatusLabel() {
         switch (status) {
             case "PENDING":
@@ -0,0 +1,135 @@
+package com.stableflow.app.data.model;
+
+import java.util.Arrays;
+
+/**
+ * ExpenseTotals
+ * Immutable snapshot of claim counts and micro-USDC sums per status and per category.
+ * Statuses and categories are indexed by their position in STATUSES and CATEGORIES.
+ */
+public final class ExpenseTotals {
+
+    public static final String[] STATUSES = {
+            "PENDING", "UNDER_REVIEW", "APPROVED", "PAID", "REJECTED", "CANCELLED"
+    };
+
+    public static final String[] CATEGORIES = {
+            "TRAVEL", "MEALS", "SUPPLIES", "EQUIPMENT", "SOFTWARE", "TRAINING", "ENTERTAINMENT", "UTILITIES",
+            "OTHER"
+    };
+
+    // Claims without a known category are counted here
+    public static final int CATEGORY_OTHER = CATEGORIES.length - 1;
+
+    public static final ExpenseTotals EMPTY = new ExpenseTotals(new int[STATUSES.length],
+            new long[STATUSES.length], new int[CATEGORIES.length], new long[CATEGORIES.length], 0, 0);
+
+    private final int[] statusCounts;
+    private final long[] statusAmounts;
+    private final int[] categoryCounts;
+    private final long[] categoryAmounts;
+    private final int totalCount;
+    private final long totalAmount;
+
+    /**
+     * Takes ownership of the arrays
+     */
+    public ExpenseTotals(int[] statusCounts, long[] statusAmounts, int[] categoryCounts, long[] categoryAmounts,
+            int totalCount, long totalAmount) {
+        this.statusCounts = statusCounts;
+        this.statusAmounts = statusAmounts;
+        this.categoryCounts = categoryCounts;
+        this.categoryAmounts = categoryAmounts;
+        this.totalCount = totalCount;
+        this.totalAmount = totalAmount;
+    }
+
+    /**
+     * Index into STATUSES, or -1 for a missing or unknown status
+     */
+    public static int statusIndex(String status) {
+        if (status == null)
+            return -1;
+        for (int i = 0; i < STATUSES.length; i++) {
+            if (STATUSES[i].equals(status))
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Index into CATEGORIES; missing or unknown categories map to OTHER
+     */
+    public static int categoryIndex(String category) {
+        if (category == null)
+            return CATEGORY_OTHER;
+        for (int i = 0; i < CATEGORIES.length; i++) {
+            if (CATEGORIES[i].equals(category))
+                return i;
+        }
+        return CATEGORY_OTHER;
+    }
+
+    public int getCount(String status) {
+        int index = statusIndex(status);
+        return index >= 0 ? statusCounts[index] : 0;
+    }
+
+    /**
+     * Sum in micro-USDC of claims with the status
+     */
+    public long getAmount(String status) {
+        int index = statusIndex(status);
+        return index >= 0 ? statusAmounts[index] : 0;
+    }
+
+    public int getCategoryCount(int category) {
+        return categoryCounts[category];
+    }
+
+    public long getCategoryAmount(int category) {
+        return categoryAmounts[category];
+    }
+
+    /**
+     * Claims awaiting a decision, PENDING or UNDER_REVIEW
+     */
+    public int getPendingCount() {
+        return getCount("PENDING") + getCount("UNDER_REVIEW");
+    }
+
+    public long getPendingAmount() {
+        return getAmount("PENDING") + getAmount("UNDER_REVIEW");
+    }
+
+    /**
+     * All claims, whatever their status
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+    public long getTotalAmount() {
+        return totalAmount;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ExpenseTotals))
+            return false;
+        ExpenseTotals other = (ExpenseTotals) o;
+        return totalCount == other.totalCount
+                && totalAmount == other.totalAmount
+                && Arrays.equals(statusCounts, other.statusCounts)
+                && Arrays.equals(statusAmounts, other.statusAmounts)
+                && Arrays.equals(categoryCounts, other.categoryCounts)
+                && Arrays.equals(categoryAmounts, other.categoryAmounts);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(statusCounts) + Long.hashCode(totalAmount);
+    }
+}
@@ -0,0 +1,159 @@
+package com.stableflow.app.data.model;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * TurnaroundStats
+ * Immutable snapshot of approval turnaround percentiles: review time, from submission until a
+ * claim is approved or rejected, and payout time, from approval until it is paid. Given overall,
+ * per category (indexed like ExpenseTotals.CATEGORIES) and per approver.
+ */
+public final class TurnaroundStats {
+
+    /**
+     * p50, p90 and p99 of one group of durations, in milliseconds
+     */
+    public static final class Percentiles {
+
+        public static final Percentiles EMPTY = new Percentiles(0, 0, 0, 0);
+
+        private final long count;
+        private final long p50;
+        private final long p90;
+        private final long p99;
+
+        public Percentiles(long count, long p50, long p90, long p99) {
+            this.count = count;
+            this.p50 = p50;
+            this.p90 = p90;
+            this.p99 = p99;
+        }
+
+        /**
+         * Durations in the group; the percentiles are meaningless when zero
+         */
+        public long getCount() {
+            return count;
+        }
+
+        public long getP50() {
+            return p50;
+        }
+
+        public long getP90() {
+            return p90;
+        }
+
+        public long getP99() {
+            return p99;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o)
+                return true;
+            if (!(o instanceof Percentiles))
+                return false;
+            Percentiles other = (Percentiles) o;
+            return count == other.count && p50 == other.p50 && p90 == other.p90 && p99 == other.p99;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(count) * 31 + Long.hashCode(p50);
+        }
+    }
+
+    public static final TurnaroundStats EMPTY = new TurnaroundStats(Percentiles.EMPTY, Percentiles.EMPTY,
+            emptyByCategory(), emptyByCategory(), Collections.<String, Percentiles>emptyMap(),
+            Collections.<String, Percentiles>emptyMap());
+
+    private final Percentiles review;
+    private final Percentiles payout;
+    private final Percentiles[] reviewByCategory;
+    private final Percentiles[] payoutByCategory;
+    private final Map<String, Percentiles> reviewByApprover;
+    private final Map<String, Percentiles> payoutByApprover;
+
+    /**
+     * Takes ownership of the arrays and maps
+     */
+    public TurnaroundStats(Percentiles review, Percentiles payout, Percentiles[] reviewByCategory,
+            Percentiles[] payoutByCategory, Map<String, Percentiles> reviewByApprover,
+            Map<String, Percentiles> payoutByApprover) {
+        this.review = review;
+        this.payout = payout;
+        this.reviewByCategory = reviewByCategory;
+        this.payoutByCategory = payoutByCategory;
+        this.reviewByApprover = Collections.unmodifiableMap(reviewByApprover);
+        this.payoutByApprover = Collections.unmodifiableMap(payoutByApprover);
+    }
+
+    private static Percentiles[] emptyByCategory() {
+        Percentiles[] empty = new Percentiles[ExpenseTotals.CATEGORIES.length];
+        Arrays.fill(empty, Percentiles.EMPTY);
+        return empty;
+    }
+
+    /**
+     * Time from submission until approval or rejection, across all claims
+     */
+    public Percentiles getReview() {
+        return review;
+    }
+
+    /**
+     * Time from approval until payment, across all claims
+     */
+    public Percentiles getPayout() {
+        return payout;
+    }
+
+    public Percentiles getReviewByCategory(int category) {
+        return reviewByCategory[category];
+    }
+
+    public Percentiles getPayoutByCategory(int category) {
+        return payoutByCategory[category];
+    }
+
+    /**
+     * Approvers with at least one reviewed claim, in name order
+     */
+    public Set<String> getApprovers() {
+        return reviewByApprover.keySet();
+    }
+
+    public Percentiles getReviewByApprover(String approver) {
+        Percentiles percentiles = reviewByApprover.get(approver);
+        return percentiles != null ? percentiles : Percentiles.EMPTY;
+    }
+
+    public Percentiles getPayoutByApprover(String approver) {
+        Percentiles percentiles = payoutByApprover.get(approver);
+        return percentiles != null ? percentiles : Percentiles.EMPTY;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof TurnaroundStats))
+            return false;
+        TurnaroundStats other = (TurnaroundStats) o;
+        return review.equals(other.review)
+                && payout.equals(other.payout)
+                && Arrays.equals(reviewByCategory, other.reviewByCategory)
+                && Arrays.equals(payoutByCategory, other.payoutByCategory)
+                && reviewByApprover.equals(other.reviewByApprover)
+                && payoutByApprover.equals(other.payoutByApprover);
+    }
+
+    @Override
+    public int hashCode() {
+        return review.hashCode() * 31 + payout.hashCode();
+    }
+}
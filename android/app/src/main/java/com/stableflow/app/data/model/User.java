@@ -1,5 +1,8 @@
 package com.stableflow.app.data.model;
 
+import com.google.firebase.database.Exclude;
+import com.stableflow.app.util.TokenAmount;
+
 import java.io.Serializable;
 
 /**
@@ -76,6 +79,14 @@ public class User implements Serializable {
         this.balance = balance;
     }
 
+    /**
+     * Balance in micro-USDC
+     */
+    @Exclude
+    public long getBalanceMicros() {
+        return TokenAmount.fromDecimal(balance, TokenAmount.USDC_DECIMALS);
+    }
+
     public String getWalletAddress() {
         return walletAddress;
     }
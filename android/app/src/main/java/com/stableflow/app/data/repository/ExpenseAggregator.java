@@ -0,0 +1,133 @@
+package com.stableflow.app.data.repository;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.model.ExpenseTotals;
+import com.stableflow.app.data.model.TurnaroundStats;
+
+import java.util.Arrays;
+
+/**
+ * ExpenseAggregator
+ * Running claim statistics fed by expense deltas: counts and sums per status and category,
+ * spend per category and month in a SpendCube, and approval turnaround in a TurnaroundTracker.
+ * A change takes back the claim's old contribution and adds the new one, so each update costs
+ * the same however many claims there are. Plain Java with no threading of its own; confine an
+ * instance to one thread. ExpenseStatsPublisher runs the app's shared instance.
+ */
+public class ExpenseAggregator implements FirebaseRepository.ExpenseDeltaListener {
+
+    // PENDING through PAID in ExpenseTotals.STATUSES count as spend
+    private static final int STATUS_PAID = ExpenseTotals.statusIndex("PAID");
+
+    // Running totals
+    private final int[] statusCounts = new int[ExpenseTotals.STATUSES.length];
+    private final long[] statusAmounts = new long[ExpenseTotals.STATUSES.length];
+    private final int[] categoryCounts = new int[ExpenseTotals.CATEGORIES.length];
+    private final long[] categoryAmounts = new long[ExpenseTotals.CATEGORIES.length];
+    private int totalCount;
+    private long totalAmount;
+    private final SpendCube spendCube = new SpendCube();
+    private final TurnaroundTracker turnaroundTracker = new TurnaroundTracker();
+    // Bumped whenever the spend cube or turnaround sketches change, so readers can skip
+    // rebuilding snapshots that would be the same
+    private long spendVersion;
+    private long turnaroundVersion;
+
+    // ==================
+    // DELTAS
+    // ==================
+
+    @Override
+    public void onExpenseAdded(ExpenseRequest expense) {
+        apply(expense, 1);
+    }
+
+    @Override
+    public void onExpenseChanged(ExpenseRequest previous, ExpenseRequest current) {
+        apply(previous, -1);
+        apply(current, 1);
+    }
+
+    @Override
+    public void onExpenseRemoved(ExpenseRequest expense) {
+        apply(expense, -1);
+    }
+
+    @Override
+    public void onExpensesReset() {
+        Arrays.fill(statusCounts, 0);
+        Arrays.fill(statusAmounts, 0);
+        Arrays.fill(categoryCounts, 0);
+        Arrays.fill(categoryAmounts, 0);
+        totalCount = 0;
+        totalAmount = 0;
+        spendCube.clear();
+        spendVersion++;
+        turnaroundTracker.clear();
+        turnaroundVersion++;
+    }
+
+    /**
+     * Add (sign 1) or take back (sign -1) one claim's contribution
+     */
+    private void apply(ExpenseRequest expense, int sign) {
+        long amount = sign * expense.getAmountMicros();
+        int status = ExpenseTotals.statusIndex(expense.getStatus());
+        if (status >= 0) {
+            statusCounts[status] += sign;
+            statusAmounts[status] += amount;
+        }
+        int category = ExpenseTotals.categoryIndex(expense.getCategory());
+        categoryCounts[category] += sign;
+        categoryAmounts[category] += amount;
+        totalCount += sign;
+        totalAmount += amount;
+
+        // Spend leaves out claims that were rejected or cancelled
+        if (isSpend(status)) {
+            int month = SpendCube.monthKey(expense.getSubmittedAt());
+            if (month >= 0) {
+                spendCube.add(category, month, amount);
+                spendVersion++;
+            }
+        }
+
+        if (turnaroundTracker.apply(expense, category, sign)) {
+            turnaroundVersion++;
+        }
+    }
+
+    private static boolean isSpend(int status) {
+        return status >= 0 && status <= STATUS_PAID;
+    }
+
+    /**
+     * Current running totals
+     */
+    public ExpenseTotals snapshot() {
+        return new ExpenseTotals(statusCounts.clone(), statusAmounts.clone(), categoryCounts.clone(),
+                categoryAmounts.clone(), totalCount, totalAmount);
+    }
+
+    /**
+     * Current turnaround percentiles
+     */
+    public TurnaroundStats turnaroundSnapshot() {
+        return turnaroundTracker.snapshot();
+    }
+
+    /**
+     * Current spend cube
+     */
+    public SpendCube.Snapshot spendSnapshot() {
+        return spendCube.snapshot();
+    }
+
+    public long getSpendVersion() {
+        return spendVersion;
+    }
+
+    public long getTurnaroundVersion() {
+        return turnaroundVersion;
+    }
+}
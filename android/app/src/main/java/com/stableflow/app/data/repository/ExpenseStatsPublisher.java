@@ -0,0 +1,119 @@
+package com.stableflow.app.data.repository;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.model.ExpenseTotals;
+import com.stableflow.app.data.model.TurnaroundStats;
+
+/**
+ * ExpenseStatsPublisher
+ * The one place claim statistics are computed for the app. Feeds the repository's expense
+ * deltas into a shared ExpenseAggregator and publishes its totals, spend and turnaround as
+ * LiveData, so the dashboard and analytics read the same numbers and no screen scans claims on
+ * its own. Deltas and publishing both run on the main thread, so the aggregator is only ever
+ * touched there.
+ */
+public class ExpenseStatsPublisher implements FirebaseRepository.ExpenseDeltaListener {
+
+    private static ExpenseStatsPublisher instance;
+
+    private final ExpenseAggregator aggregator = new ExpenseAggregator();
+    private final MutableLiveData<ExpenseTotals> totals = new MutableLiveData<>(ExpenseTotals.EMPTY);
+    private final MutableLiveData<SpendCube.Snapshot> spend = new MutableLiveData<>(SpendCube.Snapshot.EMPTY);
+    private final MutableLiveData<TurnaroundStats> turnaround = new MutableLiveData<>(TurnaroundStats.EMPTY);
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private boolean publishPending = false;
+    private long publishedSpendVersion;
+    private long publishedTurnaroundVersion;
+
+    private ExpenseStatsPublisher() {
+    }
+
+    public static synchronized ExpenseStatsPublisher getInstance() {
+        if (instance == null) {
+            instance = new ExpenseStatsPublisher();
+            FirebaseRepository.getInstance().addExpenseDeltaListener(instance);
+        }
+        return instance;
+    }
+
+    public LiveData<ExpenseTotals> getTotals() {
+        return totals;
+    }
+
+    /**
+     * Spend per category and month submitted, with prefix sums for range totals
+     */
+    public LiveData<SpendCube.Snapshot> getSpend() {
+        return spend;
+    }
+
+    /**
+     * Review and payout time percentiles, overall, per category and per approver
+     */
+    public LiveData<TurnaroundStats> getTurnaround() {
+        return turnaround;
+    }
+
+    // ==================
+    // DELTAS
+    // ==================
+
+    @Override
+    public void onExpenseAdded(ExpenseRequest expense) {
+        aggregator.onExpenseAdded(expense);
+        schedulePublish();
+    }
+
+    @Override
+    public void onExpenseChanged(ExpenseRequest previous, ExpenseRequest current) {
+        aggregator.onExpenseChanged(previous, current);
+        schedulePublish();
+    }
+
+    @Override
+    public void onExpenseRemoved(ExpenseRequest expense) {
+        aggregator.onExpenseRemoved(expense);
+        schedulePublish();
+    }
+
+    @Override
+    public void onExpensesReset() {
+        aggregator.onExpensesReset();
+        schedulePublish();
+    }
+
+    // ==================
+    // PUBLISHING
+    // ==================
+
+    /**
+     * Deltas arrive in bursts, one per claim on the initial load; observers see one update
+     * per burst, and the spend prefix sums are rebuilt once per burst rather than per delta
+     */
+    private void schedulePublish() {
+        if (publishPending)
+            return;
+        publishPending = true;
+        mainHandler.post(() -> {
+            publishPending = false;
+            ExpenseTotals snapshot = aggregator.snapshot();
+            if (!snapshot.equals(totals.getValue())) {
+                totals.setValue(snapshot);
+            }
+            if (aggregator.getSpendVersion() != publishedSpendVersion) {
+                publishedSpendVersion = aggregator.getSpendVersion();
+                spend.setValue(aggregator.spendSnapshot());
+            }
+            if (aggregator.getTurnaroundVersion() != publishedTurnaroundVersion) {
+                publishedTurnaroundVersion = aggregator.getTurnaroundVersion();
+                turnaround.setValue(aggregator.turnaroundSnapshot());
+            }
+        });
+    }
+}
@@ -9,6 +9,7 @@ import androidx.lifecycle.MutableLiveData;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.database.ChildEventListener;
 import com.google.firebase.database.DataSnapshot;
 import com.google.firebase.database.DatabaseError;
 import com.google.firebase.database.DatabaseReference;
@@ -18,10 +19,14 @@ import com.google.firebase.storage.FirebaseStorage;
 import com.google.firebase.storage.StorageReference;
 import com.stableflow.app.data.model.ExpenseRequest;
 import com.stableflow.app.data.model.User;
+import com.stableflow.app.util.TokenAmount;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Firebase Repository
@@ -39,9 +44,15 @@ public class FirebaseRepository {
 
     private final MutableLiveData<User> currentUser = new MutableLiveData<>();
     private final MutableLiveData<List<ExpenseRequest>> expenses = new MutableLiveData<>(new ArrayList<>());
-    private final MutableLiveData<Double> balance = new MutableLiveData<>(0.0);
+    // Micro-USDC
+    private final MutableLiveData<Long> balance = new MutableLiveData<>(0L);
 
     private ValueEventListener expensesListener;
+    private String expensesUserId;
+    private ChildEventListener expenseDeltasListener;
+    // The user's claims by id as last reported to delta listeners, main thread only
+    private final Map<String, ExpenseRequest> deltaExpenses = new HashMap<>();
+    private final List<ExpenseDeltaListener> deltaListeners = new CopyOnWriteArrayList<>();
     private ValueEventListener balanceListener;
     private ValueEventListener userListener;
 
@@ -113,7 +124,8 @@ public class FirebaseRepository {
         auth.signOut();
         currentUser.setValue(null);
         expenses.setValue(new ArrayList<>());
-        balance.setValue(0.0);
+        resetExpenseDeltas();
+        balance.setValue(0L);
     }
 
     public FirebaseUser getCurrentAuthUser() {
@@ -196,7 +208,10 @@ public class FirebaseRepository {
         return currentUser;
     }
 
-    public LiveData<Double> getBalanceLiveData() {
+    /**
+     * Wallet balance in micro-USDC
+     */
+    public LiveData<Long> getBalanceLiveData() {
         return balance;
     }
 
@@ -211,14 +226,7 @@ public class FirebaseRepository {
         userListener = new ValueEventListener() {
             @Override
             public void onDataChange(@NonNull DataSnapshot snapshot) {
-                if (snapshot.exists()) {
-                    User user = snapshot.getValue(User.class);
-                    if (user != null) {
-                        user.setUid(userId);
-                        currentUser.setValue(user);
-                        balance.setValue(user.getBalance());
-                    }
-                }
+                applyUserSnapshot(userId, snapshot);
             }
 
             @Override
@@ -230,6 +238,40 @@ public class FirebaseRepository {
         userRef.addValueEventListener(userListener);
     }
 
+    /**
+     * Read the profile once and report when it has been applied, e.g. for pull-to-refresh
+     */
+    public void refreshUserData(String userId, OperationCallback callback) {
+        database.getReference("users").child(userId)
+                .addListenerForSingleValueEvent(new ValueEventListener() {
+                    @Override
+                    public void onDataChange(@NonNull DataSnapshot snapshot) {
+                        applyUserSnapshot(userId, snapshot);
+                        callback.onSuccess();
+                    }
+
+                    @Override
+                    public void onCancelled(@NonNull DatabaseError error) {
+                        callback.onError(error.getMessage());
+                    }
+                });
+    }
+
+    private void applyUserSnapshot(String userId, DataSnapshot snapshot) {
+        if (snapshot.exists()) {
+            User user = snapshot.getValue(User.class);
+            if (user != null) {
+                user.setUid(userId);
+                currentUser.setValue(user);
+                long balanceMicros = user.getBalanceMicros();
+                Long current = balance.getValue();
+                if (current == null || current != balanceMicros) {
+                    balance.setValue(balanceMicros);
+                }
+            }
+        }
+    }
+
     public void updateWalletAddress(String walletAddress, OperationCallback callback) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
@@ -253,7 +295,10 @@ public class FirebaseRepository {
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
-    public void updateBalance(double newBalance, OperationCallback callback) {
+    /**
+     * Store the wallet balance, given in micro-USDC. Firebase keeps it as a decimal.
+     */
+    public void updateBalance(long balanceMicros, OperationCallback callback) {
         FirebaseUser user = auth.getCurrentUser();
         if (user == null) {
             callback.onError("Pengguna tidak terautentikasi");
@@ -263,9 +308,9 @@ public class FirebaseRepository {
         database.getReference("users")
                 .child(user.getUid())
                 .child("balance")
-                .setValue(newBalance)
+                .setValue(TokenAmount.toDecimal(balanceMicros, TokenAmount.USDC_DECIMALS))
                 .addOnSuccessListener(aVoid -> {
-                    balance.setValue(newBalance);
+                    balance.setValue(balanceMicros);
                     callback.onSuccess();
                 })
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
@@ -293,10 +338,35 @@ public class FirebaseRepository {
         void onError(String error);
     }
 
+    /**
+     * Receives the current user's claims one change at a time, on the main thread. Each
+     * change carries the claim as it was before, so its old contribution can be taken back.
+     */
+    public interface ExpenseDeltaListener {
+        void onExpenseAdded(ExpenseRequest expense);
+
+        void onExpenseChanged(ExpenseRequest previous, ExpenseRequest current);
+
+        void onExpenseRemoved(ExpenseRequest expense);
+
+        /**
+         * Everything reported so far is void, e.g. on logout or when the claims are reloaded
+         */
+        void onExpensesReset();
+    }
+
     public LiveData<List<ExpenseRequest>> getExpensesLiveData() {
         return expenses;
     }
 
+    public void addExpenseDeltaListener(ExpenseDeltaListener listener) {
+        deltaListeners.add(listener);
+    }
+
+    public void removeExpenseDeltaListener(ExpenseDeltaListener listener) {
+        deltaListeners.remove(listener);
+    }
+
     public void getExpenseById(String expenseId, ExpenseCallback callback) {
         database.getReference("expenses")
                 .child(expenseId)
@@ -323,8 +393,16 @@ public class FirebaseRepository {
                 });
     }
 
+    /**
+     * Subscribe to the user's claims. Listeners stay live, so a second call for the same user
+     * keeps the existing subscription rather than replaying every claim to the delta listeners.
+     */
     public void loadUserExpenses(String userId) {
+        if (expensesListener != null && userId.equals(expensesUserId))
+            return;
+
         DatabaseReference expensesRef = database.getReference("expenses");
+        expensesUserId = userId;
 
         // Remove existing listener
         if (expensesListener != null) {
@@ -364,6 +442,72 @@ public class FirebaseRepository {
         };
 
         expensesRef.addValueEventListener(expensesListener);
+        listenForExpenseDeltas(expensesRef, userId);
+    }
+
+    /**
+     * Child events on the same location as the list listener. Firebase raises them before the
+     * value event for the same update, so deltas are applied by the time the list is emitted.
+     */
+    private void listenForExpenseDeltas(DatabaseReference expensesRef, String userId) {
+        if (expenseDeltasListener != null) {
+            expensesRef.removeEventListener(expenseDeltasListener);
+        }
+        resetExpenseDeltas();
+
+        expenseDeltasListener = new ChildEventListener() {
+            @Override
+            public void onChildAdded(@NonNull DataSnapshot snapshot, String previousChildName) {
+                onChildChanged(snapshot, previousChildName);
+            }
+
+            @Override
+            public void onChildChanged(@NonNull DataSnapshot snapshot, String previousChildName) {
+                ExpenseRequest current = snapshot.getValue(ExpenseRequest.class);
+                if (current != null && userId.equals(current.getUserId())) {
+                    current.setId(snapshot.getKey());
+                    ExpenseRequest previous = deltaExpenses.put(snapshot.getKey(), current);
+                    for (ExpenseDeltaListener listener : deltaListeners) {
+                        if (previous == null) {
+                            listener.onExpenseAdded(current);
+                        } else {
+                            listener.onExpenseChanged(previous, current);
+                        }
+                    }
+                } else {
+                    onChildRemoved(snapshot);
+                }
+            }
+
+            @Override
+            public void onChildRemoved(@NonNull DataSnapshot snapshot) {
+                ExpenseRequest previous = deltaExpenses.remove(snapshot.getKey());
+                if (previous == null)
+                    return; // Not one of the user's claims
+                for (ExpenseDeltaListener listener : deltaListeners) {
+                    listener.onExpenseRemoved(previous);
+                }
+            }
+
+            @Override
+            public void onChildMoved(@NonNull DataSnapshot snapshot, String previousChildName) {
+                // Order does not matter to totals
+            }
+
+            @Override
+            public void onCancelled(@NonNull DatabaseError error) {
+                Log.e(TAG, "Expense deltas cancelled: " + error.getMessage());
+            }
+        };
+
+        expensesRef.addChildEventListener(expenseDeltasListener);
+    }
+
+    private void resetExpenseDeltas() {
+        deltaExpenses.clear();
+        for (ExpenseDeltaListener listener : deltaListeners) {
+            listener.onExpensesReset();
+        }
     }
 
     public void submitExpense(ExpenseRequest expense, SubmitCallback callback) {
@@ -394,6 +538,17 @@ public class FirebaseRepository {
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
+    /**
+     * Update selected fields of an expense without touching the rest of the record
+     */
+    public void updateExpenseFields(String expenseId, Map<String, Object> fields, SimpleCallback callback) {
+        database.getReference("expenses")
+                .child(expenseId)
+                .updateChildren(fields)
+                .addOnSuccessListener(aVoid -> callback.onSuccess())
+                .addOnFailureListener(e -> callback.onError(e.getMessage()));
+    }
+
     public interface SimpleCallback {
         void onSuccess();
 
@@ -435,54 +590,6 @@ public class FirebaseRepository {
                 .addOnFailureListener(e -> callback.onError(e.getMessage()));
     }
 
-    // ==================
-    // STATISTICS
-    // ==================
-
-    public interface StatsCallback {
-        void onResult(int pending, int approved, int paid, int rejected, double totalAmount);
-    }
-
-    public void getUserExpenseStats(String userId, StatsCallback callback) {
-        database.getReference("expenses")
-                .addListenerForSingleValueEvent(new ValueEventListener() {
-                    @Override
-                    public void onDataChange(@NonNull DataSnapshot snapshot) {
-                        int pending = 0, approved = 0, paid = 0, rejected = 0;
-                        double totalAmount = 0;
-
-                        for (DataSnapshot child : snapshot.getChildren()) {
-                            ExpenseRequest expense = child.getValue(ExpenseRequest.class);
-                            if (expense != null && userId.equals(expense.getUserId())) {
-                                switch (expense.getStatus()) {
-                                    case "PENDING":
-                                    case "UNDER_REVIEW":
-                                        pending++;
-                                        break;
-                                    case "APPROVED":
-                                        approved++;
-                                        break;
-                                    case "PAID":
-                                        paid++;
-                                        totalAmount += expense.getAmount();
-                                        break;
-                                    case "REJECTED":
-                                        rejected++;
-                                        break;
-                                }
-                            }
-                        }
-
-                        callback.onResult(pending, approved, paid, rejected, totalAmount);
-                    }
-
-                    @Override
-                    public void onCancelled(@NonNull DatabaseError error) {
-                        callback.onResult(0, 0, 0, 0, 0);
-                    }
-                });
-    }
-
     // ==================
     // CLEANUP
     // ==================
@@ -492,6 +599,12 @@ public class FirebaseRepository {
         if (user != null) {
             if (expensesListener != null) {
                 database.getReference("expenses").removeEventListener(expensesListener);
+                expensesListener = null;
+                expensesUserId = null;
+            }
+            if (expenseDeltasListener != null) {
+                database.getReference("expenses").removeEventListener(expenseDeltasListener);
+                expenseDeltasListener = null;
             }
             if (userListener != null) {
                 database.getReference("users").child(user.getUid()).removeEventListener(userListener);
@@ -0,0 +1,173 @@
+package com.stableflow.app.data.repository;
+
+import com.stableflow.app.data.model.ExpenseTotals;
+
+/**
+ * SpendCube
+ * Micro-USDC spend per category per calendar month, in primitive arrays indexed by category
+ * (ExpenseTotals.CATEGORIES) and month. Cells are updated in place as claims change; a
+ * Snapshot adds prefix sums over the months, so the spend of any month range is answered in
+ * O(categories) without looking at claims again.
+ */
+public class SpendCube {
+
+    private static final int INITIAL_MONTHS = 12;
+
+    // cells[category][month - firstMonth]; months are keys from monthKey()
+    private long[][] cells = new long[ExpenseTotals.CATEGORIES.length][0];
+    private int firstMonth;
+    private int months;
+
+    /**
+     * Month key of an ISO date such as 2025-03-14T09:30:00, or -1 if it cannot be read
+     */
+    public static int monthKey(String isoDate) {
+        if (isoDate == null || isoDate.length() < 7 || isoDate.charAt(4) != '-')
+            return -1;
+        try {
+            int year = Integer.parseInt(isoDate.substring(0, 4));
+            int month = Integer.parseInt(isoDate.substring(5, 7));
+            return month >= 1 && month <= 12 ? monthKey(year, month) : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Month key of a year and a 1-based month; consecutive months have consecutive keys
+     */
+    public static int monthKey(int year, int month) {
+        return year * 12 + (month - 1);
+    }
+
+    public static int yearOf(int monthKey) {
+        return monthKey / 12;
+    }
+
+    /**
+     * 1-based month of a key
+     */
+    public static int monthOf(int monthKey) {
+        return monthKey % 12 + 1;
+    }
+
+    /**
+     * Add (or with a negative amount, take back) spend in one cell
+     */
+    public void add(int category, int monthKey, long amount) {
+        ensureMonth(monthKey);
+        cells[category][monthKey - firstMonth] += amount;
+    }
+
+    public void clear() {
+        cells = new long[ExpenseTotals.CATEGORIES.length][0];
+        months = 0;
+    }
+
+    /**
+     * Immutable copy with prefix sums; O(categories x months)
+     */
+    public Snapshot snapshot() {
+        long[][] prefix = new long[cells.length][months + 1];
+        for (int category = 0; category < cells.length; category++) {
+            long[] row = cells[category];
+            long[] sums = prefix[category];
+            for (int month = 0; month < months; month++) {
+                sums[month + 1] = sums[month] + row[month];
+            }
+        }
+        return new Snapshot(firstMonth, months, prefix);
+    }
+
+    /**
+     * Widen the stored month range to cover a key, growing to either side
+     */
+    private void ensureMonth(int monthKey) {
+        if (months == 0) {
+            firstMonth = monthKey;
+            months = 1;
+            if (cells[0].length == 0) {
+                resize(INITIAL_MONTHS, 0);
+            }
+            return;
+        }
+
+        int capacity = cells[0].length;
+        if (monthKey < firstMonth) {
+            int shift = firstMonth - monthKey;
+            resize(Math.max(capacity * 2, months + shift), shift);
+            firstMonth = monthKey;
+            months += shift;
+        } else if (monthKey >= firstMonth + months) {
+            int needed = monthKey - firstMonth + 1;
+            if (needed > capacity) {
+                resize(Math.max(capacity * 2, needed), 0);
+            }
+            months = needed;
+        }
+    }
+
+    private void resize(int capacity, int shift) {
+        for (int category = 0; category < cells.length; category++) {
+            long[] grown = new long[capacity];
+            System.arraycopy(cells[category], 0, grown, shift, Math.min(months, cells[category].length));
+            cells[category] = grown;
+        }
+    }
+
+    /**
+     * Spend per category per month at one point in time, with range queries
+     */
+    public static final class Snapshot {
+
+        public static final Snapshot EMPTY = new SpendCube().snapshot();
+
+        private final int firstMonth;
+        private final int months;
+        // prefix[category][i] = spend in the first i stored months
+        private final long[][] prefix;
+
+        private Snapshot(int firstMonth, int months, long[][] prefix) {
+            this.firstMonth = firstMonth;
+            this.months = months;
+            this.prefix = prefix;
+        }
+
+        public boolean isEmpty() {
+            return months == 0;
+        }
+
+        /**
+         * Spend of one category from one month key to another, both inclusive; O(1)
+         */
+        public long getTotal(int category, int fromMonth, int toMonth) {
+            int from = Math.max(fromMonth - firstMonth, 0);
+            int to = Math.min(toMonth - firstMonth + 1, months);
+            if (from >= to)
+                return 0;
+            return prefix[category][to] - prefix[category][from];
+        }
+
+        /**
+         * Spend of every category over a month range, indexed like ExpenseTotals.CATEGORIES
+         */
+        public long[] getTotalsByCategory(int fromMonth, int toMonth) {
+            long[] totals = new long[prefix.length];
+            for (int category = 0; category < prefix.length; category++) {
+                totals[category] = getTotal(category, fromMonth, toMonth);
+            }
+            return totals;
+        }
+
+        /**
+         * Spend of all categories over a month range; O(categories)
+         */
+        public long getTotal(int fromMonth, int toMonth) {
+            long total = 0;
+            for (int category = 0; category < prefix.length; category++) {
+                total += getTotal(category, fromMonth, toMonth);
+            }
+            return total;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.stableflow.app.data.repository;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.model.ExpenseTotals;
+import com.stableflow.app.data.model.TurnaroundStats;
+import com.stableflow.app.util.DDSketch;
+
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * TurnaroundTracker
+ * Running DDSketches of review time (submittedAt to processedAt) and payout time (processedAt
+ * to paidAt), per category and per approver. Claims are added and taken back as they change,
+ * so no durations are stored or sorted; overall percentiles come from merging the category
+ * sketches.
+ */
+public class TurnaroundTracker {
+
+    // Percentiles are within 1% of the true duration
+    private static final double RELATIVE_ACCURACY = 0.01;
+
+    private final DDSketch[] reviewByCategory = newSketches();
+    private final DDSketch[] payoutByCategory = newSketches();
+    private final Map<String, DDSketch> reviewByApprover = new HashMap<>();
+    private final Map<String, DDSketch> payoutByApprover = new HashMap<>();
+
+    /**
+     * Add (sign 1) or take back (sign -1) one claim's durations; returns whether it had any
+     */
+    public boolean apply(ExpenseRequest expense, int category, int sign) {
+        long processedAt = parseMillis(expense.getProcessedAt());
+        if (processedAt < 0)
+            return false;
+
+        boolean changed = false;
+        String approver = expense.getApprovedBy();
+        long submittedAt = parseMillis(expense.getSubmittedAt());
+        if (submittedAt >= 0) {
+            long review = Math.max(processedAt - submittedAt, 0);
+            record(reviewByCategory[category], reviewByApprover, approver, review, sign);
+            changed = true;
+        }
+        long paidAt = parseMillis(expense.getPaidAt());
+        if (paidAt >= 0) {
+            long payout = Math.max(paidAt - processedAt, 0);
+            record(payoutByCategory[category], payoutByApprover, approver, payout, sign);
+            changed = true;
+        }
+        return changed;
+    }
+
+    private static void record(DDSketch categorySketch, Map<String, DDSketch> byApprover, String approver,
+            long duration, int sign) {
+        if (sign > 0) {
+            categorySketch.add(duration);
+        } else {
+            categorySketch.remove(duration);
+        }
+        if (approver == null)
+            return;
+
+        DDSketch approverSketch = byApprover.get(approver);
+        if (approverSketch == null) {
+            approverSketch = new DDSketch(RELATIVE_ACCURACY);
+            byApprover.put(approver, approverSketch);
+        }
+        if (sign > 0) {
+            approverSketch.add(duration);
+        } else {
+            approverSketch.remove(duration);
+            if (approverSketch.isEmpty()) {
+                byApprover.remove(approver);
+            }
+        }
+    }
+
+    public void clear() {
+        for (int category = 0; category < reviewByCategory.length; category++) {
+            reviewByCategory[category] = new DDSketch(RELATIVE_ACCURACY);
+            payoutByCategory[category] = new DDSketch(RELATIVE_ACCURACY);
+        }
+        reviewByApprover.clear();
+        payoutByApprover.clear();
+    }
+
+    /**
+     * Percentiles of every group; O(groups x buckets), independent of the number of claims
+     */
+    public TurnaroundStats snapshot() {
+        return new TurnaroundStats(percentilesOf(merge(reviewByCategory)), percentilesOf(merge(payoutByCategory)),
+                percentilesOf(reviewByCategory), percentilesOf(payoutByCategory),
+                percentilesOf(reviewByApprover), percentilesOf(payoutByApprover));
+    }
+
+    private static DDSketch merge(DDSketch[] sketches) {
+        DDSketch merged = new DDSketch(RELATIVE_ACCURACY);
+        for (DDSketch sketch : sketches) {
+            merged.merge(sketch);
+        }
+        return merged;
+    }
+
+    private static TurnaroundStats.Percentiles percentilesOf(DDSketch sketch) {
+        if (sketch.isEmpty())
+            return TurnaroundStats.Percentiles.EMPTY;
+        return new TurnaroundStats.Percentiles(sketch.getCount(), Math.round(sketch.getQuantile(0.5)),
+                Math.round(sketch.getQuantile(0.9)), Math.round(sketch.getQuantile(0.99)));
+    }
+
+    private static TurnaroundStats.Percentiles[] percentilesOf(DDSketch[] sketches) {
+        TurnaroundStats.Percentiles[] percentiles = new TurnaroundStats.Percentiles[sketches.length];
+        for (int i = 0; i < sketches.length; i++) {
+            percentiles[i] = percentilesOf(sketches[i]);
+        }
+        return percentiles;
+    }
+
+    private static Map<String, TurnaroundStats.Percentiles> percentilesOf(Map<String, DDSketch> sketches) {
+        Map<String, TurnaroundStats.Percentiles> percentiles = new TreeMap<>();
+        for (Map.Entry<String, DDSketch> entry : sketches.entrySet()) {
+            percentiles.put(entry.getKey(), percentilesOf(entry.getValue()));
+        }
+        return percentiles;
+    }
+
+    private static DDSketch[] newSketches() {
+        DDSketch[] sketches = new DDSketch[ExpenseTotals.CATEGORIES.length];
+        for (int i = 0; i < sketches.length; i++) {
+            sketches[i] = new DDSketch(RELATIVE_ACCURACY);
+        }
+        return sketches;
+    }
+
+    /**
+     * Epoch millis of an ISO-8601 timestamp such as 2025-03-14T09:30:00.123Z, or -1. Timestamps
+     * without an offset are read as UTC. Runs on every delta, so the common forms are read by
+     * position; anything else goes through java.time.
+     */
+    static long parseMillis(String isoDate) {
+        if (isoDate == null || isoDate.length() < 19)
+            return -1;
+        int year = digits(isoDate, 0, 4);
+        int month = digits(isoDate, 5, 2);
+        int day = digits(isoDate, 8, 2);
+        int hour = digits(isoDate, 11, 2);
+        int minute = digits(isoDate, 14, 2);
+        int second = digits(isoDate, 17, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0 || second < 0
+                || isoDate.charAt(4) != '-' || isoDate.charAt(7) != '-' || isoDate.charAt(10) != 'T'
+                || isoDate.charAt(13) != ':' || isoDate.charAt(16) != ':')
+            return -1;
+
+        // Optional fraction, then end of string or Z
+        int position = 19;
+        int millis = 0;
+        if (position < isoDate.length() && isoDate.charAt(position) == '.') {
+            int scale = 100;
+            position++;
+            while (position < isoDate.length() && Character.isDigit(isoDate.charAt(position))) {
+                millis += (isoDate.charAt(position++) - '0') * scale;
+                scale /= 10;
+            }
+        }
+        boolean utc = position == isoDate.length()
+                || (position == isoDate.length() - 1 && isoDate.charAt(position) == 'Z');
+        try {
+            if (!utc)
+                return OffsetDateTime.parse(isoDate).toInstant().toEpochMilli();
+            long days = LocalDate.of(year, month, day).toEpochDay();
+            if (hour > 23 || minute > 59 || second > 59)
+                return -1;
+            return ((days * 24 + hour) * 60 + minute) * 60_000L + second * 1_000L + millis;
+        } catch (DateTimeException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Non-negative number from a run of digits, or -1
+     */
+    private static int digits(String text, int start, int length) {
+        int value = 0;
+        for (int i = start; i < start + length; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9')
+                return -1;
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+}
@@ -0,0 +1,346 @@
+package com.stableflow.app.data.solana;
+
+import android.app.Activity;
+import android.app.Application;
+import android.content.Context;
+import android.net.ConnectivityManager;
+import android.net.Network;
+import android.os.Bundle;
+import android.util.Log;
+
+import androidx.annotation.NonNull;
+
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BalancePoller
+ * Keeps wallet balances fresh without push updates. Polls only while the app is in the
+ * foreground and the network is up, faster while a wallet screen is visible or a payout is
+ * expected, and backs off while balances stay the same. Every resume polls at once.
+ */
+public class BalancePoller {
+
+    private static final String TAG = "BalancePoller";
+
+    // Base interval per visibility level; doubled while nothing changes, up to the max
+    private static final long WALLET_VISIBLE_INTERVAL_MS = 15_000;
+    private static final long WALLET_VISIBLE_MAX_INTERVAL_MS = 120_000;
+    private static final long FOREGROUND_INTERVAL_MS = 60_000;
+    private static final long FOREGROUND_MAX_INTERVAL_MS = 300_000;
+
+    // While a payout is on its way the interval stays short until it lands or the window ends
+    private static final long PAYOUT_EXPECTED_INTERVAL_MS = 5_000;
+    private static final long PAYOUT_EXPECTED_WINDOW_MS = 5 * 60_000;
+
+    // Stop-to-start gap tolerated before the app counts as backgrounded (covers rotation)
+    private static final long BACKGROUND_DELAY_MS = 1_000;
+
+    /**
+     * Starts a balance read, or returns null when there is no wallet to read
+     */
+    public interface BalanceSource {
+        CompletableFuture<WalletBalances> poll();
+    }
+
+    /**
+     * Receives each poll result that differs from the previous one
+     */
+    public interface ChangeListener {
+        void onBalancesChanged(WalletBalances balances);
+    }
+
+    private final BalanceSource source;
+    private final ChangeListener listener;
+
+    // All poller state is confined to this thread
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private int startedActivities = 0;
+    private int visibleWalletScreens = 0;
+    private boolean foreground = false;
+    private boolean networkAvailable = true;
+    private long payoutExpectedUntil = 0;
+
+    private ScheduledFuture<?> pendingPoll;
+    private ScheduledFuture<?> pendingBackground;
+    private CompletableFuture<WalletBalances> pollInFlight;
+    private long pollIntervalMs = FOREGROUND_INTERVAL_MS;
+    private WalletBalances lastBalances;
+
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong changeCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    public BalancePoller(BalanceSource source, ChangeListener listener) {
+        this.source = source;
+        this.listener = listener;
+    }
+
+    /**
+     * Follow app visibility and connectivity. Called once with the application context.
+     */
+    public void attach(Context context) {
+        Application application = (Application) context.getApplicationContext();
+        application.registerActivityLifecycleCallbacks(new Application.ActivityLifecycleCallbacks() {
+            @Override
+            public void onActivityStarted(@NonNull Activity activity) {
+                scheduler.execute(() -> onActivityCountChanged(+1));
+            }
+
+            @Override
+            public void onActivityStopped(@NonNull Activity activity) {
+                scheduler.execute(() -> onActivityCountChanged(-1));
+            }
+
+            @Override
+            public void onActivityCreated(@NonNull Activity activity, Bundle savedInstanceState) {
+            }
+
+            @Override
+            public void onActivityResumed(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivityPaused(@NonNull Activity activity) {
+            }
+
+            @Override
+            public void onActivitySaveInstanceState(@NonNull Activity activity, @NonNull Bundle outState) {
+            }
+
+            @Override
+            public void onActivityDestroyed(@NonNull Activity activity) {
+            }
+        });
+
+        ConnectivityManager connectivity = (ConnectivityManager) application.getSystemService(
+                Context.CONNECTIVITY_SERVICE);
+        if (connectivity != null) {
+            networkAvailable = connectivity.getActiveNetwork() != null;
+            connectivity.registerDefaultNetworkCallback(new ConnectivityManager.NetworkCallback() {
+                @Override
+                public void onAvailable(@NonNull Network network) {
+                    scheduler.execute(() -> setNetworkAvailable(true));
+                }
+
+                @Override
+                public void onLost(@NonNull Network network) {
+                    scheduler.execute(() -> setNetworkAvailable(false));
+                }
+            });
+        }
+    }
+
+    // ==================
+    // SIGNALS
+    // ==================
+
+    /**
+     * A wallet screen became visible or hidden; call from onStart and onStop
+     */
+    public void setWalletScreenVisible(boolean visible) {
+        scheduler.execute(() -> {
+            boolean wasVisible = visibleWalletScreens > 0;
+            visibleWalletScreens = Math.max(0, visibleWalletScreens + (visible ? 1 : -1));
+            if (!wasVisible && visibleWalletScreens > 0) {
+                resume();
+            } else if (wasVisible && visibleWalletScreens == 0) {
+                // Fall back to the slower foreground cadence
+                pollIntervalMs = Math.max(pollIntervalMs, FOREGROUND_INTERVAL_MS);
+                reschedule();
+            }
+        });
+    }
+
+    /**
+     * A payout to or from this wallet is on its way; poll fast for a while
+     */
+    public void expectPayout() {
+        scheduler.execute(() -> {
+            boolean wasExpected = isPayoutExpected();
+            payoutExpectedUntil = System.currentTimeMillis() + PAYOUT_EXPECTED_WINDOW_MS;
+            if (!wasExpected) {
+                pollIntervalMs = PAYOUT_EXPECTED_INTERVAL_MS;
+                reschedule();
+            }
+        });
+    }
+
+    /**
+     * The wallet changed or was refreshed by hand; restart from the fastest interval
+     */
+    public void reset(WalletBalances balances) {
+        scheduler.execute(() -> {
+            lastBalances = balances;
+            pollIntervalMs = baseIntervalMs();
+            reschedule();
+        });
+    }
+
+    // ==================
+    // METRICS
+    // ==================
+
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    public long getChangeCount() {
+        return changeCount.get();
+    }
+
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    public String dump() {
+        long polls = pollCount.get();
+        long changes = changeCount.get();
+        return String.format(Locale.US, "polls=%d changes=%d errors=%d hit-rate=%.1f%%",
+                polls, changes, errorCount.get(), polls > 0 ? changes * 100.0 / polls : 0.0);
+    }
+
+    // ==================
+    // POLLING
+    // ==================
+
+    private void onActivityCountChanged(int delta) {
+        startedActivities = Math.max(0, startedActivities + delta);
+        if (startedActivities > 0) {
+            if (pendingBackground != null) {
+                pendingBackground.cancel(false);
+                pendingBackground = null;
+            }
+            if (!foreground) {
+                foreground = true;
+                resume();
+            }
+        } else if (foreground && pendingBackground == null) {
+            pendingBackground = scheduler.schedule(() -> {
+                pendingBackground = null;
+                foreground = false;
+                pause();
+            }, BACKGROUND_DELAY_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void setNetworkAvailable(boolean available) {
+        if (available == networkAvailable)
+            return;
+        networkAvailable = available;
+        if (available) {
+            resume();
+        } else {
+            pause();
+        }
+    }
+
+    private boolean isActive() {
+        return (foreground || visibleWalletScreens > 0) && networkAvailable;
+    }
+
+    private boolean isPayoutExpected() {
+        return System.currentTimeMillis() < payoutExpectedUntil;
+    }
+
+    private long baseIntervalMs() {
+        if (isPayoutExpected())
+            return PAYOUT_EXPECTED_INTERVAL_MS;
+        return visibleWalletScreens > 0 ? WALLET_VISIBLE_INTERVAL_MS : FOREGROUND_INTERVAL_MS;
+    }
+
+    private long maxIntervalMs() {
+        if (isPayoutExpected())
+            return PAYOUT_EXPECTED_INTERVAL_MS;
+        return visibleWalletScreens > 0 ? WALLET_VISIBLE_MAX_INTERVAL_MS : FOREGROUND_MAX_INTERVAL_MS;
+    }
+
+    /**
+     * Becoming active again: balances may be stale, so read them now
+     */
+    private void resume() {
+        if (!isActive())
+            return;
+        pollIntervalMs = baseIntervalMs();
+        schedulePoll(0);
+    }
+
+    private void pause() {
+        if (isActive())
+            return;
+        cancelPendingPoll();
+        if (pollInFlight != null) {
+            pollInFlight.cancel(true);
+            pollInFlight = null;
+        }
+    }
+
+    /**
+     * Apply a new interval to the pending poll without waiting for it to fire first
+     */
+    private void reschedule() {
+        if (!isActive() || pollInFlight != null)
+            return;
+        schedulePoll(Math.min(pollIntervalMs, maxIntervalMs()));
+    }
+
+    private void schedulePoll(long delayMs) {
+        cancelPendingPoll();
+        pendingPoll = scheduler.schedule(this::poll, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPendingPoll() {
+        if (pendingPoll != null) {
+            pendingPoll.cancel(false);
+            pendingPoll = null;
+        }
+    }
+
+    private void poll() {
+        pendingPoll = null;
+        if (!isActive() || pollInFlight != null)
+            return;
+
+        CompletableFuture<WalletBalances> poll = source.poll();
+        if (poll == null)
+            return; // No wallet; setting one resets the poller
+
+        pollCount.incrementAndGet();
+        pollInFlight = poll;
+        poll.whenComplete((balances, error) -> scheduler.execute(() -> onPollResult(poll, balances, error)));
+    }
+
+    private void onPollResult(CompletableFuture<WalletBalances> poll, WalletBalances balances, Throwable error) {
+        if (poll != pollInFlight)
+            return; // Cancelled by a pause
+        pollInFlight = null;
+
+        if (error != null) {
+            errorCount.incrementAndGet();
+            Log.e(TAG, "Balance poll error: " + error.getMessage());
+            pollIntervalMs = Math.min(pollIntervalMs * 2, maxIntervalMs());
+        } else if (!balances.sameAs(lastBalances)) {
+            boolean firstRead = lastBalances == null;
+            lastBalances = balances;
+            if (!firstRead) {
+                changeCount.incrementAndGet();
+                // The payout we were waiting for has most likely landed
+                payoutExpectedUntil = 0;
+            }
+            listener.onBalancesChanged(balances);
+            pollIntervalMs = baseIntervalMs();
+        } else {
+            pollIntervalMs = Math.min(pollIntervalMs * 2, maxIntervalMs());
+        }
+
+        if (isActive()) {
+            schedulePoll(pollIntervalMs);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.stableflow.app.data.solana;
+
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockhashFeeCache
+ * Keeps a recent blockhash and priority-fee percentiles ready for building payouts, so signing
+ * does not wait on getLatestBlockhash or getRecentPrioritizationFees. While a payout screen is
+ * open both are refreshed on a timer; otherwise they are fetched on demand and reused while fresh.
+ */
+public class BlockhashFeeCache {
+
+    private static final String TAG = "BlockhashFeeCache";
+
+    // A blockhash is accepted for 150 blocks (about a minute); leave time to sign and send
+    private static final long BLOCKHASH_REFRESH_MS = 20_000;
+    private static final long BLOCKHASH_MAX_AGE_MS = 45_000;
+
+    // Fees move slowly; a stale estimate only costs a little over- or under-bidding
+    private static final long FEE_REFRESH_MS = 30_000;
+    private static final long FEE_MAX_AGE_MS = 120_000;
+
+    private final SolanaClient client;
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "blockhash-prefetch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile RecentBlockhash blockhash;
+    private volatile PriorityFeeEstimate fees;
+    private volatile List<String> feeAccounts = Collections.emptyList();
+
+    // Guarded by this
+    private CompletableFuture<RecentBlockhash> blockhashInFlight;
+    private CompletableFuture<PriorityFeeEstimate> feesInFlight;
+    private int prefetchUsers = 0;
+    private ScheduledFuture<?> blockhashTask;
+    private ScheduledFuture<?> feeTask;
+
+    public BlockhashFeeCache(SolanaClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Accounts the payouts will write, usually the payer and its token account.
+     * Fee estimates are specific to them, so changing the set drops the cached estimate.
+     */
+    public void setFeeAccounts(List<String> accounts) {
+        List<String> copy = Collections.unmodifiableList(new ArrayList<>(accounts));
+        if (!copy.equals(feeAccounts)) {
+            feeAccounts = copy;
+            fees = null;
+        }
+    }
+
+    // ==================
+    // READS
+    // ==================
+
+    /**
+     * Cached blockhash if still fresh, otherwise null; never touches the network
+     */
+    public RecentBlockhash getBlockhash() {
+        RecentBlockhash cached = blockhash;
+        return cached != null && isFresh(cached.getFetchedAt(), BLOCKHASH_MAX_AGE_MS) ? cached : null;
+    }
+
+    /**
+     * Cached fee estimate if still fresh, otherwise null; never touches the network
+     */
+    public PriorityFeeEstimate getPriorityFees() {
+        PriorityFeeEstimate cached = fees;
+        return cached != null && isFresh(cached.getFetchedAt(), FEE_MAX_AGE_MS) ? cached : null;
+    }
+
+    /**
+     * Fresh blockhash, completed at once from the cache or fetched if the cache is stale
+     */
+    public CompletableFuture<RecentBlockhash> getBlockhashAsync() {
+        RecentBlockhash cached = getBlockhash();
+        return cached != null ? CompletableFuture.completedFuture(cached) : refreshBlockhash();
+    }
+
+    /**
+     * Fresh fee estimate, completed at once from the cache or fetched if the cache is stale
+     */
+    public CompletableFuture<PriorityFeeEstimate> getPriorityFeesAsync() {
+        PriorityFeeEstimate cached = getPriorityFees();
+        return cached != null ? CompletableFuture.completedFuture(cached) : refreshFees();
+    }
+
+    /**
+     * Drop the cached blockhash, e.g. after a send failed with "Blockhash not found"
+     */
+    public void invalidate() {
+        blockhash = null;
+    }
+
+    // ==================
+    // PREFETCH
+    // ==================
+
+    /**
+     * A payout screen opened; keep both values warm until every caller has stopped
+     */
+    public synchronized void startPrefetch() {
+        if (prefetchUsers++ > 0)
+            return;
+        blockhashTask = timer.scheduleWithFixedDelay(this::refreshBlockhash, 0, BLOCKHASH_REFRESH_MS,
+                TimeUnit.MILLISECONDS);
+        feeTask = timer.scheduleWithFixedDelay(this::refreshFees, 0, FEE_REFRESH_MS, TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopPrefetch() {
+        if (prefetchUsers == 0 || --prefetchUsers > 0)
+            return;
+        blockhashTask.cancel(false);
+        feeTask.cancel(false);
+        blockhashTask = null;
+        feeTask = null;
+    }
+
+    public void shutdown() {
+        timer.shutdownNow();
+    }
+
+    // ==================
+    // REFRESH
+    // ==================
+
+    /**
+     * Fetch a new blockhash, joining a fetch already in flight
+     */
+    private synchronized CompletableFuture<RecentBlockhash> refreshBlockhash() {
+        if (blockhashInFlight != null)
+            return blockhashInFlight;
+
+        CompletableFuture<RecentBlockhash> fetch = client.getLatestBlockhashAsync(SolanaClient.DEFAULT_TIMEOUT_MS);
+        blockhashInFlight = fetch;
+        fetch.whenComplete((result, error) -> {
+            synchronized (this) {
+                blockhashInFlight = null;
+            }
+            if (error == null) {
+                blockhash = result;
+            } else {
+                Log.e(TAG, "Blockhash refresh error: " + error.getMessage());
+            }
+        });
+        return fetch;
+    }
+
+    private synchronized CompletableFuture<PriorityFeeEstimate> refreshFees() {
+        if (feesInFlight != null)
+            return feesInFlight;
+
+        List<String> accounts = feeAccounts;
+        CompletableFuture<PriorityFeeEstimate> fetch = client.getPriorityFeeEstimateAsync(accounts,
+                SolanaClient.DEFAULT_TIMEOUT_MS);
+        feesInFlight = fetch;
+        fetch.whenComplete((result, error) -> {
+            synchronized (this) {
+                feesInFlight = null;
+            }
+            if (error == null) {
+                // The accounts may have changed while the request was out
+                if (accounts.equals(feeAccounts)) {
+                    fees = result;
+                }
+            } else {
+                Log.e(TAG, "Priority fee refresh error: " + error.getMessage());
+            }
+        });
+        return fetch;
+    }
+
+    private static boolean isFresh(long fetchedAt, long maxAgeMs) {
+        return System.currentTimeMillis() - fetchedAt < maxAgeMs;
+    }
+}
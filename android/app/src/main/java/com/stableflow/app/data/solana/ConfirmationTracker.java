@@ -0,0 +1,229 @@
+package com.stableflow.app.data.solana;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ConfirmationTracker
+ * Polls the confirmation state of paid claim signatures in batches until they are finalized.
+ * A signature the node keeps reporting as not found is given up on as DROPPED once its
+ * blockhash must have expired, instead of being polled forever.
+ */
+public class ConfirmationTracker {
+
+    private static final String TAG = "ConfirmationTracker";
+
+    // Adaptive backoff: start fast, back off while nothing changes
+    private static final long MIN_POLL_INTERVAL_MS = 2_000;
+    private static final long MAX_POLL_INTERVAL_MS = 60_000;
+
+    // A blockhash is valid for 150 blocks, about 60-90 s; a transaction still unknown well past
+    // that can no longer land. Several answers are required too, so waking from sleep with the
+    // window already over does not drop a signature on its first poll.
+    private static final long NOT_FOUND_WINDOW_MS = 180_000;
+    private static final int MIN_NOT_FOUND_POLLS = 3;
+
+    private final SolanaClient client;
+
+    // All tracker state is confined to this thread
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+    private final Set<String> trackedSignatures = new LinkedHashSet<>();
+    private final Map<String, SolanaClient.ConfirmationStatus> knownStatuses = new HashMap<>();
+    private final Map<String, NotFound> notFound = new HashMap<>();
+    private final MutableLiveData<Map<String, SolanaClient.ConfirmationStatus>> statuses =
+            new MutableLiveData<>(Collections.emptyMap());
+
+    private ScheduledFuture<?> pendingPoll;
+    private long pollIntervalMs = MIN_POLL_INTERVAL_MS;
+    private boolean pollInFlight = false;
+
+    public ConfirmationTracker(SolanaClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Confirmation status per transaction signature
+     */
+    public LiveData<Map<String, SolanaClient.ConfirmationStatus>> getStatuses() {
+        return statuses;
+    }
+
+    /**
+     * Track the payout signatures of the given claims.
+     * Only PAID claims and approved claims that already carry a signature are tracked.
+     */
+    public void track(List<ExpenseRequest> expenses) {
+        Set<String> signatures = new LinkedHashSet<>();
+        if (expenses != null) {
+            for (ExpenseRequest expense : expenses) {
+                String signature = expense.getTxSignature();
+                if (signature == null || signature.isEmpty())
+                    continue;
+                if (expense.isPaid() || expense.isApproved()) {
+                    signatures.add(signature);
+                }
+            }
+        }
+
+        scheduler.execute(() -> {
+            if (signatures.equals(trackedSignatures))
+                return;
+
+            trackedSignatures.clear();
+            trackedSignatures.addAll(signatures);
+            knownStatuses.keySet().retainAll(signatures);
+            notFound.keySet().retainAll(signatures);
+            publish();
+
+            // New signatures deserve a fresh look right away
+            pollIntervalMs = MIN_POLL_INTERVAL_MS;
+            schedulePoll(0);
+        });
+    }
+
+    /**
+     * Stop polling and forget all tracked signatures
+     */
+    public void stop() {
+        scheduler.execute(() -> {
+            cancelPendingPoll();
+            trackedSignatures.clear();
+            knownStatuses.clear();
+            notFound.clear();
+            publish();
+        });
+    }
+
+    // ==================
+    // POLLING
+    // ==================
+
+    private void schedulePoll(long delayMs) {
+        cancelPendingPoll();
+        pendingPoll = scheduler.schedule(this::poll, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPendingPoll() {
+        if (pendingPoll != null) {
+            pendingPoll.cancel(false);
+            pendingPoll = null;
+        }
+    }
+
+    private void poll() {
+        pendingPoll = null;
+        if (pollInFlight)
+            return;
+
+        List<String> unsettled = new ArrayList<>();
+        for (String signature : trackedSignatures) {
+            SolanaClient.ConfirmationStatus status = knownStatuses.get(signature);
+            if (status == null || !status.isSettled()) {
+                unsettled.add(signature);
+            }
+        }
+
+        if (unsettled.isEmpty())
+            return;
+
+        pollInFlight = true;
+        client.getSignatureStatuses(unsettled, new SolanaClient.SignatureStatusCallback() {
+            @Override
+            public void onSuccess(Map<String, SolanaClient.ConfirmationStatus> result) {
+                scheduler.execute(() -> onPollResult(result));
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Status poll error: " + error);
+                scheduler.execute(() -> onPollResult(null));
+            }
+        });
+    }
+
+    private void onPollResult(Map<String, SolanaClient.ConfirmationStatus> result) {
+        pollInFlight = false;
+
+        boolean changed = false;
+        if (result != null) {
+            long now = SystemClock.elapsedRealtime();
+            for (Map.Entry<String, SolanaClient.ConfirmationStatus> entry : result.entrySet()) {
+                // Ignore results for signatures that stopped being tracked mid-flight
+                if (!trackedSignatures.contains(entry.getKey()))
+                    continue;
+                SolanaClient.ConfirmationStatus status = checkNotFound(entry.getKey(), entry.getValue(), now);
+                if (status != knownStatuses.put(entry.getKey(), status)) {
+                    changed = true;
+                }
+            }
+        }
+
+        if (changed) {
+            publish();
+            pollIntervalMs = MIN_POLL_INTERVAL_MS;
+        } else {
+            pollIntervalMs = Math.min(pollIntervalMs * 2, MAX_POLL_INTERVAL_MS);
+        }
+
+        schedulePoll(pollIntervalMs);
+    }
+
+    /**
+     * The status to keep for one answer: NOT_FOUND turns into DROPPED once the signature has
+     * been unknown for the whole window and several polls; any other answer restarts the window
+     */
+    private SolanaClient.ConfirmationStatus checkNotFound(String signature, SolanaClient.ConfirmationStatus status,
+            long now) {
+        if (status != SolanaClient.ConfirmationStatus.NOT_FOUND) {
+            notFound.remove(signature);
+            return status;
+        }
+
+        NotFound since = notFound.get(signature);
+        if (since == null) {
+            since = new NotFound(now);
+            notFound.put(signature, since);
+        }
+        since.polls++;
+        if (since.polls < MIN_NOT_FOUND_POLLS || now - since.firstSeenAt < NOT_FOUND_WINDOW_MS)
+            return status;
+
+        Log.w(TAG, "Giving up on " + signature + ", not found for " + (now - since.firstSeenAt) + " ms");
+        notFound.remove(signature);
+        return SolanaClient.ConfirmationStatus.DROPPED;
+    }
+
+    private void publish() {
+        statuses.postValue(Collections.unmodifiableMap(new HashMap<>(knownStatuses)));
+    }
+
+    /**
+     * When a signature was first reported as not found, and how many answers said so since
+     */
+    private static class NotFound {
+        final long firstSeenAt;
+        int polls;
+
+        NotFound(long firstSeenAt) {
+            this.firstSeenAt = firstSeenAt;
+        }
+    }
+}
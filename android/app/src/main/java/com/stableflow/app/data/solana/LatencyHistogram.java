@@ -0,0 +1,129 @@
+package com.stableflow.app.data.solana;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * LatencyHistogram
+ * Lock-free log-linear histogram of durations in microseconds, in the style of HdrHistogram.
+ * Each power of two is split into 16 linear sub-buckets, so any recorded value is reported
+ * within about 6% of its true value. Recording is a few atomic increments and never allocates.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+    // Values are clamped to 2^36 microseconds (about 19 hours)
+    private static final int MAX_VALUE_BITS = 36;
+    private static final long MAX_VALUE = (1L << MAX_VALUE_BITS) - 1;
+    private static final int BUCKET_COUNT = (MAX_VALUE_BITS - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final AtomicLong totalCount = new AtomicLong();
+    private final AtomicLong totalMicros = new AtomicLong();
+    private final AtomicLong maxMicros = new AtomicLong();
+
+    /**
+     * Immutable copy of a histogram's state
+     */
+    public static class Snapshot {
+        private final long[] counts;
+        private final long count;
+        private final long total;
+        private final long max;
+
+        Snapshot(long[] counts, long count, long total, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.total = total;
+            this.max = max;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getMeanMicros() {
+            return count == 0 ? 0 : total / count;
+        }
+
+        public long getMaxMicros() {
+            return max;
+        }
+
+        /**
+         * Upper bound of the bucket holding the given percentile (0-100), in microseconds
+         */
+        public long getPercentileMicros(double percentile) {
+            long recorded = 0;
+            for (long bucketCount : counts) {
+                recorded += bucketCount;
+            }
+            if (recorded == 0)
+                return 0;
+
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * recorded));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestEquivalentValue(i), max);
+                }
+            }
+            return max;
+        }
+    }
+
+    public void record(long micros) {
+        long value = Math.max(0, Math.min(micros, MAX_VALUE));
+        counts.incrementAndGet(bucketIndex(value));
+        totalCount.incrementAndGet();
+        totalMicros.addAndGet(value);
+        maxMicros.accumulateAndGet(value, Math::max);
+    }
+
+    /**
+     * Copy the current state. Concurrent recordings may be partially included.
+     */
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+        }
+        return new Snapshot(copy, totalCount.get(), totalMicros.get(), maxMicros.get());
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            counts.set(i, 0);
+        }
+        totalCount.set(0);
+        totalMicros.set(0);
+        maxMicros.set(0);
+    }
+
+    // ==================
+    // BUCKETING
+    // ==================
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKET_COUNT)
+            return (int) value;
+
+        // Keep the top SUB_BUCKET_BITS + 1 bits; the leading one selects the power of two
+        int msb = 63 - Long.numberOfLeadingZeros(value);
+        int shift = msb - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+        return (shift + 1) * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    static long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT)
+            return index;
+
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long lowest = (long) (index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,333 @@
+package com.stableflow.app.data.solana;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PaymentReferenceTracker
+ * Follows Solana Pay requests until they are paid. Each request carries a random reference key
+ * that the wallet adds to the transfer, so getSignaturesForAddress on the reference finds the
+ * payment. Open references are polled together in one JSON-RPC batch, each less often as it
+ * ages; a found transfer is checked against the request before the claim is closed.
+ */
+public class PaymentReferenceTracker {
+
+    private static final String TAG = "PaymentReferenceTracker";
+
+    private static final String PREFS_NAME = "payment_references";
+    private static final String KEY_OPEN = "open";
+
+    // A reference is polled every tenth of its age, within these bounds
+    private static final long MIN_POLL_INTERVAL_MS = 5_000;
+    private static final long MAX_POLL_INTERVAL_MS = 5 * 60_000;
+    private static final int AGE_TO_INTERVAL_RATIO = 10;
+
+    // Requests not paid by then are dropped; reconciliation can still match them later
+    private static final long EXPIRY_MS = 3 * 24 * 60 * 60_000L;
+
+    // Besides the payment itself, a reference only sees transactions others chose to add it to
+    private static final int SIGNATURES_PER_REFERENCE = 5;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /**
+     * An open payment request
+     */
+    public static class PendingPayment {
+
+        private final String reference;
+        private final String claimId;
+        private final String recipientTokenAccount;
+        private final long amount;
+        private final long createdAt;
+
+        // Not persisted: rebuilt after a restart by polling at once
+        private long nextPollAt;
+        private final Set<String> rejectedSignatures = new HashSet<>();
+
+        PendingPayment(String reference, String claimId, String recipientTokenAccount, long amount,
+                long createdAt) {
+            this.reference = reference;
+            this.claimId = claimId;
+            this.recipientTokenAccount = recipientTokenAccount;
+            this.amount = amount;
+            this.createdAt = createdAt;
+        }
+
+        public String getReference() {
+            return reference;
+        }
+
+        public String getClaimId() {
+            return claimId;
+        }
+
+        /**
+         * USDC token account the transfer must reach
+         */
+        public String getRecipientTokenAccount() {
+            return recipientTokenAccount;
+        }
+
+        /**
+         * Requested amount in micro-USDC
+         */
+        public long getAmount() {
+            return amount;
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+    }
+
+    /**
+     * Receives each request found paid, with the validated transaction
+     */
+    public interface PaymentListener {
+        void onPaymentFound(PendingPayment payment, TransactionDetails details);
+    }
+
+    private final SolanaClient client;
+    private final PaymentListener listener;
+
+    // All tracker state is confined to this thread
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "payment-references");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, PendingPayment> open = new LinkedHashMap<>();
+    private SharedPreferences preferences;
+    private ScheduledFuture<?> pendingPoll;
+    private boolean pollInFlight = false;
+    private volatile int openCount = 0;
+
+    public PaymentReferenceTracker(SolanaClient client, PaymentListener listener) {
+        this.client = client;
+        this.listener = listener;
+    }
+
+    /**
+     * Restore references still open from an earlier session and resume polling them
+     */
+    public void load(Context context) {
+        SharedPreferences prefs = context.getApplicationContext()
+                .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+        scheduler.execute(() -> {
+            preferences = prefs;
+            try {
+                JSONArray stored = new JSONArray(prefs.getString(KEY_OPEN, "[]"));
+                for (int i = 0; i < stored.length(); i++) {
+                    JSONObject entry = stored.getJSONObject(i);
+                    PendingPayment payment = new PendingPayment(entry.getString("reference"),
+                            entry.getString("claimId"), entry.getString("recipientTokenAccount"),
+                            entry.getLong("amount"), entry.getLong("createdAt"));
+                    open.put(payment.getReference(), payment);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Load references error: " + e.getMessage());
+            }
+            openCount = open.size();
+            schedulePoll();
+        });
+    }
+
+    /**
+     * Random 32-byte reference key. It only has to be unique, not a point on the curve.
+     */
+    public static String newReference() {
+        byte[] key = new byte[32];
+        RANDOM.nextBytes(key);
+        return Base58.encode(key);
+    }
+
+    /**
+     * Start following a request for a claim and return the reference to put in its URL
+     */
+    public String track(String claimId, String recipientWallet, long amount) throws Exception {
+        String recipientTokenAccount = ProgramAddress.getAssociatedTokenAddress(recipientWallet, client.getUsdcMint());
+        String reference = newReference();
+        PendingPayment payment = new PendingPayment(reference, claimId, recipientTokenAccount, amount,
+                System.currentTimeMillis());
+        scheduler.execute(() -> {
+            // A new request for the same claim supersedes the old one
+            Iterator<PendingPayment> iterator = open.values().iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().getClaimId().equals(claimId)) {
+                    iterator.remove();
+                }
+            }
+            open.put(reference, payment);
+            persist();
+            schedulePoll();
+        });
+        return reference;
+    }
+
+    /**
+     * Forget all open references, e.g. on logout
+     */
+    public void clear() {
+        scheduler.execute(() -> {
+            open.clear();
+            persist();
+            cancelPendingPoll();
+        });
+    }
+
+    public int getOpenCount() {
+        return openCount;
+    }
+
+    // ==================
+    // POLLING
+    // ==================
+
+    private static long intervalFor(PendingPayment payment, long now) {
+        long age = now - payment.getCreatedAt();
+        return Math.max(MIN_POLL_INTERVAL_MS, Math.min(MAX_POLL_INTERVAL_MS, age / AGE_TO_INTERVAL_RATIO));
+    }
+
+    private void schedulePoll() {
+        cancelPendingPoll();
+        if (open.isEmpty() || pollInFlight)
+            return;
+
+        long next = Long.MAX_VALUE;
+        for (PendingPayment payment : open.values()) {
+            next = Math.min(next, payment.nextPollAt);
+        }
+        long delay = Math.max(0, next - System.currentTimeMillis());
+        pendingPoll = scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelPendingPoll() {
+        if (pendingPoll != null) {
+            pendingPoll.cancel(false);
+            pendingPoll = null;
+        }
+    }
+
+    private void poll() {
+        pendingPoll = null;
+        long now = System.currentTimeMillis();
+
+        boolean expired = false;
+        List<String> due = new ArrayList<>();
+        Iterator<PendingPayment> iterator = open.values().iterator();
+        while (iterator.hasNext()) {
+            PendingPayment payment = iterator.next();
+            if (now - payment.getCreatedAt() > EXPIRY_MS) {
+                Log.d(TAG, "Reference for claim " + payment.getClaimId() + " expired unpaid");
+                iterator.remove();
+                expired = true;
+            } else if (payment.nextPollAt <= now) {
+                due.add(payment.getReference());
+            }
+        }
+        if (expired) {
+            persist();
+        }
+        if (due.isEmpty()) {
+            schedulePoll();
+            return;
+        }
+
+        pollInFlight = true;
+        client.getSignaturesForAddressesAsync(due, SIGNATURES_PER_REFERENCE, SolanaClient.DEFAULT_TIMEOUT_MS)
+                .whenComplete((found, error) -> scheduler.execute(() -> onSignatures(due, found, error)));
+    }
+
+    private void onSignatures(List<String> due, Map<String, List<String>> found, Throwable error) {
+        pollInFlight = false;
+        long now = System.currentTimeMillis();
+        if (error != null) {
+            Log.e(TAG, "Reference poll error: " + error.getMessage());
+        }
+
+        for (String reference : due) {
+            PendingPayment payment = open.get(reference);
+            if (payment == null)
+                continue; // Cleared or superseded while the poll was out
+            payment.nextPollAt = now + intervalFor(payment, now);
+
+            List<String> signatures = found != null ? found.get(reference) : null;
+            if (signatures == null)
+                continue;
+            for (String signature : signatures) {
+                if (!payment.rejectedSignatures.contains(signature)) {
+                    validate(payment, signature);
+                    break; // Others are tried on later polls if this one is not the payment
+                }
+            }
+        }
+        schedulePoll();
+    }
+
+    /**
+     * Accept a transaction only if it succeeded and moved at least the requested USDC into
+     * the recipient's account, the same check a Solana Pay merchant runs
+     */
+    private void validate(PendingPayment payment, String signature) {
+        client.getTransactionDetailsAsync(signature, SolanaClient.DEFAULT_TIMEOUT_MS)
+                .whenComplete((details, error) -> scheduler.execute(() -> {
+                    if (error != null) {
+                        Log.e(TAG, "Reference validation error: " + error.getMessage());
+                        return; // Retried on the next poll
+                    }
+                    if (!open.containsKey(payment.getReference()))
+                        return;
+
+                    if (details == null || details.isFailed() || details.getAmountReceivedBy(
+                            payment.getRecipientTokenAccount(), client.getUsdcMint()) < payment.getAmount()) {
+                        Log.w(TAG, "Transaction " + signature + " does not pay claim " + payment.getClaimId());
+                        payment.rejectedSignatures.add(signature);
+                        return;
+                    }
+
+                    open.remove(payment.getReference());
+                    persist();
+                    listener.onPaymentFound(payment, details);
+                }));
+    }
+
+    private void persist() {
+        openCount = open.size();
+        if (preferences == null)
+            return;
+        try {
+            JSONArray stored = new JSONArray();
+            for (PendingPayment payment : open.values()) {
+                JSONObject entry = new JSONObject();
+                entry.put("reference", payment.getReference());
+                entry.put("claimId", payment.getClaimId());
+                entry.put("recipientTokenAccount", payment.getRecipientTokenAccount());
+                entry.put("amount", payment.getAmount());
+                entry.put("createdAt", payment.getCreatedAt());
+                stored.put(entry);
+            }
+            preferences.edit().putString(KEY_OPEN, stored.toString()).apply();
+        } catch (Exception e) {
+            Log.e(TAG, "Persist references error: " + e.getMessage());
+        }
+    }
+}
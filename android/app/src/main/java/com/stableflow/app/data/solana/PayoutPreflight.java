@@ -0,0 +1,175 @@
+package com.stableflow.app.data.solana;
+
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * PayoutPreflight
+ * Simulates built payout transactions before the user signs. A batch that would fail, e.g. on
+ * insufficient funds, is rejected with the payout at fault; one that would succeed gets its
+ * compute unit limit cut from the maximum to what it used plus headroom, so the priority fee
+ * is paid on units actually needed. Results are reused for identical instruction sets.
+ */
+public class PayoutPreflight {
+
+    // Account state can shift a little between simulation and landing
+    private static final int HEADROOM_PERCENT = 15;
+    private static final int MIN_HEADROOM_UNITS = 1_000;
+
+    // A cached result stands in for a simulation, so it must be recent to still prove success
+    private static final int CACHE_SIZE = 64;
+    private static final long CACHE_TTL_MS = 2 * 60_000;
+
+    private final SolanaClient client;
+
+    // Least recently used first; guarded by itself
+    private final Map<String, CachedUnits> cache = new LinkedHashMap<String, CachedUnits>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedUnits> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    };
+
+    private final AtomicLong simulations = new AtomicLong();
+    private final AtomicLong cacheHits = new AtomicLong();
+
+    public PayoutPreflight(SolanaClient client) {
+        this.client = client;
+    }
+
+    /**
+     * Simulate every transaction in parallel and return them, in order, with tight compute
+     * limits. Fails if any would fail; the other simulations are then cancelled.
+     */
+    public CompletableFuture<List<PayoutTransaction>> prepare(List<PayoutTransaction> transactions) {
+        List<CompletableFuture<PayoutTransaction>> prepared = new ArrayList<>(transactions.size());
+        for (PayoutTransaction transaction : transactions) {
+            prepared.add(prepare(transaction));
+        }
+
+        CompletableFuture<List<PayoutTransaction>> all = CompletableFuture
+                .allOf(prepared.toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    List<PayoutTransaction> result = new ArrayList<>(prepared.size());
+                    for (CompletableFuture<PayoutTransaction> future : prepared) {
+                        result.add(future.join());
+                    }
+                    return result;
+                });
+
+        // allOf waits for every member; fail fast instead
+        for (CompletableFuture<PayoutTransaction> future : prepared) {
+            future.whenComplete((result, error) -> {
+                if (error != null) {
+                    all.completeExceptionally(error);
+                }
+            });
+        }
+        all.whenComplete((result, error) -> {
+            if (error != null) {
+                for (CompletableFuture<PayoutTransaction> future : prepared) {
+                    future.cancel(true);
+                }
+            }
+        });
+        return all;
+    }
+
+    /**
+     * Simulate one transaction, or reuse a recent simulation of the same instructions
+     */
+    public CompletableFuture<PayoutTransaction> prepare(PayoutTransaction transaction) {
+        String key;
+        try {
+            key = fingerprintOf(transaction);
+        } catch (Exception e) {
+            CompletableFuture<PayoutTransaction> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        Long cachedUnits = getCachedUnits(key);
+        if (cachedUnits != null) {
+            cacheHits.incrementAndGet();
+            return CompletableFuture.completedFuture(withLimit(transaction, cachedUnits));
+        }
+
+        simulations.incrementAndGet();
+        return client.simulateTransactionAsync(transaction.serialize(), SolanaClient.DEFAULT_TIMEOUT_MS)
+                .thenApply(simulation -> {
+                    if (!simulation.isSuccess())
+                        throw new CompletionException(new Exception(describeFailure(transaction, simulation)));
+
+                    synchronized (cache) {
+                        cache.put(key, new CachedUnits(simulation.getUnitsConsumed(), System.currentTimeMillis()));
+                    }
+                    return withLimit(transaction, simulation.getUnitsConsumed());
+                });
+    }
+
+    public long getSimulationCount() {
+        return simulations.get();
+    }
+
+    public long getCacheHitCount() {
+        return cacheHits.get();
+    }
+
+    /**
+     * Simulated units plus headroom, within what a transaction may request
+     */
+    static int computeUnitLimitFor(long unitsConsumed) {
+        long headroom = Math.max(unitsConsumed * HEADROOM_PERCENT / 100, MIN_HEADROOM_UNITS);
+        return (int) Math.min(unitsConsumed + headroom, PayoutTransactionBuilder.MAX_COMPUTE_UNIT_LIMIT);
+    }
+
+    private static PayoutTransaction withLimit(PayoutTransaction transaction, long unitsConsumed) {
+        if (!transaction.hasComputeUnitLimit())
+            return transaction; // Built without a budget; the simulation still vetted it
+        return transaction.withComputeUnitLimit(computeUnitLimitFor(unitsConsumed));
+    }
+
+    private Long getCachedUnits(String key) {
+        synchronized (cache) {
+            CachedUnits cached = cache.get(key);
+            if (cached == null)
+                return null;
+            if (System.currentTimeMillis() - cached.simulatedAt >= CACHE_TTL_MS) {
+                cache.remove(key);
+                return null;
+            }
+            return cached.units;
+        }
+    }
+
+    private static String fingerprintOf(PayoutTransaction transaction) throws Exception {
+        byte[] digest = MessageDigest.getInstance("SHA-256").digest(transaction.getInstructionFingerprint());
+        return Base58.encode(digest);
+    }
+
+    private static String describeFailure(PayoutTransaction transaction, SimulationResult simulation) {
+        String reason = simulation.getErrorLog() != null ? simulation.getErrorLog() : simulation.getError();
+        PayoutTransactionBuilder.Payout payout = transaction.getPayoutForInstruction(
+                simulation.getFailedInstruction());
+        if (payout == null)
+            return "Payout batch would fail: " + reason;
+        return "Payout to " + payout.getRecipient() + " would fail: " + reason;
+    }
+
+    private static final class CachedUnits {
+
+        final long units;
+        final long simulatedAt;
+
+        CachedUnits(long units, long simulatedAt) {
+            this.units = units;
+            this.simulatedAt = simulatedAt;
+        }
+    }
+}
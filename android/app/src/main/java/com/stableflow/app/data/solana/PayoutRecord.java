@@ -0,0 +1,64 @@
+package com.stableflow.app.data.solana;
+
+/**
+ * PayoutRecord
+ * An incoming USDC transfer to one of the wallet's token accounts, found while reconciling history
+ */
+public class PayoutRecord {
+
+    private final String signature;
+    private final String account;
+    private final long amount;
+    private final long blockTime;
+    private final String memo;
+    private String claimId;
+
+    public PayoutRecord(String signature, String account, long amount, long blockTime, String memo) {
+        this.signature = signature;
+        this.account = account;
+        this.amount = amount;
+        this.blockTime = blockTime;
+        this.memo = memo;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    /**
+     * Amount received in USDC base units
+     */
+    public long getAmount() {
+        return amount;
+    }
+
+    /**
+     * Block time in seconds since the epoch, or 0 if unknown
+     */
+    public long getBlockTime() {
+        return blockTime;
+    }
+
+    public String getMemo() {
+        return memo;
+    }
+
+    /**
+     * Id of the claim this payout settles, or null while it is unmatched
+     */
+    public String getClaimId() {
+        return claimId;
+    }
+
+    void setClaimId(String claimId) {
+        this.claimId = claimId;
+    }
+
+    public boolean isMatched() {
+        return claimId != null;
+    }
+}
@@ -0,0 +1,126 @@
+package com.stableflow.app.data.solana;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * PayoutTransaction
+ * One unsigned payout transaction built by PayoutTransactionBuilder, with the payouts it carries
+ */
+public class PayoutTransaction {
+
+    private final PayoutTransactionBuilder.Version version;
+    private final byte[] message;
+    private final int signatureCount;
+    private final List<PayoutTransactionBuilder.Payout> payouts;
+    private final int[] instructionPayouts;
+    private final int blockhashOffset;
+    private final int computeUnitLimitOffset;
+
+    PayoutTransaction(PayoutTransactionBuilder.Version version, byte[] message, int signatureCount,
+            List<PayoutTransactionBuilder.Payout> payouts, int[] instructionPayouts, int blockhashOffset,
+            int computeUnitLimitOffset) {
+        this.version = version;
+        this.message = message;
+        this.signatureCount = signatureCount;
+        this.payouts = Collections.unmodifiableList(payouts);
+        this.instructionPayouts = instructionPayouts;
+        this.blockhashOffset = blockhashOffset;
+        this.computeUnitLimitOffset = computeUnitLimitOffset;
+    }
+
+    public PayoutTransactionBuilder.Version getVersion() {
+        return version;
+    }
+
+    /**
+     * Serialized message, the bytes each signer signs
+     */
+    public byte[] getMessage() {
+        return message.clone();
+    }
+
+    public int getSignatureCount() {
+        return signatureCount;
+    }
+
+    /**
+     * Payouts in this transaction, in the order their transfers appear
+     */
+    public List<PayoutTransactionBuilder.Payout> getPayouts() {
+        return payouts;
+    }
+
+    /**
+     * Payout an instruction belongs to, or null for compute budget instructions
+     */
+    public PayoutTransactionBuilder.Payout getPayoutForInstruction(int instructionIndex) {
+        if (instructionIndex < 0 || instructionIndex >= instructionPayouts.length)
+            return null;
+        int payoutIndex = instructionPayouts[instructionIndex];
+        return payoutIndex >= 0 ? payouts.get(payoutIndex) : null;
+    }
+
+    public boolean hasComputeUnitLimit() {
+        return computeUnitLimitOffset >= 0;
+    }
+
+    /**
+     * Requested compute unit limit, or -1 without a compute budget
+     */
+    public int getComputeUnitLimit() {
+        if (computeUnitLimitOffset < 0)
+            return -1;
+        int limit = 0;
+        for (int i = 3; i >= 0; i--) {
+            limit = (limit << 8) | (message[computeUnitLimitOffset + i] & 0xFF);
+        }
+        return limit;
+    }
+
+    /**
+     * Same transaction with a different compute unit limit. The limit is fixed-width,
+     * so only those four bytes of the message change.
+     */
+    public PayoutTransaction withComputeUnitLimit(int units) {
+        if (computeUnitLimitOffset < 0)
+            throw new IllegalStateException("Transaction was built without a compute budget");
+        byte[] patched = message.clone();
+        PayoutTransactionBuilder.writeU32(patched, computeUnitLimitOffset, units);
+        return new PayoutTransaction(version, patched, signatureCount, payouts, instructionPayouts,
+                blockhashOffset, computeUnitLimitOffset);
+    }
+
+    /**
+     * Message with the blockhash zeroed: equal for transactions that run the same instructions
+     * against the same accounts, whenever they were built
+     */
+    byte[] getInstructionFingerprint() {
+        byte[] fingerprint = message.clone();
+        Arrays.fill(fingerprint, blockhashOffset, blockhashOffset + 32, (byte) 0);
+        return fingerprint;
+    }
+
+    /**
+     * Wire size in bytes, signatures included
+     */
+    public int getSize() {
+        return PayoutTransactionBuilder.compactU16Length(signatureCount) + signatureCount * 64 + message.length;
+    }
+
+    /**
+     * Wire form with zeroed signature slots, as wallets expect for signAndSendTransaction
+     */
+    public byte[] serialize() {
+        byte[] out = new byte[getSize()];
+        int offset = PayoutTransactionBuilder.writeCompactU16(out, 0, signatureCount);
+        offset += signatureCount * 64;
+        System.arraycopy(message, 0, out, offset, message.length);
+        return out;
+    }
+
+    public String toBase58() {
+        return Base58.encode(serialize());
+    }
+}
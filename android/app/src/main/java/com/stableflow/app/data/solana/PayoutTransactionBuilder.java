@@ -0,0 +1,519 @@
+package com.stableflow.app.data.solana;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * PayoutTransactionBuilder
+ * Packs many token payouts into as few transactions as fit the 1232-byte packet limit.
+ * Each payout is a TransferChecked from the payer's associated token account, preceded by an
+ * idempotent create of the recipient's account and followed by a memo carrying the claim id.
+ * The payer is the only signer, so every transaction is signed once in the wallet.
+ */
+public class PayoutTransactionBuilder {
+
+    public enum Version {
+        LEGACY,
+        // Versioned message without address lookup tables
+        V0
+    }
+
+    // Largest serialized transaction a validator accepts: IPv6 MTU minus headers
+    public static final int MAX_TRANSACTION_SIZE = 1232;
+
+    public static final String SYSTEM_PROGRAM_ID = "11111111111111111111111111111111";
+    public static final String MEMO_PROGRAM_ID = "MemoSq4gqABAXKb96qnH8TysNcWxMyWCqXgDLGmfcHr";
+    public static final String COMPUTE_BUDGET_PROGRAM_ID = "ComputeBudget111111111111111111111111111111";
+
+    // Most compute units one transaction may request; used until simulation gives a real figure
+    public static final int MAX_COMPUTE_UNIT_LIMIT = 1_400_000;
+
+    private static final byte TOKEN_TRANSFER_CHECKED = 12;
+    private static final byte ATA_CREATE_IDEMPOTENT = 1;
+    private static final byte COMPUTE_BUDGET_SET_LIMIT = 2;
+    private static final byte COMPUTE_BUDGET_SET_PRICE = 3;
+    private static final int VERSION_PREFIX_V0 = 0x80;
+    private static final int SIGNATURE_SIZE = 64;
+    private static final int KEY_SIZE = 32;
+
+    /**
+     * One claim to pay, in the token's base units
+     */
+    public static class Payout {
+
+        private final String recipient;
+        private final long amount;
+        private final String memo;
+
+        public Payout(String recipient, long amount, String memo) {
+            this.recipient = recipient;
+            this.amount = amount;
+            this.memo = memo;
+        }
+
+        /**
+         * Recipient wallet; the transfer goes to its associated token account
+         */
+        public String getRecipient() {
+            return recipient;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public String getMemo() {
+            return memo;
+        }
+    }
+
+    private final String payer;
+    private final TokenRegistry.Token token;
+    private final List<Payout> payouts = new ArrayList<>();
+    private Version version = Version.LEGACY;
+    private String recentBlockhash;
+    private boolean createRecipientAccounts = true;
+    private boolean computeBudget = false;
+    private long computeUnitPrice = 0;
+
+    // Associated token accounts are derived once per wallet
+    private final Map<String, String> tokenAccounts = new HashMap<>();
+    private final Map<String, byte[]> decodedKeys = new HashMap<>();
+
+    public PayoutTransactionBuilder(String payer, TokenRegistry.Token token) {
+        this.payer = payer;
+        this.token = token;
+    }
+
+    public PayoutTransactionBuilder setVersion(Version version) {
+        this.version = version;
+        return this;
+    }
+
+    public PayoutTransactionBuilder setRecentBlockhash(String recentBlockhash) {
+        this.recentBlockhash = recentBlockhash;
+        return this;
+    }
+
+    /**
+     * Whether to create missing recipient token accounts, paid by the payer. On by default;
+     * turning it off saves space but a transfer to a wallet that never held the token fails.
+     */
+    public PayoutTransactionBuilder setCreateRecipientAccounts(boolean createRecipientAccounts) {
+        this.createRecipientAccounts = createRecipientAccounts;
+        return this;
+    }
+
+    /**
+     * Start each transaction with ComputeBudget instructions: a unit limit, set to the maximum
+     * until PayoutPreflight replaces it with the simulated figure, and a price if one is given
+     */
+    public PayoutTransactionBuilder setComputeBudget(boolean computeBudget) {
+        this.computeBudget = computeBudget;
+        return this;
+    }
+
+    /**
+     * Priority fee in micro-lamports per compute unit; implies a compute budget
+     */
+    public PayoutTransactionBuilder setComputeUnitPrice(long microLamports) {
+        if (microLamports < 0)
+            throw new IllegalArgumentException("Compute unit price must not be negative");
+        this.computeUnitPrice = microLamports;
+        if (microLamports > 0) {
+            this.computeBudget = true;
+        }
+        return this;
+    }
+
+    public PayoutTransactionBuilder addPayout(Payout payout) {
+        if (payout.getAmount() <= 0)
+            throw new IllegalArgumentException("Payout amount must be positive");
+        if (!SolanaClient.isValidAddress(payout.getRecipient()))
+            throw new IllegalArgumentException("Invalid recipient address: " + payout.getRecipient());
+        payouts.add(payout);
+        return this;
+    }
+
+    public PayoutTransactionBuilder addPayouts(List<Payout> payouts) {
+        for (Payout payout : payouts) {
+            addPayout(payout);
+        }
+        return this;
+    }
+
+    /**
+     * Pack the payouts, in order, into transactions. A payout never spans two transactions;
+     * one too large to fit alone (e.g. a very long memo) is rejected.
+     */
+    public List<PayoutTransaction> build() throws Exception {
+        if (recentBlockhash == null)
+            throw new IllegalStateException("Recent blockhash not set");
+        if (decodeKey(recentBlockhash).length != KEY_SIZE)
+            throw new IllegalArgumentException("Invalid blockhash: " + recentBlockhash);
+
+        List<PayoutTransaction> transactions = new ArrayList<>();
+        Draft draft = new Draft();
+        for (Payout payout : payouts) {
+            List<Instruction> instructions = instructionsFor(payout, draft);
+            if (draft.sizeWith(instructions) > MAX_TRANSACTION_SIZE) {
+                if (draft.payouts.isEmpty())
+                    throw new IllegalArgumentException("Payout to " + payout.getRecipient()
+                            + " does not fit in one transaction");
+                transactions.add(draft.compile());
+                draft = new Draft();
+                instructions = instructionsFor(payout, draft);
+                if (draft.sizeWith(instructions) > MAX_TRANSACTION_SIZE)
+                    throw new IllegalArgumentException("Payout to " + payout.getRecipient()
+                            + " does not fit in one transaction");
+            }
+            draft.add(payout, instructions);
+        }
+        if (!draft.payouts.isEmpty()) {
+            transactions.add(draft.compile());
+        }
+        return transactions;
+    }
+
+    // ==================
+    // INSTRUCTIONS
+    // ==================
+
+    private List<Instruction> instructionsFor(Payout payout, Draft draft) throws Exception {
+        String source = tokenAccountOf(payer);
+        String destination = tokenAccountOf(payout.getRecipient());
+        List<Instruction> instructions = new ArrayList<>(3);
+
+        // One create per recipient per transaction is enough
+        if (createRecipientAccounts && !draft.created.contains(destination)) {
+            instructions.add(new Instruction(ProgramAddress.ASSOCIATED_TOKEN_PROGRAM_ID,
+                    new AccountMeta[] {
+                            new AccountMeta(payer, true, true),
+                            new AccountMeta(destination, false, true),
+                            new AccountMeta(payout.getRecipient(), false, false),
+                            new AccountMeta(token.getMint(), false, false),
+                            new AccountMeta(SYSTEM_PROGRAM_ID, false, false),
+                            new AccountMeta(token.getProgramId(), false, false)
+                    },
+                    new byte[] { ATA_CREATE_IDEMPOTENT }));
+        }
+
+        // TransferChecked: tag, u64 amount little-endian, u8 decimals
+        byte[] transfer = new byte[10];
+        transfer[0] = TOKEN_TRANSFER_CHECKED;
+        long amount = payout.getAmount();
+        for (int i = 0; i < 8; i++) {
+            transfer[1 + i] = (byte) (amount >>> (8 * i));
+        }
+        transfer[9] = (byte) token.getDecimals();
+        instructions.add(new Instruction(token.getProgramId(),
+                new AccountMeta[] {
+                        new AccountMeta(source, false, true),
+                        new AccountMeta(token.getMint(), false, false),
+                        new AccountMeta(destination, false, true),
+                        new AccountMeta(payer, true, false)
+                },
+                transfer));
+
+        // The memo program checks only the signers it is given, so it needs no accounts
+        if (payout.getMemo() != null && !payout.getMemo().isEmpty()) {
+            instructions.add(new Instruction(MEMO_PROGRAM_ID, new AccountMeta[0],
+                    payout.getMemo().getBytes(StandardCharsets.UTF_8)));
+        }
+        return instructions;
+    }
+
+    private List<Instruction> computeBudgetInstructions() {
+        List<Instruction> instructions = new ArrayList<>(2);
+        if (!computeBudget)
+            return instructions;
+
+        // SetComputeUnitLimit: tag, u32 units little-endian
+        byte[] limit = new byte[5];
+        limit[0] = COMPUTE_BUDGET_SET_LIMIT;
+        writeU32(limit, 1, MAX_COMPUTE_UNIT_LIMIT);
+        instructions.add(new Instruction(COMPUTE_BUDGET_PROGRAM_ID, new AccountMeta[0], limit));
+
+        if (computeUnitPrice > 0) {
+            // SetComputeUnitPrice: tag, u64 micro-lamports little-endian
+            byte[] price = new byte[9];
+            price[0] = COMPUTE_BUDGET_SET_PRICE;
+            for (int i = 0; i < 8; i++) {
+                price[1 + i] = (byte) (computeUnitPrice >>> (8 * i));
+            }
+            instructions.add(new Instruction(COMPUTE_BUDGET_PROGRAM_ID, new AccountMeta[0], price));
+        }
+        return instructions;
+    }
+
+    static void writeU32(byte[] out, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            out[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private String tokenAccountOf(String wallet) throws Exception {
+        String account = tokenAccounts.get(wallet);
+        if (account == null) {
+            account = ProgramAddress.getAssociatedTokenAddress(decodeKey(wallet), decodeKey(token.getMint()),
+                    decodeKey(token.getProgramId()));
+            tokenAccounts.put(wallet, account);
+        }
+        return account;
+    }
+
+    private byte[] decodeKey(String key) {
+        byte[] decoded = decodedKeys.get(key);
+        if (decoded == null) {
+            decoded = Base58.decode(key);
+            decodedKeys.put(key, decoded);
+        }
+        return decoded;
+    }
+
+    private static final class AccountMeta {
+
+        final String key;
+        final boolean signer;
+        final boolean writable;
+
+        AccountMeta(String key, boolean signer, boolean writable) {
+            this.key = key;
+            this.signer = signer;
+            this.writable = writable;
+        }
+    }
+
+    private static final class Instruction {
+
+        final String programId;
+        final AccountMeta[] accounts;
+        final byte[] data;
+
+        Instruction(String programId, AccountMeta[] accounts, byte[] data) {
+            this.programId = programId;
+            this.accounts = accounts;
+            this.data = data;
+        }
+
+        int compiledSize() {
+            return 1 + compactU16Length(accounts.length) + accounts.length
+                    + compactU16Length(data.length) + data.length;
+        }
+    }
+
+    // ==================
+    // MESSAGE
+    // ==================
+
+    /**
+     * Transaction being filled. Sizes are computed from counts, so trying a payout costs no
+     * serialization; the message is only encoded once the transaction is full.
+     */
+    private final class Draft {
+
+        // Flags merged per key; insertion order breaks ties within each account group
+        final Map<String, int[]> accounts = new LinkedHashMap<>();
+        final List<Instruction> instructions = new ArrayList<>();
+        // Index into payouts for each instruction, -1 for compute budget instructions
+        final List<Integer> instructionPayouts = new ArrayList<>();
+        final List<Payout> payouts = new ArrayList<>();
+        final Set<String> created = new HashSet<>();
+        int instructionBytes = 0;
+
+        Draft() {
+            // The fee payer is always the first account
+            merge(payer, true, true);
+            for (Instruction instruction : computeBudgetInstructions()) {
+                append(instruction, -1);
+            }
+        }
+
+        int sizeWith(List<Instruction> extra) {
+            Set<String> newKeys = new HashSet<>();
+            int extraBytes = 0;
+            for (Instruction instruction : extra) {
+                extraBytes += instruction.compiledSize();
+                if (!accounts.containsKey(instruction.programId)) {
+                    newKeys.add(instruction.programId);
+                }
+                for (AccountMeta meta : instruction.accounts) {
+                    if (!accounts.containsKey(meta.key)) {
+                        newKeys.add(meta.key);
+                    }
+                }
+            }
+            int signers = signerCount();
+            return compactU16Length(signers) + signers * SIGNATURE_SIZE
+                    + messageSize(accounts.size() + newKeys.size(), instructions.size() + extra.size(),
+                            instructionBytes + extraBytes);
+        }
+
+        void add(Payout payout, List<Instruction> extra) {
+            for (Instruction instruction : extra) {
+                if (ProgramAddress.ASSOCIATED_TOKEN_PROGRAM_ID.equals(instruction.programId)) {
+                    created.add(instruction.accounts[1].key);
+                }
+                append(instruction, payouts.size());
+            }
+            payouts.add(payout);
+        }
+
+        private void append(Instruction instruction, int payoutIndex) {
+            for (AccountMeta meta : instruction.accounts) {
+                merge(meta.key, meta.signer, meta.writable);
+            }
+            merge(instruction.programId, false, false);
+            instructions.add(instruction);
+            instructionPayouts.add(payoutIndex);
+            instructionBytes += instruction.compiledSize();
+        }
+
+        private void merge(String key, boolean signer, boolean writable) {
+            int[] flags = accounts.get(key);
+            if (flags == null) {
+                accounts.put(key, new int[] { signer ? 1 : 0, writable ? 1 : 0 });
+            } else {
+                flags[0] |= signer ? 1 : 0;
+                flags[1] |= writable ? 1 : 0;
+            }
+        }
+
+        private int signerCount() {
+            int signers = 0;
+            for (int[] flags : accounts.values()) {
+                signers += flags[0];
+            }
+            return signers;
+        }
+
+        private int messageSize(int keyCount, int instructionCount, int instructionBytes) {
+            int size = 3 + compactU16Length(keyCount) + keyCount * KEY_SIZE + KEY_SIZE
+                    + compactU16Length(instructionCount) + instructionBytes;
+            if (version == Version.V0) {
+                // Version prefix and an empty address table lookup list
+                size += 1 + compactU16Length(0);
+            }
+            return size;
+        }
+
+        PayoutTransaction compile() {
+            // Writable signers, read-only signers, writable others, read-only others
+            List<String> ordered = new ArrayList<>(accounts.size());
+            int readonlySigned = 0;
+            int readonlyUnsigned = 0;
+            for (int group = 0; group < 4; group++) {
+                boolean signer = group < 2;
+                boolean writable = group % 2 == 0;
+                for (Map.Entry<String, int[]> entry : accounts.entrySet()) {
+                    int[] flags = entry.getValue();
+                    if ((flags[0] == 1) == signer && (flags[1] == 1) == writable) {
+                        ordered.add(entry.getKey());
+                        if (!writable) {
+                            if (signer) {
+                                readonlySigned++;
+                            } else {
+                                readonlyUnsigned++;
+                            }
+                        }
+                    }
+                }
+            }
+            if (ordered.size() > 256)
+                throw new IllegalStateException("Too many accounts: " + ordered.size());
+
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < ordered.size(); i++) {
+                indexes.put(ordered.get(i), i);
+            }
+
+            int signers = signerCount();
+            byte[] message = new byte[messageSize(ordered.size(), instructions.size(), instructionBytes)];
+            int offset = 0;
+            if (version == Version.V0) {
+                message[offset++] = (byte) VERSION_PREFIX_V0;
+            }
+            message[offset++] = (byte) signers;
+            message[offset++] = (byte) readonlySigned;
+            message[offset++] = (byte) readonlyUnsigned;
+
+            offset = writeCompactU16(message, offset, ordered.size());
+            for (String key : ordered) {
+                System.arraycopy(decodeKey(key), 0, message, offset, KEY_SIZE);
+                offset += KEY_SIZE;
+            }
+            int blockhashOffset = offset;
+            System.arraycopy(decodeKey(recentBlockhash), 0, message, offset, KEY_SIZE);
+            offset += KEY_SIZE;
+
+            int computeUnitLimitOffset = -1;
+            offset = writeCompactU16(message, offset, instructions.size());
+            for (Instruction instruction : instructions) {
+                message[offset++] = (byte) (int) indexes.get(instruction.programId);
+                offset = writeCompactU16(message, offset, instruction.accounts.length);
+                for (AccountMeta meta : instruction.accounts) {
+                    message[offset++] = (byte) (int) indexes.get(meta.key);
+                }
+                offset = writeCompactU16(message, offset, instruction.data.length);
+                if (COMPUTE_BUDGET_PROGRAM_ID.equals(instruction.programId)
+                        && instruction.data[0] == COMPUTE_BUDGET_SET_LIMIT) {
+                    // Where the u32 limit sits, so it can be replaced without rebuilding
+                    computeUnitLimitOffset = offset + 1;
+                }
+                System.arraycopy(instruction.data, 0, message, offset, instruction.data.length);
+                offset += instruction.data.length;
+            }
+            if (version == Version.V0) {
+                offset = writeCompactU16(message, offset, 0);
+            }
+            if (offset != message.length)
+                throw new IllegalStateException("Message size mismatch: " + offset + " != " + message.length);
+
+            int[] owners = new int[instructionPayouts.size()];
+            for (int i = 0; i < owners.length; i++) {
+                owners[i] = instructionPayouts.get(i);
+            }
+            return new PayoutTransaction(version, message, signers, new ArrayList<>(payouts), owners,
+                    blockhashOffset, computeUnitLimitOffset);
+        }
+    }
+
+    // ==================
+    // COMPACT-U16
+    // ==================
+
+    /**
+     * Bytes needed for a shortvec length: 7 bits per byte, high bit set on all but the last
+     */
+    static int compactU16Length(int value) {
+        if (value < 0x80)
+            return 1;
+        if (value < 0x4000)
+            return 2;
+        return 3;
+    }
+
+    /**
+     * Write a shortvec length and return the offset just past it
+     */
+    static int writeCompactU16(byte[] out, int offset, int value) {
+        if (value < 0 || value > 0xFFFF)
+            throw new IllegalArgumentException("compact-u16 out of range: " + value);
+        int remaining = value;
+        while (true) {
+            int part = remaining & 0x7F;
+            remaining >>>= 7;
+            if (remaining == 0) {
+                out[offset++] = (byte) part;
+                return offset;
+            }
+            out[offset++] = (byte) (part | 0x80);
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.stableflow.app.data.solana;
+
+import java.util.Arrays;
+
+/**
+ * PriorityFeeEstimate
+ * Prioritization fees paid in recent slots by transactions locking the given accounts,
+ * in micro-lamports per compute unit, summarised as percentiles
+ */
+public class PriorityFeeEstimate {
+
+    private final long[] sortedFees;
+    private final long fetchedAt;
+
+    public PriorityFeeEstimate(long[] fees, long fetchedAt) {
+        this.sortedFees = fees.clone();
+        Arrays.sort(this.sortedFees);
+        this.fetchedAt = fetchedAt;
+    }
+
+    /**
+     * Nearest-rank percentile, 0 when no slots were reported
+     */
+    public long getPercentile(int percentile) {
+        if (percentile < 0 || percentile > 100)
+            throw new IllegalArgumentException("percentile must be between 0 and 100");
+        if (sortedFees.length == 0)
+            return 0;
+        int rank = (int) Math.ceil(percentile / 100.0 * sortedFees.length);
+        return sortedFees[Math.max(0, rank - 1)];
+    }
+
+    public long getMedian() {
+        return getPercentile(50);
+    }
+
+    public int getSampleCount() {
+        return sortedFees.length;
+    }
+
+    /**
+     * Local time of the fetch in milliseconds since the epoch
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+}
@@ -0,0 +1,93 @@
+package com.stableflow.app.data.solana;
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+
+/**
+ * ProgramAddress
+ * Program-derived address (PDA) derivation, including associated token accounts
+ */
+public final class ProgramAddress {
+
+    public static final String TOKEN_PROGRAM_ID = "TokenkegQfeZyiNwAJbNbGKPFXCWuBvf9Ss623VQ5DA";
+    public static final String TOKEN_2022_PROGRAM_ID = "TokenzQdBNbLqP5VEhdkAS6EPFLC1PHnBqCXEpPxuEb";
+    public static final String ASSOCIATED_TOKEN_PROGRAM_ID = "ATokenGPvbdGVxr1b2hvZbsiqW5xWH25efTNsLJA8knL";
+
+    private static final byte[] PDA_MARKER = "ProgramDerivedAddress".getBytes(StandardCharsets.UTF_8);
+
+    // Curve25519 field prime 2^255 - 19 and the Edwards d = -121665 / 121666
+    private static final BigInteger P = BigInteger.ONE.shiftLeft(255).subtract(BigInteger.valueOf(19));
+    private static final BigInteger D = BigInteger.valueOf(-121665)
+            .multiply(BigInteger.valueOf(121666).modInverse(P))
+            .mod(P);
+    private static final BigInteger LEGENDRE_EXPONENT = P.subtract(BigInteger.ONE).shiftRight(1);
+
+    private ProgramAddress() {
+    }
+
+    /**
+     * Associated token account of a wallet for a mint under the classic token program
+     */
+    public static String getAssociatedTokenAddress(String wallet, String mint) throws Exception {
+        return getAssociatedTokenAddress(Base58.decode(wallet), Base58.decode(mint),
+                Base58.decode(TOKEN_PROGRAM_ID));
+    }
+
+    public static String getAssociatedTokenAddress(byte[] wallet, byte[] mint, byte[] tokenProgram)
+            throws Exception {
+        return Base58.encode(findProgramAddress(
+                new byte[][] { wallet, tokenProgram, mint },
+                Base58.decode(ASSOCIATED_TOKEN_PROGRAM_ID)));
+    }
+
+    /**
+     * Find the first bump seed, counting down from 255, that yields an address off the ed25519 curve
+     */
+    public static byte[] findProgramAddress(byte[][] seeds, byte[] programId) throws Exception {
+        MessageDigest sha256 = MessageDigest.getInstance("SHA-256");
+        byte[] bump = new byte[1];
+        for (int nonce = 255; nonce >= 0; nonce--) {
+            sha256.reset();
+            for (byte[] seed : seeds) {
+                sha256.update(seed);
+            }
+            bump[0] = (byte) nonce;
+            sha256.update(bump);
+            sha256.update(programId);
+            sha256.update(PDA_MARKER);
+
+            byte[] candidate = sha256.digest();
+            if (!isOnCurve(candidate))
+                return candidate;
+        }
+        throw new Exception("Unable to find a viable program address bump seed");
+    }
+
+    /**
+     * Whether 32 bytes decompress to a point on the ed25519 curve, i.e. could be a wallet key.
+     * From -x^2 + y^2 = 1 + d x^2 y^2, x^2 = (y^2 - 1) / (d y^2 + 1) must be a square mod p.
+     */
+    static boolean isOnCurve(byte[] point) {
+        // Little-endian y with the top bit (the sign of x) cleared
+        byte[] bigEndian = new byte[32];
+        for (int i = 0; i < 32; i++) {
+            bigEndian[i] = point[31 - i];
+        }
+        bigEndian[0] &= 0x7F;
+        BigInteger y = new BigInteger(1, bigEndian).mod(P);
+
+        BigInteger ySquared = y.multiply(y).mod(P);
+        BigInteger u = ySquared.subtract(BigInteger.ONE).mod(P);
+        BigInteger v = D.multiply(ySquared).add(BigInteger.ONE).mod(P);
+        if (v.signum() == 0)
+            return false;
+
+        BigInteger xSquared = u.multiply(v.modInverse(P)).mod(P);
+        if (xSquared.signum() == 0)
+            return true;
+
+        // Euler's criterion
+        return xSquared.modPow(LEGENDRE_EXPONENT, P).equals(BigInteger.ONE);
+    }
+}
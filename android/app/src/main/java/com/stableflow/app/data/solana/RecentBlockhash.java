@@ -0,0 +1,45 @@
+package com.stableflow.app.data.solana;
+
+/**
+ * RecentBlockhash
+ * A blockhash to build transactions against, with the last block height at which it is accepted
+ */
+public class RecentBlockhash {
+
+    private final String blockhash;
+    private final long lastValidBlockHeight;
+    private final long slot;
+    private final long fetchedAt;
+
+    public RecentBlockhash(String blockhash, long lastValidBlockHeight, long slot, long fetchedAt) {
+        this.blockhash = blockhash;
+        this.lastValidBlockHeight = lastValidBlockHeight;
+        this.slot = slot;
+        this.fetchedAt = fetchedAt;
+    }
+
+    public String getBlockhash() {
+        return blockhash;
+    }
+
+    /**
+     * Transactions using this blockhash expire once the chain passes this height
+     */
+    public long getLastValidBlockHeight() {
+        return lastValidBlockHeight;
+    }
+
+    /**
+     * Slot the node answered at
+     */
+    public long getSlot() {
+        return slot;
+    }
+
+    /**
+     * Local time of the fetch in milliseconds since the epoch
+     */
+    public long getFetchedAt() {
+        return fetchedAt;
+    }
+}
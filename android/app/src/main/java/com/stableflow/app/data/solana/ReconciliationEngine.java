@@ -0,0 +1,429 @@
+package com.stableflow.app.data.solana;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.repository.FirebaseRepository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ReconciliationEngine
+ * Matches approved and paid claims to the incoming USDC transfers in the synced wallet history.
+ * Claims are matched by payout signature first, then by a memo carrying the claim id, then by
+ * exact amount inside a time window around the payment. An amount-only match is tentative: the
+ * claim is flagged for review and no payout details are written to it until a signature or memo
+ * confirms the transfer. Every lookup goes through a hash index, so a run is linear in the number
+ * of claims and payouts.
+ */
+public class ReconciliationEngine {
+
+    private static final String TAG = "ReconciliationEngine";
+
+    public static final String STATUS_MATCHED = "MATCHED";
+    public static final String STATUS_AMOUNT_MISMATCH = "AMOUNT_MISMATCH";
+    public static final String STATUS_UNMATCHED = "UNMATCHED";
+    public static final String STATUS_AMOUNT_ONLY = "AMOUNT_ONLY";
+
+    // History entries are examined in batches; detail fetches per run are capped so the first
+    // run over a long history does not flood the RPC node
+    private static final int ENTRY_BATCH_SIZE = 100;
+    private static final int MAX_DETAIL_FETCHES_PER_RUN = 200;
+
+    // A signature the node returns nothing for on this many runs is given up on; old history
+    // can fall out of a node's ledger and would otherwise be refetched forever
+    private static final int MAX_FETCH_MISSES = 5;
+
+    // Amount-only matches must land between a day before and two weeks after the claim's payment time
+    private static final long WINDOW_BEFORE_SECONDS = 24 * 60 * 60;
+    private static final long WINDOW_AFTER_SECONDS = 14 * 24 * 60 * 60;
+
+    // A transfer newer than this relative to the last sync may not be indexed yet
+    private static final long SYNC_GRACE_SECONDS = 10 * 60;
+
+    // Firebase push ids are 20 characters; shorter memo words cannot be claim ids
+    private static final int MIN_MEMO_TOKEN_LENGTH = 16;
+
+    private final SolanaClient client;
+    private final TransactionHistoryStore store;
+    private final FirebaseRepository repository;
+    // Replaced by clear(); main thread only
+    private ExecutorService executor = newExecutor();
+
+    // Confined to the executor thread
+    private String owner;
+    private long lastSyncedAt;
+    private List<ExpenseRequest> claims = Collections.emptyList();
+    private final Map<String, PayoutRecord> bySignature = new HashMap<>();
+    private final Map<String, PayoutRecord> byMemoToken = new HashMap<>();
+    private final Map<Long, List<PayoutRecord>> byAmount = new HashMap<>();
+
+    private final MutableLiveData<List<PayoutRecord>> unmatchedPayouts = new MutableLiveData<>(
+            Collections.emptyList());
+
+    public ReconciliationEngine(SolanaClient client, TransactionHistoryStore store, FirebaseRepository repository) {
+        this.client = client;
+        this.store = store;
+        this.repository = repository;
+    }
+
+    /**
+     * Incoming transfers that no claim accounts for, newest first
+     */
+    public LiveData<List<PayoutRecord>> getUnmatchedPayouts() {
+        return unmatchedPayouts;
+    }
+
+    /**
+     * Examine newly synced history for the wallet, then re-run matching
+     */
+    public void onHistorySynced(String walletAddress) {
+        if (walletAddress == null)
+            return;
+
+        long syncedAt = System.currentTimeMillis() / 1000;
+        executor.execute(() -> {
+            try {
+                loadOwner(walletAddress);
+                lastSyncedAt = syncedAt;
+                ingestNewHistory();
+                reconcile();
+            } catch (Exception e) {
+                Log.e(TAG, "Reconciliation error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Re-run matching against a new snapshot of the user's claims
+     */
+    public void onClaimsChanged(List<ExpenseRequest> expenses) {
+        if (expenses == null)
+            return;
+
+        List<ExpenseRequest> snapshot = new ArrayList<>(expenses);
+        executor.execute(() -> {
+            try {
+                claims = snapshot;
+                reconcile();
+            } catch (Exception e) {
+                Log.e(TAG, "Reconciliation error: " + e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Stop a running pass and forget the wallet and claims, e.g. when the session ends. The
+     * reset runs once the interrupted pass has returned, so the state stays confined to one
+     * thread at a time.
+     */
+    public void clear() {
+        ExecutorService stopped = executor;
+        stopped.shutdownNow();
+        executor = newExecutor();
+        executor.execute(() -> {
+            try {
+                stopped.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+            owner = null;
+            lastSyncedAt = 0;
+            claims = Collections.emptyList();
+            bySignature.clear();
+            byMemoToken.clear();
+            byAmount.clear();
+            unmatchedPayouts.postValue(Collections.emptyList());
+        });
+    }
+
+    private static ExecutorService newExecutor() {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reconciliation");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // ==================
+    // INDEXING
+    // ==================
+
+    /**
+     * Rebuild the indexes from the store when the wallet changes
+     */
+    private void loadOwner(String walletAddress) {
+        if (walletAddress.equals(owner))
+            return;
+
+        owner = walletAddress;
+        lastSyncedAt = 0;
+        bySignature.clear();
+        byMemoToken.clear();
+        byAmount.clear();
+        for (PayoutRecord payout : store.getPayouts(walletAddress)) {
+            index(payout);
+        }
+    }
+
+    private void index(PayoutRecord payout) {
+        bySignature.put(payout.getSignature(), payout);
+
+        List<PayoutRecord> sameAmount = byAmount.get(payout.getAmount());
+        if (sameAmount == null) {
+            sameAmount = new ArrayList<>(1);
+            byAmount.put(payout.getAmount(), sameAmount);
+        }
+        sameAmount.add(payout);
+
+        if (payout.getMemo() != null) {
+            for (String token : payout.getMemo().split("[^A-Za-z0-9_-]+")) {
+                if (token.length() >= MIN_MEMO_TOKEN_LENGTH) {
+                    byMemoToken.put(token, payout);
+                }
+            }
+        }
+    }
+
+    /**
+     * Pull incoming USDC transfers out of history entries not examined yet. Entries that are
+     * not finalized or that the node could not return are skipped and revisited next run.
+     */
+    private void ingestNewHistory() throws Exception {
+        String mint = client.getUsdcMint();
+        int fetches = 0;
+        TransactionHistoryEntry after = null;
+
+        while (fetches < MAX_DETAIL_FETCHES_PER_RUN) {
+            List<TransactionHistoryEntry> batch = store.getUnreconciledEntries(owner, after, ENTRY_BATCH_SIZE);
+            if (batch.isEmpty())
+                return;
+
+            List<TransactionHistoryEntry> examined = new ArrayList<>(batch.size());
+            List<TransactionHistoryEntry> missed = new ArrayList<>();
+            for (TransactionHistoryEntry entry : batch) {
+                if (!entry.isFailed()) {
+                    if (fetches >= MAX_DETAIL_FETCHES_PER_RUN)
+                        break;
+                    fetches++;
+
+                    TransactionDetails details = client.fetchTransactionDetails(entry.getSignature());
+                    if (details == null) {
+                        missed.add(entry);
+                        after = entry;
+                        continue;
+                    }
+                    // Only finalized transfers are recorded; newer ones are revisited next run
+                    if (!details.isFinalized()) {
+                        after = entry;
+                        continue;
+                    }
+
+                    long amount = details.getAmountReceivedBy(entry.getAccount(), mint);
+                    if (amount > 0) {
+                        long blockTime = details.getBlockTime() > 0 ? details.getBlockTime() : entry.getBlockTime();
+                        PayoutRecord payout = new PayoutRecord(entry.getSignature(), entry.getAccount(),
+                                amount, blockTime, details.getMemo());
+                        store.insertPayout(owner, payout);
+                        index(payout);
+                    }
+                }
+                examined.add(entry);
+                after = entry;
+            }
+
+            store.markReconciled(examined);
+            store.recordFetchMisses(missed, MAX_FETCH_MISSES);
+            if (batch.size() < ENTRY_BATCH_SIZE)
+                return;
+        }
+    }
+
+    // ==================
+    // MATCHING
+    // ==================
+
+    private void reconcile() {
+        if (owner == null || lastSyncedAt == 0)
+            return; // Nothing can be flagged before this session's first history sync
+
+        Map<String, PayoutRecord> matches = new HashMap<>();
+        Map<String, String> claimBySignature = new HashMap<>();
+        Set<String> tentative = new HashSet<>();
+
+        // Pass 1: the signature recorded on the claim
+        for (ExpenseRequest claim : claims) {
+            if (!isReconcilable(claim) || claim.getTxSignature() == null)
+                continue;
+            PayoutRecord payout = bySignature.get(claim.getTxSignature());
+            if (payout != null && !claimBySignature.containsKey(payout.getSignature())) {
+                assign(claim, payout, matches, claimBySignature);
+            }
+        }
+
+        // Pass 2: a memo or reference carrying the claim id
+        for (ExpenseRequest claim : claims) {
+            if (!isReconcilable(claim) || matches.containsKey(claim.getId()) || claim.getTxSignature() != null)
+                continue;
+            PayoutRecord payout = byMemoToken.get(claim.getId());
+            if (payout != null && !claimBySignature.containsKey(payout.getSignature())) {
+                assign(claim, payout, matches, claimBySignature);
+            }
+        }
+
+        // Pass 3: exact amount closest in time; only for claims finance has marked paid. Another
+        // transfer of the same amount could be the real one, so these stay tentative
+        for (ExpenseRequest claim : claims) {
+            if (!claim.isPaid() || matches.containsKey(claim.getId()) || claim.getTxSignature() != null)
+                continue;
+            PayoutRecord payout = findByAmount(claim, claimBySignature);
+            if (payout != null) {
+                assign(claim, payout, matches, claimBySignature);
+                tentative.add(claim.getId());
+            }
+        }
+
+        long coverageStart = store.getCoverageStart(owner);
+        for (ExpenseRequest claim : claims) {
+            if (isReconcilable(claim)) {
+                writeBack(claim, matches.get(claim.getId()), tentative.contains(claim.getId()), coverageStart);
+            }
+        }
+
+        List<PayoutRecord> unmatched = new ArrayList<>();
+        for (PayoutRecord payout : bySignature.values()) {
+            String claimId = claimBySignature.get(payout.getSignature());
+            if (!Objects.equals(claimId, payout.getClaimId())) {
+                payout.setClaimId(claimId);
+                store.setPayoutClaim(payout, claimId);
+            }
+            if (claimId == null) {
+                unmatched.add(payout);
+            }
+        }
+        Collections.sort(unmatched, (a, b) -> Long.compare(b.getBlockTime(), a.getBlockTime()));
+        unmatchedPayouts.postValue(unmatched);
+    }
+
+    private boolean isReconcilable(ExpenseRequest claim) {
+        return claim.getId() != null && (claim.isPaid() || claim.isApproved());
+    }
+
+    private void assign(ExpenseRequest claim, PayoutRecord payout, Map<String, PayoutRecord> matches,
+            Map<String, String> claimBySignature) {
+        matches.put(claim.getId(), payout);
+        claimBySignature.put(payout.getSignature(), claim.getId());
+    }
+
+    private PayoutRecord findByAmount(ExpenseRequest claim, Map<String, String> claimBySignature) {
+        List<PayoutRecord> candidates = byAmount.get(claim.getAmountMicros());
+        long reference = getReferenceTime(claim);
+        if (candidates == null || reference <= 0)
+            return null;
+
+        PayoutRecord best = null;
+        long bestDistance = Long.MAX_VALUE;
+        for (PayoutRecord payout : candidates) {
+            if (claimBySignature.containsKey(payout.getSignature()))
+                continue;
+            long offset = payout.getBlockTime() - reference;
+            if (offset < -WINDOW_BEFORE_SECONDS || offset > WINDOW_AFTER_SECONDS)
+                continue;
+            if (Math.abs(offset) < bestDistance) {
+                best = payout;
+                bestDistance = Math.abs(offset);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Push the outcome to the claim, writing only fields that actually change. A tentative match
+     * only sets the review status; the payout is not recorded on the claim.
+     */
+    private void writeBack(ExpenseRequest claim, PayoutRecord payout, boolean tentative, long coverageStart) {
+        Map<String, Object> updates = new HashMap<>();
+        String status;
+
+        if (payout != null && tentative) {
+            status = STATUS_AMOUNT_ONLY;
+        } else if (payout != null) {
+            status = payout.getAmount() == claim.getAmountMicros()
+                    ? STATUS_MATCHED
+                    : STATUS_AMOUNT_MISMATCH;
+
+            if (claim.getTxSignature() == null) {
+                updates.put("txSignature", payout.getSignature());
+                updates.put("txExplorerUrl", client.getExplorerUrl(payout.getSignature()));
+                if (claim.getPaidAt() == null && payout.getBlockTime() > 0) {
+                    updates.put("paidAt", java.time.Instant.ofEpochSecond(payout.getBlockTime()).toString());
+                }
+            }
+        } else if (claim.isPaid() && isCoveredBySync(claim, coverageStart)) {
+            status = STATUS_UNMATCHED;
+        } else {
+            // Approved and not paid yet, or paid outside the synced range: nothing to say
+            status = claim.getReconciliationStatus();
+        }
+
+        if (!Objects.equals(status, claim.getReconciliationStatus())) {
+            updates.put("reconciliationStatus", status);
+        }
+        if (updates.isEmpty())
+            return;
+
+        repository.updateExpenseFields(claim.getId(), updates, new FirebaseRepository.SimpleCallback() {
+            @Override
+            public void onSuccess() {
+                Log.d(TAG, "Claim " + claim.getId() + " reconciled: " + updates.keySet());
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to update reconciliation: " + error);
+            }
+        });
+    }
+
+    /**
+     * Whether the synced history spans the claim's payment, so a missing transfer is meaningful
+     */
+    private boolean isCoveredBySync(ExpenseRequest claim, long coverageStart) {
+        long reference = getReferenceTime(claim);
+        return reference > 0 && reference >= coverageStart && reference < lastSyncedAt - SYNC_GRACE_SECONDS;
+    }
+
+    // ==================
+    // UTILITY
+    // ==================
+
+    /**
+     * When the claim was paid, in seconds since the epoch, or 0 if unknown
+     */
+    private static long getReferenceTime(ExpenseRequest claim) {
+        String[] candidates = { claim.getPaidAt(), claim.getProcessedAt(), claim.getSubmittedAt() };
+        for (String timestamp : candidates) {
+            if (timestamp == null || timestamp.isEmpty())
+                continue;
+            try {
+                return java.time.Instant.parse(timestamp).getEpochSecond();
+            } catch (Exception e) {
+                Log.e(TAG, "Unparseable claim timestamp: " + timestamp);
+            }
+        }
+        return 0;
+    }
+}
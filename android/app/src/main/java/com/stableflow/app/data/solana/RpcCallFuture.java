@@ -0,0 +1,80 @@
+package com.stableflow.app.data.solana;
+
+import java.net.HttpURLConnection;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * RpcCallFuture
+ * Future for one SolanaClient operation with its own deadline. Cancelling it, or passing the
+ * deadline, disconnects the HTTP request in flight so the worker thread is released at once.
+ */
+public class RpcCallFuture<T> extends CompletableFuture<T> {
+
+    private final long deadlineNanos;
+    private volatile HttpURLConnection connection;
+    private volatile Future<?> task;
+
+    RpcCallFuture(long timeoutMs) {
+        deadlineNanos = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+    }
+
+    /**
+     * Milliseconds left before the deadline, throwing once it has passed
+     */
+    long remainingMillis() throws TimeoutException {
+        long remaining = TimeUnit.NANOSECONDS.toMillis(deadlineNanos - System.nanoTime());
+        if (remaining <= 0)
+            throw new TimeoutException("Request timed out");
+        return remaining;
+    }
+
+    void setTask(Future<?> task) {
+        this.task = task;
+        if (isDone()) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * Register the connection currently in use so cancellation can abort it
+     */
+    void attach(HttpURLConnection conn) {
+        connection = conn;
+        if (isDone()) {
+            conn.disconnect();
+        }
+    }
+
+    void detach() {
+        connection = null;
+    }
+
+    void timeout() {
+        if (completeExceptionally(new TimeoutException("Request timed out"))) {
+            abort();
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            abort();
+        }
+        return cancelled;
+    }
+
+    private void abort() {
+        HttpURLConnection conn = connection;
+        if (conn != null) {
+            conn.disconnect();
+        }
+        Future<?> running = task;
+        if (running != null) {
+            running.cancel(true);
+        }
+    }
+}
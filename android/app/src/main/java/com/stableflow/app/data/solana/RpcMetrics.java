@@ -0,0 +1,187 @@
+package com.stableflow.app.data.solana;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * RpcMetrics
+ * Per-method, per-endpoint counters and latency histograms for JSON-RPC calls.
+ * Recording is lock-free; read the numbers through snapshot() or dump().
+ */
+public class RpcMetrics {
+
+    /**
+     * How a call ended
+     */
+    public enum Outcome {
+        SUCCESS,
+        // The node answered with a JSON-RPC error object
+        RPC_ERROR,
+        // Non-200 HTTP status, e.g. 429 rate limiting
+        HTTP_ERROR,
+        TIMEOUT,
+        NETWORK_ERROR
+    }
+
+    /**
+     * Live counters for one method on one endpoint
+     */
+    private static class MethodStats {
+        final String method;
+        final String endpoint;
+        final AtomicLongArray outcomes = new AtomicLongArray(Outcome.values().length);
+        final AtomicLong requestBytes = new AtomicLong();
+        final AtomicLong responseBytes = new AtomicLong();
+        final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+        final LatencyHistogram totalLatency = new LatencyHistogram();
+
+        MethodStats(String method, String endpoint) {
+            this.method = method;
+            this.endpoint = endpoint;
+        }
+    }
+
+    /**
+     * Point-in-time copy of one method's metrics
+     */
+    public static class MethodSnapshot {
+        private final String method;
+        private final String endpoint;
+        private final long[] outcomes;
+        private final long requestBytes;
+        private final long responseBytes;
+        private final LatencyHistogram.Snapshot timeToFirstByte;
+        private final LatencyHistogram.Snapshot totalLatency;
+
+        MethodSnapshot(MethodStats stats) {
+            method = stats.method;
+            endpoint = stats.endpoint;
+            outcomes = new long[Outcome.values().length];
+            for (int i = 0; i < outcomes.length; i++) {
+                outcomes[i] = stats.outcomes.get(i);
+            }
+            requestBytes = stats.requestBytes.get();
+            responseBytes = stats.responseBytes.get();
+            timeToFirstByte = stats.timeToFirstByte.snapshot();
+            totalLatency = stats.totalLatency.snapshot();
+        }
+
+        public String getMethod() {
+            return method;
+        }
+
+        public String getEndpoint() {
+            return endpoint;
+        }
+
+        public long getCallCount() {
+            long total = 0;
+            for (long count : outcomes) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getOutcomeCount(Outcome outcome) {
+            return outcomes[outcome.ordinal()];
+        }
+
+        public long getRequestBytes() {
+            return requestBytes;
+        }
+
+        public long getResponseBytes() {
+            return responseBytes;
+        }
+
+        /**
+         * Time from opening the connection until response headers arrived
+         */
+        public LatencyHistogram.Snapshot getTimeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        /**
+         * Time from opening the connection until the body was fully read
+         */
+        public LatencyHistogram.Snapshot getTotalLatency() {
+            return totalLatency;
+        }
+    }
+
+    private final ConcurrentHashMap<String, MethodStats> stats = new ConcurrentHashMap<>();
+
+    /**
+     * Record one finished call. Pass -1 for a time to first byte that was never reached.
+     */
+    public void record(String method, String endpoint, Outcome outcome, long requestBytes,
+            long responseBytes, long ttfbMicros, long totalMicros) {
+        String key = endpoint + " " + method;
+        MethodStats entry = stats.get(key);
+        if (entry == null) {
+            entry = stats.computeIfAbsent(key, k -> new MethodStats(method, endpoint));
+        }
+
+        entry.outcomes.incrementAndGet(outcome.ordinal());
+        entry.requestBytes.addAndGet(requestBytes);
+        entry.responseBytes.addAndGet(responseBytes);
+        if (ttfbMicros >= 0) {
+            entry.timeToFirstByte.record(ttfbMicros);
+        }
+        entry.totalLatency.record(totalMicros);
+    }
+
+    /**
+     * Copy of every method's metrics, busiest first
+     */
+    public List<MethodSnapshot> snapshot() {
+        List<MethodSnapshot> snapshots = new ArrayList<>();
+        for (MethodStats entry : stats.values()) {
+            snapshots.add(new MethodSnapshot(entry));
+        }
+        Collections.sort(snapshots, (a, b) -> Long.compare(b.getCallCount(), a.getCallCount()));
+        return snapshots;
+    }
+
+    public void reset() {
+        stats.clear();
+    }
+
+    /**
+     * Human-readable table for logs and bug reports
+     */
+    public String dump() {
+        StringBuilder out = new StringBuilder();
+        for (MethodSnapshot snapshot : snapshot()) {
+            LatencyHistogram.Snapshot total = snapshot.getTotalLatency();
+            LatencyHistogram.Snapshot ttfb = snapshot.getTimeToFirstByte();
+            out.append(String.format(Locale.US,
+                    "%s @ %s: calls=%d ok=%d rpcErr=%d httpErr=%d timeout=%d netErr=%d"
+                            + " sent=%dB recv=%dB"
+                            + " ttfb p50=%.1fms p99=%.1fms"
+                            + " total p50=%.1fms p90=%.1fms p99=%.1fms max=%.1fms%n",
+                    snapshot.getMethod(),
+                    snapshot.getEndpoint(),
+                    snapshot.getCallCount(),
+                    snapshot.getOutcomeCount(Outcome.SUCCESS),
+                    snapshot.getOutcomeCount(Outcome.RPC_ERROR),
+                    snapshot.getOutcomeCount(Outcome.HTTP_ERROR),
+                    snapshot.getOutcomeCount(Outcome.TIMEOUT),
+                    snapshot.getOutcomeCount(Outcome.NETWORK_ERROR),
+                    snapshot.getRequestBytes(),
+                    snapshot.getResponseBytes(),
+                    ttfb.getPercentileMicros(50) / 1000.0,
+                    ttfb.getPercentileMicros(99) / 1000.0,
+                    total.getPercentileMicros(50) / 1000.0,
+                    total.getPercentileMicros(90) / 1000.0,
+                    total.getPercentileMicros(99) / 1000.0,
+                    total.getMaxMicros() / 1000.0));
+        }
+        return out.toString();
+    }
+}
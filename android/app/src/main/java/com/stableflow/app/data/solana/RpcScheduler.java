@@ -0,0 +1,177 @@
+package com.stableflow.app.data.solana;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * RpcScheduler
+ * Bounded worker pool for RPC calls. Queued work runs in priority order, so a balance read
+ * issued by the user goes ahead of history sync pages waiting behind it. Idle workers exit,
+ * and shutdown() stops the pool for good.
+ */
+public class RpcScheduler {
+
+    public enum Priority {
+        // The user is waiting on the result, e.g. a balance refresh
+        INTERACTIVE,
+        // Visible but not blocking, e.g. confirmation polling
+        NORMAL,
+        // History sync and reconciliation
+        BACKGROUND
+    }
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    // Idle workers are released after this long
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    // The scheduler owning the current thread, if it is a worker
+    private static final ThreadLocal<RpcScheduler> OWNER = new ThreadLocal<>();
+
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong sequence = new AtomicLong();
+
+    public RpcScheduler() {
+        this(DEFAULT_PARALLELISM);
+    }
+
+    public RpcScheduler(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+
+        AtomicInteger threadCount = new AtomicInteger();
+        ThreadFactory factory = runnable -> {
+            Thread thread = new Thread(() -> {
+                OWNER.set(this);
+                runnable.run();
+            }, "rpc-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+
+        // Core and max size are equal: with an unbounded queue the pool never grows past core
+        executor = new ThreadPoolExecutor(parallelism, parallelism, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), factory);
+        executor.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Change how many calls may run at once. Running calls are not interrupted.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("parallelism must be at least 1");
+
+        // Order matters: max may never drop below core
+        if (parallelism > executor.getMaximumPoolSize()) {
+            executor.setMaximumPoolSize(parallelism);
+            executor.setCorePoolSize(parallelism);
+        } else {
+            executor.setCorePoolSize(parallelism);
+            executor.setMaximumPoolSize(parallelism);
+        }
+    }
+
+    public int getParallelism() {
+        return executor.getMaximumPoolSize();
+    }
+
+    public int getQueuedCount() {
+        return executor.getQueue().size();
+    }
+
+    public int getActiveCount() {
+        return executor.getActiveCount();
+    }
+
+    /**
+     * Queue a task. Tasks of equal priority run in submission order.
+     */
+    public Future<?> submit(Priority priority, Runnable task) {
+        PrioritizedTask<Void> prioritized = new PrioritizedTask<>(task, priority, sequence.getAndIncrement());
+        executor.execute(prioritized);
+        return prioritized;
+    }
+
+    /**
+     * Run a task on the pool and wait for it. Called from a worker, the task runs inline
+     * so nested calls cannot deadlock the pool.
+     */
+    public <T> T call(Priority priority, Callable<T> task) throws Exception {
+        if (isWorkerThread())
+            return task.call();
+
+        PrioritizedTask<T> prioritized = new PrioritizedTask<>(task, priority, sequence.getAndIncrement());
+        executor.execute(prioritized);
+        try {
+            return prioritized.get();
+        } catch (InterruptedException e) {
+            prioritized.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof Exception)
+                throw (Exception) cause;
+            throw e;
+        }
+    }
+
+    public boolean isWorkerThread() {
+        return OWNER.get() == this;
+    }
+
+    /**
+     * Stop the pool: queued tasks are cancelled and running ones interrupted.
+     * Later submissions are rejected with RejectedExecutionException.
+     */
+    public void shutdown() {
+        List<Runnable> pending = executor.shutdownNow();
+        for (Runnable task : pending) {
+            ((Future<?>) task).cancel(false);
+        }
+    }
+
+    public boolean isShutdown() {
+        return executor.isShutdown();
+    }
+
+    // ==================
+    // QUEUE ENTRIES
+    // ==================
+
+    private static final class PrioritizedTask<T> extends FutureTask<T> implements Comparable<PrioritizedTask<?>> {
+
+        private final Priority priority;
+        private final long sequence;
+
+        PrioritizedTask(Runnable task, Priority priority, long sequence) {
+            super(task, null);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        PrioritizedTask(Callable<T> task, Priority priority, long sequence) {
+            super(task);
+            this.priority = priority;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(PrioritizedTask<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            if (byPriority != 0)
+                return byPriority;
+            return Long.compare(sequence, other.sequence);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.stableflow.app.data.solana;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SimulationResult
+ * Outcome of simulateTransaction: compute units consumed, and the error if the transaction would fail
+ */
+public class SimulationResult {
+
+    private final String error;
+    private final int failedInstruction;
+    private final long unitsConsumed;
+    private final List<String> logs;
+
+    public SimulationResult(String error, int failedInstruction, long unitsConsumed, List<String> logs) {
+        this.error = error;
+        this.failedInstruction = failedInstruction;
+        this.unitsConsumed = unitsConsumed;
+        this.logs = Collections.unmodifiableList(logs);
+    }
+
+    /**
+     * Parse the value object of a simulateTransaction response
+     */
+    static SimulationResult fromRpc(JSONObject value) throws Exception {
+        List<String> logs = new ArrayList<>();
+        JSONArray logArray = value.optJSONArray("logs");
+        if (logArray != null) {
+            for (int i = 0; i < logArray.length(); i++) {
+                logs.add(logArray.getString(i));
+            }
+        }
+
+        String error = null;
+        int failedInstruction = -1;
+        Object err = value.opt("err");
+        if (err != null && err != JSONObject.NULL) {
+            error = err.toString();
+            // {"InstructionError":[index,{"Custom":1}]} names the instruction that failed
+            if (err instanceof JSONObject && ((JSONObject) err).has("InstructionError")) {
+                JSONArray instructionError = ((JSONObject) err).getJSONArray("InstructionError");
+                failedInstruction = instructionError.getInt(0);
+                error = instructionError.get(1).toString();
+            }
+        }
+        return new SimulationResult(error, failedInstruction, value.optLong("unitsConsumed"), logs);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * Runtime error, e.g. InsufficientFundsForFee or {"Custom":1}; null on success
+     */
+    public String getError() {
+        return error;
+    }
+
+    /**
+     * Index of the instruction that failed, or -1 if the failure was not in one instruction
+     */
+    public int getFailedInstruction() {
+        return failedInstruction;
+    }
+
+    public long getUnitsConsumed() {
+        return unitsConsumed;
+    }
+
+    public List<String> getLogs() {
+        return logs;
+    }
+
+    /**
+     * Last program log line reporting an error, which is usually the readable reason
+     */
+    public String getErrorLog() {
+        for (int i = logs.size() - 1; i >= 0; i--) {
+            String line = logs.get(i);
+            if (line.contains("Error") || line.contains("failed")) {
+                return line;
+            }
+        }
+        return null;
+    }
+}
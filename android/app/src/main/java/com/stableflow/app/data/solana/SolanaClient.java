@@ -1,20 +1,41 @@
 package com.stableflow.app.data.solana;
 
+import android.util.Base64;
 import android.util.Log;
+import android.util.SparseLongArray;
 
 import androidx.annotation.NonNull;
 
+import com.stableflow.app.util.TokenAmount;
+
 import org.json.JSONArray;
 import org.json.JSONObject;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
+import java.net.SocketTimeoutException;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
 
 /**
  * SolanaClient
@@ -28,26 +49,120 @@ public class SolanaClient {
     private static final String MAINNET_RPC = "https://api.mainnet-beta.solana.com";
     private static final String DEVNET_RPC = "https://api.devnet.solana.com";
 
-    // USDC Token Program IDs
-    private static final String USDC_MINT_MAINNET = "EPjFWdd5AufqSSqeM2qN1xzybapC8G4wEGGkZwyTDt1v";
-    private static final String USDC_MINT_DEVNET = "4zMMC9srt5Ri5X14GAgXhaHii3GnPAEERYPJgZJDncDU";
-
     // Token Program
-    private static final String TOKEN_PROGRAM_ID = "TokenkegQfeZyiNwAJbNbGKPFXCWuBvf9Ss623VQ5DA";
+    private static final String TOKEN_PROGRAM_ID = ProgramAddress.TOKEN_PROGRAM_ID;
+
+    // getSignatureStatuses accepts at most 256 signatures per request
+    public static final int MAX_SIGNATURES_PER_STATUS_REQUEST = 256;
+
+    // getMultipleAccounts accepts at most 100 accounts per request
+    public static final int MAX_ACCOUNTS_PER_REQUEST = 100;
+
+    // Requests per JSON-RPC batch; public nodes reject much larger batches
+    public static final int MAX_REQUESTS_PER_BATCH = 50;
 
-    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    // SPL token account layout: mint (32) | owner (32) | amount (u64 little-endian) | ...
+    private static final int TOKEN_ACCOUNT_AMOUNT_OFFSET = 64;
+
+    // Default deadline of the callback API and of blocking calls
+    public static final long DEFAULT_TIMEOUT_MS = 30_000;
+
+    // The future whose task is running on the current worker thread
+    private static final ThreadLocal<RpcCallFuture<?>> CURRENT_CALL = new ThreadLocal<>();
+
+    private final RpcScheduler scheduler;
+    private final ScheduledThreadPoolExecutor deadlineScheduler;
+    // Calls not completed yet, cancelled on shutdown
+    private final Set<RpcCallFuture<?>> inFlight = ConcurrentHashMap.newKeySet();
     private final boolean useDevnet;
+    private final TokenRegistry tokenRegistry;
+    private final String rpcUrlOverride;
+    private TransactionDetailsCache detailsCache;
+    private final RpcMetrics metrics = new RpcMetrics();
 
     public SolanaClient(boolean useDevnet) {
+        this(useDevnet, null);
+    }
+
+    /**
+     * Create a client that talks to a specific RPC endpoint, e.g. a local stub server.
+     * The cluster flag still selects the USDC mint and explorer links.
+     */
+    public SolanaClient(boolean useDevnet, String rpcUrl) {
+        this(useDevnet, rpcUrl, new RpcScheduler());
+    }
+
+    /**
+     * Create a client whose calls run on the given scheduler. The client owns it from then on
+     * and stops it in shutdown().
+     */
+    public SolanaClient(boolean useDevnet, String rpcUrl, RpcScheduler scheduler) {
         this.useDevnet = useDevnet;
+        this.rpcUrlOverride = rpcUrl;
+        this.scheduler = scheduler;
+        this.tokenRegistry = TokenRegistry.forCluster(useDevnet);
+
+        deadlineScheduler = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "rpc-deadlines");
+            thread.setDaemon(true);
+            return thread;
+        });
+        deadlineScheduler.setKeepAliveTime(30, TimeUnit.SECONDS);
+        deadlineScheduler.allowCoreThreadTimeOut(true);
+        deadlineScheduler.setRemoveOnCancelPolicy(true);
     }
 
     public String getRpcUrl() {
+        if (rpcUrlOverride != null)
+            return rpcUrlOverride;
         return useDevnet ? DEVNET_RPC : MAINNET_RPC;
     }
 
     public String getUsdcMint() {
-        return useDevnet ? USDC_MINT_DEVNET : USDC_MINT_MAINNET;
+        return tokenRegistry.getUsdc().getMint();
+    }
+
+    /**
+     * Tokens supported on this client's cluster
+     */
+    public TokenRegistry getTokenRegistry() {
+        return tokenRegistry;
+    }
+
+    /**
+     * Per-method call counts, payload sizes and latency histograms for this client
+     */
+    public RpcMetrics getMetrics() {
+        return metrics;
+    }
+
+    public RpcScheduler getScheduler() {
+        return scheduler;
+    }
+
+    /**
+     * Cancel every queued and running call; the client stays usable
+     */
+    public void cancelAll() {
+        for (RpcCallFuture<?> call : inFlight) {
+            call.cancel(true);
+        }
+    }
+
+    /**
+     * Cancel every call and stop the worker threads. The client is unusable afterwards.
+     */
+    public void shutdown() {
+        cancelAll();
+        scheduler.shutdown();
+        deadlineScheduler.shutdownNow();
+    }
+
+    /**
+     * Serve finalized transaction details from this cache instead of the network
+     */
+    public void setDetailsCache(TransactionDetailsCache detailsCache) {
+        this.detailsCache = detailsCache;
     }
 
     // ==================
@@ -55,7 +170,11 @@ public class SolanaClient {
     // ==================
 
     public interface BalanceCallback {
-        void onSuccess(double solBalance, double usdcBalance);
+        /**
+         * @param lamports    SOL balance in lamports
+         * @param usdcMicros  USDC balance in micro-USDC
+         */
+        void onSuccess(long lamports, long usdcMicros);
 
         void onError(String error);
     }
@@ -66,275 +185,837 @@ public class SolanaClient {
         void onError(String error);
     }
 
+    public interface TransactionDetailsCallback {
+        void onSuccess(TransactionDetails details);
+
+        void onError(String error);
+    }
+
+    public interface BulkBalanceCallback {
+        /**
+         * Balances in token base units, keyed by the wallet's index in the request
+         */
+        void onSuccess(SparseLongArray balances);
+
+        void onError(String error);
+    }
+
+    public interface SignatureStatusCallback {
+        void onSuccess(Map<String, ConfirmationStatus> statuses);
+
+        void onError(String error);
+    }
+
+    /**
+     * Confirmation state of a transaction signature, ordered from least to most settled
+     */
+    public enum ConfirmationStatus {
+        NOT_FOUND,
+        PROCESSED,
+        CONFIRMED,
+        FINALIZED,
+        FAILED,
+        // Set by ConfirmationTracker, never by the node: still NOT_FOUND well after the
+        // transaction's blockhash expired, so it can no longer land
+        DROPPED;
+
+        static ConfirmationStatus fromRpc(JSONObject status) {
+            if (status == null)
+                return NOT_FOUND;
+            if (status.has("err") && !status.isNull("err"))
+                return FAILED;
+            switch (status.optString("confirmationStatus", "")) {
+                case "finalized":
+                    return FINALIZED;
+                case "confirmed":
+                    return CONFIRMED;
+                default:
+                    return PROCESSED;
+            }
+        }
+
+        public boolean isSettled() {
+            return this == FINALIZED || this == FAILED || this == DROPPED;
+        }
+    }
+
     // ==================
-    // BALANCE CHECKING
+    // ASYNC CORE
     // ==================
 
+    private interface RpcTask<T> {
+        T run() throws Exception;
+    }
+
     /**
-     * Get SOL balance for a wallet address
+     * Queue an operation on the scheduler as a future bounded by its own deadline
      */
-    public void getSolBalance(String walletAddress, BalanceCallback callback) {
-        executor.execute(() -> {
-            try {
-                JSONObject request = new JSONObject();
-                request.put("jsonrpc", "2.0");
-                request.put("id", 1);
-                request.put("method", "getBalance");
-                request.put("params", new JSONArray().put(walletAddress));
-
-                String response = makeRpcCall(request.toString());
-                JSONObject json = new JSONObject(response);
-
-                if (json.has("result")) {
-                    long lamports = json.getJSONObject("result").getLong("value");
-                    double solBalance = lamports / 1_000_000_000.0; // Convert lamports to SOL
-                    callback.onSuccess(solBalance, 0);
-                } else if (json.has("error")) {
-                    callback.onError(json.getJSONObject("error").getString("message"));
+    private <T> RpcCallFuture<T> submit(String name, RpcScheduler.Priority priority, long timeoutMs,
+            RpcTask<T> task) {
+        RpcCallFuture<T> future = new RpcCallFuture<>(timeoutMs);
+        inFlight.add(future);
+        future.whenComplete((result, error) -> inFlight.remove(future));
+
+        try {
+            future.setTask(scheduler.submit(priority, () -> {
+                if (future.isDone())
+                    return; // Cancelled or timed out while queued
+                CURRENT_CALL.set(future);
+                try {
+                    future.complete(task.run());
+                } catch (Exception e) {
+                    if (!future.isDone()) {
+                        Log.e(TAG, name + " error: " + e.getMessage());
+                    }
+                    future.completeExceptionally(e);
+                } finally {
+                    CURRENT_CALL.remove();
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "getSolBalance error: " + e.getMessage());
-                callback.onError(e.getMessage());
+            }));
+
+            ScheduledFuture<?> timer = deadlineScheduler.schedule(future::timeout, timeoutMs, TimeUnit.MILLISECONDS);
+            future.whenComplete((result, error) -> timer.cancel(false));
+        } catch (RejectedExecutionException e) {
+            // The client has been shut down
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Combine two calls that run in parallel. Cancelling the result, or either call failing,
+     * cancels whichever call is still running.
+     */
+    public static <A, B, R> CompletableFuture<R> combine(CompletableFuture<A> first,
+            CompletableFuture<B> second, BiFunction<A, B, R> combiner) {
+        CompletableFuture<R> combined = first.thenCombine(second, combiner);
+        combined.whenComplete((result, error) -> {
+            if (error != null) {
+                first.cancel(true);
+                second.cancel(true);
             }
         });
+        return combined;
     }
 
     /**
-     * Get USDC balance for a wallet address
+     * Feed a future's outcome to a legacy callback
      */
-    public void getUsdcBalance(String walletAddress, BalanceCallback callback) {
-        executor.execute(() -> {
-            try {
-                // Get token accounts by owner
-                JSONObject request = new JSONObject();
-                request.put("jsonrpc", "2.0");
-                request.put("id", 1);
-                request.put("method", "getTokenAccountsByOwner");
+    private static <T> void deliver(CompletableFuture<T> future, Consumer<T> onSuccess, Consumer<String> onError) {
+        future.whenComplete((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onError.accept(messageOf(error));
+            }
+        });
+    }
 
-                JSONArray params = new JSONArray();
-                params.put(walletAddress);
+    private static String messageOf(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+        if (cause instanceof CancellationException)
+            return "Request cancelled";
+        return cause.getMessage() != null ? cause.getMessage() : cause.toString();
+    }
 
-                JSONObject mintFilter = new JSONObject();
-                mintFilter.put("mint", getUsdcMint());
-                params.put(mintFilter);
+    // ==================
+    // BALANCE CHECKING
+    // ==================
 
-                JSONObject encoding = new JSONObject();
-                encoding.put("encoding", "jsonParsed");
-                params.put(encoding);
+    /**
+     * Get the SOL balance of a wallet in lamports
+     */
+    public RpcCallFuture<Long> getSolBalanceAsync(String walletAddress, long timeoutMs) {
+        return submit("getSolBalance", RpcScheduler.Priority.INTERACTIVE, timeoutMs,
+                () -> fetchSolBalance(walletAddress));
+    }
 
-                request.put("params", params);
+    /**
+     * Get the USDC balance of a wallet in micro-USDC, summed over its token accounts
+     */
+    public RpcCallFuture<Long> getUsdcBalanceAsync(String walletAddress, long timeoutMs) {
+        TokenRegistry.Token usdc = tokenRegistry.getUsdc();
+        return submit("getUsdcBalance", RpcScheduler.Priority.INTERACTIVE, timeoutMs,
+                () -> fetchTokenBalances(walletAddress, Collections.singletonList(usdc.getProgramId()))
+                        .get(usdc.getMint()));
+    }
 
-                String response = makeRpcCall(request.toString());
-                JSONObject json = new JSONObject(response);
+    /**
+     * Get the balance of every registered token, keyed by mint, in each token's base units.
+     * Costs one getTokenAccountsByOwner call per token program rather than one per mint.
+     */
+    public RpcCallFuture<Map<String, Long>> getTokenBalancesAsync(String walletAddress, long timeoutMs) {
+        return submit("getTokenBalances", RpcScheduler.Priority.INTERACTIVE, timeoutMs,
+                () -> fetchTokenBalances(walletAddress, tokenRegistry.getProgramIds()));
+    }
 
-                if (json.has("result")) {
-                    JSONArray accounts = json.getJSONObject("result").getJSONArray("value");
-                    double usdcBalance = 0;
+    /**
+     * Get SOL and all token balances; the requests run in parallel
+     */
+    public CompletableFuture<WalletBalances> getBalancesAsync(String walletAddress, long timeoutMs) {
+        return combine(getSolBalanceAsync(walletAddress, timeoutMs), getTokenBalancesAsync(walletAddress, timeoutMs),
+                WalletBalances::new);
+    }
 
-                    for (int i = 0; i < accounts.length(); i++) {
-                        JSONObject account = accounts.getJSONObject(i);
-                        JSONObject parsed = account.getJSONObject("account")
-                                .getJSONObject("data")
-                                .getJSONObject("parsed")
-                                .getJSONObject("info")
-                                .getJSONObject("tokenAmount");
+    /**
+     * Get the USDC balances of many wallets with one getMultipleAccounts call per 100 wallets.
+     * Reads each wallet's associated token account; wallets without one are left out.
+     * Balances are in base units, keyed by the wallet's index in the list.
+     */
+    public RpcCallFuture<SparseLongArray> getUsdcBalancesAsync(List<String> wallets, long timeoutMs) {
+        return submit("getUsdcBalances", RpcScheduler.Priority.NORMAL, timeoutMs, () -> fetchUsdcBalances(wallets));
+    }
 
-                        usdcBalance += parsed.getDouble("uiAmount");
-                    }
+    /**
+     * Get SOL balance for a wallet address
+     */
+    public void getSolBalance(String walletAddress, BalanceCallback callback) {
+        deliver(getSolBalanceAsync(walletAddress, DEFAULT_TIMEOUT_MS),
+                lamports -> callback.onSuccess(lamports, 0), callback::onError);
+    }
 
-                    callback.onSuccess(0, usdcBalance);
-                } else if (json.has("error")) {
-                    callback.onError(json.getJSONObject("error").getString("message"));
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "getUsdcBalance error: " + e.getMessage());
-                callback.onError(e.getMessage());
-            }
-        });
+    /**
+     * Get USDC balance for a wallet address
+     */
+    public void getUsdcBalance(String walletAddress, BalanceCallback callback) {
+        deliver(getUsdcBalanceAsync(walletAddress, DEFAULT_TIMEOUT_MS),
+                micros -> callback.onSuccess(0, micros), callback::onError);
     }
 
     /**
      * Get both SOL and USDC balances
      */
     public void getBalances(String walletAddress, BalanceCallback callback) {
-        executor.execute(() -> {
-            try {
-                // Get SOL balance
-                JSONObject solRequest = new JSONObject();
-                solRequest.put("jsonrpc", "2.0");
-                solRequest.put("id", 1);
-                solRequest.put("method", "getBalance");
-                solRequest.put("params", new JSONArray().put(walletAddress));
-
-                String solResponse = makeRpcCall(solRequest.toString());
-                JSONObject solJson = new JSONObject(solResponse);
-
-                double solBalance = 0;
-                if (solJson.has("result")) {
-                    long lamports = solJson.getJSONObject("result").getLong("value");
-                    solBalance = lamports / 1_000_000_000.0;
-                }
+        deliver(getBalancesAsync(walletAddress, DEFAULT_TIMEOUT_MS),
+                balances -> callback.onSuccess(balances.getLamports(), balances.getAmount(getUsdcMint())),
+                callback::onError);
+    }
 
-                // Get USDC balance
-                JSONObject usdcRequest = new JSONObject();
-                usdcRequest.put("jsonrpc", "2.0");
-                usdcRequest.put("id", 2);
-                usdcRequest.put("method", "getTokenAccountsByOwner");
+    public void getUsdcBalances(List<String> wallets, BulkBalanceCallback callback) {
+        deliver(getUsdcBalancesAsync(wallets, DEFAULT_TIMEOUT_MS), callback::onSuccess, callback::onError);
+    }
 
-                JSONArray params = new JSONArray();
-                params.put(walletAddress);
+    private long fetchSolBalance(String walletAddress) throws Exception {
+        JSONObject json = callRpc("getBalance", new JSONArray().put(walletAddress));
+        return json.getJSONObject("result").getLong("value");
+    }
+
+    /**
+     * Sum the wallet's token accounts under the given programs per registered mint.
+     * Every registered token gets an entry, zero when the wallet holds none of it.
+     */
+    private Map<String, Long> fetchTokenBalances(String walletAddress, List<String> programIds) throws Exception {
+        long[] amounts = new long[tokenRegistry.getTokens().size()];
+        Map<String, Integer> indexes = new HashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            indexes.put(tokenRegistry.getTokens().get(i).getMint(), i);
+        }
 
-                JSONObject mintFilter = new JSONObject();
-                mintFilter.put("mint", getUsdcMint());
-                params.put(mintFilter);
+        for (String programId : programIds) {
+            JSONArray params = new JSONArray();
+            params.put(walletAddress);
 
-                JSONObject encoding = new JSONObject();
-                encoding.put("encoding", "jsonParsed");
-                params.put(encoding);
+            JSONObject programFilter = new JSONObject();
+            programFilter.put("programId", programId);
+            params.put(programFilter);
 
-                usdcRequest.put("params", params);
+            JSONObject encoding = new JSONObject();
+            encoding.put("encoding", "jsonParsed");
+            params.put(encoding);
 
-                String usdcResponse = makeRpcCall(usdcRequest.toString());
-                JSONObject usdcJson = new JSONObject(usdcResponse);
+            JSONArray accounts = callRpc("getTokenAccountsByOwner", params)
+                    .getJSONObject("result")
+                    .getJSONArray("value");
 
-                double usdcBalance = 0;
-                if (usdcJson.has("result")) {
-                    JSONArray accounts = usdcJson.getJSONObject("result").getJSONArray("value");
-                    for (int i = 0; i < accounts.length(); i++) {
-                        JSONObject account = accounts.getJSONObject(i);
-                        JSONObject parsed = account.getJSONObject("account")
-                                .getJSONObject("data")
-                                .getJSONObject("parsed")
-                                .getJSONObject("info")
-                                .getJSONObject("tokenAmount");
+            for (int i = 0; i < accounts.length(); i++) {
+                JSONObject info = accounts.getJSONObject(i)
+                        .getJSONObject("account")
+                        .getJSONObject("data")
+                        .getJSONObject("parsed")
+                        .getJSONObject("info");
 
-                        usdcBalance += parsed.getDouble("uiAmount");
-                    }
+                Integer index = indexes.get(info.optString("mint"));
+                if (index == null)
+                    continue; // Not a token we pay out in
+
+                // uiAmount is a lossy double; the amount string is exact
+                amounts[index] += TokenAmount.parseUnits(info.getJSONObject("tokenAmount").getString("amount"));
+            }
+        }
+
+        Map<String, Long> balances = new LinkedHashMap<>();
+        for (int i = 0; i < amounts.length; i++) {
+            balances.put(tokenRegistry.getTokens().get(i).getMint(), amounts[i]);
+        }
+        return Collections.unmodifiableMap(balances);
+    }
+
+    private SparseLongArray fetchUsdcBalances(List<String> wallets) throws Exception {
+        byte[] mint = Base58.decode(getUsdcMint());
+        byte[] tokenProgram = Base58.decode(TOKEN_PROGRAM_ID);
+
+        // Derive token accounts locally instead of asking the node per wallet
+        List<String> accounts = new ArrayList<>(wallets.size());
+        for (String wallet : wallets) {
+            String account = null;
+            if (isValidAddress(wallet)) {
+                try {
+                    account = ProgramAddress.getAssociatedTokenAddress(Base58.decode(wallet), mint, tokenProgram);
+                } catch (Exception e) {
+                    Log.e(TAG, "Token account derivation error: " + e.getMessage());
                 }
+            }
+            accounts.add(account);
+        }
 
-                callback.onSuccess(solBalance, usdcBalance);
+        SparseLongArray balances = new SparseLongArray(wallets.size());
+        for (int start = 0; start < accounts.size(); start += MAX_ACCOUNTS_PER_REQUEST) {
+            int end = Math.min(start + MAX_ACCOUNTS_PER_REQUEST, accounts.size());
+            fetchTokenAmounts(accounts, start, end, mint, balances);
+        }
+        return balances;
+    }
 
-            } catch (Exception e) {
-                Log.e(TAG, "getBalances error: " + e.getMessage());
-                callback.onError(e.getMessage());
+    /**
+     * Fetch one getMultipleAccounts chunk and decode the raw token account amounts into balances
+     */
+    private void fetchTokenAmounts(List<String> accounts, int start, int end, byte[] mint,
+            SparseLongArray balances) throws Exception {
+        JSONArray keys = new JSONArray();
+        int[] indexes = new int[end - start];
+        for (int i = start; i < end; i++) {
+            if (accounts.get(i) != null) {
+                indexes[keys.length()] = i;
+                keys.put(accounts.get(i));
             }
-        });
+        }
+        if (keys.length() == 0)
+            return;
+
+        JSONObject config = new JSONObject();
+        config.put("encoding", "base64");
+        config.put("commitment", "confirmed");
+
+        JSONArray params = new JSONArray();
+        params.put(keys);
+        params.put(config);
+
+        JSONArray values = callRpc("getMultipleAccounts", params)
+                .getJSONObject("result")
+                .getJSONArray("value");
+
+        for (int i = 0; i < values.length(); i++) {
+            if (values.isNull(i))
+                continue; // Token account not created yet
+
+            JSONObject account = values.getJSONObject(i);
+            if (!TOKEN_PROGRAM_ID.equals(account.optString("owner")))
+                continue;
+
+            byte[] data = Base64.decode(account.getJSONArray("data").getString(0), Base64.DEFAULT);
+            if (data.length < TOKEN_ACCOUNT_AMOUNT_OFFSET + 8 || !startsWith(data, mint))
+                continue;
+
+            balances.put(indexes[i], readU64(data, TOKEN_ACCOUNT_AMOUNT_OFFSET));
+        }
+    }
+
+    private static boolean startsWith(byte[] data, byte[] prefix) {
+        for (int i = 0; i < prefix.length; i++) {
+            if (data[i] != prefix[i])
+                return false;
+        }
+        return true;
+    }
+
+    private static long readU64(byte[] data, int offset) {
+        long value = 0;
+        for (int i = 7; i >= 0; i--) {
+            value = (value << 8) | (data[offset + i] & 0xFF);
+        }
+        return value;
     }
 
     // ==================
     // TRANSACTION INFO
     // ==================
 
+    /**
+     * Get parsed transfer, memo, fee and block time details for a transaction.
+     * Finalized transactions are served from the on-disk cache after the first fetch.
+     */
+    public RpcCallFuture<TransactionDetails> getTransactionDetailsAsync(String signature, long timeoutMs) {
+        return submit("getTransactionDetails", RpcScheduler.Priority.NORMAL, timeoutMs, () -> {
+            TransactionDetails details = fetchTransactionDetails(signature);
+            if (details == null)
+                throw new Exception("Transaction not found");
+            return details;
+        });
+    }
+
+    /**
+     * Get the confirmation status of one signature
+     */
+    public RpcCallFuture<ConfirmationStatus> getConfirmationStatusAsync(String signature, long timeoutMs) {
+        return submit("getConfirmationStatus", RpcScheduler.Priority.NORMAL, timeoutMs,
+                () -> fetchSignatureStatuses(Collections.singletonList(signature)).get(signature));
+    }
+
+    /**
+     * Get confirmation statuses for many signatures at once.
+     * Signatures are sent in chunks of MAX_SIGNATURES_PER_STATUS_REQUEST, so a full
+     * screen of claims costs a single RPC.
+     */
+    public RpcCallFuture<Map<String, ConfirmationStatus>> getSignatureStatusesAsync(List<String> signatures,
+            long timeoutMs) {
+        return submit("getSignatureStatuses", RpcScheduler.Priority.NORMAL, timeoutMs,
+                () -> fetchSignatureStatuses(signatures));
+    }
+
+    /**
+     * Get the successful signatures that reference each address, newest first, looking at up
+     * to `limit` signatures per address. Addresses are queried in JSON-RPC batches; one whose
+     * query failed is left out of the result.
+     */
+    public RpcCallFuture<Map<String, List<String>>> getSignaturesForAddressesAsync(List<String> addresses,
+            int limit, long timeoutMs) {
+        return submit("getSignaturesForAddresses", RpcScheduler.Priority.NORMAL, timeoutMs,
+                () -> fetchSignaturesForAddresses(addresses, limit));
+    }
+
     /**
      * Get transaction details by signature
      */
     public void getTransaction(String signature, TransactionCallback callback) {
-        executor.execute(() -> {
-            try {
-                JSONObject request = new JSONObject();
-                request.put("jsonrpc", "2.0");
-                request.put("id", 1);
-                request.put("method", "getTransaction");
+        deliver(getTransactionDetailsAsync(signature, DEFAULT_TIMEOUT_MS),
+                details -> callback.onSuccess(signature), callback::onError);
+    }
 
-                JSONArray params = new JSONArray();
-                params.put(signature);
+    public void getTransactionDetails(String signature, TransactionDetailsCallback callback) {
+        deliver(getTransactionDetailsAsync(signature, DEFAULT_TIMEOUT_MS), callback::onSuccess, callback::onError);
+    }
 
-                JSONObject options = new JSONObject();
-                options.put("encoding", "jsonParsed");
-                options.put("maxSupportedTransactionVersion", 0);
-                params.put(options);
+    /**
+     * Check if a transaction is confirmed
+     */
+    public void isTransactionConfirmed(String signature, TransactionCallback callback) {
+        deliver(getConfirmationStatusAsync(signature, DEFAULT_TIMEOUT_MS), status -> {
+            if (status == ConfirmationStatus.CONFIRMED || status == ConfirmationStatus.FINALIZED) {
+                callback.onSuccess(signature);
+            } else if (status == ConfirmationStatus.NOT_FOUND) {
+                callback.onError("Transaction not found");
+            } else {
+                callback.onError("Transaction pending: " + status.name().toLowerCase(Locale.US));
+            }
+        }, callback::onError);
+    }
 
-                request.put("params", params);
+    public void getSignatureStatuses(List<String> signatures, SignatureStatusCallback callback) {
+        deliver(getSignatureStatusesAsync(signatures, DEFAULT_TIMEOUT_MS), callback::onSuccess, callback::onError);
+    }
 
-                String response = makeRpcCall(request.toString());
-                JSONObject json = new JSONObject(response);
+    private Map<String, ConfirmationStatus> fetchSignatureStatuses(List<String> signatures) throws Exception {
+        Map<String, ConfirmationStatus> statuses = new HashMap<>();
 
-                if (json.has("result") && !json.isNull("result")) {
-                    callback.onSuccess(signature);
-                } else {
-                    callback.onError("Transaction not found");
-                }
-            } catch (Exception e) {
-                Log.e(TAG, "getTransaction error: " + e.getMessage());
-                callback.onError(e.getMessage());
+        for (int start = 0; start < signatures.size(); start += MAX_SIGNATURES_PER_STATUS_REQUEST) {
+            int end = Math.min(start + MAX_SIGNATURES_PER_STATUS_REQUEST, signatures.size());
+
+            JSONArray batch = new JSONArray();
+            for (int i = start; i < end; i++) {
+                batch.put(signatures.get(i));
             }
-        });
+
+            // Payout signatures may be older than the node's recent status cache
+            JSONObject options = new JSONObject();
+            options.put("searchTransactionHistory", true);
+
+            JSONArray params = new JSONArray();
+            params.put(batch);
+            params.put(options);
+
+            JSONArray values = callRpc("getSignatureStatuses", params)
+                    .getJSONObject("result")
+                    .getJSONArray("value");
+            for (int i = start; i < end; i++) {
+                JSONObject status = values.isNull(i - start) ? null : values.getJSONObject(i - start);
+                statuses.put(signatures.get(i), ConfirmationStatus.fromRpc(status));
+            }
+        }
+
+        return statuses;
     }
 
+    // ==================
+    // TRANSACTION PREREQUISITES
+    // ==================
+
     /**
-     * Check if a transaction is confirmed
+     * Get a recent blockhash at confirmed commitment, with its last valid block height
      */
-    public void isTransactionConfirmed(String signature, TransactionCallback callback) {
-        executor.execute(() -> {
-            try {
-                JSONObject request = new JSONObject();
-                request.put("jsonrpc", "2.0");
-                request.put("id", 1);
-                request.put("method", "getSignatureStatuses");
+    public RpcCallFuture<RecentBlockhash> getLatestBlockhashAsync(long timeoutMs) {
+        return submit("getLatestBlockhash", RpcScheduler.Priority.NORMAL, timeoutMs, this::fetchLatestBlockhash);
+    }
 
-                JSONArray signatures = new JSONArray();
-                signatures.put(signature);
+    /**
+     * Get recent prioritization fees for transactions that write the given accounts
+     */
+    public RpcCallFuture<PriorityFeeEstimate> getPriorityFeeEstimateAsync(List<String> accounts, long timeoutMs) {
+        return submit("getRecentPrioritizationFees", RpcScheduler.Priority.NORMAL, timeoutMs,
+                () -> fetchPriorityFees(accounts));
+    }
+
+    /**
+     * Simulate an unsigned transaction without verifying signatures. The node swaps in its own
+     * recent blockhash, so a cached one that has just expired does not fail the simulation.
+     */
+    public RpcCallFuture<SimulationResult> simulateTransactionAsync(byte[] transaction, long timeoutMs) {
+        return submit("simulateTransaction", RpcScheduler.Priority.INTERACTIVE, timeoutMs,
+                () -> fetchSimulation(transaction));
+    }
+
+    private RecentBlockhash fetchLatestBlockhash() throws Exception {
+        JSONArray params = new JSONArray();
+        JSONObject config = new JSONObject();
+        config.put("commitment", "confirmed");
+        params.put(config);
+
+        JSONObject result = callRpc("getLatestBlockhash", params).getJSONObject("result");
+        JSONObject value = result.getJSONObject("value");
+        return new RecentBlockhash(value.getString("blockhash"), value.getLong("lastValidBlockHeight"),
+                result.getJSONObject("context").optLong("slot"), System.currentTimeMillis());
+    }
+
+    private PriorityFeeEstimate fetchPriorityFees(List<String> accounts) throws Exception {
+        JSONArray params = new JSONArray();
+        JSONArray addresses = new JSONArray();
+        for (String account : accounts) {
+            addresses.put(account);
+        }
+        params.put(addresses);
+
+        // One entry per recent slot the node has seen, up to 150
+        JSONArray result = callRpc("getRecentPrioritizationFees", params).getJSONArray("result");
+        long[] fees = new long[result.length()];
+        for (int i = 0; i < fees.length; i++) {
+            fees[i] = result.getJSONObject(i).getLong("prioritizationFee");
+        }
+        return new PriorityFeeEstimate(fees, System.currentTimeMillis());
+    }
+
+    private SimulationResult fetchSimulation(byte[] transaction) throws Exception {
+        JSONArray params = new JSONArray();
+        params.put(Base64.encodeToString(transaction, Base64.NO_WRAP));
+
+        JSONObject config = new JSONObject();
+        config.put("encoding", "base64");
+        config.put("sigVerify", false);
+        config.put("replaceRecentBlockhash", true);
+        config.put("commitment", "confirmed");
+        params.put(config);
+
+        return SimulationResult.fromRpc(callRpc("simulateTransaction", params)
+                .getJSONObject("result")
+                .getJSONObject("value"));
+    }
+
+    private Map<String, List<String>> fetchSignaturesForAddresses(List<String> addresses, int limit)
+            throws Exception {
+        Map<String, List<String>> found = new HashMap<>();
+        for (int start = 0; start < addresses.size(); start += MAX_REQUESTS_PER_BATCH) {
+            List<String> chunk = addresses.subList(start, Math.min(start + MAX_REQUESTS_PER_BATCH, addresses.size()));
+            List<JSONArray> paramsList = new ArrayList<>(chunk.size());
+            for (String address : chunk) {
+                JSONObject options = new JSONObject();
+                options.put("limit", limit);
+                options.put("commitment", "confirmed");
 
                 JSONArray params = new JSONArray();
-                params.put(signatures);
-
-                request.put("params", params);
-
-                String response = makeRpcCall(request.toString());
-                JSONObject json = new JSONObject(response);
-
-                if (json.has("result")) {
-                    JSONArray values = json.getJSONObject("result").getJSONArray("value");
-                    if (values.length() > 0 && !values.isNull(0)) {
-                        JSONObject status = values.getJSONObject(0);
-                        String confirmationStatus = status.optString("confirmationStatus", "");
-
-                        if ("confirmed".equals(confirmationStatus) || "finalized".equals(confirmationStatus)) {
-                            callback.onSuccess(signature);
-                        } else {
-                            callback.onError("Transaction pending: " + confirmationStatus);
-                        }
-                    } else {
-                        callback.onError("Transaction not found");
+                params.put(address);
+                params.put(options);
+                paramsList.add(params);
+            }
+
+            JSONObject[] responses = callRpcBatch("getSignaturesForAddress", paramsList);
+            for (int i = 0; i < responses.length; i++) {
+                JSONArray values = responses[i].optJSONArray("result");
+                if (values == null) {
+                    Log.e(TAG, "getSignaturesForAddress error for " + chunk.get(i) + ": "
+                            + responses[i].optJSONObject("error"));
+                    continue;
+                }
+
+                List<String> signatures = new ArrayList<>(values.length());
+                for (int j = 0; j < values.length(); j++) {
+                    JSONObject value = values.getJSONObject(j);
+                    if (!value.has("err") || value.isNull("err")) {
+                        signatures.add(value.getString("signature"));
                     }
-                } else {
-                    callback.onError("Failed to check status");
                 }
-            } catch (Exception e) {
-                Log.e(TAG, "isTransactionConfirmed error: " + e.getMessage());
-                callback.onError(e.getMessage());
+                found.put(chunk.get(i), signatures);
             }
-        });
+        }
+        return found;
+    }
+
+    // ==================
+    // HISTORY (blocking, call from a background thread)
+    // ==================
+
+    /**
+     * Get the USDC token account addresses owned by a wallet
+     */
+    List<String> fetchUsdcTokenAccounts(String walletAddress) throws Exception {
+        JSONArray params = new JSONArray();
+        params.put(walletAddress);
+
+        JSONObject mintFilter = new JSONObject();
+        mintFilter.put("mint", getUsdcMint());
+        params.put(mintFilter);
+
+        JSONObject encoding = new JSONObject();
+        encoding.put("encoding", "jsonParsed");
+        params.put(encoding);
+
+        JSONArray accounts = callRpc("getTokenAccountsByOwner", params)
+                .getJSONObject("result")
+                .getJSONArray("value");
+
+        List<String> addresses = new ArrayList<>();
+        for (int i = 0; i < accounts.length(); i++) {
+            addresses.add(accounts.getJSONObject(i).getString("pubkey"));
+        }
+        return addresses;
+    }
+
+    /**
+     * Get one page of signatures for an address, newest first.
+     * before/until are exclusive signature cursors and may be null.
+     */
+    List<TransactionHistoryEntry> fetchSignaturesForAddress(String address, String before,
+            String until, int limit) throws Exception {
+        JSONObject options = new JSONObject();
+        options.put("limit", limit);
+        if (before != null) {
+            options.put("before", before);
+        }
+        if (until != null) {
+            options.put("until", until);
+        }
+
+        JSONArray params = new JSONArray();
+        params.put(address);
+        params.put(options);
+
+        JSONArray values = callRpc("getSignaturesForAddress", params).getJSONArray("result");
+
+        List<TransactionHistoryEntry> entries = new ArrayList<>(values.length());
+        for (int i = 0; i < values.length(); i++) {
+            JSONObject value = values.getJSONObject(i);
+            entries.add(new TransactionHistoryEntry(
+                    value.getString("signature"),
+                    address,
+                    value.getLong("slot"),
+                    value.isNull("blockTime") ? 0 : value.getLong("blockTime"),
+                    value.isNull("memo") ? null : value.getString("memo"),
+                    value.has("err") && !value.isNull("err"),
+                    value.isNull("confirmationStatus") ? null : value.getString("confirmationStatus")));
+        }
+        return entries;
+    }
+
+    /**
+     * Get parsed details for a transaction, or null if the node does not know it.
+     * Finalized results are cached permanently; newer ones are returned but not cached.
+     */
+    TransactionDetails fetchTransactionDetails(String signature) throws Exception {
+        TransactionDetailsCache cache = detailsCache;
+        if (cache != null) {
+            TransactionDetails cached = cache.get(signature);
+            if (cached != null)
+                return cached;
+        }
+
+        TransactionDetails details = fetchTransactionDetails(signature, "finalized");
+        if (details != null) {
+            if (cache != null) {
+                cache.put(details);
+            }
+            return details;
+        }
+
+        // Not finalized yet; a confirmed result is still useful but must not be cached
+        return fetchTransactionDetails(signature, "confirmed");
+    }
+
+    private TransactionDetails fetchTransactionDetails(String signature, String commitment) throws Exception {
+        JSONArray params = new JSONArray();
+        params.put(signature);
+
+        JSONObject options = new JSONObject();
+        options.put("encoding", "jsonParsed");
+        options.put("maxSupportedTransactionVersion", 0);
+        options.put("commitment", commitment);
+        params.put(options);
+
+        JSONObject json = callRpc("getTransaction", params);
+        if (json.isNull("result"))
+            return null;
+
+        return TransactionDetails.fromRpc(signature, json.getJSONObject("result"), "finalized".equals(commitment));
     }
 
     // ==================
     // HELPER METHODS
     // ==================
 
-    private String makeRpcCall(String jsonPayload) throws Exception {
+    /**
+     * Make a JSON-RPC call and return the response, throwing if the node reported an error
+     */
+    private JSONObject callRpc(String method, JSONArray params) throws Exception {
+        if (!scheduler.isWorkerThread()) {
+            // Blocking callers are history sync and reconciliation; queue them behind interactive reads
+            return scheduler.call(RpcScheduler.Priority.BACKGROUND, () -> callRpc(method, params));
+        }
+
+        JSONObject request = new JSONObject();
+        request.put("jsonrpc", "2.0");
+        request.put("id", 1);
+        request.put("method", method);
+        request.put("params", params);
+
+        JSONObject json = makeRpcCall(request);
+        if (json.has("error")) {
+            throw new Exception(json.getJSONObject("error").getString("message"));
+        }
+        return json;
+    }
+
+    /**
+     * Make the same JSON-RPC call for each params entry in one batch. Responses are returned in
+     * params order; one that failed on its own is returned as is, with its "error" member.
+     */
+    private JSONObject[] callRpcBatch(String method, List<JSONArray> paramsList) throws Exception {
+        if (!scheduler.isWorkerThread()) {
+            return scheduler.call(RpcScheduler.Priority.BACKGROUND, () -> callRpcBatch(method, paramsList));
+        }
+
+        JSONArray batch = new JSONArray();
+        for (int i = 0; i < paramsList.size(); i++) {
+            JSONObject request = new JSONObject();
+            request.put("jsonrpc", "2.0");
+            request.put("id", i);
+            request.put("method", method);
+            request.put("params", paramsList.get(i));
+            batch.put(request);
+        }
+
+        JSONArray responses = makeBatchRpcCall(method, batch);
+        JSONObject[] byId = new JSONObject[paramsList.size()];
+        for (int i = 0; i < responses.length(); i++) {
+            JSONObject response = responses.getJSONObject(i);
+            long id = response.optLong("id", -1);
+            if (id >= 0 && id < byId.length) {
+                byId[(int) id] = response;
+            }
+        }
+        for (JSONObject response : byId) {
+            if (response == null)
+                throw new Exception("Incomplete " + method + " batch response");
+        }
+        return byId;
+    }
+
+    /**
+     * POST a JSON-RPC request and parse the response, recording size, latency and outcome
+     */
+    private JSONObject makeRpcCall(JSONObject request) throws Exception {
+        return (JSONObject) post(request.optString("method", "unknown"), request.toString(), false);
+    }
+
+    /**
+     * Send a JSON-RPC batch in one HTTP request; responses come back in any order
+     */
+    private JSONArray makeBatchRpcCall(String method, JSONArray requests) throws Exception {
+        return (JSONArray) post(method + "[batch]", requests.toString(), true);
+    }
+
+    private Object post(String method, String payload, boolean batch) throws Exception {
+        byte[] input = payload.getBytes(StandardCharsets.UTF_8);
         URL url = new URL(getRpcUrl());
+
+        long start = System.nanoTime();
+        long ttfbMicros = -1;
+        long responseBytes = 0;
+        RpcMetrics.Outcome outcome = RpcMetrics.Outcome.NETWORK_ERROR;
+
+        // Inside a future the remaining deadline bounds both timeouts; blocking callers get the default
+        RpcCallFuture<?> call = CURRENT_CALL.get();
+        int timeout = call != null
+                ? (int) Math.min(call.remainingMillis(), DEFAULT_TIMEOUT_MS)
+                : (int) DEFAULT_TIMEOUT_MS;
+
         HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("POST");
-        conn.setRequestProperty("Content-Type", "application/json");
-        conn.setDoOutput(true);
-        conn.setConnectTimeout(30000);
-        conn.setReadTimeout(30000);
-
-        try (OutputStream os = conn.getOutputStream()) {
-            byte[] input = jsonPayload.getBytes(StandardCharsets.UTF_8);
-            os.write(input, 0, input.length);
+        if (call != null) {
+            call.attach(conn);
         }
+        try {
+            conn.setRequestMethod("POST");
+            conn.setRequestProperty("Content-Type", "application/json");
+            conn.setDoOutput(true);
+            conn.setConnectTimeout(timeout);
+            conn.setReadTimeout(timeout);
+            conn.setFixedLengthStreamingMode(input.length);
+
+            try (OutputStream os = conn.getOutputStream()) {
+                os.write(input, 0, input.length);
+            }
 
-        StringBuilder response = new StringBuilder();
-        try (BufferedReader br = new BufferedReader(
-                new InputStreamReader(conn.getInputStream(), StandardCharsets.UTF_8))) {
-            String responseLine;
-            while ((responseLine = br.readLine()) != null) {
-                response.append(responseLine.trim());
+            // Blocks until the status line and headers arrive
+            int status = conn.getResponseCode();
+            ttfbMicros = (System.nanoTime() - start) / 1000;
+            if (status != HttpURLConnection.HTTP_OK) {
+                outcome = RpcMetrics.Outcome.HTTP_ERROR;
+                throw new Exception("HTTP " + status + " from RPC node");
             }
-        }
 
-        return response.toString();
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            try (InputStream is = conn.getInputStream()) {
+                byte[] buffer = new byte[8192];
+                int read;
+                while ((read = is.read(buffer)) != -1) {
+                    body.write(buffer, 0, read);
+                }
+            }
+            responseBytes = body.size();
+
+            if (batch) {
+                JSONArray responses = new JSONArray(body.toString("UTF-8"));
+                outcome = RpcMetrics.Outcome.SUCCESS;
+                for (int i = 0; i < responses.length(); i++) {
+                    JSONObject response = responses.optJSONObject(i);
+                    if (response == null || response.has("error")) {
+                        outcome = RpcMetrics.Outcome.RPC_ERROR;
+                    }
+                }
+                return responses;
+            }
+
+            JSONObject json = new JSONObject(body.toString("UTF-8"));
+            outcome = json.has("error") ? RpcMetrics.Outcome.RPC_ERROR : RpcMetrics.Outcome.SUCCESS;
+            return json;
+        } catch (SocketTimeoutException e) {
+            outcome = RpcMetrics.Outcome.TIMEOUT;
+            throw e;
+        } finally {
+            if (call != null) {
+                call.detach();
+            }
+            conn.disconnect();
+            metrics.record(method, url.getHost(), outcome, input.length, responseBytes, ttfbMicros,
+                    (System.nanoTime() - start) / 1000);
+        }
     }
 
     /**
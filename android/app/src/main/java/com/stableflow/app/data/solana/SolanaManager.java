@@ -8,8 +8,18 @@ import android.util.Log;
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 
+import com.stableflow.app.data.model.ExpenseRequest;
 import com.stableflow.app.data.model.User;
 import com.stableflow.app.data.repository.FirebaseRepository;
+import com.stableflow.app.util.TokenAmount;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * SolanaManager
@@ -19,22 +29,42 @@ public class SolanaManager {
 
     private static final String TAG = "SolanaManager";
 
+    // Outbid most recent transactions on the same accounts without chasing the spikes
+    private static final int PAYOUT_FEE_PERCENTILE = 75;
+
     private static SolanaManager instance;
 
     private final SolanaClient client;
     private final FirebaseRepository firebaseRepository;
-
-    private final MutableLiveData<Double> solBalance = new MutableLiveData<>(0.0);
-    private final MutableLiveData<Double> usdcBalance = new MutableLiveData<>(0.0);
+    private final ConfirmationTracker confirmationTracker;
+    private final BalancePoller balancePoller;
+    private final BlockhashFeeCache blockhashFeeCache;
+    private final PayoutPreflight payoutPreflight;
+    private final PaymentReferenceTracker paymentTracker;
+    private TransactionHistorySync historySync;
+    private ReconciliationEngine reconciliationEngine;
+
+    // Lamports; a new Long is only boxed when the balance actually changes
+    private final MutableLiveData<Long> solBalance = new MutableLiveData<>(0L);
+    // Base units per registered mint; a new map is only posted when some balance changes
+    private final MutableLiveData<Map<String, Long>> tokenBalances = new MutableLiveData<>(Collections.emptyMap());
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
     private final MutableLiveData<String> errorMessage = new MutableLiveData<>();
 
     private String currentWalletAddress = null;
 
+    // In-flight balance refresh; superseded refreshes are cancelled
+    private CompletableFuture<WalletBalances> pendingRefresh;
+
     private SolanaManager() {
         // Use devnet for development, change to false for production
-        client = new SolanaClient(true);
+        client = new SolanaClient(true, null, new RpcScheduler(RpcScheduler.DEFAULT_PARALLELISM));
         firebaseRepository = FirebaseRepository.getInstance();
+        confirmationTracker = new ConfirmationTracker(client);
+        balancePoller = new BalancePoller(this::pollBalances, this::onPolledBalances);
+        blockhashFeeCache = new BlockhashFeeCache(client);
+        payoutPreflight = new PayoutPreflight(client);
+        paymentTracker = new PaymentReferenceTracker(client, this::onReferencePaid);
     }
 
     public static synchronized SolanaManager getInstance() {
@@ -44,16 +74,41 @@ public class SolanaManager {
         return instance;
     }
 
+    /**
+     * Attach the application context for components that need local storage.
+     * Called once from the Application class.
+     */
+    public synchronized void init(Context context) {
+        if (historySync == null) {
+            TransactionHistoryStore historyStore = TransactionHistoryStore.getInstance(context.getApplicationContext());
+            client.setDetailsCache(TransactionDetailsCache.getInstance(context.getApplicationContext()));
+            historySync = new TransactionHistorySync(client, historyStore);
+            reconciliationEngine = new ReconciliationEngine(client, historyStore, firebaseRepository);
+            balancePoller.attach(context);
+            paymentTracker.load(context);
+
+            // Reconcile whatever each sync brought in
+            historySync.getLastSyncedAt().observeForever(
+                    syncedAt -> reconciliationEngine.onHistorySynced(currentWalletAddress));
+        }
+    }
+
     // ==================
     // LIVE DATA
     // ==================
 
-    public LiveData<Double> getSolBalance() {
+    /**
+     * SOL balance in lamports
+     */
+    public LiveData<Long> getSolBalance() {
         return solBalance;
     }
 
-    public LiveData<Double> getUsdcBalance() {
-        return usdcBalance;
+    /**
+     * Balance of every registered token keyed by mint, in each token's base units
+     */
+    public LiveData<Map<String, Long>> getTokenBalances() {
+        return tokenBalances;
     }
 
     public LiveData<Boolean> getIsLoading() {
@@ -64,6 +119,14 @@ public class SolanaManager {
         return errorMessage;
     }
 
+    public LiveData<Map<String, SolanaClient.ConfirmationStatus>> getConfirmationStatuses() {
+        return confirmationTracker.getStatuses();
+    }
+
+    public LiveData<List<PayoutRecord>> getUnmatchedPayouts() {
+        return reconciliationEngine.getUnmatchedPayouts();
+    }
+
     // ==================
     // WALLET OPERATIONS
     // ==================
@@ -74,53 +137,156 @@ public class SolanaManager {
     public void setWalletAddress(String address) {
         if (address != null && SolanaClient.isValidAddress(address)) {
             currentWalletAddress = address;
+            blockhashFeeCache.setFeeAccounts(payoutFeeAccounts(address));
             refreshBalances();
         } else {
             currentWalletAddress = null;
-            solBalance.postValue(0.0);
-            usdcBalance.postValue(0.0);
+            blockhashFeeCache.setFeeAccounts(Collections.emptyList());
+            postIfChanged(solBalance, 0);
+            postTokenBalancesIfChanged(Collections.emptyMap());
+            balancePoller.reset(null);
         }
     }
 
     /**
-     * Refresh balances from the blockchain
+     * Refresh balances from the blockchain, cancelling any refresh still in flight. The returned
+     * future settles once the new balances are applied, or fails; it is cancelled if superseded.
      */
-    public void refreshBalances() {
+    public synchronized CompletableFuture<WalletBalances> refreshBalances() {
         if (currentWalletAddress == null) {
             errorMessage.postValue("Wallet address not set");
-            return;
+            CompletableFuture<WalletBalances> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Wallet address not set"));
+            return failed;
         }
 
+        cancelRefresh();
         isLoading.postValue(true);
 
-        client.getBalances(currentWalletAddress, new SolanaClient.BalanceCallback() {
-            @Override
-            public void onSuccess(double sol, double usdc) {
-                solBalance.postValue(sol);
-                usdcBalance.postValue(usdc);
-                isLoading.postValue(false);
-
-                // Sync USDC balance to Firebase for dashboard display
-                syncBalanceToFirebase(usdc);
-            }
-
-            @Override
-            public void onError(String error) {
-                Log.e(TAG, "Balance refresh error: " + error);
-                errorMessage.postValue(error);
-                isLoading.postValue(false);
+        CompletableFuture<WalletBalances> refresh = client.getBalancesAsync(currentWalletAddress,
+                SolanaClient.DEFAULT_TIMEOUT_MS);
+        pendingRefresh = refresh;
+        return refresh.whenComplete((balances, error) -> {
+            if (refresh.isCancelled())
+                return; // Superseded; the newer refresh owns the loading state
+
+            if (error == null) {
+                applyBalances(balances);
+
+                // Fresh numbers; polling can start over from here
+                balancePoller.reset(balances);
+            } else {
+                Log.e(TAG, "Balance refresh error: " + error.getMessage());
+                errorMessage.postValue(error.getCause() != null ? error.getCause().getMessage() : error.getMessage());
             }
+            isLoading.postValue(false);
         });
     }
 
+    /**
+     * Abort the balance refresh in flight, if any
+     */
+    public synchronized void cancelRefresh() {
+        if (pendingRefresh != null && pendingRefresh.cancel(true)) {
+            isLoading.postValue(false);
+        }
+        pendingRefresh = null;
+    }
+
+    /**
+     * Wallet screens call this from onStart and onStop so balances poll faster while shown
+     */
+    public void setWalletScreenVisible(boolean visible) {
+        balancePoller.setWalletScreenVisible(visible);
+    }
+
+    /**
+     * Silent balance read for the poller; no loading indicator and no error toasts
+     */
+    private synchronized CompletableFuture<WalletBalances> pollBalances() {
+        if (currentWalletAddress == null)
+            return null;
+        return client.getBalancesAsync(currentWalletAddress, SolanaClient.DEFAULT_TIMEOUT_MS);
+    }
+
+    private void onPolledBalances(WalletBalances balances) {
+        applyBalances(balances);
+    }
+
+    private void applyBalances(WalletBalances balances) {
+        postIfChanged(solBalance, balances.getLamports());
+        postTokenBalancesIfChanged(balances.getTokenBalances());
+
+        // The dashboard balance is still USDC only
+        syncBalanceToFirebase(balances.getAmount(client.getUsdcMint()));
+    }
+
+    /**
+     * Accounts a USDC payout from this wallet writes: the wallet itself and its token account
+     */
+    private List<String> payoutFeeAccounts(String wallet) {
+        List<String> accounts = new ArrayList<>();
+        accounts.add(wallet);
+        try {
+            accounts.add(ProgramAddress.getAssociatedTokenAddress(wallet, client.getUsdcMint()));
+        } catch (Exception e) {
+            Log.e(TAG, "Token account derivation error: " + e.getMessage());
+        }
+        return accounts;
+    }
+
+    private static void postIfChanged(MutableLiveData<Long> live, long value) {
+        Long current = live.getValue();
+        if (current == null || current != value) {
+            live.postValue(value);
+        }
+    }
+
+    private void postTokenBalancesIfChanged(Map<String, Long> balances) {
+        if (!balances.equals(tokenBalances.getValue())) {
+            tokenBalances.postValue(balances);
+        }
+    }
+
+    /**
+     * Drop the wallet and abort all RPC work for the signed-out user
+     */
+    public void clearSession() {
+        cancelRefresh();
+        confirmationTracker.stop();
+        client.cancelAll();
+        paymentTracker.clear();
+        if (historySync != null) {
+            historySync.cancel();
+            reconciliationEngine.clear();
+        }
+        setWalletAddress(null);
+    }
+
+    /**
+     * Limit how many RPC calls run at once, e.g. lower on metered connections
+     */
+    public void setRpcParallelism(int parallelism) {
+        client.getScheduler().setParallelism(parallelism);
+    }
+
+    /**
+     * Fetch USDC balances of many wallets in bulk, e.g. before a batch payout.
+     * Results are in base units keyed by each wallet's index in the list.
+     */
+    public void getUsdcBalances(List<String> wallets, SolanaClient.BulkBalanceCallback callback) {
+        client.getUsdcBalances(wallets, callback);
+    }
+
     /**
      * Sync the USDC balance to Firebase
      */
-    private void syncBalanceToFirebase(double usdcAmount) {
-        firebaseRepository.updateBalance(usdcAmount, new FirebaseRepository.OperationCallback() {
+    private void syncBalanceToFirebase(long usdcMicros) {
+        firebaseRepository.updateBalance(usdcMicros, new FirebaseRepository.OperationCallback() {
             @Override
             public void onSuccess() {
-                Log.d(TAG, "Balance synced to Firebase: " + usdcAmount);
+                Log.d(TAG, "Balance synced to Firebase: " + TokenAmount.toPlainString(usdcMicros,
+                        TokenAmount.USDC_DECIMALS));
             }
 
             @Override
@@ -141,6 +307,53 @@ public class SolanaManager {
         client.isTransactionConfirmed(signature, callback);
     }
 
+    /**
+     * Get parsed payout details for a transaction; settled payouts never hit the network twice
+     */
+    public void getTransactionDetails(String signature, SolanaClient.TransactionDetailsCallback callback) {
+        client.getTransactionDetails(signature, callback);
+    }
+
+    /**
+     * Future variant of getTransactionDetails; cancel it when the caller goes away
+     */
+    public RpcCallFuture<TransactionDetails> getTransactionDetailsAsync(String signature) {
+        return client.getTransactionDetailsAsync(signature, SolanaClient.DEFAULT_TIMEOUT_MS);
+    }
+
+    /**
+     * Track the payout signatures of the given claims until they are finalized
+     */
+    public void trackConfirmations(List<ExpenseRequest> expenses) {
+        confirmationTracker.track(expenses);
+
+        // Approved claims are about to be paid out, so the balance is about to move
+        if (expenses != null) {
+            for (ExpenseRequest expense : expenses) {
+                if (expense.isApproved()) {
+                    balancePoller.expectPayout();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Match the given claims against the wallet's synced payouts and flag discrepancies
+     */
+    public void reconcileClaims(List<ExpenseRequest> expenses) {
+        if (reconciliationEngine != null) {
+            reconciliationEngine.onClaimsChanged(expenses);
+        }
+    }
+
+    /**
+     * Stop tracking payout signatures
+     */
+    public void stopTrackingConfirmations() {
+        confirmationTracker.stop();
+    }
+
     /**
      * Open transaction in Solana Explorer
      */
@@ -159,22 +372,131 @@ public class SolanaManager {
         context.startActivity(intent);
     }
 
+    // ==================
+    // TRANSACTION HISTORY
+    // ==================
+
+    public LiveData<Boolean> getIsHistorySyncing() {
+        return historySync.getIsSyncing();
+    }
+
+    public LiveData<Long> getHistoryLastSynced() {
+        return historySync.getLastSyncedAt();
+    }
+
+    /**
+     * Fetch new on-chain history for the current wallet into the local index
+     */
+    public void syncTransactionHistory() {
+        if (currentWalletAddress == null)
+            return;
+        historySync.sync(currentWalletAddress);
+    }
+
+    /**
+     * Load a page of locally indexed history for the current wallet, newest first
+     */
+    public void loadHistoryPage(TransactionHistoryEntry after, int limit,
+            TransactionHistorySync.PageCallback callback) {
+        if (currentWalletAddress == null) {
+            callback.onResult(Collections.emptyList());
+            return;
+        }
+        historySync.loadPage(currentWalletAddress, after, limit, callback);
+    }
+
+    // ==================
+    // PAYOUT BATCHES
+    // ==================
+
+    /**
+     * Payout screens call this from onStart and onStop so a blockhash and fee estimate are
+     * ready by the time the user signs
+     */
+    public void setPayoutScreenVisible(boolean visible) {
+        if (visible) {
+            blockhashFeeCache.startPrefetch();
+        } else {
+            blockhashFeeCache.stopPrefetch();
+        }
+    }
+
+    /**
+     * Build payout batches ready to sign: cached blockhash, a priority fee at the 75th
+     * percentile of recent fees, and compute limits from a pre-flight simulation. Fails
+     * before anything is signed if a payout in the batch would fail on chain.
+     */
+    public CompletableFuture<List<PayoutTransaction>> buildPayoutTransactionsAsync(
+            List<PayoutTransactionBuilder.Payout> payouts) {
+        if (currentWalletAddress == null) {
+            CompletableFuture<List<PayoutTransaction>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(new IllegalStateException("Wallet address not set"));
+            return failed;
+        }
+        String payer = currentWalletAddress;
+
+        // The fee is optional: without an estimate the batch goes out with no priority fee
+        CompletableFuture<PriorityFeeEstimate> fees = blockhashFeeCache.getPriorityFeesAsync()
+                .exceptionally(error -> null);
+        return SolanaClient.combine(blockhashFeeCache.getBlockhashAsync(), fees, (blockhash, estimate) -> {
+            try {
+                return new PayoutTransactionBuilder(payer, client.getTokenRegistry().getUsdc())
+                        .setRecentBlockhash(blockhash.getBlockhash())
+                        .setComputeBudget(true)
+                        .setComputeUnitPrice(estimate != null ? estimate.getPercentile(PAYOUT_FEE_PERCENTILE) : 0)
+                        .addPayouts(payouts)
+                        .build();
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }).thenCompose(payoutPreflight::prepare);
+    }
+
+    /**
+     * Pack approved payouts from the current wallet into as few USDC transactions as fit.
+     * Each transaction needs one wallet signature instead of one per claim.
+     */
+    public List<PayoutTransaction> buildPayoutTransactions(List<PayoutTransactionBuilder.Payout> payouts,
+            String recentBlockhash) throws Exception {
+        if (currentWalletAddress == null)
+            throw new IllegalStateException("Wallet address not set");
+
+        return new PayoutTransactionBuilder(currentWalletAddress, client.getTokenRegistry().getUsdc())
+                .setRecentBlockhash(recentBlockhash)
+                .addPayouts(payouts)
+                .build();
+    }
+
     // ==================
     // DEEP LINK SUPPORT
     // ==================
 
     /**
      * Create a payment request deep link for Phantom wallet
-     * Note: This creates a URL that can be used to request payment
+     * Note: This creates a URL that can be used to request payment. With a claim id the
+     * request's reference is tracked and the claim is marked paid once the transfer lands.
      */
-    public String createPaymentRequestUrl(String recipientAddress, double usdcAmount, String memo) {
+    public String createPaymentRequestUrl(String claimId, String recipientAddress, long usdcMicros, String memo) {
         // Solana Pay URL format
-        // solana:<recipient>?amount=<amount>&spl-token=<mint>&label=<label>&message=<message>
+        // solana:<recipient>?amount=<amount>&spl-token=<mint>&reference=<key>&label=<label>&message=<message>
+
+        String reference = null;
+        if (claimId != null) {
+            try {
+                reference = paymentTracker.track(claimId, recipientAddress, usdcMicros);
+            } catch (Exception e) {
+                Log.e(TAG, "Payment reference error: " + e.getMessage());
+            }
+        }
+        if (reference == null) {
+            reference = PaymentReferenceTracker.newReference();
+        }
 
         StringBuilder url = new StringBuilder("solana:");
         url.append(recipientAddress);
-        url.append("?amount=").append(usdcAmount);
+        url.append("?amount=").append(TokenAmount.toPlainString(usdcMicros, TokenAmount.USDC_DECIMALS));
         url.append("&spl-token=").append(client.getUsdcMint());
+        url.append("&reference=").append(reference);
         url.append("&label=StableFlow");
         if (memo != null && !memo.isEmpty()) {
             url.append("&message=").append(Uri.encode(memo));
@@ -183,6 +505,63 @@ public class SolanaManager {
         return url.toString();
     }
 
+    /**
+     * A tracked payment request was paid: close its claim with the transaction that paid it.
+     * Only an approved claim paid the exact amount moves to PAID; a cancelled, rejected or
+     * already paid claim keeps its status, and a short or over payment is recorded for review.
+     */
+    private void onReferencePaid(PaymentReferenceTracker.PendingPayment payment, TransactionDetails details) {
+        firebaseRepository.getExpenseById(payment.getClaimId(), new FirebaseRepository.ExpenseCallback() {
+            @Override
+            public void onSuccess(ExpenseRequest claim) {
+                if (!claim.isApproved() && !claim.isPaid()) {
+                    Log.w(TAG, "Claim " + claim.getId() + " is " + claim.getStatus()
+                            + "; not marking it paid by " + details.getSignature());
+                    return;
+                }
+                if (claim.isPaid() && claim.getTxSignature() != null)
+                    return; // Already closed, by this transfer or another one
+
+                long received = details.getAmountReceivedBy(payment.getRecipientTokenAccount(),
+                        client.getUsdcMint());
+                Map<String, Object> updates = new HashMap<>();
+                updates.put("txSignature", details.getSignature());
+                if (received == payment.getAmount() && claim.isApproved()) {
+                    updates.put("status", "PAID");
+                    updates.put("txExplorerUrl", client.getExplorerUrl(details.getSignature()));
+                    if (details.getBlockTime() > 0) {
+                        updates.put("paidAt", java.time.Instant.ofEpochSecond(details.getBlockTime()).toString());
+                    }
+                    updates.put("reconciliationStatus", ReconciliationEngine.STATUS_MATCHED);
+                } else if (received == payment.getAmount()) {
+                    // Marked paid by hand before the transfer was seen; just attach it
+                    updates.put("txExplorerUrl", client.getExplorerUrl(details.getSignature()));
+                    updates.put("reconciliationStatus", ReconciliationEngine.STATUS_MATCHED);
+                } else {
+                    updates.put("reconciliationStatus", ReconciliationEngine.STATUS_AMOUNT_MISMATCH);
+                }
+
+                firebaseRepository.updateExpenseFields(claim.getId(), updates, new FirebaseRepository.SimpleCallback() {
+                    @Override
+                    public void onSuccess() {
+                        Log.d(TAG, "Claim " + claim.getId() + " paid by " + details.getSignature() + ": "
+                                + updates.keySet());
+                    }
+
+                    @Override
+                    public void onError(String error) {
+                        Log.e(TAG, "Failed to mark claim paid: " + error);
+                    }
+                });
+            }
+
+            @Override
+            public void onError(String error) {
+                Log.e(TAG, "Failed to load paid claim " + payment.getClaimId() + ": " + error);
+            }
+        });
+    }
+
     /**
      * Open Phantom wallet for payment (if installed)
      */
@@ -203,6 +582,65 @@ public class SolanaManager {
     // UTILITY
     // ==================
 
+    /**
+     * RPC call metrics for debug screens and log exports
+     */
+    public RpcMetrics getRpcMetrics() {
+        return client.getMetrics();
+    }
+
+    /**
+     * Write the current RPC metrics table to the log
+     */
+    public void logRpcMetrics() {
+        Log.i(TAG, "RPC metrics:\n" + client.getMetrics().dump());
+        Log.i(TAG, "Balance polling: " + balancePoller.dump());
+    }
+
+    /**
+     * Balance polls made and how many of them found a change
+     */
+    public BalancePoller getBalancePoller() {
+        return balancePoller;
+    }
+
+    /**
+     * Recent blockhash and priority fees for payouts from the current wallet
+     */
+    public BlockhashFeeCache getBlockhashFeeCache() {
+        return blockhashFeeCache;
+    }
+
+    /**
+     * Simulation and cache counts of the payout pre-flight
+     */
+    public PayoutPreflight getPayoutPreflight() {
+        return payoutPreflight;
+    }
+
+    /**
+     * Get the USDC mint for the active cluster
+     */
+    public String getUsdcMint() {
+        return client.getUsdcMint();
+    }
+
+    /**
+     * USDC associated token account of a wallet, under the token program USDC is registered with
+     */
+    public String getUsdcTokenAccount(String wallet) throws Exception {
+        TokenRegistry.Token usdc = client.getTokenRegistry().getUsdc();
+        return ProgramAddress.getAssociatedTokenAddress(Base58.decode(wallet), Base58.decode(usdc.getMint()),
+                Base58.decode(usdc.getProgramId()));
+    }
+
+    /**
+     * Tokens supported on the active cluster
+     */
+    public TokenRegistry getTokenRegistry() {
+        return client.getTokenRegistry();
+    }
+
     /**
      * Get the current wallet address
      */
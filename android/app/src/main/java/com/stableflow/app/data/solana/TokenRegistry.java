@@ -0,0 +1,125 @@
+package com.stableflow.app.data.solana;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TokenRegistry
+ * SPL tokens the app pays out in, per cluster, with the token program that owns each mint.
+ * Token-2022 mints live under a different program, so balance reads query once per program.
+ */
+public class TokenRegistry {
+
+    public static final String SYMBOL_USDC = "USDC";
+    public static final String SYMBOL_USDT = "USDT";
+    public static final String SYMBOL_PYUSD = "PYUSD";
+
+    /**
+     * One registered token
+     */
+    public static class Token {
+
+        private final String symbol;
+        private final String mint;
+        private final int decimals;
+        private final String programId;
+
+        public Token(String symbol, String mint, int decimals, String programId) {
+            this.symbol = symbol;
+            this.mint = mint;
+            this.decimals = decimals;
+            this.programId = programId;
+        }
+
+        public String getSymbol() {
+            return symbol;
+        }
+
+        public String getMint() {
+            return mint;
+        }
+
+        public int getDecimals() {
+            return decimals;
+        }
+
+        public String getProgramId() {
+            return programId;
+        }
+
+        public boolean isToken2022() {
+            return ProgramAddress.TOKEN_2022_PROGRAM_ID.equals(programId);
+        }
+    }
+
+    private final List<Token> tokens;
+    private final Map<String, Token> byMint = new HashMap<>();
+    private final List<String> programIds = new ArrayList<>();
+
+    public TokenRegistry(List<Token> tokens) {
+        this.tokens = Collections.unmodifiableList(new ArrayList<>(tokens));
+        for (Token token : tokens) {
+            byMint.put(token.getMint(), token);
+            if (!programIds.contains(token.getProgramId())) {
+                programIds.add(token.getProgramId());
+            }
+        }
+    }
+
+    /**
+     * Stablecoins supported on mainnet or devnet. USDT has no official devnet mint.
+     */
+    public static TokenRegistry forCluster(boolean useDevnet) {
+        List<Token> tokens = new ArrayList<>();
+        if (useDevnet) {
+            tokens.add(new Token(SYMBOL_USDC, "4zMMC9srt5Ri5X14GAgXhaHii3GnPAEERYPJgZJDncDU", 6,
+                    ProgramAddress.TOKEN_PROGRAM_ID));
+            tokens.add(new Token(SYMBOL_PYUSD, "CXk2AMBfi3TwaEL2468s6zP8xq9NxTXjp9gjMgzeUynM", 6,
+                    ProgramAddress.TOKEN_2022_PROGRAM_ID));
+        } else {
+            tokens.add(new Token(SYMBOL_USDC, "EPjFWdd5AufqSSqeM2qN1xzybapC8G4wEGGkZwyTDt1v", 6,
+                    ProgramAddress.TOKEN_PROGRAM_ID));
+            tokens.add(new Token(SYMBOL_USDT, "Es9vMFrzaCERmJfrF4H2FYD4KCoNkY11McCe8BenwNYB", 6,
+                    ProgramAddress.TOKEN_PROGRAM_ID));
+            tokens.add(new Token(SYMBOL_PYUSD, "2b1kV6DkPAnxd5ixfnxCpjxmKwqjjaYmCZfHsFu24GXo", 6,
+                    ProgramAddress.TOKEN_2022_PROGRAM_ID));
+        }
+        return new TokenRegistry(tokens);
+    }
+
+    /**
+     * All tokens in display order
+     */
+    public List<Token> getTokens() {
+        return tokens;
+    }
+
+    /**
+     * Token for a mint, or null if the mint is not registered
+     */
+    public Token get(String mint) {
+        return byMint.get(mint);
+    }
+
+    public Token getBySymbol(String symbol) {
+        for (Token token : tokens) {
+            if (token.getSymbol().equals(symbol))
+                return token;
+        }
+        return null;
+    }
+
+    public Token getUsdc() {
+        return getBySymbol(SYMBOL_USDC);
+    }
+
+    /**
+     * Distinct token programs owning the registered mints
+     */
+    public List<String> getProgramIds() {
+        return Collections.unmodifiableList(programIds);
+    }
+}
@@ -0,0 +1,290 @@
+package com.stableflow.app.data.solana;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * TransactionDetails
+ * Compact record of the fields StableFlow needs from a jsonParsed transaction:
+ * SPL token transfers, memos, block time and fee
+ */
+public class TransactionDetails {
+
+    private static final String PROGRAM_SPL_TOKEN = "spl-token";
+    private static final String PROGRAM_SPL_TOKEN_2022 = "spl-token-2022";
+    private static final String PROGRAM_SPL_MEMO = "spl-memo";
+
+    /**
+     * A single SPL token transfer. Amounts are in the token's base units.
+     */
+    public static class Transfer {
+        private final String source;
+        private final String destination;
+        private final String mint;
+        private final long amount;
+        private final int decimals;
+
+        public Transfer(String source, String destination, String mint, long amount, int decimals) {
+            this.source = source;
+            this.destination = destination;
+            this.mint = mint;
+            this.amount = amount;
+            this.decimals = decimals;
+        }
+
+        public String getSource() {
+            return source;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        /**
+         * Mint of the transferred token, or null for an unchecked transfer between accounts
+         * whose mint the transaction does not record
+         */
+        public String getMint() {
+            return mint;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public int getDecimals() {
+            return decimals;
+        }
+    }
+
+    private final String signature;
+    private final long slot;
+    private final long blockTime;
+    private final long fee;
+    private final boolean failed;
+    private final boolean finalized;
+    private final List<Transfer> transfers;
+    private final List<String> memos;
+
+    public TransactionDetails(String signature, long slot, long blockTime, long fee, boolean failed,
+            boolean finalized, List<Transfer> transfers, List<String> memos) {
+        this.signature = signature;
+        this.slot = slot;
+        this.blockTime = blockTime;
+        this.fee = fee;
+        this.failed = failed;
+        this.finalized = finalized;
+        this.transfers = Collections.unmodifiableList(transfers);
+        this.memos = Collections.unmodifiableList(memos);
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public long getSlot() {
+        return slot;
+    }
+
+    /**
+     * Block time in seconds since the epoch, or 0 if unknown
+     */
+    public long getBlockTime() {
+        return blockTime;
+    }
+
+    /**
+     * Fee paid in lamports
+     */
+    public long getFee() {
+        return fee;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    /**
+     * Finalized transactions are immutable and safe to cache forever
+     */
+    public boolean isFinalized() {
+        return finalized;
+    }
+
+    public List<Transfer> getTransfers() {
+        return transfers;
+    }
+
+    public List<String> getMemos() {
+        return memos;
+    }
+
+    /**
+     * All memos joined into one line, or null when the transaction has none
+     */
+    public String getMemo() {
+        return memos.isEmpty() ? null : String.join(" | ", memos);
+    }
+
+    /**
+     * Total base units of the given mint moved by this transaction
+     */
+    public long getTotalAmount(String mint) {
+        long total = 0;
+        for (Transfer transfer : transfers) {
+            if (mint.equals(transfer.getMint())) {
+                total += transfer.getAmount();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Total base units of the given mint received by a token account
+     */
+    public long getAmountReceivedBy(String tokenAccount, String mint) {
+        long total = 0;
+        for (Transfer transfer : transfers) {
+            if (tokenAccount.equals(transfer.getDestination()) && mint.equals(transfer.getMint())) {
+                total += transfer.getAmount();
+            }
+        }
+        return total;
+    }
+
+    // ==================
+    // PARSING
+    // ==================
+
+    /**
+     * Parse a jsonParsed getTransaction result
+     */
+    static TransactionDetails fromRpc(String signature, JSONObject result, boolean finalized) throws Exception {
+        JSONObject meta = result.optJSONObject("meta");
+        long fee = meta != null ? meta.optLong("fee", 0) : 0;
+        boolean failed = meta != null && meta.has("err") && !meta.isNull("err");
+
+        List<Transfer> transfers = new ArrayList<>();
+        List<String> memos = new ArrayList<>();
+
+        JSONObject message = result.getJSONObject("transaction").getJSONObject("message");
+        Map<String, TokenAccount> tokenAccounts = parseTokenAccounts(message.optJSONArray("accountKeys"), meta);
+        parseInstructions(message.getJSONArray("instructions"), tokenAccounts, transfers, memos);
+
+        // Transfers made through CPI (e.g. by a wallet or payout program) show up as inner instructions
+        JSONArray inner = meta != null ? meta.optJSONArray("innerInstructions") : null;
+        if (inner != null) {
+            for (int i = 0; i < inner.length(); i++) {
+                parseInstructions(inner.getJSONObject(i).getJSONArray("instructions"), tokenAccounts, transfers,
+                        memos);
+            }
+        }
+
+        return new TransactionDetails(
+                signature,
+                result.optLong("slot", 0),
+                result.isNull("blockTime") ? 0 : result.optLong("blockTime", 0),
+                fee,
+                failed,
+                finalized,
+                transfers,
+                memos);
+    }
+
+    /**
+     * Mint and decimals of every token account with a balance entry, keyed by address. An
+     * unchecked transfer names only its accounts, so this is where its mint comes from.
+     */
+    private static Map<String, TokenAccount> parseTokenAccounts(JSONArray accountKeys, JSONObject meta) {
+        Map<String, TokenAccount> tokenAccounts = new HashMap<>();
+        if (accountKeys == null || meta == null)
+            return tokenAccounts;
+
+        for (String field : new String[] { "preTokenBalances", "postTokenBalances" }) {
+            JSONArray balances = meta.optJSONArray(field);
+            if (balances == null)
+                continue;
+            for (int i = 0; i < balances.length(); i++) {
+                JSONObject balance = balances.optJSONObject(i);
+                if (balance == null || !balance.has("mint"))
+                    continue;
+                int index = balance.optInt("accountIndex", -1);
+                if (index < 0 || index >= accountKeys.length())
+                    continue;
+
+                // jsonParsed keys are objects with a pubkey; plain encodings list bare strings
+                Object key = accountKeys.opt(index);
+                String address = key instanceof JSONObject ? ((JSONObject) key).optString("pubkey", null)
+                        : key instanceof String ? (String) key : null;
+                if (address == null)
+                    continue;
+                JSONObject uiAmount = balance.optJSONObject("uiTokenAmount");
+                int decimals = uiAmount != null ? uiAmount.optInt("decimals", -1) : -1;
+                tokenAccounts.put(address, new TokenAccount(balance.optString("mint"), decimals));
+            }
+        }
+        return tokenAccounts;
+    }
+
+    private static final class TokenAccount {
+        final String mint;
+        final int decimals;
+
+        TokenAccount(String mint, int decimals) {
+            this.mint = mint;
+            this.decimals = decimals;
+        }
+    }
+
+    private static void parseInstructions(JSONArray instructions, Map<String, TokenAccount> tokenAccounts,
+            List<Transfer> transfers, List<String> memos) throws Exception {
+        for (int i = 0; i < instructions.length(); i++) {
+            JSONObject instruction = instructions.getJSONObject(i);
+            String program = instruction.optString("program", "");
+
+            if (PROGRAM_SPL_MEMO.equals(program)) {
+                Object parsed = instruction.opt("parsed");
+                if (parsed instanceof String) {
+                    memos.add((String) parsed);
+                }
+            } else if (PROGRAM_SPL_TOKEN.equals(program) || PROGRAM_SPL_TOKEN_2022.equals(program)) {
+                JSONObject parsed = instruction.optJSONObject("parsed");
+                if (parsed == null)
+                    continue;
+
+                String type = parsed.optString("type", "");
+                JSONObject info = parsed.getJSONObject("info");
+                if ("transferChecked".equals(type)) {
+                    JSONObject tokenAmount = info.getJSONObject("tokenAmount");
+                    transfers.add(new Transfer(
+                            info.getString("source"),
+                            info.getString("destination"),
+                            info.optString("mint", null),
+                            Long.parseLong(tokenAmount.getString("amount")),
+                            tokenAmount.getInt("decimals")));
+                } else if ("transfer".equals(type)) {
+                    // Unchecked transfers carry no mint or decimals; take them from either
+                    // account's balance entry
+                    String source = info.getString("source");
+                    String destination = info.getString("destination");
+                    TokenAccount account = tokenAccounts.get(destination);
+                    if (account == null) {
+                        account = tokenAccounts.get(source);
+                    }
+                    transfers.add(new Transfer(
+                            source,
+                            destination,
+                            account != null ? account.mint : null,
+                            Long.parseLong(info.getString("amount")),
+                            account != null ? account.decimals : -1));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package com.stableflow.app.data.solana;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+import android.util.Log;
+import android.util.LruCache;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransactionDetailsCache
+ * Permanent on-disk cache of finalized transaction details, keyed by signature.
+ * A signature commits to the transaction's content, and finalized transactions never
+ * change, so entries are never evicted or refreshed.
+ */
+public class TransactionDetailsCache extends SQLiteOpenHelper {
+
+    private static final String TAG = "TransactionDetailsCache";
+
+    private static final String DATABASE_NAME = "solana_tx_cache.db";
+    private static final int DATABASE_VERSION = 2;
+
+    private static final String TABLE_DETAILS = "transaction_details";
+
+    // Small in-memory front so reopening a detail screen does not touch disk
+    private static final int MEMORY_CACHE_SIZE = 128;
+
+    private static TransactionDetailsCache instance;
+
+    private final LruCache<String, TransactionDetails> memoryCache = new LruCache<>(MEMORY_CACHE_SIZE);
+
+    private TransactionDetailsCache(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized TransactionDetailsCache getInstance(Context context) {
+        if (instance == null) {
+            instance = new TransactionDetailsCache(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_DETAILS + " ("
+                + "signature TEXT PRIMARY KEY, "
+                + "slot INTEGER NOT NULL, "
+                + "block_time INTEGER NOT NULL, "
+                + "fee INTEGER NOT NULL, "
+                + "failed INTEGER NOT NULL, "
+                + "transfers TEXT NOT NULL, "
+                + "memos TEXT NOT NULL)");
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        // Version 1 entries were parsed without Token-2022 transfers or the mints of unchecked
+        // transfers; drop them so they are fetched and parsed again
+        db.execSQL("DROP TABLE IF EXISTS " + TABLE_DETAILS);
+        onCreate(db);
+    }
+
+    /**
+     * Look up cached details. Call from a background thread.
+     */
+    public TransactionDetails get(String signature) {
+        TransactionDetails cached = memoryCache.get(signature);
+        if (cached != null)
+            return cached;
+
+        try (Cursor cursor = getReadableDatabase().query(TABLE_DETAILS,
+                new String[] { "slot", "block_time", "fee", "failed", "transfers", "memos" },
+                "signature = ?", new String[] { signature }, null, null, null)) {
+            if (!cursor.moveToFirst())
+                return null;
+
+            TransactionDetails details = new TransactionDetails(
+                    signature,
+                    cursor.getLong(0),
+                    cursor.getLong(1),
+                    cursor.getLong(2),
+                    cursor.getInt(3) != 0,
+                    true,
+                    decodeTransfers(cursor.getString(4)),
+                    decodeMemos(cursor.getString(5)));
+            memoryCache.put(signature, details);
+            return details;
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to read cached transaction: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Store details if the transaction is finalized. Call from a background thread.
+     */
+    public void put(TransactionDetails details) {
+        if (!details.isFinalized())
+            return;
+
+        try {
+            ContentValues values = new ContentValues();
+            values.put("signature", details.getSignature());
+            values.put("slot", details.getSlot());
+            values.put("block_time", details.getBlockTime());
+            values.put("fee", details.getFee());
+            values.put("failed", details.isFailed() ? 1 : 0);
+            values.put("transfers", encodeTransfers(details.getTransfers()));
+            values.put("memos", encodeMemos(details.getMemos()));
+            getWritableDatabase().insertWithOnConflict(TABLE_DETAILS, null, values,
+                    SQLiteDatabase.CONFLICT_IGNORE);
+            memoryCache.put(details.getSignature(), details);
+        } catch (Exception e) {
+            Log.e(TAG, "Failed to cache transaction: " + e.getMessage());
+        }
+    }
+
+    // ==================
+    // ENCODING
+    // ==================
+
+    private static String encodeTransfers(List<TransactionDetails.Transfer> transfers) throws Exception {
+        JSONArray array = new JSONArray();
+        for (TransactionDetails.Transfer transfer : transfers) {
+            JSONObject json = new JSONObject();
+            json.put("s", transfer.getSource());
+            json.put("d", transfer.getDestination());
+            if (transfer.getMint() != null) {
+                json.put("m", transfer.getMint());
+            }
+            // Base units as a string, like the RPC, so large amounts survive any JSON reader
+            json.put("a", String.valueOf(transfer.getAmount()));
+            json.put("x", transfer.getDecimals());
+            array.put(json);
+        }
+        return array.toString();
+    }
+
+    private static List<TransactionDetails.Transfer> decodeTransfers(String encoded) throws Exception {
+        JSONArray array = new JSONArray(encoded);
+        List<TransactionDetails.Transfer> transfers = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject json = array.getJSONObject(i);
+            transfers.add(new TransactionDetails.Transfer(
+                    json.getString("s"),
+                    json.getString("d"),
+                    json.optString("m", null),
+                    Long.parseLong(json.getString("a")),
+                    json.getInt("x")));
+        }
+        return transfers;
+    }
+
+    private static String encodeMemos(List<String> memos) {
+        JSONArray array = new JSONArray();
+        for (String memo : memos) {
+            array.put(memo);
+        }
+        return array.toString();
+    }
+
+    private static List<String> decodeMemos(String encoded) throws Exception {
+        JSONArray array = new JSONArray(encoded);
+        List<String> memos = new ArrayList<>(array.length());
+        for (int i = 0; i < array.length(); i++) {
+            memos.add(array.getString(i));
+        }
+        return memos;
+    }
+}
@@ -0,0 +1,64 @@
+package com.stableflow.app.data.solana;
+
+/**
+ * TransactionHistoryEntry
+ * A signature touching one of the wallet's token accounts, as returned by getSignaturesForAddress
+ */
+public class TransactionHistoryEntry {
+
+    private final String signature;
+    private final String account;
+    private final long slot;
+    private final long blockTime;
+    private final String memo;
+    private final boolean failed;
+    private final String confirmationStatus;
+
+    public TransactionHistoryEntry(String signature, String account, long slot, long blockTime,
+            String memo, boolean failed, String confirmationStatus) {
+        this.signature = signature;
+        this.account = account;
+        this.slot = slot;
+        this.blockTime = blockTime;
+        this.memo = memo;
+        this.failed = failed;
+        this.confirmationStatus = confirmationStatus;
+    }
+
+    public String getSignature() {
+        return signature;
+    }
+
+    public String getAccount() {
+        return account;
+    }
+
+    public long getSlot() {
+        return slot;
+    }
+
+    /**
+     * Block time in seconds since the epoch, or 0 if the node did not report one
+     */
+    public long getBlockTime() {
+        return blockTime;
+    }
+
+    public String getMemo() {
+        return memo;
+    }
+
+    public boolean isFailed() {
+        return failed;
+    }
+
+    public String getConfirmationStatus() {
+        return confirmationStatus;
+    }
+
+    public String getShortSignature() {
+        if (signature == null || signature.length() <= 12)
+            return signature;
+        return signature.substring(0, 6) + "..." + signature.substring(signature.length() - 4);
+    }
+}
@@ -0,0 +1,342 @@
+package com.stableflow.app.data.solana;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteOpenHelper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * TransactionHistoryStore
+ * Local SQLite index of synced wallet transactions, readable offline
+ */
+public class TransactionHistoryStore extends SQLiteOpenHelper {
+
+    private static final String DATABASE_NAME = "solana_history.db";
+    private static final int DATABASE_VERSION = 3;
+
+    private static final String TABLE_TRANSACTIONS = "transactions";
+    private static final String TABLE_SYNC_STATE = "sync_state";
+    private static final String TABLE_PAYOUTS = "payouts";
+
+    // Values of the reconciled column
+    private static final int ENTRY_PENDING = 0;
+    private static final int ENTRY_RECONCILED = 1;
+    // The node kept returning nothing for the signature; it is no longer fetched
+    private static final int ENTRY_UNAVAILABLE = 2;
+
+    private static TransactionHistoryStore instance;
+
+    /**
+     * Per-account sync cursors
+     */
+    public static class SyncState {
+        // Newest signature seen; later syncs only fetch entries after it
+        public String newestSignature;
+        // Oldest signature fetched so far while backfilling older history
+        public String oldestSignature;
+        public boolean backfillComplete;
+    }
+
+    private TransactionHistoryStore(Context context) {
+        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    }
+
+    public static synchronized TransactionHistoryStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new TransactionHistoryStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    @Override
+    public void onCreate(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_TRANSACTIONS + " ("
+                + "signature TEXT NOT NULL, "
+                + "account TEXT NOT NULL, "
+                + "owner TEXT NOT NULL, "
+                + "slot INTEGER NOT NULL, "
+                + "block_time INTEGER NOT NULL, "
+                + "memo TEXT, "
+                + "failed INTEGER NOT NULL, "
+                + "confirmation_status TEXT, "
+                + "PRIMARY KEY (signature, account))");
+
+        // Wallet screen pages newest-first per owner
+        db.execSQL("CREATE INDEX idx_transactions_owner_slot ON " + TABLE_TRANSACTIONS
+                + " (owner, slot DESC, signature DESC)");
+
+        db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + " ("
+                + "account TEXT PRIMARY KEY, "
+                + "newest_signature TEXT, "
+                + "oldest_signature TEXT, "
+                + "backfill_complete INTEGER NOT NULL DEFAULT 0)");
+
+        createReconciliationSchema(db);
+        createFetchMissSchema(db);
+    }
+
+    @Override
+    public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+        if (oldVersion < 2) {
+            createReconciliationSchema(db);
+        }
+        if (oldVersion < 3) {
+            createFetchMissSchema(db);
+        }
+    }
+
+    /**
+     * Version 2: reconciliation progress per entry and the incoming payouts it found
+     */
+    private void createReconciliationSchema(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN reconciled INTEGER NOT NULL DEFAULT 0");
+        db.execSQL("CREATE INDEX idx_transactions_unreconciled ON " + TABLE_TRANSACTIONS
+                + " (owner, reconciled)");
+
+        db.execSQL("CREATE TABLE " + TABLE_PAYOUTS + " ("
+                + "signature TEXT NOT NULL, "
+                + "account TEXT NOT NULL, "
+                + "owner TEXT NOT NULL, "
+                + "amount INTEGER NOT NULL, "
+                + "block_time INTEGER NOT NULL, "
+                + "memo TEXT, "
+                + "claim_id TEXT, "
+                + "PRIMARY KEY (signature, account))");
+        db.execSQL("CREATE INDEX idx_payouts_owner ON " + TABLE_PAYOUTS + " (owner)");
+    }
+
+    /**
+     * Version 3: how often the node returned nothing for an entry's transaction
+     */
+    private void createFetchMissSchema(SQLiteDatabase db) {
+        db.execSQL("ALTER TABLE " + TABLE_TRANSACTIONS + " ADD COLUMN fetch_misses INTEGER NOT NULL DEFAULT 0");
+    }
+
+    // ==================
+    // WRITES
+    // ==================
+
+    /**
+     * Insert a page of entries, ignoring ones that are already indexed
+     */
+    public void insertEntries(String owner, List<TransactionHistoryEntry> entries) {
+        if (entries.isEmpty())
+            return;
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            for (TransactionHistoryEntry entry : entries) {
+                values.clear();
+                values.put("signature", entry.getSignature());
+                values.put("account", entry.getAccount());
+                values.put("owner", owner);
+                values.put("slot", entry.getSlot());
+                values.put("block_time", entry.getBlockTime());
+                values.put("memo", entry.getMemo());
+                values.put("failed", entry.isFailed() ? 1 : 0);
+                values.put("confirmation_status", entry.getConfirmationStatus());
+                db.insertWithOnConflict(TABLE_TRANSACTIONS, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void saveSyncState(String account, SyncState state) {
+        ContentValues values = new ContentValues();
+        values.put("account", account);
+        values.put("newest_signature", state.newestSignature);
+        values.put("oldest_signature", state.oldestSignature);
+        values.put("backfill_complete", state.backfillComplete ? 1 : 0);
+        getWritableDatabase().insertWithOnConflict(TABLE_SYNC_STATE, null, values,
+                SQLiteDatabase.CONFLICT_REPLACE);
+    }
+
+    /**
+     * Record that entries have been examined by the reconciliation engine
+     */
+    public void markReconciled(List<TransactionHistoryEntry> entries) {
+        if (entries.isEmpty())
+            return;
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            ContentValues values = new ContentValues();
+            values.put("reconciled", ENTRY_RECONCILED);
+            for (TransactionHistoryEntry entry : entries) {
+                db.update(TABLE_TRANSACTIONS, values, "signature = ? AND account = ?",
+                        new String[] { entry.getSignature(), entry.getAccount() });
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    /**
+     * Count a fetch that found no transaction for each entry. An entry missed maxMisses times
+     * is marked unavailable and no longer returned as unreconciled.
+     */
+    public void recordFetchMisses(List<TransactionHistoryEntry> entries, int maxMisses) {
+        if (entries.isEmpty())
+            return;
+
+        SQLiteDatabase db = getWritableDatabase();
+        db.beginTransaction();
+        try {
+            for (TransactionHistoryEntry entry : entries) {
+                db.execSQL("UPDATE " + TABLE_TRANSACTIONS + " SET fetch_misses = fetch_misses + 1, "
+                        + "reconciled = CASE WHEN fetch_misses + 1 >= ? THEN " + ENTRY_UNAVAILABLE
+                        + " ELSE reconciled END WHERE signature = ? AND account = ?",
+                        new Object[] { maxMisses, entry.getSignature(), entry.getAccount() });
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+        }
+    }
+
+    public void insertPayout(String owner, PayoutRecord payout) {
+        ContentValues values = new ContentValues();
+        values.put("signature", payout.getSignature());
+        values.put("account", payout.getAccount());
+        values.put("owner", owner);
+        values.put("amount", payout.getAmount());
+        values.put("block_time", payout.getBlockTime());
+        values.put("memo", payout.getMemo());
+        values.put("claim_id", payout.getClaimId());
+        getWritableDatabase().insertWithOnConflict(TABLE_PAYOUTS, null, values, SQLiteDatabase.CONFLICT_IGNORE);
+    }
+
+    /**
+     * Link a payout to the claim it settles, or null to mark it unmatched
+     */
+    public void setPayoutClaim(PayoutRecord payout, String claimId) {
+        ContentValues values = new ContentValues();
+        values.put("claim_id", claimId);
+        getWritableDatabase().update(TABLE_PAYOUTS, values, "signature = ? AND account = ?",
+                new String[] { payout.getSignature(), payout.getAccount() });
+    }
+
+    // ==================
+    // READS
+    // ==================
+
+    /**
+     * Entries not yet examined by the reconciliation engine, oldest first. Pass the last entry
+     * of the previous batch as the cursor, or null for the first batch, so entries left pending
+     * by the previous batch are not returned again.
+     */
+    public List<TransactionHistoryEntry> getUnreconciledEntries(String owner, TransactionHistoryEntry after,
+            int limit) {
+        String selection = "owner = ? AND reconciled = " + ENTRY_PENDING;
+        String[] args;
+        if (after == null) {
+            args = new String[] { owner };
+        } else {
+            selection += " AND (slot > ? OR (slot = ? AND (signature > ? OR (signature = ? AND account > ?))))";
+            String slot = String.valueOf(after.getSlot());
+            args = new String[] { owner, slot, slot, after.getSignature(), after.getSignature(), after.getAccount() };
+        }
+        return queryEntries(selection, args, "slot ASC, signature ASC, account ASC", limit);
+    }
+
+    public List<PayoutRecord> getPayouts(String owner) {
+        List<PayoutRecord> payouts = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_PAYOUTS,
+                new String[] { "signature", "account", "amount", "block_time", "memo", "claim_id" },
+                "owner = ?", new String[] { owner }, null, null, null)) {
+            while (cursor.moveToNext()) {
+                PayoutRecord payout = new PayoutRecord(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getLong(2),
+                        cursor.getLong(3),
+                        cursor.isNull(4) ? null : cursor.getString(4));
+                payout.setClaimId(cursor.isNull(5) ? null : cursor.getString(5));
+                payouts.add(payout);
+            }
+        }
+        return payouts;
+    }
+
+    /**
+     * Block time from which an owner's history is complete: 0 once every account is fully
+     * backfilled, otherwise the oldest block time fetched so far
+     */
+    public long getCoverageStart(String owner) {
+        SQLiteDatabase db = getReadableDatabase();
+        try (Cursor cursor = db.rawQuery("SELECT COUNT(*) FROM " + TABLE_SYNC_STATE
+                + " WHERE backfill_complete = 0 AND account IN (SELECT DISTINCT account FROM "
+                + TABLE_TRANSACTIONS + " WHERE owner = ?)", new String[] { owner })) {
+            if (cursor.moveToFirst() && cursor.getLong(0) == 0)
+                return 0;
+        }
+        try (Cursor cursor = db.rawQuery("SELECT MIN(block_time) FROM " + TABLE_TRANSACTIONS
+                + " WHERE owner = ?", new String[] { owner })) {
+            return cursor.moveToFirst() ? cursor.getLong(0) : 0;
+        }
+    }
+
+    public SyncState getSyncState(String account) {
+        SyncState state = new SyncState();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_SYNC_STATE,
+                new String[] { "newest_signature", "oldest_signature", "backfill_complete" },
+                "account = ?", new String[] { account }, null, null, null)) {
+            if (cursor.moveToFirst()) {
+                state.newestSignature = cursor.isNull(0) ? null : cursor.getString(0);
+                state.oldestSignature = cursor.isNull(1) ? null : cursor.getString(1);
+                state.backfillComplete = cursor.getInt(2) != 0;
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Get a page of an owner's transactions, newest first.
+     * Pass the last entry of the previous page as the cursor, or null for the first page.
+     */
+    public List<TransactionHistoryEntry> getPage(String owner, TransactionHistoryEntry after, int limit) {
+        String selection;
+        String[] args;
+        if (after == null) {
+            selection = "owner = ?";
+            args = new String[] { owner };
+        } else {
+            // Keyset pagination on (slot, signature) keeps every page an index range scan
+            selection = "owner = ? AND (slot < ? OR (slot = ? AND signature < ?))";
+            String slot = String.valueOf(after.getSlot());
+            args = new String[] { owner, slot, slot, after.getSignature() };
+        }
+
+        return queryEntries(selection, args, "slot DESC, signature DESC", limit);
+    }
+
+    private List<TransactionHistoryEntry> queryEntries(String selection, String[] args, String orderBy, int limit) {
+        List<TransactionHistoryEntry> entries = new ArrayList<>();
+        try (Cursor cursor = getReadableDatabase().query(TABLE_TRANSACTIONS,
+                new String[] { "signature", "account", "slot", "block_time", "memo", "failed",
+                        "confirmation_status" },
+                selection, args, null, null, orderBy, String.valueOf(limit))) {
+            while (cursor.moveToNext()) {
+                entries.add(new TransactionHistoryEntry(
+                        cursor.getString(0),
+                        cursor.getString(1),
+                        cursor.getLong(2),
+                        cursor.getLong(3),
+                        cursor.isNull(4) ? null : cursor.getString(4),
+                        cursor.getInt(5) != 0,
+                        cursor.isNull(6) ? null : cursor.getString(6)));
+            }
+        }
+        return entries;
+    }
+}
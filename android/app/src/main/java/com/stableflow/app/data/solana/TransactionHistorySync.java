@@ -0,0 +1,171 @@
+package com.stableflow.app.data.solana;
+
+import android.util.Log;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * TransactionHistorySync
+ * Incrementally syncs the wallet's USDC token account history into the local store
+ */
+public class TransactionHistorySync {
+
+    private static final String TAG = "TransactionHistorySync";
+
+    // getSignaturesForAddress returns at most 1000 entries per call
+    private static final int PAGE_SIZE = 1000;
+
+    // Older history is backfilled a few pages per sync so the first sync stays bounded
+    private static final int MAX_BACKFILL_PAGES_PER_SYNC = 5;
+
+    private final SolanaClient client;
+    private final TransactionHistoryStore store;
+    // Replaced by cancel(); main thread only
+    private ExecutorService executor = newExecutor("history-sync");
+    // Separate reader so paging stays responsive while a sync is writing
+    private ExecutorService readExecutor = newExecutor("history-pages");
+    private final AtomicBoolean syncing = new AtomicBoolean(false);
+
+    private final MutableLiveData<Boolean> isSyncing = new MutableLiveData<>(false);
+    private final MutableLiveData<Long> lastSyncedAt = new MutableLiveData<>();
+
+    public interface PageCallback {
+        void onResult(List<TransactionHistoryEntry> entries);
+    }
+
+    public TransactionHistorySync(SolanaClient client, TransactionHistoryStore store) {
+        this.client = client;
+        this.store = store;
+    }
+
+    public LiveData<Boolean> getIsSyncing() {
+        return isSyncing;
+    }
+
+    /**
+     * Time of the last successful sync in milliseconds, posted when new data is available
+     */
+    public LiveData<Long> getLastSyncedAt() {
+        return lastSyncedAt;
+    }
+
+    /**
+     * Fetch new history for a wallet. Calls made while a sync is running are dropped.
+     */
+    public void sync(String walletAddress) {
+        if (!syncing.compareAndSet(false, true))
+            return;
+
+        isSyncing.postValue(true);
+        executor.execute(() -> {
+            try {
+                for (String account : client.fetchUsdcTokenAccounts(walletAddress)) {
+                    syncAccount(walletAddress, account);
+                }
+                lastSyncedAt.postValue(System.currentTimeMillis());
+            } catch (Exception e) {
+                Log.e(TAG, "History sync error: " + e.getMessage());
+            } finally {
+                syncing.set(false);
+                isSyncing.postValue(false);
+            }
+        });
+    }
+
+    /**
+     * Stop a running sync and drop queued work, e.g. when the session ends. The next sync
+     * waits for the interrupted one to return, so two never write the cursors at once.
+     */
+    public void cancel() {
+        ExecutorService stopped = executor;
+        stopped.shutdownNow();
+        readExecutor.shutdownNow();
+        executor = newExecutor("history-sync");
+        readExecutor = newExecutor("history-pages");
+        executor.execute(() -> awaitTermination(stopped));
+
+        if (syncing.compareAndSet(true, false)) {
+            isSyncing.postValue(false);
+        }
+    }
+
+    /**
+     * Read a page of locally indexed history. Works offline.
+     */
+    public void loadPage(String walletAddress, TransactionHistoryEntry after, int limit, PageCallback callback) {
+        readExecutor.execute(() -> callback.onResult(store.getPage(walletAddress, after, limit)));
+    }
+
+    private void syncAccount(String owner, String account) throws Exception {
+        TransactionHistoryStore.SyncState state = store.getSyncState(account);
+
+        // Forward: everything newer than the newest signature we have seen
+        if (state.newestSignature != null) {
+            String before = null;
+            String newest = null;
+            while (true) {
+                List<TransactionHistoryEntry> page = client.fetchSignaturesForAddress(
+                        account, before, state.newestSignature, PAGE_SIZE);
+                store.insertEntries(owner, page);
+
+                if (newest == null && !page.isEmpty()) {
+                    newest = page.get(0).getSignature();
+                }
+                if (page.size() < PAGE_SIZE)
+                    break;
+                before = page.get(page.size() - 1).getSignature();
+            }
+
+            // Only advance the cursor once the gap is fully closed
+            if (newest != null) {
+                state.newestSignature = newest;
+                store.saveSyncState(account, state);
+            }
+        }
+
+        // Backward: continue filling in older history from the oldest fetched signature
+        int pages = 0;
+        while (!state.backfillComplete && pages < MAX_BACKFILL_PAGES_PER_SYNC) {
+            List<TransactionHistoryEntry> page = client.fetchSignaturesForAddress(
+                    account, state.oldestSignature, null, PAGE_SIZE);
+            store.insertEntries(owner, page);
+
+            if (!page.isEmpty()) {
+                if (state.newestSignature == null) {
+                    state.newestSignature = page.get(0).getSignature();
+                }
+                state.oldestSignature = page.get(page.size() - 1).getSignature();
+            }
+            state.backfillComplete = page.size() < PAGE_SIZE;
+            store.saveSyncState(account, state);
+            pages++;
+        }
+    }
+
+    // ==================
+    // UTILITY
+    // ==================
+
+    private static ExecutorService newExecutor(String name) {
+        return Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private static void awaitTermination(ExecutorService executor) {
+        try {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
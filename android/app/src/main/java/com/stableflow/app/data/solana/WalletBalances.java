@@ -0,0 +1,43 @@
+package com.stableflow.app.data.solana;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * WalletBalances
+ * SOL and token balances of one wallet in base units, fetched together.
+ * Token balances are keyed by mint, one entry per registered token.
+ */
+public class WalletBalances {
+
+    private final long lamports;
+    private final Map<String, Long> tokenBalances;
+
+    public WalletBalances(long lamports, Map<String, Long> tokenBalances) {
+        this.lamports = lamports;
+        this.tokenBalances = tokenBalances != null ? tokenBalances : Collections.emptyMap();
+    }
+
+    public long getLamports() {
+        return lamports;
+    }
+
+    public Map<String, Long> getTokenBalances() {
+        return tokenBalances;
+    }
+
+    /**
+     * Balance of one mint in its base units, zero if the wallet holds none
+     */
+    public long getAmount(String mint) {
+        Long amount = tokenBalances.get(mint);
+        return amount != null ? amount : 0;
+    }
+
+    /**
+     * Same lamports and same amount for every mint
+     */
+    public boolean sameAs(WalletBalances other) {
+        return other != null && lamports == other.lamports && tokenBalances.equals(other.tokenBalances);
+    }
+}
@@ -1,20 +1,29 @@
 package com.stableflow.app.ui.analytics;
 
 import android.os.Bundle;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.widget.LinearLayout;
+import android.widget.Button;
 import android.widget.TextView;
 
 import androidx.appcompat.widget.Toolbar;
 import androidx.lifecycle.ViewModelProvider;
 
 import com.stableflow.app.R;
+import com.stableflow.app.data.model.ExpenseTotals;
+import com.stableflow.app.data.model.TurnaroundStats;
+import com.stableflow.app.data.repository.SpendCube;
 import com.stableflow.app.ui.base.BaseActivity;
+import com.stableflow.app.util.TokenAmount;
 
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.text.DateFormatSymbols;
+import java.util.Calendar;
 
 /**
  * AnalyticsActivity
- * Shows expense statistics and analytics
+ * Shows expense statistics and analytics, with spend by category for the current month,
+ * quarter or year, spend per month for the last year, and approval turnaround percentiles
  */
 public class AnalyticsActivity extends BaseActivity {
 
@@ -25,6 +34,34 @@ public class AnalyticsActivity extends BaseActivity {
     private TextView tvPendingCount, tvApprovedCount, tvPaidCount, tvRejectedCount;
     private TextView tvPendingAmount, tvApprovedAmount, tvPaidAmount, tvRejectedAmount;
 
+    // Spend views
+    private static final int PERIOD_MONTH = 0;
+    private static final int PERIOD_QUARTER = 1;
+    private static final int PERIOD_YTD = 2;
+    private static final int MONTHS_IN_CHART = 12;
+
+    // Labels in ExpenseTotals.CATEGORIES order
+    private static final int[] CATEGORY_LABELS = {
+            R.string.category_travel, R.string.category_meals, R.string.category_supplies,
+            R.string.category_equipment, R.string.category_software, R.string.category_training,
+            R.string.category_entertainment, R.string.category_utilities, R.string.category_other
+    };
+
+    private Button btnPeriodMonth, btnPeriodQuarter, btnPeriodYtd;
+    private TextView tvPeriodTotal;
+    private BarChartView chartCategory, chartMonth;
+    private int period = PERIOD_MONTH;
+    private SpendCube.Snapshot spend = SpendCube.Snapshot.EMPTY;
+
+    // Turnaround views
+    private static final long MINUTE_MS = 60_000L;
+    private static final long HOUR_MS = 60 * MINUTE_MS;
+    private static final long DAY_MS = 24 * HOUR_MS;
+
+    private LinearLayout turnaroundOverall, turnaroundCategory, turnaroundApprover;
+    private View tvTurnaroundCategoryTitle, cardTurnaroundCategory;
+    private View tvTurnaroundApproverTitle, cardTurnaroundApprover;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -53,6 +90,29 @@ public class AnalyticsActivity extends BaseActivity {
         tvApprovedAmount = findViewById(R.id.tv_approved_amount);
         tvPaidAmount = findViewById(R.id.tv_paid_amount);
         tvRejectedAmount = findViewById(R.id.tv_rejected_amount);
+
+        // Spend
+        btnPeriodMonth = findViewById(R.id.btn_period_month);
+        btnPeriodQuarter = findViewById(R.id.btn_period_quarter);
+        btnPeriodYtd = findViewById(R.id.btn_period_ytd);
+        tvPeriodTotal = findViewById(R.id.tv_period_total);
+        chartCategory = findViewById(R.id.chart_category);
+        chartMonth = findViewById(R.id.chart_month);
+        chartCategory.setEmptyText(getString(R.string.no_spend));
+        chartMonth.setEmptyText(getString(R.string.no_spend));
+
+        btnPeriodMonth.setOnClickListener(v -> selectPeriod(PERIOD_MONTH));
+        btnPeriodQuarter.setOnClickListener(v -> selectPeriod(PERIOD_QUARTER));
+        btnPeriodYtd.setOnClickListener(v -> selectPeriod(PERIOD_YTD));
+
+        // Turnaround
+        turnaroundOverall = findViewById(R.id.turnaround_overall);
+        turnaroundCategory = findViewById(R.id.turnaround_category);
+        turnaroundApprover = findViewById(R.id.turnaround_approver);
+        tvTurnaroundCategoryTitle = findViewById(R.id.tv_turnaround_category_title);
+        cardTurnaroundCategory = findViewById(R.id.card_turnaround_category);
+        tvTurnaroundApproverTitle = findViewById(R.id.tv_turnaround_approver_title);
+        cardTurnaroundApprover = findViewById(R.id.card_turnaround_approver);
     }
 
     private void setupToolbar() {
@@ -71,29 +131,160 @@ public class AnalyticsActivity extends BaseActivity {
                 updateStatsUI(stats);
             }
         });
+
+        viewModel.getSpend().observe(this, snapshot -> {
+            if (snapshot != null) {
+                spend = snapshot;
+                updateSpendUI();
+            }
+        });
+
+        viewModel.getTurnaround().observe(this, turnaround -> {
+            if (turnaround != null) {
+                updateTurnaroundUI(turnaround);
+            }
+        });
     }
 
-    private void updateStatsUI(AnalyticsViewModel.ExpenseStats stats) {
+    private void updateStatsUI(ExpenseTotals stats) {
         // Total
-        int total = stats.pending + stats.approved + stats.paid + stats.rejected;
-        tvTotalClaims.setText(String.valueOf(total));
-        tvTotalAmount.setText(formatCurrency(stats.totalAmount));
+        tvTotalClaims.setText(String.valueOf(stats.getTotalCount()));
+        tvTotalAmount.setText(formatCurrency(stats.getTotalAmount()));
 
         // Counts
-        tvPendingCount.setText(String.valueOf(stats.pending));
-        tvApprovedCount.setText(String.valueOf(stats.approved));
-        tvPaidCount.setText(String.valueOf(stats.paid));
-        tvRejectedCount.setText(String.valueOf(stats.rejected));
+        tvPendingCount.setText(String.valueOf(stats.getPendingCount()));
+        tvApprovedCount.setText(String.valueOf(stats.getCount("APPROVED")));
+        tvPaidCount.setText(String.valueOf(stats.getCount("PAID")));
+        tvRejectedCount.setText(String.valueOf(stats.getCount("REJECTED")));
 
         // Amounts
-        tvPendingAmount.setText(formatCurrency(stats.pendingAmount));
-        tvApprovedAmount.setText(formatCurrency(stats.approvedAmount));
-        tvPaidAmount.setText(formatCurrency(stats.paidAmount));
-        tvRejectedAmount.setText(formatCurrency(stats.rejectedAmount));
+        tvPendingAmount.setText(formatCurrency(stats.getPendingAmount()));
+        tvApprovedAmount.setText(formatCurrency(stats.getAmount("APPROVED")));
+        tvPaidAmount.setText(formatCurrency(stats.getAmount("PAID")));
+        tvRejectedAmount.setText(formatCurrency(stats.getAmount("REJECTED")));
+    }
+
+    private void selectPeriod(int period) {
+        this.period = period;
+        updatePeriodTab(btnPeriodMonth, period == PERIOD_MONTH);
+        updatePeriodTab(btnPeriodQuarter, period == PERIOD_QUARTER);
+        updatePeriodTab(btnPeriodYtd, period == PERIOD_YTD);
+        updateSpendUI();
+    }
+
+    private void updatePeriodTab(Button tab, boolean selected) {
+        if (selected) {
+            tab.setBackgroundResource(R.drawable.bg_tab_selected);
+            tab.setTextColor(getColor(R.color.navy_primary));
+        } else {
+            tab.setBackgroundColor(android.graphics.Color.TRANSPARENT);
+            tab.setTextColor(getColor(R.color.text_secondary));
+        }
+    }
+
+    /**
+     * Both charts are range queries on the spend cube; no claims are read here
+     */
+    private void updateSpendUI() {
+        Calendar now = Calendar.getInstance();
+        int month = now.get(Calendar.MONTH) + 1;
+        int currentMonth = SpendCube.monthKey(now.get(Calendar.YEAR), month);
+
+        int fromMonth;
+        switch (period) {
+            case PERIOD_QUARTER:
+                fromMonth = currentMonth - (month - 1) % 3;
+                break;
+            case PERIOD_YTD:
+                fromMonth = currentMonth - (month - 1);
+                break;
+            default:
+                fromMonth = currentMonth;
+                break;
+        }
+
+        // By category over the selected period
+        String[] categoryLabels = new String[CATEGORY_LABELS.length];
+        for (int i = 0; i < CATEGORY_LABELS.length; i++) {
+            categoryLabels[i] = getString(CATEGORY_LABELS[i]);
+        }
+        long[] byCategory = spend.getTotalsByCategory(fromMonth, currentMonth);
+        chartCategory.setData(categoryLabels, byCategory);
+        tvPeriodTotal.setText(formatCurrency(spend.getTotal(fromMonth, currentMonth)));
+
+        // By month over the last year, oldest first
+        String[] monthNames = new DateFormatSymbols().getShortMonths();
+        String[] monthLabels = new String[MONTHS_IN_CHART];
+        long[] byMonth = new long[MONTHS_IN_CHART];
+        for (int i = 0; i < MONTHS_IN_CHART; i++) {
+            int key = currentMonth - (MONTHS_IN_CHART - 1) + i;
+            monthLabels[i] = monthNames[SpendCube.monthOf(key) - 1] + " " + SpendCube.yearOf(key);
+            byMonth[i] = spend.getTotal(key, key);
+        }
+        chartMonth.setData(monthLabels, byMonth);
+    }
+
+    private void updateTurnaroundUI(TurnaroundStats stats) {
+        // Overall
+        turnaroundOverall.removeAllViews();
+        boolean anyProcessed = stats.getReview().getCount() > 0 || stats.getPayout().getCount() > 0;
+        addTurnaroundRow(turnaroundOverall, getString(anyProcessed ? R.string.turnaround_all : R.string.turnaround_none),
+                stats.getReview(), stats.getPayout());
+
+        // By category, only those with processed claims
+        turnaroundCategory.removeAllViews();
+        for (int category = 0; category < CATEGORY_LABELS.length; category++) {
+            TurnaroundStats.Percentiles review = stats.getReviewByCategory(category);
+            TurnaroundStats.Percentiles payout = stats.getPayoutByCategory(category);
+            if (review.getCount() > 0 || payout.getCount() > 0) {
+                addTurnaroundRow(turnaroundCategory, getString(CATEGORY_LABELS[category]), review, payout);
+            }
+        }
+        setTurnaroundSectionVisible(tvTurnaroundCategoryTitle, cardTurnaroundCategory,
+                turnaroundCategory.getChildCount() > 0);
+
+        // By approver
+        turnaroundApprover.removeAllViews();
+        for (String approver : stats.getApprovers()) {
+            addTurnaroundRow(turnaroundApprover, approver, stats.getReviewByApprover(approver),
+                    stats.getPayoutByApprover(approver));
+        }
+        setTurnaroundSectionVisible(tvTurnaroundApproverTitle, cardTurnaroundApprover,
+                turnaroundApprover.getChildCount() > 0);
+    }
+
+    private void addTurnaroundRow(LinearLayout container, String label, TurnaroundStats.Percentiles review,
+            TurnaroundStats.Percentiles payout) {
+        View row = LayoutInflater.from(this).inflate(R.layout.item_turnaround_row, container, false);
+        ((TextView) row.findViewById(R.id.tv_turnaround_label)).setText(label);
+        bindPercentiles(row.findViewById(R.id.tv_turnaround_review), R.string.turnaround_review, review);
+        bindPercentiles(row.findViewById(R.id.tv_turnaround_payout), R.string.turnaround_payout, payout);
+        container.addView(row);
+    }
+
+    private void bindPercentiles(TextView view, int format, TurnaroundStats.Percentiles percentiles) {
+        if (percentiles.getCount() == 0) {
+            view.setVisibility(View.GONE);
+            return;
+        }
+        view.setText(getString(format, formatDuration(percentiles.getP50()), formatDuration(percentiles.getP90()),
+                formatDuration(percentiles.getP99())));
+    }
+
+    private void setTurnaroundSectionVisible(View title, View card, boolean visible) {
+        title.setVisibility(visible ? View.VISIBLE : View.GONE);
+        card.setVisibility(visible ? View.VISIBLE : View.GONE);
+    }
+
+    private String formatDuration(long millis) {
+        if (millis < HOUR_MS)
+            return getString(R.string.duration_minutes, Math.round((double) millis / MINUTE_MS));
+        if (millis < DAY_MS)
+            return getString(R.string.duration_hours, (double) millis / HOUR_MS);
+        return getString(R.string.duration_days, (double) millis / DAY_MS);
     }
 
-    private String formatCurrency(double amount) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.US);
-        return formatter.format(amount);
+    private String formatCurrency(long micros) {
+        return TokenAmount.formatUsd(micros);
     }
 }
@@ -1,80 +1,35 @@
 package com.stableflow.app.ui.analytics;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
-import com.stableflow.app.data.model.ExpenseRequest;
-import com.stableflow.app.data.repository.FirebaseRepository;
-
-import java.util.List;
+import com.stableflow.app.data.model.ExpenseTotals;
+import com.stableflow.app.data.model.TurnaroundStats;
+import com.stableflow.app.data.repository.ExpenseStatsPublisher;
+import com.stableflow.app.data.repository.SpendCube;
 
 /**
  * AnalyticsViewModel
- * Handles expense statistics calculation
+ * Exposes expense statistics from the shared ExpenseStatsPublisher. The dashboard owns the
+ * expenses subscription; this screen only observes.
  */
 public class AnalyticsViewModel extends ViewModel {
 
-    private final FirebaseRepository repository;
-    private final MutableLiveData<ExpenseStats> stats = new MutableLiveData<>(new ExpenseStats());
+    private final ExpenseStatsPublisher stats;
 
     public AnalyticsViewModel() {
-        repository = FirebaseRepository.getInstance();
-
-        // Observe expenses and calculate stats
-        repository.getExpensesLiveData().observeForever(this::calculateStats);
-
-        // Load expenses if not already loaded
-        if (repository.getCurrentAuthUser() != null) {
-            repository.loadUserExpenses(repository.getCurrentAuthUser().getUid());
-        }
+        stats = ExpenseStatsPublisher.getInstance();
     }
 
-    public LiveData<ExpenseStats> getStats() {
-        return stats;
+    public LiveData<ExpenseTotals> getStats() {
+        return stats.getTotals();
     }
 
-    private void calculateStats(List<ExpenseRequest> expenses) {
-        if (expenses == null)
-            return;
-
-        ExpenseStats newStats = new ExpenseStats();
-
-        for (ExpenseRequest expense : expenses) {
-            switch (expense.getStatus()) {
-                case "PENDING":
-                case "UNDER_REVIEW":
-                    newStats.pending++;
-                    newStats.pendingAmount += expense.getAmount();
-                    break;
-                case "APPROVED":
-                    newStats.approved++;
-                    newStats.approvedAmount += expense.getAmount();
-                    break;
-                case "PAID":
-                    newStats.paid++;
-                    newStats.paidAmount += expense.getAmount();
-                    break;
-                case "REJECTED":
-                    newStats.rejected++;
-                    newStats.rejectedAmount += expense.getAmount();
-                    break;
-            }
-            newStats.totalAmount += expense.getAmount();
-        }
-
-        stats.setValue(newStats);
+    public LiveData<SpendCube.Snapshot> getSpend() {
+        return stats.getSpend();
     }
 
-    public static class ExpenseStats {
-        public int pending = 0;
-        public int approved = 0;
-        public int paid = 0;
-        public int rejected = 0;
-        public double pendingAmount = 0;
-        public double approvedAmount = 0;
-        public double paidAmount = 0;
-        public double rejectedAmount = 0;
-        public double totalAmount = 0;
+    public LiveData<TurnaroundStats> getTurnaround() {
+        return stats.getTurnaround();
     }
 }
@@ -0,0 +1,122 @@
+package com.stableflow.app.ui.analytics;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.RectF;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.stableflow.app.R;
+import com.stableflow.app.util.TokenAmount;
+
+/**
+ * BarChartView
+ * Horizontal bar chart of micro-USDC amounts: each row shows a label and its amount, with a bar
+ * underneath scaled to the largest row
+ */
+public class BarChartView extends View {
+
+    private static final float ROW_HEIGHT_DP = 40f;
+    private static final float BAR_HEIGHT_DP = 8f;
+    private static final float LABEL_SIZE_SP = 13f;
+
+    private final Paint labelPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint valuePaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint trackPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final Paint barPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
+    private final RectF rect = new RectF();
+
+    private final float density;
+    private String[] labels = new String[0];
+    private long[] values = new long[0];
+    private String emptyText;
+
+    public BarChartView(Context context) {
+        this(context, null);
+    }
+
+    public BarChartView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        density = context.getResources().getDisplayMetrics().density;
+        float scaledDensity = context.getResources().getDisplayMetrics().scaledDensity;
+
+        labelPaint.setColor(context.getColor(R.color.text_secondary));
+        labelPaint.setTextSize(LABEL_SIZE_SP * scaledDensity);
+        valuePaint.setColor(context.getColor(R.color.text_primary));
+        valuePaint.setTextSize(LABEL_SIZE_SP * scaledDensity);
+        valuePaint.setTextAlign(Paint.Align.RIGHT);
+        trackPaint.setColor(context.getColor(R.color.glass_white));
+        barPaint.setColor(context.getColor(R.color.gold_primary));
+    }
+
+    /**
+     * Rows to draw; labels and values are read in the same order
+     */
+    public void setData(String[] labels, long[] values) {
+        this.labels = labels;
+        this.values = values;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * Shown instead of bars when every value is zero
+     */
+    public void setEmptyText(String emptyText) {
+        this.emptyText = emptyText;
+        invalidate();
+    }
+
+    private boolean isEmpty() {
+        for (long value : values) {
+            if (value > 0)
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int rows = isEmpty() ? 1 : values.length;
+        int height = Math.round(rows * ROW_HEIGHT_DP * density) + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(getDefaultSize(0, widthMeasureSpec), resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        float left = getPaddingLeft();
+        float right = getWidth() - getPaddingRight();
+        float top = getPaddingTop();
+        float rowHeight = ROW_HEIGHT_DP * density;
+
+        if (isEmpty()) {
+            if (emptyText != null) {
+                canvas.drawText(emptyText, left, top + rowHeight / 2, labelPaint);
+            }
+            return;
+        }
+
+        long max = 0;
+        for (long value : values) {
+            max = Math.max(max, value);
+        }
+
+        float barHeight = BAR_HEIGHT_DP * density;
+        float radius = barHeight / 2;
+        for (int i = 0; i < values.length; i++) {
+            float textBaseline = top + rowHeight - barHeight - 8 * density;
+            canvas.drawText(labels[i], left, textBaseline, labelPaint);
+            canvas.drawText(TokenAmount.formatUsd(values[i]), right, textBaseline, valuePaint);
+
+            float barTop = top + rowHeight - barHeight - 2 * density;
+            rect.set(left, barTop, right, barTop + barHeight);
+            canvas.drawRoundRect(rect, radius, radius, trackPaint);
+            if (values[i] > 0) {
+                rect.right = left + (right - left) * values[i] / max;
+                canvas.drawRoundRect(rect, radius, radius, barPaint);
+            }
+            top += rowHeight;
+        }
+    }
+}
@@ -5,12 +5,12 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.FrameLayout;
 import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.lifecycle.ViewModelProvider;
+import androidx.recyclerview.widget.ConcatAdapter;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
@@ -26,76 +26,89 @@ import com.stableflow.app.ui.base.BaseActivity;
 import com.stableflow.app.ui.expense.ExpenseDetailActivity;
 import com.stableflow.app.ui.expense.SubmitExpenseActivity;
 import com.stableflow.app.ui.settings.SettingsActivity;
+import com.stableflow.app.util.FrameMetricsRecorder;
+import com.stableflow.app.util.TokenAmount;
 
-import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
-import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 
 /**
  * DashboardActivity
- * Main dashboard showing balance, stats, and expense list
+ * Main dashboard showing balance, stats, and expense list. The whole screen below the app bar is
+ * one RecyclerView over a ConcatAdapter, so only the sections and claim rows on screen are
+ * inflated and bound, and scrolling cost does not grow with the number of claims.
  */
 public class DashboardActivity extends BaseActivity {
 
+    // Opens the dashboard without pre-inflated claim rows, to compare open times in logcat:
+    // adb shell am start -n com.stableflow.app/.ui.dashboard.DashboardActivity --ez skip_row_prewarm true
+    public static final String EXTRA_SKIP_ROW_PREWARM = "skip_row_prewarm";
+
     private DashboardViewModel viewModel;
+    private FrameMetricsRecorder frameMetrics;
     private ExpenseAdapter expenseAdapter;
 
+    // Dashboard sections, in list order
+    private DashboardSectionAdapter balanceSection;
+    private DashboardSectionAdapter quickActionsSection;
+    private DashboardSectionAdapter statsSection;
+    private DashboardSectionAdapter claimsHeaderSection;
+    private DashboardSectionAdapter emptyClaimsSection;
+
+    // State the sections bind from
+    private User currentUser;
+    private Long balanceMicros;
+    private String balanceUpdatedAt;
+
     // Views
     private TextView tvAvatar, tvUserName, tvUserEmail;
-    private TextView tvBalance, tvLastUpdated;
-    private TextView tvIncome, tvExpense;
     private TextView tvNotificationCount;
-    private TextView tvWalletAddress, tvWalletStatus;
     private FrameLayout badgeNotifications;
-    private RecyclerView rvExpenses;
-    private LinearLayout emptyState, walletAddressContainer;
+    private RecyclerView rvDashboard;
     private SwipeRefreshLayout swipeRefresh;
     private FloatingActionButton fabAdd;
-    private ImageView ivRefresh;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        boolean prewarmRows = !getIntent().getBooleanExtra(EXTRA_SKIP_ROW_PREWARM, false);
+        frameMetrics = new FrameMetricsRecorder(prewarmRows ? "Dashboard open" : "Dashboard open (no prewarm)");
+
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_dashboard);
+        frameMetrics.attach(this);
 
         viewModel = new ViewModelProvider(this).get(DashboardViewModel.class);
 
         initViews();
         setupRecyclerView();
+        if (prewarmRows) {
+            // Runs while the claims load; rows inflate off the main thread into the list's pool
+            ExpenseRowPrewarmer.prewarm(rvDashboard, expenseAdapter, ExpenseRowPrewarmer.rowsForScreen(this));
+        }
         setupClickListeners();
         observeViewModel();
     }
 
+    @Override
+    protected void onDestroy() {
+        frameMetrics.detach();
+        super.onDestroy();
+    }
+
     private void initViews() {
         // User info
         tvAvatar = findViewById(R.id.tv_avatar);
         tvUserName = findViewById(R.id.tv_user_name);
         tvUserEmail = findViewById(R.id.tv_user_email);
 
-        // Balance
-        tvBalance = findViewById(R.id.tv_balance);
-        tvLastUpdated = findViewById(R.id.tv_last_updated);
-        ivRefresh = findViewById(R.id.iv_refresh);
-
-        // Wallet address
-        walletAddressContainer = findViewById(R.id.wallet_address_container);
-        tvWalletAddress = findViewById(R.id.tv_wallet_address);
-        tvWalletStatus = findViewById(R.id.tv_wallet_status);
-
-        // Stats
-        tvIncome = findViewById(R.id.tv_income);
-        tvExpense = findViewById(R.id.tv_expense);
-
         // Notifications
         badgeNotifications = findViewById(R.id.badge_notifications);
         tvNotificationCount = findViewById(R.id.tv_notification_count);
 
-        // Expenses
-        rvExpenses = findViewById(R.id.rv_expenses);
-        emptyState = findViewById(R.id.empty_state);
+        // Dashboard list
+        rvDashboard = findViewById(R.id.rv_dashboard);
 
         // SwipeRefresh
         swipeRefresh = findViewById(R.id.swipe_refresh);
@@ -107,7 +120,7 @@ public class DashboardActivity extends BaseActivity {
     }
 
     private void setupRecyclerView() {
-        expenseAdapter = new ExpenseAdapter(new ArrayList<>(), expense -> {
+        expenseAdapter = new ExpenseAdapter(expense -> {
             // Open expense detail
             if (expense.getId() != null) {
                 Intent intent = new Intent(this, ExpenseDetailActivity.class);
@@ -118,33 +131,90 @@ public class DashboardActivity extends BaseActivity {
             }
         });
 
-        rvExpenses.setLayoutManager(new LinearLayoutManager(this));
-        rvExpenses.setAdapter(expenseAdapter);
-        rvExpenses.setNestedScrollingEnabled(false);
+        balanceSection = new DashboardSectionAdapter(R.layout.item_dashboard_balance, this::bindBalance);
+        quickActionsSection = new DashboardSectionAdapter(R.layout.item_dashboard_quick_actions,
+                this::bindQuickActions);
+        statsSection = new DashboardSectionAdapter(R.layout.item_dashboard_stats, null);
+        claimsHeaderSection = new DashboardSectionAdapter(R.layout.item_dashboard_claims_header,
+                view -> view.findViewById(R.id.btn_add_expense).setOnClickListener(v -> navigateToSubmitExpense()));
+        emptyClaimsSection = new DashboardSectionAdapter(R.layout.item_dashboard_empty_claims, null, false);
+
+        // Every adapter has stable ids in its own space. View types are layout ids, unique across
+        // adapters, so they pass through unchanged and pooled holders can be made ahead of time.
+        ConcatAdapter.Config config = new ConcatAdapter.Config.Builder()
+                .setIsolateViewTypes(false)
+                .setStableIdMode(ConcatAdapter.Config.StableIdMode.ISOLATED_STABLE_IDS)
+                .build();
+        ConcatAdapter dashboardAdapter = new ConcatAdapter(config, balanceSection, quickActionsSection,
+                statsSection, claimsHeaderSection, expenseAdapter, emptyClaimsSection);
+
+        rvDashboard.setLayoutManager(new LinearLayoutManager(this));
+        rvDashboard.setAdapter(dashboardAdapter);
     }
 
-    private void setupClickListeners() {
+    // ==================
+    // SECTIONS
+    // ==================
+
+    private void bindBalance(View view) {
+        TextView tvBalance = view.findViewById(R.id.tv_balance);
+        TextView tvLastUpdated = view.findViewById(R.id.tv_last_updated);
+        TextView tvWalletAddress = view.findViewById(R.id.tv_wallet_address);
+        TextView tvWalletStatus = view.findViewById(R.id.tv_wallet_status);
+        ImageView ivRefresh = view.findViewById(R.id.iv_refresh);
+
+        if (balanceMicros != null) {
+            tvBalance.setText(formatCurrency(balanceMicros));
+            tvLastUpdated.setText(getString(R.string.last_updated, balanceUpdatedAt));
+        }
+
+        // Update wallet address display
+        if (currentUser != null && currentUser.getWalletAddress() != null
+                && !currentUser.getWalletAddress().isEmpty()) {
+            tvWalletAddress.setText(currentUser.getFormattedWalletAddress());
+            tvWalletStatus.setText(R.string.wallet_connected);
+            tvWalletStatus.setTextColor(getColor(R.color.success_green));
+            tvWalletStatus.setBackgroundResource(R.drawable.bg_status_approved);
+        } else {
+            tvWalletAddress.setText(R.string.wallet_not_connected);
+            tvWalletStatus.setText(R.string.wallet_offline);
+            tvWalletStatus.setTextColor(getColor(R.color.error_red));
+            tvWalletStatus.setBackgroundResource(R.drawable.bg_status_rejected);
+        }
+
         // Refresh balance
-        findViewById(R.id.btn_refresh).setOnClickListener(v -> {
+        view.findViewById(R.id.btn_refresh).setOnClickListener(v -> {
             ivRefresh.animate().rotation(ivRefresh.getRotation() + 360).setDuration(500).start();
             viewModel.refresh();
         });
 
-        // Quick actions
-        findViewById(R.id.btn_send).setOnClickListener(
+        // Make wallet container clickable to open settings
+        view.findViewById(R.id.wallet_address_container).setOnClickListener(v -> {
+            startActivity(new Intent(this, SettingsActivity.class));
+        });
+    }
+
+    private void bindQuickActions(View view) {
+        view.findViewById(R.id.btn_send).setOnClickListener(
                 v -> Toast.makeText(this, "Fitur Kirim akan segera hadir", Toast.LENGTH_SHORT).show());
 
-        findViewById(R.id.btn_receive).setOnClickListener(
+        view.findViewById(R.id.btn_receive).setOnClickListener(
                 v -> Toast.makeText(this, "Fitur Terima akan segera hadir", Toast.LENGTH_SHORT).show());
 
-        findViewById(R.id.btn_scan).setOnClickListener(
+        view.findViewById(R.id.btn_scan).setOnClickListener(
                 v -> Toast.makeText(this, "Fitur Scan akan segera hadir", Toast.LENGTH_SHORT).show());
 
-        findViewById(R.id.btn_reimburse).setOnClickListener(v -> navigateToSubmitExpense());
+        view.findViewById(R.id.btn_reimburse).setOnClickListener(v -> navigateToSubmitExpense());
+    }
 
-        // Add expense button
-        findViewById(R.id.btn_add_expense).setOnClickListener(v -> navigateToSubmitExpense());
+    /**
+     * List position of the claims header, i.e. the number of sections shown above it
+     */
+    private int getClaimsPosition() {
+        return balanceSection.getItemCount() + quickActionsSection.getItemCount() + statsSection.getItemCount();
+    }
 
+    private void setupClickListeners() {
         // FAB
         fabAdd.setOnClickListener(v -> navigateToSubmitExpense());
 
@@ -166,7 +236,7 @@ public class DashboardActivity extends BaseActivity {
                 return true;
             } else if (itemId == R.id.nav_claims) {
                 // Scroll to expenses
-                rvExpenses.smoothScrollToPosition(0);
+                rvDashboard.smoothScrollToPosition(getClaimsPosition());
                 return true;
             } else if (itemId == R.id.nav_settings) {
                 startActivity(new Intent(this, SettingsActivity.class));
@@ -187,17 +257,25 @@ public class DashboardActivity extends BaseActivity {
         // Balance
         viewModel.getBalance().observe(this, balance -> {
             if (balance != null) {
-                tvBalance.setText(formatCurrency(balance));
-                tvLastUpdated.setText(getString(R.string.last_updated,
-                        new SimpleDateFormat("HH:mm", Locale.getDefault()).format(new Date())));
+                balanceMicros = balance;
+                balanceUpdatedAt = formatTime(System.currentTimeMillis());
+                balanceSection.refresh();
             }
         });
 
+        // Refresh outcome: freshness comes from when the sources actually answered
+        viewModel.getLastRefresh().observe(this, this::onRefreshSettled);
+
         // Expenses
         viewModel.getExpenses().observe(this, expenses -> {
             updateExpensesList(expenses);
         });
 
+        // On-chain payout confirmations
+        viewModel.getConfirmationStatuses().observe(this, statuses -> {
+            expenseAdapter.updateConfirmationStatuses(statuses);
+        });
+
         // Refreshing state
         viewModel.getIsRefreshing().observe(this, isRefreshing -> {
             swipeRefresh.setRefreshing(isRefreshing);
@@ -227,40 +305,58 @@ public class DashboardActivity extends BaseActivity {
         tvUserName.setText(user.getDisplayName() != null ? user.getDisplayName() : getString(R.string.user));
         tvUserEmail.setText(user.getEmail());
 
-        // Update wallet address display
-        if (user.getWalletAddress() != null && !user.getWalletAddress().isEmpty()) {
-            tvWalletAddress.setText(user.getFormattedWalletAddress());
-            tvWalletStatus.setText(R.string.wallet_connected);
-            tvWalletStatus.setTextColor(getColor(R.color.success_green));
-            tvWalletStatus.setBackgroundResource(R.drawable.bg_status_approved);
-        } else {
-            tvWalletAddress.setText(R.string.wallet_not_connected);
-            tvWalletStatus.setText(R.string.wallet_offline);
-            tvWalletStatus.setTextColor(getColor(R.color.error_red));
-            tvWalletStatus.setBackgroundResource(R.drawable.bg_status_rejected);
+        // Wallet address lives on the balance card
+        currentUser = user;
+        balanceSection.refresh();
+    }
+
+    private void updateExpensesList(List<ExpenseRequest> expenses) {
+        emptyClaimsSection.setVisible(expenses == null || expenses.isEmpty());
+
+        // Formatting happens off the main thread, in order, so an empty list cannot overtake a
+        // mapping still in flight; the adapter only assigns fields
+        ExpenseRowMapper.getInstance().map(this, expenses, expenseAdapter::submitList);
+    }
+
+    private void onRefreshSettled(RefreshReport report) {
+        if (report == null)
+            return;
+
+        if (report.isSuccess(DashboardViewModel.SOURCE_PROFILE)) {
+            balanceUpdatedAt = formatTime(report.getCompletedAt());
+            balanceSection.refresh();
         }
 
-        // Make wallet container clickable to open settings
-        walletAddressContainer.setOnClickListener(v -> {
-            startActivity(new Intent(this, SettingsActivity.class));
-        });
+        List<RefreshReport.Source> failures = report.getFailures();
+        if (!failures.isEmpty()) {
+            StringBuilder names = new StringBuilder();
+            for (RefreshReport.Source failure : failures) {
+                if (names.length() > 0) {
+                    names.append(", ");
+                }
+                names.append(getSourceLabel(failure.getName()));
+            }
+            Toast.makeText(this, getString(R.string.refresh_incomplete, names), Toast.LENGTH_SHORT).show();
+        }
     }
 
-    private void updateExpensesList(List<ExpenseRequest> expenses) {
-        if (expenses == null || expenses.isEmpty()) {
-            rvExpenses.setVisibility(View.GONE);
-            emptyState.setVisibility(View.VISIBLE);
-            expenseAdapter.updateData(new ArrayList<>());
-        } else {
-            rvExpenses.setVisibility(View.VISIBLE);
-            emptyState.setVisibility(View.GONE);
-            expenseAdapter.updateData(expenses);
+    private String getSourceLabel(String source) {
+        switch (source) {
+            case DashboardViewModel.SOURCE_PROFILE:
+                return getString(R.string.refresh_source_profile);
+            case DashboardViewModel.SOURCE_CHAIN:
+                return getString(R.string.refresh_source_chain);
+            default:
+                return source;
         }
     }
 
-    private String formatCurrency(double amount) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.US);
-        return formatter.format(amount).replace("$", "$");
+    private String formatTime(long millis) {
+        return new SimpleDateFormat("HH:mm", Locale.getDefault()).format(new Date(millis));
+    }
+
+    private String formatCurrency(long micros) {
+        return TokenAmount.formatUsd(micros);
     }
 
     private void navigateToSubmitExpense() {
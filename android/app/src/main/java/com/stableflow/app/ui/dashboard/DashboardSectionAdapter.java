@@ -0,0 +1,99 @@
+package com.stableflow.app.ui.dashboard;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.RecyclerView;
+
+/**
+ * DashboardSectionAdapter
+ * A single fixed dashboard section (balance card, quick actions, stats, claims header) as one
+ * item of the dashboard's ConcatAdapter. The layout id doubles as view type and stable id, so
+ * sections never share holders and keep their identity across updates. The wallet screen uses
+ * it the same way for its details card and history placeholders.
+ */
+public class DashboardSectionAdapter extends RecyclerView.Adapter<DashboardSectionAdapter.SectionViewHolder> {
+
+    /**
+     * Fills a section's views from the current state; called on every (re)bind
+     */
+    public interface Binder {
+        void bind(View view);
+    }
+
+    private final int layoutRes;
+    private final Binder binder;
+    private boolean visible;
+
+    public DashboardSectionAdapter(int layoutRes, Binder binder) {
+        this(layoutRes, binder, true);
+    }
+
+    public DashboardSectionAdapter(int layoutRes, Binder binder, boolean visible) {
+        this.layoutRes = layoutRes;
+        this.binder = binder;
+        this.visible = visible;
+        setHasStableIds(true);
+    }
+
+    /**
+     * Show or hide the section; hidden sections contribute no item
+     */
+    public void setVisible(boolean visible) {
+        if (this.visible == visible)
+            return;
+        this.visible = visible;
+        if (visible) {
+            notifyItemInserted(0);
+        } else {
+            notifyItemRemoved(0);
+        }
+    }
+
+    /**
+     * Rebind the section after the state its binder reads has changed
+     */
+    public void refresh() {
+        if (visible) {
+            notifyItemChanged(0);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return visible ? 1 : 0;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return layoutRes;
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return layoutRes;
+    }
+
+    @NonNull
+    @Override
+    public SectionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext()).inflate(layoutRes, parent, false);
+        return new SectionViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull SectionViewHolder holder, int position) {
+        if (binder != null) {
+            binder.bind(holder.itemView);
+        }
+    }
+
+    static class SectionViewHolder extends RecyclerView.ViewHolder {
+
+        SectionViewHolder(@NonNull View itemView) {
+            super(itemView);
+        }
+    }
+}
@@ -1,15 +1,30 @@
 package com.stableflow.app.ui.dashboard;
 
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
+import androidx.lifecycle.Observer;
 import androidx.lifecycle.ViewModel;
 
 import com.google.firebase.auth.FirebaseUser;
 import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.model.ExpenseTotals;
 import com.stableflow.app.data.model.User;
+import com.stableflow.app.data.repository.ExpenseStatsPublisher;
 import com.stableflow.app.data.repository.FirebaseRepository;
+import com.stableflow.app.data.solana.SolanaClient;
+import com.stableflow.app.data.solana.SolanaManager;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * DashboardViewModel
@@ -17,19 +32,40 @@ import java.util.List;
  */
 public class DashboardViewModel extends ViewModel {
 
+    private static final String TAG = "DashboardViewModel";
+
+    // Sources a refresh fetches in parallel
+    public static final String SOURCE_PROFILE = "profile";
+    public static final String SOURCE_CHAIN = "chain";
+
+    // A source that has not answered by then counts as failed, so the spinner always stops
+    private static final long SOURCE_TIMEOUT_MS = 15_000;
+
     private final FirebaseRepository repository;
+    private final SolanaManager solanaManager;
+    private final ExpenseStatsPublisher stats;
 
     private final MutableLiveData<Boolean> isRefreshing = new MutableLiveData<>(false);
     private final MutableLiveData<String> toastMessage = new MutableLiveData<>();
+    private final MutableLiveData<RefreshReport> lastRefresh = new MutableLiveData<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
 
-    // Stats
+    // Stats, from the shared publisher
     private final MutableLiveData<Integer> pendingCount = new MutableLiveData<>(0);
     private final MutableLiveData<Integer> approvedCount = new MutableLiveData<>(0);
     private final MutableLiveData<Integer> paidCount = new MutableLiveData<>(0);
-    private final MutableLiveData<Double> totalReceived = new MutableLiveData<>(0.0);
+    private final MutableLiveData<Long> totalReceived = new MutableLiveData<>(0L);
+
+    // Keep payout confirmations and reconciliation in sync with the claims list
+    private final Observer<List<ExpenseRequest>> expensesObserver = this::onExpensesChanged;
+    private final Observer<ExpenseTotals> totalsObserver = this::onTotalsChanged;
 
     public DashboardViewModel() {
         repository = FirebaseRepository.getInstance();
+        solanaManager = SolanaManager.getInstance();
+        stats = ExpenseStatsPublisher.getInstance();
+        repository.getExpensesLiveData().observeForever(expensesObserver);
+        stats.getTotals().observeForever(totalsObserver);
         loadInitialData();
     }
 
@@ -41,7 +77,7 @@ public class DashboardViewModel extends ViewModel {
         return repository.getCurrentUserLiveData();
     }
 
-    public LiveData<Double> getBalance() {
+    public LiveData<Long> getBalance() {
         return repository.getBalanceLiveData();
     }
 
@@ -57,6 +93,13 @@ public class DashboardViewModel extends ViewModel {
         return toastMessage;
     }
 
+    /**
+     * Report of the last refresh, posted once all its sources have settled
+     */
+    public LiveData<RefreshReport> getLastRefresh() {
+        return lastRefresh;
+    }
+
     public LiveData<Integer> getPendingCount() {
         return pendingCount;
     }
@@ -69,10 +112,14 @@ public class DashboardViewModel extends ViewModel {
         return paidCount;
     }
 
-    public LiveData<Double> getTotalReceived() {
+    public LiveData<Long> getTotalReceived() {
         return totalReceived;
     }
 
+    public LiveData<Map<String, SolanaClient.ConfirmationStatus>> getConfirmationStatuses() {
+        return solanaManager.getConfirmationStatuses();
+    }
+
     // ==================
     // Actions
     // ==================
@@ -82,31 +129,104 @@ public class DashboardViewModel extends ViewModel {
         if (authUser != null) {
             repository.loadUserData(authUser.getUid());
             repository.loadUserExpenses(authUser.getUid());
-            loadStats(authUser.getUid());
         }
     }
 
+    /**
+     * Refetch the profile and on-chain balances in parallel. Claims and their stats stay live
+     * through the expenses listener, so they need no fetch. The spinner stays up until
+     * every source has succeeded, failed, timed out or been cancelled, and a report with
+     * per-source latency is posted to getLastRefresh(). A refresh already running is not
+     * restarted; a balance fetch superseded elsewhere is reported as cancelled, not failed.
+     */
     public void refresh() {
-        isRefreshing.setValue(true);
+        if (Boolean.TRUE.equals(isRefreshing.getValue()))
+            return;
 
         FirebaseUser authUser = repository.getCurrentAuthUser();
-        if (authUser != null) {
-            repository.loadUserData(authUser.getUid());
-            loadStats(authUser.getUid());
+        if (authUser == null) {
+            isRefreshing.setValue(false);
+            return;
+        }
+        isRefreshing.setValue(true);
+
+        long startedAt = SystemClock.elapsedRealtime();
+        List<CompletableFuture<RefreshReport.Source>> sources = new ArrayList<>();
+        sources.add(settle(SOURCE_PROFILE, startedAt, refreshProfile(authUser.getUid())));
+        if (solanaManager.isWalletConnected()) {
+            sources.add(settle(SOURCE_CHAIN, startedAt, solanaManager.refreshBalances()));
         }
 
-        // Simulate refresh delay
-        new android.os.Handler(android.os.Looper.getMainLooper())
-                .postDelayed(() -> isRefreshing.setValue(false), 1000);
+        // Sources never fail, they settle with their outcome, so this waits for all of them
+        CompletableFuture.allOf(sources.toArray(new CompletableFuture[0])).thenRun(() -> {
+            List<RefreshReport.Source> settled = new ArrayList<>(sources.size());
+            for (CompletableFuture<RefreshReport.Source> source : sources) {
+                settled.add(source.join());
+            }
+            RefreshReport report = new RefreshReport(settled, SystemClock.elapsedRealtime() - startedAt,
+                    System.currentTimeMillis());
+            Log.d(TAG, report.toString());
+            lastRefresh.postValue(report);
+            isRefreshing.postValue(false);
+        });
     }
 
-    private void loadStats(String userId) {
-        repository.getUserExpenseStats(userId, (pending, approved, paid, rejected, totalAmount) -> {
-            pendingCount.postValue(pending);
-            approvedCount.postValue(approved);
-            paidCount.postValue(paid);
-            totalReceived.postValue(totalAmount);
+    /**
+     * Time a fetch and turn its outcome, or a timeout, into a source that always completes
+     */
+    private CompletableFuture<RefreshReport.Source> settle(String name, long startedAt, CompletableFuture<?> fetch) {
+        CompletableFuture<RefreshReport.Source> settled = new CompletableFuture<>();
+        Runnable timeout = () -> settled.complete(new RefreshReport.Source(name,
+                SystemClock.elapsedRealtime() - startedAt, "timed out"));
+        mainHandler.postDelayed(timeout, SOURCE_TIMEOUT_MS);
+
+        fetch.whenComplete((result, error) -> {
+            mainHandler.removeCallbacks(timeout);
+            long latencyMs = SystemClock.elapsedRealtime() - startedAt;
+            if (causeOf(error) instanceof CancellationException) {
+                settled.complete(RefreshReport.Source.cancelled(name, latencyMs));
+            } else {
+                settled.complete(new RefreshReport.Source(name, latencyMs, error != null ? messageOf(error) : null));
+            }
         });
+        return settled;
+    }
+
+    private static String messageOf(Throwable error) {
+        Throwable cause = causeOf(error);
+        return cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+    }
+
+    private static Throwable causeOf(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+
+    private CompletableFuture<Void> refreshProfile(String userId) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        repository.refreshUserData(userId, new FirebaseRepository.OperationCallback() {
+            @Override
+            public void onSuccess() {
+                done.complete(null);
+            }
+
+            @Override
+            public void onError(String error) {
+                done.completeExceptionally(new Exception(error));
+            }
+        });
+        return done;
+    }
+
+    private void onTotalsChanged(ExpenseTotals totals) {
+        pendingCount.setValue(totals.getPendingCount());
+        approvedCount.setValue(totals.getCount("APPROVED"));
+        paidCount.setValue(totals.getCount("PAID"));
+        totalReceived.setValue(totals.getAmount("PAID"));
+    }
+
+    private void onExpensesChanged(List<ExpenseRequest> expenses) {
+        solanaManager.trackConfirmations(expenses);
+        solanaManager.reconcileClaims(expenses);
     }
 
     public void updateWalletAddress(String walletAddress) {
@@ -138,10 +258,20 @@ public class DashboardViewModel extends ViewModel {
     }
 
     public void logout() {
+        SolanaManager.getInstance().clearSession();
         repository.logout();
     }
 
     public void clearToast() {
         toastMessage.setValue(null);
     }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        mainHandler.removeCallbacksAndMessages(null);
+        repository.getExpensesLiveData().removeObserver(expensesObserver);
+        stats.getTotals().removeObserver(totalsObserver);
+        solanaManager.stopTrackingConfirmations();
+    }
 }
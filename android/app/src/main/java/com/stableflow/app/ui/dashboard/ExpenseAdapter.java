@@ -1,6 +1,5 @@
 package com.stableflow.app.ui.dashboard;
 
-import android.content.res.ColorStateList;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
@@ -10,57 +9,121 @@ import android.widget.TextView;
 
 import androidx.annotation.NonNull;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.AsyncDifferConfig;
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListAdapter;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.stableflow.app.R;
 import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.solana.SolanaClient;
 
-import java.text.NumberFormat;
-import java.text.SimpleDateFormat;
-import java.util.Date;
+import java.util.ArrayDeque;
+import java.util.Collections;
 import java.util.List;
-import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 
 /**
  * ExpenseAdapter
- * RecyclerView adapter for expense list items
+ * RecyclerView adapter for expense list items. Rows arrive pre-formatted from ExpenseRowMapper
+ * and are diffed on a background thread, so an update rebinds only the rows that changed.
  */
-public class ExpenseAdapter extends RecyclerView.Adapter<ExpenseAdapter.ExpenseViewHolder> {
+public class ExpenseAdapter extends ListAdapter<ExpenseRow, ExpenseAdapter.ExpenseViewHolder> {
+
+    // The layout id, so the type is unique in a shared pool and across concatenated adapters
+    public static final int VIEW_TYPE = R.layout.item_expense;
+
+    // Rebind only the transaction link when a payout confirmation moves on
+    private static final Object PAYLOAD_CONFIRMATION = new Object();
+
+    /**
+     * Rows are the same item when their claim ids match, and unchanged when they would
+     * display the same. Mapped rows are reused for unchanged claims, so this is usually identity.
+     */
+    private static final DiffUtil.ItemCallback<ExpenseRow> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<ExpenseRow>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull ExpenseRow oldItem, @NonNull ExpenseRow newItem) {
+                    return Objects.equals(oldItem.getId(), newItem.getId());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull ExpenseRow oldItem, @NonNull ExpenseRow newItem) {
+                    return oldItem.equals(newItem);
+                }
+            };
 
-    private List<ExpenseRequest> expenses;
+    private Map<String, SolanaClient.ConfirmationStatus> confirmationStatuses = Collections.emptyMap();
     private final OnExpenseClickListener listener;
 
+    // Row views inflated ahead of time, used before inflating on the spot
+    private final ArrayDeque<View> prewarmedViews = new ArrayDeque<>();
+
     public interface OnExpenseClickListener {
         void onExpenseClick(ExpenseRequest expense);
     }
 
-    public ExpenseAdapter(List<ExpenseRequest> expenses, OnExpenseClickListener listener) {
-        this.expenses = expenses;
+    public ExpenseAdapter(OnExpenseClickListener listener) {
+        // The default config diffs on a shared background executor and posts results to the main thread
+        super(new AsyncDifferConfig.Builder<>(DIFF_CALLBACK).build());
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    public void updateConfirmationStatuses(Map<String, SolanaClient.ConfirmationStatus> statuses) {
+        Map<String, SolanaClient.ConfirmationStatus> previous = confirmationStatuses;
+        confirmationStatuses = statuses != null ? statuses : Collections.emptyMap();
+
+        List<ExpenseRow> rows = getCurrentList();
+        for (int i = 0; i < rows.size(); i++) {
+            String signature = rows.get(i).getTxSignature();
+            if (signature != null && previous.get(signature) != confirmationStatuses.get(signature)) {
+                notifyItemChanged(i, PAYLOAD_CONFIRMATION);
+            }
+        }
+    }
+
+    /**
+     * Hand over a row view inflated ahead of time; the next holder created wraps it
+     */
+    public void addPrewarmedView(View view) {
+        prewarmedViews.add(view);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItem(position).getStableId();
     }
 
-    public void updateData(List<ExpenseRequest> newExpenses) {
-        this.expenses = newExpenses;
-        notifyDataSetChanged();
+    @Override
+    public int getItemViewType(int position) {
+        return VIEW_TYPE;
     }
 
     @NonNull
     @Override
     public ExpenseViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
-        View view = LayoutInflater.from(parent.getContext())
-                .inflate(R.layout.item_expense, parent, false);
+        View view = prewarmedViews.poll();
+        if (view == null) {
+            view = LayoutInflater.from(parent.getContext())
+                    .inflate(R.layout.item_expense, parent, false);
+        }
         return new ExpenseViewHolder(view);
     }
 
     @Override
     public void onBindViewHolder(@NonNull ExpenseViewHolder holder, int position) {
-        ExpenseRequest expense = expenses.get(position);
-        holder.bind(expense);
+        holder.bind(getItem(position));
     }
 
     @Override
-    public int getItemCount() {
-        return expenses != null ? expenses.size() : 0;
+    public void onBindViewHolder(@NonNull ExpenseViewHolder holder, int position, @NonNull List<Object> payloads) {
+        if (!payloads.isEmpty() && payloads.stream().allMatch(payload -> payload == PAYLOAD_CONFIRMATION)) {
+            holder.bindConfirmation(getItem(position));
+        } else {
+            super.onBindViewHolder(holder, position, payloads);
+        }
     }
 
     class ExpenseViewHolder extends RecyclerView.ViewHolder {
@@ -82,27 +145,27 @@ public class ExpenseAdapter extends RecyclerView.Adapter<ExpenseAdapter.ExpenseV
             ivCategoryIcon = itemView.findViewById(R.id.iv_category_icon);
         }
 
-        void bind(ExpenseRequest expense) {
-            tvTitle.setText(expense.getTitle());
-            tvDescription.setText(expense.getDescription());
-            tvCategory.setText(getCategoryString(itemView.getContext(), expense.getCategory()));
-            tvAmount.setText(formatCurrency(expense.getAmount()));
-
-            String formattedDate = formatDate(expense.getSubmittedAt());
-            tvDate.setText(itemView.getContext().getString(R.string.submitted_at, formattedDate));
+        void bind(ExpenseRow row) {
+            tvTitle.setText(row.getTitle());
+            tvDescription.setText(row.getDescription());
+            tvCategory.setText(row.getCategoryText());
+            tvAmount.setText(row.getAmountText());
+            tvDate.setText(row.getSubmittedText());
 
             // Status styling
-            tvStatus.setText(getStatusString(itemView.getContext(), expense.getStatus()));
-            applyStatusStyle(expense.getStatus());
+            tvStatus.setText(row.getStatusText());
+            tvStatus.setBackgroundResource(row.getStatusBackgroundRes());
+            tvStatus.setTextColor(row.getStatusTextColor());
 
             // Transaction link
-            if (expense.isPaid() && expense.getTxExplorerUrl() != null) {
+            if (row.isShowTxLink()) {
                 txLinkContainer.setVisibility(View.VISIBLE);
+                bindConfirmation(row);
                 txLinkContainer.setOnClickListener(v -> {
                     // Open explorer URL
                     android.content.Intent intent = new android.content.Intent(
                             android.content.Intent.ACTION_VIEW,
-                            android.net.Uri.parse(expense.getTxExplorerUrl()));
+                            android.net.Uri.parse(row.getTxExplorerUrl()));
                     itemView.getContext().startActivity(intent);
                 });
             } else {
@@ -112,123 +175,55 @@ public class ExpenseAdapter extends RecyclerView.Adapter<ExpenseAdapter.ExpenseV
             // Click listener
             itemView.setOnClickListener(v -> {
                 if (listener != null) {
-                    listener.onExpenseClick(expense);
+                    listener.onExpenseClick(row.getExpense());
                 }
             });
         }
 
-        private void applyStatusStyle(String status) {
-            int bgResId;
-            int textColor;
-
-            switch (status) {
-                case "APPROVED":
-                    bgResId = R.drawable.bg_status_approved;
-                    textColor = R.color.success_green;
-                    break;
-                case "PAID":
-                    bgResId = R.drawable.bg_status_paid;
-                    textColor = R.color.success_green;
-                    break;
-                case "REJECTED":
-                case "CANCELLED":
-                    bgResId = R.drawable.bg_status_rejected;
-                    textColor = R.color.error_red;
-                    break;
-                case "PENDING":
-                case "UNDER_REVIEW":
-                default:
-                    bgResId = R.drawable.bg_status_pending;
-                    textColor = R.color.warning_yellow;
-                    break;
+        void bindConfirmation(ExpenseRow row) {
+            if (!row.isShowTxLink())
+                return;
+            if (row.getReconciliationFlagRes() != 0) {
+                tvTxLink.setText(row.getReconciliationFlagRes());
+                tvTxLink.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.error_red));
+            } else {
+                applyConfirmationStatus(confirmationStatuses.get(row.getTxSignature()));
             }
-
-            tvStatus.setBackgroundResource(bgResId);
-            tvStatus.setTextColor(ContextCompat.getColor(itemView.getContext(), textColor));
-        }
-
-        private String formatCurrency(double amount) {
-            NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.US);
-            return formatter.format(amount);
         }
 
-        private String formatDate(String dateString) {
-            try {
-                // Parse ISO date
-                SimpleDateFormat isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
-                Date date = isoFormat.parse(dateString.substring(0, Math.min(19, dateString.length())));
-                SimpleDateFormat displayFormat = new SimpleDateFormat("dd MMM yyyy", Locale.getDefault());
-                return displayFormat.format(date);
-            } catch (Exception e) {
-                return dateString;
-            }
-        }
+        private void applyConfirmationStatus(SolanaClient.ConfirmationStatus status) {
+            int textResId;
+            int textColor = R.color.success_green;
 
-        private String getCategoryString(android.content.Context context, String category) {
-            if (category == null)
-                return "";
-            int resId;
-            switch (category) {
-                case "TRAVEL":
-                    resId = R.string.category_travel;
-                    break;
-                case "MEALS":
-                    resId = R.string.category_meals;
-                    break;
-                case "SUPPLIES":
-                    resId = R.string.category_supplies;
-                    break;
-                case "EQUIPMENT":
-                    resId = R.string.category_equipment;
-                    break;
-                case "SOFTWARE":
-                    resId = R.string.category_software;
-                    break;
-                case "TRAINING":
-                    resId = R.string.category_training;
-                    break;
-                case "ENTERTAINMENT":
-                    resId = R.string.category_entertainment;
-                    break;
-                case "UTILITIES":
-                    resId = R.string.category_utilities;
-                    break;
-                case "OTHER":
-                    resId = R.string.category_other;
-                    break;
-                default:
-                    return category;
+            if (status == null) {
+                textResId = R.string.see_on_explorer;
+            } else {
+                switch (status) {
+                    case FINALIZED:
+                        textResId = R.string.tx_status_finalized;
+                        break;
+                    case CONFIRMED:
+                        textResId = R.string.tx_status_confirmed;
+                        break;
+                    case FAILED:
+                        textResId = R.string.tx_status_failed;
+                        textColor = R.color.error_red;
+                        break;
+                    case DROPPED:
+                        textResId = R.string.tx_status_dropped;
+                        textColor = R.color.error_red;
+                        break;
+                    case PROCESSED:
+                    case NOT_FOUND:
+                    default:
+                        textResId = R.string.tx_status_processing;
+                        textColor = R.color.warning_yellow;
+                        break;
+                }
             }
-            return context.getString(resId);
-        }
 
-        private String getStatusString(android.content.Context context, String status) {
-            if (status == null)
-                return "";
-            int resId;
-            switch (status) {
-                case "PENDING":
-                    resId = R.string.status_pending;
-                    break;
-                case "UNDER_REVIEW":
-                    resId = R.string.status_under_review;
-                    break;
-                case "APPROVED":
-                    resId = R.string.status_approved;
-                    break;
-                case "REJECTED":
-                    resId = R.string.status_rejected;
-                    break;
-                case "PAID":
-                    resId = R.string.status_paid;
-                    break;
-                case "CANCELLED":
-                    resId = R.string.status_cancelled;
-                    break;
-                default:
-                    return status;
-            }
-            return context.getString(resId);
+            tvTxLink.setText(textResId);
+            tvTxLink.setTextColor(ContextCompat.getColor(itemView.getContext(), textColor));
         }
     }
 }
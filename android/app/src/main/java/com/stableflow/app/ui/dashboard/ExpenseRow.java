@@ -0,0 +1,146 @@
+package com.stableflow.app.ui.dashboard;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+
+import java.util.Objects;
+
+/**
+ * ExpenseRow
+ * Display model for one claim row: every string formatted and every resource resolved
+ * ahead of time by ExpenseRowMapper, so binding only assigns fields
+ */
+public final class ExpenseRow {
+
+    // Source claim, handed back on click
+    private final ExpenseRequest expense;
+    private final long stableId;
+
+    private final String title;
+    private final String description;
+    private final String categoryText;
+    private final String amountText;
+    private final String submittedText;
+    private final String statusText;
+    private final int statusBackgroundRes;
+    // Resolved color value, not a resource id
+    private final int statusTextColor;
+
+    // Transaction link, shown for paid claims with an explorer URL
+    private final boolean showTxLink;
+    private final String txSignature;
+    private final String txExplorerUrl;
+    private final int reconciliationFlagRes;
+
+    ExpenseRow(ExpenseRequest expense, long stableId, String title, String description, String categoryText,
+            String amountText, String submittedText, String statusText, int statusBackgroundRes,
+            int statusTextColor, boolean showTxLink, String txSignature, String txExplorerUrl,
+            int reconciliationFlagRes) {
+        this.expense = expense;
+        this.stableId = stableId;
+        this.title = title;
+        this.description = description;
+        this.categoryText = categoryText;
+        this.amountText = amountText;
+        this.submittedText = submittedText;
+        this.statusText = statusText;
+        this.statusBackgroundRes = statusBackgroundRes;
+        this.statusTextColor = statusTextColor;
+        this.showTxLink = showTxLink;
+        this.txSignature = txSignature;
+        this.txExplorerUrl = txExplorerUrl;
+        this.reconciliationFlagRes = reconciliationFlagRes;
+    }
+
+    public ExpenseRequest getExpense() {
+        return expense;
+    }
+
+    public String getId() {
+        return expense.getId();
+    }
+
+    public long getStableId() {
+        return stableId;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public String getCategoryText() {
+        return categoryText;
+    }
+
+    public String getAmountText() {
+        return amountText;
+    }
+
+    public String getSubmittedText() {
+        return submittedText;
+    }
+
+    public String getStatusText() {
+        return statusText;
+    }
+
+    public int getStatusBackgroundRes() {
+        return statusBackgroundRes;
+    }
+
+    public int getStatusTextColor() {
+        return statusTextColor;
+    }
+
+    public boolean isShowTxLink() {
+        return showTxLink;
+    }
+
+    public String getTxSignature() {
+        return txSignature;
+    }
+
+    public String getTxExplorerUrl() {
+        return txExplorerUrl;
+    }
+
+    /**
+     * Payout problem to show instead of the confirmation status, or 0 if none
+     */
+    public int getReconciliationFlagRes() {
+        return reconciliationFlagRes;
+    }
+
+    /**
+     * Equal rows look the same on screen; the source claim is not compared
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof ExpenseRow))
+            return false;
+        ExpenseRow other = (ExpenseRow) o;
+        return stableId == other.stableId
+                && statusBackgroundRes == other.statusBackgroundRes
+                && statusTextColor == other.statusTextColor
+                && showTxLink == other.showTxLink
+                && reconciliationFlagRes == other.reconciliationFlagRes
+                && Objects.equals(title, other.title)
+                && Objects.equals(description, other.description)
+                && Objects.equals(categoryText, other.categoryText)
+                && Objects.equals(amountText, other.amountText)
+                && Objects.equals(submittedText, other.submittedText)
+                && Objects.equals(statusText, other.statusText)
+                && Objects.equals(txSignature, other.txSignature)
+                && Objects.equals(txExplorerUrl, other.txExplorerUrl);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(stableId);
+    }
+}
@@ -0,0 +1,299 @@
+package com.stableflow.app.ui.dashboard;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.core.content.ContextCompat;
+
+import com.stableflow.app.R;
+import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.util.LocaleHelper;
+import com.stableflow.app.util.StableIds;
+import com.stableflow.app.util.TokenAmount;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * ExpenseRowMapper
+ * Turns claims into ExpenseRow display models on a background thread. Rows are cached per
+ * claim and reused while the claim's shown fields are unchanged; the cache and the date
+ * formatters belong to one locale and are dropped when the language changes.
+ */
+public class ExpenseRowMapper implements LocaleHelper.OnLanguageChangedListener {
+
+    private static ExpenseRowMapper instance;
+
+    public interface Callback {
+        void onRowsMapped(List<ExpenseRow> rows);
+    }
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "expense-rows");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Confined to the executor thread
+    private Map<String, CachedRow> cache = new HashMap<>();
+    private Locale cacheLocale;
+    private SimpleDateFormat isoFormat;
+    private SimpleDateFormat displayFormat;
+
+    private ExpenseRowMapper() {
+        LocaleHelper.addOnLanguageChangedListener(this);
+    }
+
+    public static synchronized ExpenseRowMapper getInstance() {
+        if (instance == null) {
+            instance = new ExpenseRowMapper();
+        }
+        return instance;
+    }
+
+    /**
+     * Map claims off the main thread and deliver the rows on it. Use the activity as context
+     * so strings come from its localized resources.
+     */
+    public void map(Context context, List<ExpenseRequest> expenses, Callback callback) {
+        List<ExpenseRequest> snapshot = expenses != null ? new ArrayList<>(expenses) : Collections.emptyList();
+        executor.execute(() -> {
+            List<ExpenseRow> rows = mapAll(context, snapshot);
+            mainHandler.post(() -> callback.onRowsMapped(rows));
+        });
+    }
+
+    @Override
+    public void onLanguageChanged(String language) {
+        executor.execute(() -> {
+            cache = new HashMap<>();
+            cacheLocale = null;
+        });
+    }
+
+    // ==================
+    // MAPPING
+    // ==================
+
+    private List<ExpenseRow> mapAll(Context context, List<ExpenseRequest> expenses) {
+        Locale locale = Locale.getDefault();
+        if (!locale.equals(cacheLocale)) {
+            cache = new HashMap<>();
+            cacheLocale = locale;
+            isoFormat = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss", Locale.US);
+            displayFormat = new SimpleDateFormat("dd MMM yyyy", locale);
+        }
+
+        // Claims no longer listed fall out of the cache
+        Map<String, CachedRow> next = new HashMap<>(expenses.size() * 2);
+        List<ExpenseRow> rows = new ArrayList<>(expenses.size());
+        for (ExpenseRequest expense : expenses) {
+            CachedRow cached = expense.getId() != null ? cache.get(expense.getId()) : null;
+            if (cached == null || !cached.matches(expense)) {
+                cached = new CachedRow(expense, toRow(context, expense));
+            }
+            if (expense.getId() != null) {
+                next.put(expense.getId(), cached);
+            }
+            rows.add(cached.row);
+        }
+        cache = next;
+        return rows;
+    }
+
+    private ExpenseRow toRow(Context context, ExpenseRequest expense) {
+        String status = expense.getStatus();
+        boolean showTxLink = expense.isPaid() && expense.getTxExplorerUrl() != null;
+
+        int reconciliationFlagRes = 0;
+        if (expense.hasPayoutMismatch()) {
+            reconciliationFlagRes = R.string.payout_amount_mismatch;
+        } else if (expense.hasUnmatchedPayout()) {
+            reconciliationFlagRes = R.string.payout_not_found;
+        } else if (expense.hasUnconfirmedPayout()) {
+            reconciliationFlagRes = R.string.payout_amount_only;
+        }
+
+        return new ExpenseRow(expense,
+                StableIds.of(expense.getId()),
+                expense.getTitle(),
+                expense.getDescription(),
+                getCategoryString(context, expense.getCategory()),
+                TokenAmount.formatUsd(expense.getAmountMicros()),
+                context.getString(R.string.submitted_at, formatDate(expense.getSubmittedAt())),
+                getStatusString(context, status),
+                getStatusBackground(status),
+                ContextCompat.getColor(context, getStatusColor(status)),
+                showTxLink,
+                expense.getTxSignature(),
+                expense.getTxExplorerUrl(),
+                reconciliationFlagRes);
+    }
+
+    private String formatDate(String dateString) {
+        if (dateString == null)
+            return "";
+        try {
+            // Parse ISO date
+            Date date = isoFormat.parse(dateString.substring(0, Math.min(19, dateString.length())));
+            return displayFormat.format(date);
+        } catch (Exception e) {
+            return dateString;
+        }
+    }
+
+    private static int getStatusBackground(String status) {
+        if (status == null)
+            return R.drawable.bg_status_pending;
+        switch (status) {
+            case "APPROVED":
+                return R.drawable.bg_status_approved;
+            case "PAID":
+                return R.drawable.bg_status_paid;
+            case "REJECTED":
+            case "CANCELLED":
+                return R.drawable.bg_status_rejected;
+            case "PENDING":
+            case "UNDER_REVIEW":
+            default:
+                return R.drawable.bg_status_pending;
+        }
+    }
+
+    private static int getStatusColor(String status) {
+        if (status == null)
+            return R.color.warning_yellow;
+        switch (status) {
+            case "APPROVED":
+            case "PAID":
+                return R.color.success_green;
+            case "REJECTED":
+            case "CANCELLED":
+                return R.color.error_red;
+            case "PENDING":
+            case "UNDER_REVIEW":
+            default:
+                return R.color.warning_yellow;
+        }
+    }
+
+    private static String getCategoryString(Context context, String category) {
+        if (category == null)
+            return "";
+        int resId;
+        switch (category) {
+            case "TRAVEL":
+                resId = R.string.category_travel;
+                break;
+            case "MEALS":
+                resId = R.string.category_meals;
+                break;
+            case "SUPPLIES":
+                resId = R.string.category_supplies;
+                break;
+            case "EQUIPMENT":
+                resId = R.string.category_equipment;
+                break;
+            case "SOFTWARE":
+                resId = R.string.category_software;
+                break;
+            case "TRAINING":
+                resId = R.string.category_training;
+                break;
+            case "ENTERTAINMENT":
+                resId = R.string.category_entertainment;
+                break;
+            case "UTILITIES":
+                resId = R.string.category_utilities;
+                break;
+            case "OTHER":
+                resId = R.string.category_other;
+                break;
+            default:
+                return category;
+        }
+        return context.getString(resId);
+    }
+
+    private static String getStatusString(Context context, String status) {
+        if (status == null)
+            return "";
+        int resId;
+        switch (status) {
+            case "PENDING":
+                resId = R.string.status_pending;
+                break;
+            case "UNDER_REVIEW":
+                resId = R.string.status_under_review;
+                break;
+            case "APPROVED":
+                resId = R.string.status_approved;
+                break;
+            case "REJECTED":
+                resId = R.string.status_rejected;
+                break;
+            case "PAID":
+                resId = R.string.status_paid;
+                break;
+            case "CANCELLED":
+                resId = R.string.status_cancelled;
+                break;
+            default:
+                return status;
+        }
+        return context.getString(resId);
+    }
+
+    /**
+     * A mapped row with the claim fields it was built from, to tell whether it is still current
+     */
+    private static final class CachedRow {
+
+        final ExpenseRow row;
+        final String title;
+        final String description;
+        final String category;
+        final long amountMicros;
+        final String submittedAt;
+        final String status;
+        final String txSignature;
+        final String txExplorerUrl;
+        final String reconciliationStatus;
+
+        CachedRow(ExpenseRequest expense, ExpenseRow row) {
+            this.row = row;
+            this.title = expense.getTitle();
+            this.description = expense.getDescription();
+            this.category = expense.getCategory();
+            this.amountMicros = expense.getAmountMicros();
+            this.submittedAt = expense.getSubmittedAt();
+            this.status = expense.getStatus();
+            this.txSignature = expense.getTxSignature();
+            this.txExplorerUrl = expense.getTxExplorerUrl();
+            this.reconciliationStatus = expense.getReconciliationStatus();
+        }
+
+        boolean matches(ExpenseRequest expense) {
+            return amountMicros == expense.getAmountMicros()
+                    && Objects.equals(title, expense.getTitle())
+                    && Objects.equals(description, expense.getDescription())
+                    && Objects.equals(category, expense.getCategory())
+                    && Objects.equals(submittedAt, expense.getSubmittedAt())
+                    && Objects.equals(status, expense.getStatus())
+                    && Objects.equals(txSignature, expense.getTxSignature())
+                    && Objects.equals(txExplorerUrl, expense.getTxExplorerUrl())
+                    && Objects.equals(reconciliationStatus, expense.getReconciliationStatus());
+        }
+    }
+}
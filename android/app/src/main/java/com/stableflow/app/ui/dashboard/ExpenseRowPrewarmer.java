@@ -0,0 +1,52 @@
+package com.stableflow.app.ui.dashboard;
+
+import android.content.Context;
+import android.util.DisplayMetrics;
+
+import androidx.asynclayoutinflater.view.AsyncLayoutInflater;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.stableflow.app.R;
+
+/**
+ * ExpenseRowPrewarmer
+ * Fills a list's RecycledViewPool with claim row holders before the claims arrive. Rows are
+ * inflated on AsyncLayoutInflater's background thread, so the first screenful is bound from the
+ * pool instead of being inflated on the main thread during the dashboard's first frames.
+ */
+public final class ExpenseRowPrewarmer {
+
+    // item_expense with its bottom margin; only used to size the first screenful
+    private static final int ROW_HEIGHT_ESTIMATE_DP = 112;
+    private static final int MAX_PREWARMED_ROWS = 12;
+
+    private ExpenseRowPrewarmer() {
+    }
+
+    /**
+     * Number of claim rows that fit on one screen, plus one partly visible
+     */
+    public static int rowsForScreen(Context context) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int rowHeight = Math.max(1, Math.round(ROW_HEIGHT_ESTIMATE_DP * metrics.density));
+        return Math.min(MAX_PREWARMED_ROWS, metrics.heightPixels / rowHeight + 1);
+    }
+
+    /**
+     * Inflate rows off the main thread and park them in the list's pool. The list must already
+     * use its final pool; holders are created through the adapter so they carry its view type.
+     */
+    public static void prewarm(RecyclerView list, ExpenseAdapter adapter, int rows) {
+        RecyclerView.RecycledViewPool pool = list.getRecycledViewPool();
+        // The default pool keeps only five holders per type
+        pool.setMaxRecycledViews(ExpenseAdapter.VIEW_TYPE, Math.max(rows, 5));
+
+        AsyncLayoutInflater inflater = new AsyncLayoutInflater(list.getContext());
+        for (int i = 0; i < rows; i++) {
+            inflater.inflate(R.layout.item_expense, list, (view, resid, parent) -> {
+                adapter.addPrewarmedView(view);
+                pool.putRecycledView(adapter.createViewHolder(list, ExpenseAdapter.VIEW_TYPE));
+            });
+        }
+    }
+}
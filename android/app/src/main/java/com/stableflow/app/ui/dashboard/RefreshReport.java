@@ -0,0 +1,132 @@
+package com.stableflow.app.ui.dashboard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * RefreshReport
+ * Outcome of one dashboard refresh: when it settled and, per source, how long it took and
+ * whether it failed or was cancelled
+ */
+public class RefreshReport {
+
+    /**
+     * One fetch within the refresh
+     */
+    public static class Source {
+
+        private final String name;
+        private final long latencyMs;
+        private final String error;
+        private final boolean cancelled;
+
+        public Source(String name, long latencyMs, String error) {
+            this(name, latencyMs, error, false);
+        }
+
+        private Source(String name, long latencyMs, String error, boolean cancelled) {
+            this.name = name;
+            this.latencyMs = latencyMs;
+            this.error = error;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * A fetch stopped on purpose, e.g. superseded by a newer one; neither success nor failure
+         */
+        public static Source cancelled(String name, long latencyMs) {
+            return new Source(name, latencyMs, null, true);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getLatencyMs() {
+            return latencyMs;
+        }
+
+        /**
+         * Failure reason, or null if the source refreshed
+         */
+        public String getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null && !cancelled;
+        }
+
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        public boolean isFailure() {
+            return error != null;
+        }
+    }
+
+    private final List<Source> sources;
+    private final long totalMs;
+    private final long completedAt;
+
+    public RefreshReport(List<Source> sources, long totalMs, long completedAt) {
+        this.sources = Collections.unmodifiableList(new ArrayList<>(sources));
+        this.totalMs = totalMs;
+        this.completedAt = completedAt;
+    }
+
+    public List<Source> getSources() {
+        return sources;
+    }
+
+    /**
+     * Wall time from start until the slowest source settled
+     */
+    public long getTotalMs() {
+        return totalMs;
+    }
+
+    /**
+     * Epoch millis when the refresh settled
+     */
+    public long getCompletedAt() {
+        return completedAt;
+    }
+
+    public boolean isSuccess(String name) {
+        for (Source source : sources) {
+            if (source.getName().equals(name))
+                return source.isSuccess();
+        }
+        return false;
+    }
+
+    /**
+     * Sources that failed or timed out; cancelled ones are not failures
+     */
+    public List<Source> getFailures() {
+        List<Source> failures = new ArrayList<>();
+        for (Source source : sources) {
+            if (source.isFailure()) {
+                failures.add(source);
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("Refresh took ").append(totalMs).append(" ms");
+        for (Source source : sources) {
+            builder.append(", ").append(source.getName()).append(' ').append(source.getLatencyMs()).append(" ms");
+            if (source.isCancelled()) {
+                builder.append(" (cancelled)");
+            } else if (source.isFailure()) {
+                builder.append(" (failed: ").append(source.getError()).append(')');
+            }
+        }
+        return builder.toString();
+    }
+}
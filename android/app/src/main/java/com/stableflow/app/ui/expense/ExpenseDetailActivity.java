@@ -16,13 +16,17 @@ import androidx.appcompat.widget.Toolbar;
 import com.bumptech.glide.Glide;
 import com.stableflow.app.R;
 import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.model.User;
 import com.stableflow.app.data.repository.FirebaseRepository;
+import com.stableflow.app.data.solana.SolanaManager;
+import com.stableflow.app.data.solana.TransactionDetails;
 import com.stableflow.app.ui.base.BaseActivity;
+import com.stableflow.app.util.TokenAmount;
 
-import java.text.NumberFormat;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * ExpenseDetailActivity
@@ -35,13 +39,15 @@ public class ExpenseDetailActivity extends BaseActivity {
     private FirebaseRepository repository;
     private String expenseId;
     private ExpenseRequest expense;
+    private CompletableFuture<TransactionDetails> payoutDetailsCall;
 
     // Views
     private TextView tvTitle, tvDescription, tvAmount, tvCategory, tvStatus, tvDate;
     private TextView tvProcessedBy, tvProcessedDate, tvRejectionReason, tvTxLink;
+    private TextView tvPayoutAmount, tvPayoutFee, tvPayoutTime, tvPayoutMemo;
     private ImageView ivReceipt;
     private androidx.cardview.widget.CardView receiptContainer;
-    private LinearLayout txLinkContainer, rejectionContainer, processedContainer;
+    private LinearLayout txLinkContainer, rejectionContainer, processedContainer, payoutDetailsContainer;
     private Button btnCancel, btnViewReceipt;
 
     @Override
@@ -63,6 +69,15 @@ public class ExpenseDetailActivity extends BaseActivity {
         loadExpenseData();
     }
 
+    @Override
+    protected void onDestroy() {
+        // Abort the payout details request instead of letting it finish for a dead screen
+        if (payoutDetailsCall != null) {
+            payoutDetailsCall.cancel(true);
+        }
+        super.onDestroy();
+    }
+
     private void initViews() {
         tvTitle = findViewById(R.id.tv_title);
         tvDescription = findViewById(R.id.tv_description);
@@ -74,6 +89,10 @@ public class ExpenseDetailActivity extends BaseActivity {
         tvProcessedDate = findViewById(R.id.tv_processed_date);
         tvRejectionReason = findViewById(R.id.tv_rejection_reason);
         tvTxLink = findViewById(R.id.tv_tx_link);
+        tvPayoutAmount = findViewById(R.id.tv_payout_amount);
+        tvPayoutFee = findViewById(R.id.tv_payout_fee);
+        tvPayoutTime = findViewById(R.id.tv_payout_time);
+        tvPayoutMemo = findViewById(R.id.tv_payout_memo);
 
         ivReceipt = findViewById(R.id.iv_receipt);
 
@@ -81,6 +100,7 @@ public class ExpenseDetailActivity extends BaseActivity {
         txLinkContainer = findViewById(R.id.tx_link_container);
         rejectionContainer = findViewById(R.id.rejection_container);
         processedContainer = findViewById(R.id.processed_container);
+        payoutDetailsContainer = findViewById(R.id.payout_details_container);
 
         btnCancel = findViewById(R.id.btn_cancel);
         btnViewReceipt = findViewById(R.id.btn_view_receipt);
@@ -121,7 +141,7 @@ public class ExpenseDetailActivity extends BaseActivity {
         // Basic info
         tvTitle.setText(expense.getTitle());
         tvDescription.setText(expense.getDescription());
-        tvAmount.setText(formatCurrency(expense.getAmount()));
+        tvAmount.setText(formatCurrency(expense.getAmountMicros()));
         tvCategory.setText(getCategoryString(expense.getCategory()));
         tvStatus.setText(getStatusString(expense.getStatus()));
 
@@ -176,6 +196,12 @@ public class ExpenseDetailActivity extends BaseActivity {
             txLinkContainer.setVisibility(View.GONE);
         }
 
+        // On-chain payout details (served from cache once finalized)
+        payoutDetailsContainer.setVisibility(View.GONE);
+        if (expense.isPaid() && expense.getTxSignature() != null && !expense.getTxSignature().isEmpty()) {
+            loadPayoutDetails(expense.getTxSignature());
+        }
+
         // Cancel button
         if (expense.isPending()) {
             btnCancel.setVisibility(View.VISIBLE);
@@ -185,6 +211,71 @@ public class ExpenseDetailActivity extends BaseActivity {
         }
     }
 
+    private void loadPayoutDetails(String signature) {
+        SolanaManager solanaManager = SolanaManager.getInstance();
+        if (payoutDetailsCall != null) {
+            payoutDetailsCall.cancel(true);
+        }
+        // A batched payout pays several claims in one transaction; only the transfer into the
+        // claimant's token account belongs to this claim
+        User user = repository.getCurrentUserLiveData().getValue();
+        String wallet = user != null ? user.getWalletAddress() : null;
+
+        payoutDetailsCall = solanaManager.getTransactionDetailsAsync(signature);
+        payoutDetailsCall.thenAccept(details -> {
+            long received = -1;
+            if (wallet != null && !wallet.isEmpty()) {
+                try {
+                    received = details.getAmountReceivedBy(solanaManager.getUsdcTokenAccount(wallet),
+                            solanaManager.getUsdcMint());
+                } catch (Exception e) {
+                    // Not a valid address; show the transaction without an amount
+                }
+            }
+            long amountReceived = received;
+            runOnUiThread(() -> displayPayoutDetails(details, amountReceived));
+        });
+        // Failures are ignored: payout details are supplementary; keep the explorer link only
+    }
+
+    /**
+     * @param received micro-USDC the claimant's token account received, or -1 if unknown
+     */
+    private void displayPayoutDetails(TransactionDetails details, long received) {
+        if (isFinishing() || isDestroyed())
+            return;
+
+        payoutDetailsContainer.setVisibility(View.VISIBLE);
+
+        // A failed transaction moved no tokens, whatever its instructions say
+        if (details.isFailed()) {
+            tvPayoutAmount.setText(R.string.tx_status_failed);
+            tvPayoutAmount.setTextColor(getColor(R.color.error_red));
+        } else {
+            tvPayoutAmount.setTextColor(getColor(R.color.text_secondary));
+            // Transfer amounts are in micro-USDC, the fee in lamports
+            tvPayoutAmount.setText(getString(R.string.payout_amount,
+                    received > 0 ? formatCurrency(received) : "-"));
+        }
+        tvPayoutFee.setText(getString(R.string.payout_fee,
+                TokenAmount.format(details.getFee(), TokenAmount.SOL_DECIMALS, 6)));
+
+        if (details.getBlockTime() > 0) {
+            SimpleDateFormat displayFormat = new SimpleDateFormat("dd MMM yyyy, HH:mm", Locale.getDefault());
+            tvPayoutTime.setText(getString(R.string.payout_time,
+                    displayFormat.format(new Date(details.getBlockTime() * 1000))));
+        } else {
+            tvPayoutTime.setText(getString(R.string.payout_time, "-"));
+        }
+
+        if (details.getMemo() != null) {
+            tvPayoutMemo.setVisibility(View.VISIBLE);
+            tvPayoutMemo.setText(getString(R.string.payout_memo, details.getMemo()));
+        } else {
+            tvPayoutMemo.setVisibility(View.GONE);
+        }
+    }
+
     private void applyStatusStyle() {
         int bgResId;
         int textColor;
@@ -240,9 +331,8 @@ public class ExpenseDetailActivity extends BaseActivity {
         });
     }
 
-    private String formatCurrency(double amount) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.US);
-        return formatter.format(amount);
+    private String formatCurrency(long micros) {
+        return TokenAmount.formatUsd(micros);
     }
 
     private String formatDate(String dateString) {
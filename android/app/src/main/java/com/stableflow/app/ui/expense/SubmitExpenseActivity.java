@@ -34,6 +34,7 @@ import com.google.android.gms.location.LocationServices;
 import com.google.android.material.textfield.TextInputEditText;
 import com.stableflow.app.R;
 import com.stableflow.app.ui.base.BaseActivity;
+import com.stableflow.app.util.TokenAmount;
 
 import java.io.File;
 import java.io.IOException;
@@ -283,17 +284,17 @@ public class SubmitExpenseActivity extends BaseActivity {
         String description = etDescription.getText() != null ? etDescription.getText().toString() : "";
         String amountStr = etAmount.getText() != null ? etAmount.getText().toString() : "0";
 
-        double amount;
+        long amountMicros;
         try {
-            amount = Double.parseDouble(amountStr);
+            amountMicros = TokenAmount.parseDecimal(amountStr, TokenAmount.USDC_DECIMALS);
         } catch (NumberFormatException e) {
-            amount = 0;
+            amountMicros = 0;
         }
 
         // Set to ViewModel
         viewModel.setTitle(title);
         viewModel.setDescription(description);
-        viewModel.setAmount(amount);
+        viewModel.setAmountMicros(amountMicros);
 
         // Submit
         viewModel.submit();
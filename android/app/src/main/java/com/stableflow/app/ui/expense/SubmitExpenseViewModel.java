@@ -9,6 +9,7 @@ import androidx.lifecycle.ViewModel;
 import com.google.firebase.auth.FirebaseUser;
 import com.stableflow.app.data.model.ExpenseRequest;
 import com.stableflow.app.data.repository.FirebaseRepository;
+import com.stableflow.app.util.TokenAmount;
 
 /**
  * SubmitExpenseViewModel
@@ -16,6 +17,9 @@ import com.stableflow.app.data.repository.FirebaseRepository;
  */
 public class SubmitExpenseViewModel extends ViewModel {
 
+    // 100,000 USDC
+    private static final long MAX_AMOUNT_MICROS = 100_000L * TokenAmount.ONE_USDC;
+
     private final FirebaseRepository repository;
 
     private final MutableLiveData<Boolean> isLoading = new MutableLiveData<>(false);
@@ -28,7 +32,7 @@ public class SubmitExpenseViewModel extends ViewModel {
     // Form data
     private String title = "";
     private String description = "";
-    private double amount = 0;
+    private long amountMicros = 0;
     private String category = "";
     private Double latitude = null;
     private Double longitude = null;
@@ -78,8 +82,8 @@ public class SubmitExpenseViewModel extends ViewModel {
         this.description = description;
     }
 
-    public void setAmount(double amount) {
-        this.amount = amount;
+    public void setAmountMicros(long amountMicros) {
+        this.amountMicros = amountMicros;
     }
 
     public void setCategory(String category) {
@@ -145,12 +149,12 @@ public class SubmitExpenseViewModel extends ViewModel {
             return;
         }
 
-        if (amount <= 0) {
+        if (amountMicros <= 0) {
             errorMessage.setValue("Jumlah harus lebih dari 0");
             return;
         }
 
-        if (amount > 100000) {
+        if (amountMicros > MAX_AMOUNT_MICROS) {
             errorMessage.setValue("Jumlah maksimal 100,000 USDC");
             return;
         }
@@ -174,7 +178,7 @@ public class SubmitExpenseViewModel extends ViewModel {
                 user.getUid(),
                 title.trim(),
                 description.trim(),
-                amount,
+                TokenAmount.toDecimal(amountMicros, TokenAmount.USDC_DECIMALS),
                 category);
 
         // Add optional fields
@@ -213,7 +217,7 @@ public class SubmitExpenseViewModel extends ViewModel {
     public void resetForm() {
         title = "";
         description = "";
-        amount = 0;
+        amountMicros = 0;
         category = "";
         latitude = null;
         longitude = null;
@@ -6,6 +6,7 @@ import androidx.lifecycle.ViewModel;
 
 import com.stableflow.app.data.model.User;
 import com.stableflow.app.data.repository.FirebaseRepository;
+import com.stableflow.app.data.solana.SolanaManager;
 
 /**
  * SettingsViewModel
@@ -54,6 +55,7 @@ public class SettingsViewModel extends ViewModel {
     }
 
     public void logout() {
+        SolanaManager.getInstance().clearSession();
         repository.logout();
     }
 }
@@ -0,0 +1,123 @@
+package com.stableflow.app.ui.wallet;
+
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.annotation.NonNull;
+import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.stableflow.app.R;
+import com.stableflow.app.data.solana.TransactionHistoryEntry;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * TransactionHistoryAdapter
+ * RecyclerView adapter for locally indexed wallet transactions
+ */
+public class TransactionHistoryAdapter extends RecyclerView.Adapter<TransactionHistoryAdapter.TransactionViewHolder> {
+
+    private final List<TransactionHistoryEntry> entries = new ArrayList<>();
+    private final OnTransactionClickListener listener;
+
+    public interface OnTransactionClickListener {
+        void onTransactionClick(TransactionHistoryEntry entry);
+    }
+
+    public TransactionHistoryAdapter(OnTransactionClickListener listener) {
+        this.listener = listener;
+    }
+
+    public void setEntries(List<TransactionHistoryEntry> newEntries) {
+        entries.clear();
+        entries.addAll(newEntries);
+        notifyDataSetChanged();
+    }
+
+    public void appendEntries(List<TransactionHistoryEntry> page) {
+        int start = entries.size();
+        entries.addAll(page);
+        notifyItemRangeInserted(start, page.size());
+    }
+
+    /**
+     * Cursor for the next page, or null when nothing is loaded yet
+     */
+    public TransactionHistoryEntry getLastEntry() {
+        return entries.isEmpty() ? null : entries.get(entries.size() - 1);
+    }
+
+    @NonNull
+    @Override
+    public TransactionViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(R.layout.item_transaction, parent, false);
+        return new TransactionViewHolder(view);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull TransactionViewHolder holder, int position) {
+        holder.bind(entries.get(position));
+    }
+
+    @Override
+    public int getItemCount() {
+        return entries.size();
+    }
+
+    class TransactionViewHolder extends RecyclerView.ViewHolder {
+
+        private final TextView tvSignature, tvMemo, tvTime, tvStatus;
+
+        TransactionViewHolder(@NonNull View itemView) {
+            super(itemView);
+            tvSignature = itemView.findViewById(R.id.tv_signature);
+            tvMemo = itemView.findViewById(R.id.tv_memo);
+            tvTime = itemView.findViewById(R.id.tv_time);
+            tvStatus = itemView.findViewById(R.id.tv_tx_status);
+        }
+
+        void bind(TransactionHistoryEntry entry) {
+            tvSignature.setText(entry.getShortSignature());
+
+            if (entry.getMemo() != null && !entry.getMemo().isEmpty()) {
+                tvMemo.setVisibility(View.VISIBLE);
+                tvMemo.setText(entry.getMemo());
+            } else {
+                tvMemo.setVisibility(View.GONE);
+            }
+
+            tvTime.setText(formatBlockTime(entry.getBlockTime()));
+
+            if (entry.isFailed()) {
+                tvStatus.setText(R.string.tx_failed);
+                tvStatus.setBackgroundResource(R.drawable.bg_status_rejected);
+                tvStatus.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.error_red));
+            } else {
+                tvStatus.setText(R.string.tx_success);
+                tvStatus.setBackgroundResource(R.drawable.bg_status_paid);
+                tvStatus.setTextColor(ContextCompat.getColor(itemView.getContext(), R.color.success_green));
+            }
+
+            itemView.setOnClickListener(v -> {
+                if (listener != null) {
+                    listener.onTransactionClick(entry);
+                }
+            });
+        }
+
+        private String formatBlockTime(long blockTime) {
+            if (blockTime <= 0)
+                return "-";
+            SimpleDateFormat displayFormat = new SimpleDateFormat("dd MMM yyyy, HH:mm", Locale.getDefault());
+            return displayFormat.format(new Date(blockTime * 1000));
+        }
+    }
+}
@@ -5,43 +5,67 @@ import android.content.ClipboardManager;
 import android.content.Context;
 import android.os.Bundle;
 import android.view.View;
-import android.widget.Button;
-import android.widget.FrameLayout;
-import android.widget.ImageView;
-import android.widget.LinearLayout;
 import android.widget.ProgressBar;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.widget.Toolbar;
+import androidx.recyclerview.widget.ConcatAdapter;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.swiperefreshlayout.widget.SwipeRefreshLayout;
 
 import com.stableflow.app.R;
 import com.stableflow.app.data.model.User;
 import com.stableflow.app.data.repository.FirebaseRepository;
 import com.stableflow.app.data.solana.SolanaManager;
+import com.stableflow.app.data.solana.TokenRegistry;
+import com.stableflow.app.data.solana.TransactionHistoryEntry;
 import com.stableflow.app.ui.base.BaseActivity;
+import com.stableflow.app.ui.dashboard.DashboardSectionAdapter;
+import com.stableflow.app.util.TokenAmount;
 
-import java.text.NumberFormat;
-import java.util.Locale;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * WalletActivity
- * Shows Solana wallet details and balance
+ * Shows Solana wallet details and balance. The details card and the transaction history share
+ * one RecyclerView over a ConcatAdapter, so only the history rows on screen are bound, and the
+ * next page of history loads as the user scrolls towards the end of the list.
  */
 public class WalletActivity extends BaseActivity {
 
+    private static final int HISTORY_PAGE_SIZE = 20;
+    // Rows left below the last visible one when the next page starts loading
+    private static final int HISTORY_PREFETCH_ROWS = 5;
+
     private SolanaManager solanaManager;
     private FirebaseRepository firebaseRepository;
 
     // Views
-    private TextView tvWalletAddress, tvSolBalance, tvUsdcBalance;
-    private TextView tvWalletStatus;
-    private LinearLayout walletInfoContainer, noWalletContainer;
     private ProgressBar progressLoading;
     private SwipeRefreshLayout swipeRefresh;
-    private Button btnConnectWallet, btnReceivePayment;
-    private FrameLayout btnCopyAddress;
+    private RecyclerView rvWallet;
+    private LinearLayoutManager layoutManager;
+
+    // Adapters, in list order
+    private DashboardSectionAdapter walletSection;
+    private DashboardSectionAdapter noWalletSection;
+    private TransactionHistoryAdapter historyAdapter;
+    private DashboardSectionAdapter historyEmptySection;
+
+    // State the sections bind from
+    private User currentUser;
+    private long solBalance;
+    private Map<String, Long> tokenBalances = Collections.emptyMap();
+
+    // History paging: whether a page is in flight, whether the index may hold more, and a
+    // counter that lets a reload from the top drop pages requested before it
+    private boolean historyLoading;
+    private boolean historyHasMore;
+    private int historyGeneration;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -53,6 +77,7 @@ public class WalletActivity extends BaseActivity {
 
         initViews();
         setupToolbar();
+        setupHistoryList();
         setupClickListeners();
         observeData();
 
@@ -60,23 +85,28 @@ public class WalletActivity extends BaseActivity {
         loadWalletFromProfile();
     }
 
-    private void initViews() {
-        tvWalletAddress = findViewById(R.id.tv_wallet_address);
-        tvSolBalance = findViewById(R.id.tv_sol_balance);
-        tvUsdcBalance = findViewById(R.id.tv_usdc_balance);
-        tvWalletStatus = findViewById(R.id.tv_wallet_status);
+    @Override
+    protected void onStart() {
+        super.onStart();
+        solanaManager.setWalletScreenVisible(true);
+        // Payouts are sent from this wallet; keep a blockhash and fee estimate warm
+        solanaManager.setPayoutScreenVisible(true);
+    }
 
-        walletInfoContainer = findViewById(R.id.wallet_info_container);
-        noWalletContainer = findViewById(R.id.no_wallet_container);
+    @Override
+    protected void onStop() {
+        solanaManager.setWalletScreenVisible(false);
+        solanaManager.setPayoutScreenVisible(false);
+        super.onStop();
+    }
 
+    private void initViews() {
         progressLoading = findViewById(R.id.progress_loading);
         swipeRefresh = findViewById(R.id.swipe_refresh);
         swipeRefresh.setColorSchemeResources(R.color.gold_primary);
         swipeRefresh.setProgressBackgroundColorSchemeResource(R.color.card_background);
 
-        btnConnectWallet = findViewById(R.id.btn_connect_wallet);
-        btnReceivePayment = findViewById(R.id.btn_receive_payment);
-        btnCopyAddress = findViewById(R.id.btn_copy_address);
+        rvWallet = findViewById(R.id.rv_wallet);
     }
 
     private void setupToolbar() {
@@ -89,14 +119,62 @@ public class WalletActivity extends BaseActivity {
         toolbar.setNavigationOnClickListener(v -> onBackPressed());
     }
 
+    private void setupHistoryList() {
+        walletSection = new DashboardSectionAdapter(R.layout.item_wallet_details, this::bindWallet, false);
+        noWalletSection = new DashboardSectionAdapter(R.layout.item_wallet_no_wallet, this::bindNoWallet, false);
+        historyAdapter = new TransactionHistoryAdapter(entry -> solanaManager.openInExplorer(this, entry.getSignature()));
+        historyEmptySection = new DashboardSectionAdapter(R.layout.item_wallet_history_empty, null, false);
+
+        layoutManager = new LinearLayoutManager(this);
+        rvWallet.setLayoutManager(layoutManager);
+        rvWallet.setAdapter(new ConcatAdapter(walletSection, noWalletSection, historyAdapter, historyEmptySection));
+
+        // Also called after every layout, so a first page too short to scroll still pulls the next
+        rvWallet.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                loadMoreHistoryIfNeeded();
+            }
+        });
+    }
+
     private void setupClickListeners() {
         // Swipe refresh
         swipeRefresh.setOnRefreshListener(() -> {
             solanaManager.refreshBalances();
+            solanaManager.syncTransactionHistory();
         });
+    }
+
+    // ==================
+    // SECTIONS
+    // ==================
+
+    private void bindWallet(View view) {
+        TextView tvWalletAddress = view.findViewById(R.id.tv_wallet_address);
+        TextView tvWalletStatus = view.findViewById(R.id.tv_wallet_status);
+        TextView tvSolBalance = view.findViewById(R.id.tv_sol_balance);
+        TextView tvUsdcBalance = view.findViewById(R.id.tv_usdc_balance);
+        TextView tvOtherTokens = view.findViewById(R.id.tv_other_tokens);
+
+        if (currentUser != null) {
+            tvWalletAddress.setText(currentUser.getFormattedWalletAddress());
+        }
+        tvWalletStatus.setText("Terhubung");
+        tvWalletStatus.setTextColor(getColor(R.color.success_green));
+
+        tvSolBalance.setText(formatSolBalance(solBalance));
+
+        // Token balances: USDC in the main slot, any other stablecoin held listed below it
+        Long usdc = tokenBalances.get(solanaManager.getUsdcMint());
+        tvUsdcBalance.setText(formatUsdcBalance(usdc != null ? usdc : 0));
+
+        String others = formatOtherTokens(tokenBalances);
+        tvOtherTokens.setText(others);
+        tvOtherTokens.setVisibility(others.isEmpty() ? View.GONE : View.VISIBLE);
 
         // Copy address
-        btnCopyAddress.setOnClickListener(v -> {
+        view.findViewById(R.id.btn_copy_address).setOnClickListener(v -> {
             String address = solanaManager.getCurrentWalletAddress();
             if (address != null) {
                 copyToClipboard(address);
@@ -104,14 +182,8 @@ public class WalletActivity extends BaseActivity {
             }
         });
 
-        // Connect wallet button (for when no wallet is set)
-        btnConnectWallet.setOnClickListener(v -> {
-            // Navigate to settings to set wallet
-            Toast.makeText(this, R.string.set_wallet_hint, Toast.LENGTH_SHORT).show();
-        });
-
         // Receive payment
-        btnReceivePayment.setOnClickListener(v -> {
+        view.findViewById(R.id.btn_receive_payment).setOnClickListener(v -> {
             String address = solanaManager.getCurrentWalletAddress();
             if (address != null) {
                 // Show QR or share address
@@ -120,15 +192,25 @@ public class WalletActivity extends BaseActivity {
         });
     }
 
+    private void bindNoWallet(View view) {
+        // Connect wallet button (for when no wallet is set)
+        view.findViewById(R.id.btn_connect_wallet).setOnClickListener(v -> {
+            // Navigate to settings to set wallet
+            Toast.makeText(this, R.string.set_wallet_hint, Toast.LENGTH_SHORT).show();
+        });
+    }
+
     private void observeData() {
         // SOL Balance
         solanaManager.getSolBalance().observe(this, balance -> {
-            tvSolBalance.setText(formatSolBalance(balance));
+            solBalance = balance != null ? balance : 0;
+            walletSection.refresh();
         });
 
-        // USDC Balance
-        solanaManager.getUsdcBalance().observe(this, balance -> {
-            tvUsdcBalance.setText(formatUsdcBalance(balance));
+        // Token balances
+        solanaManager.getTokenBalances().observe(this, balances -> {
+            tokenBalances = balances != null ? balances : Collections.emptyMap();
+            walletSection.refresh();
         });
 
         // Loading state
@@ -137,6 +219,9 @@ public class WalletActivity extends BaseActivity {
             progressLoading.setVisibility(isLoading ? View.VISIBLE : View.GONE);
         });
 
+        // Reload history whenever a sync brings in new entries
+        solanaManager.getHistoryLastSynced().observe(this, syncedAt -> loadHistoryPage(null));
+
         // Error messages
         solanaManager.getErrorMessage().observe(this, error -> {
             if (error != null && !error.isEmpty()) {
@@ -154,33 +239,89 @@ public class WalletActivity extends BaseActivity {
     }
 
     private void updateWalletUI(User user) {
+        currentUser = user;
         String walletAddress = user.getWalletAddress();
 
         if (walletAddress != null && !walletAddress.isEmpty()) {
             // Wallet is set
-            walletInfoContainer.setVisibility(View.VISIBLE);
-            noWalletContainer.setVisibility(View.GONE);
-
-            tvWalletAddress.setText(user.getFormattedWalletAddress());
-            tvWalletStatus.setText("Terhubung");
-            tvWalletStatus.setTextColor(getColor(R.color.success_green));
+            walletSection.setVisible(true);
+            walletSection.refresh();
+            noWalletSection.setVisible(false);
 
             // Set wallet and fetch balances
             solanaManager.setWalletAddress(walletAddress);
+
+            // Show indexed history right away, then fetch anything new
+            loadHistoryPage(null);
+            solanaManager.syncTransactionHistory();
         } else {
             // No wallet
-            walletInfoContainer.setVisibility(View.GONE);
-            noWalletContainer.setVisibility(View.VISIBLE);
+            walletSection.setVisible(false);
+            noWalletSection.setVisible(true);
+
+            historyGeneration++;
+            historyLoading = false;
+            historyHasMore = false;
+            historyAdapter.setEntries(Collections.emptyList());
+            historyEmptySection.setVisible(false);
         }
     }
 
-    private String formatSolBalance(double balance) {
-        return String.format(Locale.US, "%.4f SOL", balance);
+    /**
+     * Load a page of history from the local index; a null cursor reloads from the top
+     */
+    private void loadHistoryPage(TransactionHistoryEntry after) {
+        if (after == null) {
+            historyGeneration++;
+        }
+        int generation = historyGeneration;
+        historyLoading = true;
+        solanaManager.loadHistoryPage(after, HISTORY_PAGE_SIZE, entries -> runOnUiThread(() -> {
+            if (isFinishing() || isDestroyed() || generation != historyGeneration)
+                return;
+
+            historyLoading = false;
+            historyHasMore = entries.size() == HISTORY_PAGE_SIZE;
+            if (after == null) {
+                historyAdapter.setEntries(entries);
+            } else {
+                historyAdapter.appendEntries(entries);
+            }
+            historyEmptySection.setVisible(historyAdapter.getItemCount() == 0);
+        }));
+    }
+
+    /**
+     * Ask for the next page once the last loaded rows come near the bottom of the screen
+     */
+    private void loadMoreHistoryIfNeeded() {
+        if (historyLoading || !historyHasMore)
+            return;
+        if (layoutManager.findLastVisibleItemPosition() >= layoutManager.getItemCount() - HISTORY_PREFETCH_ROWS) {
+            loadHistoryPage(historyAdapter.getLastEntry());
+        }
     }
 
-    private String formatUsdcBalance(double balance) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(Locale.US);
-        return formatter.format(balance) + " USDC";
+    private String formatSolBalance(long lamports) {
+        return TokenAmount.format(lamports, TokenAmount.SOL_DECIMALS, 4) + " SOL";
+    }
+
+    private String formatUsdcBalance(long micros) {
+        return TokenAmount.formatUsd(micros) + " USDC";
+    }
+
+    private String formatOtherTokens(Map<String, Long> balances) {
+        StringBuilder out = new StringBuilder();
+        for (TokenRegistry.Token token : solanaManager.getTokenRegistry().getTokens()) {
+            Long amount = balances.get(token.getMint());
+            if (amount == null || amount == 0 || token.getMint().equals(solanaManager.getUsdcMint()))
+                continue;
+            if (out.length() > 0) {
+                out.append(", ");
+            }
+            out.append(TokenAmount.format(amount, token.getDecimals(), 2)).append(' ').append(token.getSymbol());
+        }
+        return out.toString();
     }
 
     private void copyToClipboard(String text) {
@@ -0,0 +1,147 @@
+package com.stableflow.app.util;
+
+/**
+ * DDSketch
+ * Quantile sketch with relative-error guarantees (Masson, Rim and Lee, VLDB 2019). Values are
+ * counted in logarithmic buckets, so any quantile is returned within the relative accuracy of
+ * the true value while memory grows with the log of the value range, not with the number of
+ * values. Sketches with the same accuracy merge by adding bucket counts, and a value added
+ * earlier can be taken back, which lets running sketches follow claims that change.
+ */
+public class DDSketch {
+
+    // Values below this are counted as zero
+    private static final double MIN_VALUE = 1.0;
+
+    private final double relativeAccuracy;
+    private final double gamma;
+    private final double logGamma;
+
+    // counts[i] is bucket offset + i, holding values in (gamma^(index-1), gamma^index]
+    private long[] counts = new long[0];
+    private int offset;
+    private long zeroCount;
+    private long count;
+
+    /**
+     * @param relativeAccuracy e.g. 0.01 for quantiles within 1% of the true value
+     */
+    public DDSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1)
+            throw new IllegalArgumentException("Relative accuracy must be between 0 and 1");
+        this.relativeAccuracy = relativeAccuracy;
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    /**
+     * Values added minus values removed
+     */
+    public long getCount() {
+        return count;
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    /**
+     * Count a non-negative value; negative values are counted as zero
+     */
+    public void add(double value) {
+        add(value, 1);
+    }
+
+    /**
+     * Take back a value added earlier
+     */
+    public void remove(double value) {
+        add(value, -1);
+    }
+
+    private void add(double value, long weight) {
+        count += weight;
+        if (value < MIN_VALUE) {
+            zeroCount += weight;
+            return;
+        }
+        int index = (int) Math.ceil(Math.log(value) / logGamma);
+        ensureIndex(index);
+        counts[index - offset] += weight;
+    }
+
+    /**
+     * Add another sketch's values to this one; both must have the same accuracy
+     */
+    public void merge(DDSketch other) {
+        if (other.gamma != gamma)
+            throw new IllegalArgumentException("Cannot merge sketches with different accuracy");
+        if (other.isEmpty())
+            return;
+        for (int i = 0; i < other.counts.length; i++) {
+            if (other.counts[i] != 0) {
+                ensureIndex(other.offset + i);
+                counts[other.offset + i - offset] += other.counts[i];
+            }
+        }
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    /**
+     * Value at a quantile between 0 and 1, or NaN if the sketch is empty
+     */
+    public double getQuantile(double quantile) {
+        if (count <= 0 || quantile < 0 || quantile > 1)
+            return Double.NaN;
+
+        long rank = (long) (quantile * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen)
+            return 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (rank < seen) {
+                // Midpoint of the bucket in relative terms, within relativeAccuracy of any value in it
+                return 2 * Math.pow(gamma, offset + i) / (gamma + 1);
+            }
+        }
+        return 2 * Math.pow(gamma, offset + counts.length - 1) / (gamma + 1);
+    }
+
+    public DDSketch copy() {
+        DDSketch copy = new DDSketch(relativeAccuracy);
+        copy.counts = counts.clone();
+        copy.offset = offset;
+        copy.zeroCount = zeroCount;
+        copy.count = count;
+        return copy;
+    }
+
+    /**
+     * Widen the bucket array to cover an index, doubling so repeated growth stays cheap
+     */
+    private void ensureIndex(int index) {
+        if (counts.length == 0) {
+            counts = new long[16];
+            offset = index - 8;
+            return;
+        }
+        if (index >= offset && index < offset + counts.length)
+            return;
+
+        int low = Math.min(offset, index);
+        int high = Math.max(offset + counts.length - 1, index);
+        int length = Math.max(counts.length * 2, high - low + 1);
+        // Leave room on the side that grew
+        int newOffset = index < offset ? high - length + 1 : low;
+        long[] grown = new long[length];
+        System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+        counts = grown;
+        offset = newOffset;
+    }
+}
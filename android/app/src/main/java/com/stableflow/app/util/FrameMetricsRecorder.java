@@ -0,0 +1,87 @@
+package com.stableflow.app.util;
+
+import android.app.Activity;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+import android.view.FrameMetrics;
+import android.view.Window;
+
+import java.util.Locale;
+
+/**
+ * FrameMetricsRecorder
+ * Records how a screen opens: time from creation to its first frame, and how many frames over
+ * the first seconds missed the frame budget. Reads the window's FrameMetrics and logs one
+ * summary line, so runs with and without an optimisation can be compared from logcat.
+ */
+public class FrameMetricsRecorder implements Window.OnFrameMetricsAvailableListener {
+
+    private static final String TAG = "FrameMetrics";
+
+    // 60 Hz; frames slower than this were visibly late
+    private static final long FRAME_BUDGET_NANOS = 16_666_667L;
+    private static final long RECORDING_WINDOW_MS = 5_000;
+
+    private final String label;
+    private final long startedAt;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    private Window window;
+    private long firstFrameMs = -1;
+    private int frames = 0;
+    private int jankyFrames = 0;
+    private int droppedReports = 0;
+    private long worstFrameNanos = 0;
+
+    /**
+     * Start the clock; call first thing in onCreate
+     */
+    public FrameMetricsRecorder(String label) {
+        this.label = label;
+        this.startedAt = SystemClock.uptimeMillis();
+    }
+
+    /**
+     * Begin listening once the activity has a window, and stop after the recording window
+     */
+    public void attach(Activity activity) {
+        window = activity.getWindow();
+        window.addOnFrameMetricsAvailableListener(this, mainHandler);
+        mainHandler.postDelayed(this::finish, RECORDING_WINDOW_MS);
+    }
+
+    /**
+     * Stop early, e.g. when the activity is destroyed before the window ends
+     */
+    public void detach() {
+        mainHandler.removeCallbacksAndMessages(null);
+        if (window != null) {
+            window.removeOnFrameMetricsAvailableListener(this);
+            window = null;
+        }
+    }
+
+    @Override
+    public void onFrameMetricsAvailable(Window window, FrameMetrics metrics, int dropCountSinceLastInvocation) {
+        if (firstFrameMs < 0) {
+            // Metrics arrive just after the frame is presented; close enough to compare runs
+            firstFrameMs = SystemClock.uptimeMillis() - startedAt;
+        }
+        long total = metrics.getMetric(FrameMetrics.TOTAL_DURATION);
+        frames++;
+        if (total > FRAME_BUDGET_NANOS) {
+            jankyFrames++;
+        }
+        worstFrameNanos = Math.max(worstFrameNanos, total);
+        droppedReports += dropCountSinceLastInvocation;
+    }
+
+    private void finish() {
+        detach();
+        Log.i(TAG, String.format(Locale.US,
+                "%s: first frame %d ms, %d of %d frames over budget, worst %.1f ms, %d unreported",
+                label, firstFrameMs, jankyFrames, frames, worstFrameNanos / 1_000_000.0, droppedReports));
+    }
+}
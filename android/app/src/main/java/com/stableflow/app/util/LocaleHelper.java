@@ -8,7 +8,9 @@ import android.content.res.Resources;
 import android.os.Build;
 import android.preference.PreferenceManager;
 
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * LocaleHelper
@@ -21,6 +23,23 @@ public class LocaleHelper {
     public static final String LANGUAGE_ENGLISH = "en";
     public static final String LANGUAGE_INDONESIAN = "in";
 
+    /**
+     * Notified after the user switches language, before activities are recreated
+     */
+    public interface OnLanguageChangedListener {
+        void onLanguageChanged(String language);
+    }
+
+    private static final List<OnLanguageChangedListener> listeners = new CopyOnWriteArrayList<>();
+
+    public static void addOnLanguageChangedListener(OnLanguageChangedListener listener) {
+        listeners.add(listener);
+    }
+
+    public static void removeOnLanguageChangedListener(OnLanguageChangedListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Called from Application class or BaseActivity to set the locale
      */
@@ -41,7 +60,14 @@ public class LocaleHelper {
      * Set and persist the app language
      */
     public static Context setLocale(Context context, String language) {
+        // onAttach re-applies the persisted language; only a real switch is announced
+        boolean changed = !language.equals(getPersistedLanguage(context));
         persist(context, language);
+        if (changed) {
+            for (OnLanguageChangedListener listener : listeners) {
+                listener.onLanguageChanged(language);
+            }
+        }
 
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.N) {
             return updateResources(context, language);
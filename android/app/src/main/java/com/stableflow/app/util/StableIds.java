@@ -0,0 +1,30 @@
+package com.stableflow.app.util;
+
+/**
+ * StableIds
+ * RecyclerView stable ids derived from string keys such as Firebase push ids.
+ * FNV-1a 64-bit: cheap, allocation-free, and collisions are negligible at list sizes.
+ */
+public final class StableIds {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private StableIds() {
+    }
+
+    public static long of(String key) {
+        if (key == null)
+            return 0; // RecyclerView.NO_ID is -1, so 0 stays a valid id
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            hash ^= c & 0xFF;
+            hash *= FNV_PRIME;
+            hash ^= c >>> 8;
+            hash *= FNV_PRIME;
+        }
+        // Never collide with RecyclerView.NO_ID
+        return hash == -1 ? 0 : hash;
+    }
+}
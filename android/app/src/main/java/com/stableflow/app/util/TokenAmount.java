@@ -0,0 +1,180 @@
+package com.stableflow.app.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * TokenAmount
+ * Token amounts as primitive longs in base units (micro-USDC, lamports), the way they are
+ * stored on chain. Parsing, arithmetic and formatting never go through a double, so sums are
+ * exact and nothing is boxed. Doubles only appear at the edge, for values stored in Firebase.
+ */
+public final class TokenAmount {
+
+    public static final int USDC_DECIMALS = 6;
+    public static final int SOL_DECIMALS = 9;
+
+    // One USDC in micro-USDC
+    public static final long ONE_USDC = 1_000_000L;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private TokenAmount() {
+    }
+
+    // ==================
+    // PARSING
+    // ==================
+
+    /**
+     * Parse a base-unit amount string as returned by the RPC node, e.g. tokenAmount.amount
+     */
+    public static long parseUnits(String amount) {
+        return Long.parseLong(amount);
+    }
+
+    /**
+     * Parse a decimal string typed by a user, e.g. "12.50", into base units.
+     * Throws NumberFormatException for malformed input or more fraction digits than the token has.
+     */
+    public static long parseDecimal(String amount, int decimals) {
+        try {
+            return new BigDecimal(amount.trim()).movePointRight(decimals)
+                    .setScale(0, RoundingMode.UNNECESSARY)
+                    .longValueExact();
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("Too many decimal places: " + amount);
+        }
+    }
+
+    /**
+     * Convert a decimal amount stored as a double (Firebase) into base units
+     */
+    public static long fromDecimal(double amount, int decimals) {
+        // Exact for any amount a double can hold to the cent; the rounding absorbs representation error
+        return Math.round(amount * POWERS_OF_TEN[decimals]);
+    }
+
+    /**
+     * Convert base units to a decimal double, only for storage that expects one
+     */
+    public static double toDecimal(long units, int decimals) {
+        return units / (double) POWERS_OF_TEN[decimals];
+    }
+
+    /**
+     * Convert an amount between tokens of different precision, truncating toward zero
+     */
+    public static long rescale(long units, int fromDecimals, int toDecimals) {
+        if (fromDecimals == toDecimals)
+            return units;
+        if (fromDecimals < toDecimals)
+            return Math.multiplyExact(units, POWERS_OF_TEN[toDecimals - fromDecimals]);
+        return units / POWERS_OF_TEN[fromDecimals - toDecimals];
+    }
+
+    // ==================
+    // FORMATTING
+    // ==================
+
+    /**
+     * Shortest exact decimal form without grouping, e.g. "12.5", as used in Solana Pay URLs
+     */
+    public static String toPlainString(long units, int decimals) {
+        StringBuilder out = new StringBuilder(24);
+        if (units < 0) {
+            out.append('-');
+        }
+        long magnitude = Math.abs(units);
+        long scale = POWERS_OF_TEN[decimals];
+        out.append(magnitude / scale);
+
+        long fraction = magnitude % scale;
+        if (fraction != 0) {
+            int digits = decimals;
+            while (fraction % 10 == 0) {
+                fraction /= 10;
+                digits--;
+            }
+            out.append('.');
+            appendPadded(out, fraction, digits);
+        }
+        return out.toString();
+    }
+
+    /**
+     * Grouped decimal form with a fixed number of fraction digits, e.g. "1,234.5000".
+     * Exact halves round up, so 0.005 USDC shows as 0.01.
+     */
+    public static String format(long units, int decimals, int fractionDigits) {
+        StringBuilder out = new StringBuilder(32);
+        appendFormatted(out, units, decimals, fractionDigits);
+        return out.toString();
+    }
+
+    /**
+     * US dollar form of a micro-USDC amount, e.g. "$1,234.56" or "-$5.00"
+     */
+    public static String formatUsd(long micros) {
+        StringBuilder out = new StringBuilder(24);
+        if (micros < 0) {
+            out.append('-');
+        }
+        out.append('$');
+        appendFormatted(out, Math.abs(micros), USDC_DECIMALS, 2);
+        return out.toString();
+    }
+
+    private static void appendFormatted(StringBuilder out, long units, int decimals, int fractionDigits) {
+        if (units < 0) {
+            out.append('-');
+        }
+        long magnitude = Math.abs(units);
+
+        // Round away the digits beyond fractionDigits, half up
+        long scaled = magnitude;
+        if (fractionDigits < decimals) {
+            long divisor = POWERS_OF_TEN[decimals - fractionDigits];
+            scaled = magnitude / divisor;
+            if (magnitude % divisor * 2 >= divisor) {
+                scaled++;
+            }
+        } else if (fractionDigits > decimals) {
+            scaled = Math.multiplyExact(magnitude, POWERS_OF_TEN[fractionDigits - decimals]);
+        }
+
+        long scale = POWERS_OF_TEN[fractionDigits];
+        appendGrouped(out, scaled / scale);
+        if (fractionDigits > 0) {
+            out.append('.');
+            appendPadded(out, scaled % scale, fractionDigits);
+        }
+    }
+
+    private static void appendGrouped(StringBuilder out, long value) {
+        String digits = Long.toString(value);
+        int firstGroup = digits.length() % 3;
+        if (firstGroup == 0) {
+            firstGroup = 3;
+        }
+        out.append(digits, 0, firstGroup);
+        for (int i = firstGroup; i < digits.length(); i += 3) {
+            out.append(',').append(digits, i, i + 3);
+        }
+    }
+
+    private static void appendPadded(StringBuilder out, long value, int width) {
+        String digits = Long.toString(value);
+        for (int i = digits.length(); i < width; i++) {
+            out.append('0');
+        }
+        out.append(digits);
+    }
+}
@@ -0,0 +1,430 @@
+package com.stableflow.app.data.repository;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import com.stableflow.app.data.model.ExpenseRequest;
+import com.stableflow.app.data.model.ExpenseTotals;
+import com.stableflow.app.data.model.TurnaroundStats;
+
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+/**
+ * ExpenseAggregatorTest
+ * Feeds ExpenseAggregator random add/change/remove/reset deltas and compares its running
+ * totals, spend cube and turnaround percentiles after every step with a reference the test
+ * recomputes itself, with plain loops over the claims and exact sorted percentiles
+ */
+public class ExpenseAggregatorTest {
+
+    private static final long SEED = 20_250_314L;
+    private static final int RUNS = 20;
+    private static final int STEPS_PER_RUN = 5_000;
+
+    // Includes values the aggregator must tolerate: no status, unknown status and category
+    private static final String[] STATUSES = {
+            "PENDING", "UNDER_REVIEW", "APPROVED", "PAID", "REJECTED", "CANCELLED", "ARCHIVED", null
+    };
+    private static final String[] CATEGORIES = {
+            "TRAVEL", "MEALS", "SUPPLIES", "EQUIPMENT", "SOFTWARE", "TRAINING", "ENTERTAINMENT", "UTILITIES",
+            "OTHER", "PARKING", null
+    };
+    // Submission months span three years; also dates the cube must skip
+    private static final int FIRST_YEAR = 2024;
+    private static final int YEARS = 3;
+    private static final String[] BAD_DATES = { null, "", "soon", "2025-13-01" };
+    private static final String[] APPROVERS = { "admin@stableflow.app", "finance@stableflow.app", null };
+    private static final long HOUR_MS = 3_600_000L;
+
+    @Test
+    public void runningStatsMatchFullRecomputation() {
+        Random seeds = new Random(SEED);
+        for (int run = 0; run < RUNS; run++) {
+            checkRun(seeds.nextLong());
+        }
+    }
+
+    @Test
+    public void changeTakesBackThePreviousContribution() {
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        ExpenseRequest pending = claim("claim-1", "PENDING", "TRAVEL", 25_000_000L);
+        aggregator.onExpenseAdded(pending);
+
+        ExpenseRequest paid = claim("claim-1", "PAID", "TRAVEL", 25_000_000L);
+        aggregator.onExpenseChanged(pending, paid);
+
+        ExpenseTotals totals = aggregator.snapshot();
+        assertEquals(0, totals.getCount("PENDING"));
+        assertEquals(1, totals.getCount("PAID"));
+        assertEquals(25_000_000L, totals.getAmount("PAID"));
+        assertEquals(1, totals.getTotalCount());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        aggregator.onExpenseAdded(claim("claim-1", "APPROVED", "MEALS", 1_000_000L));
+        long spendVersion = aggregator.getSpendVersion();
+
+        aggregator.onExpensesReset();
+
+        assertEquals(ExpenseTotals.EMPTY, aggregator.snapshot());
+        assertEquals(0, aggregator.spendSnapshot().getTotal(Integer.MIN_VALUE / 2, Integer.MAX_VALUE / 2));
+        assertEquals(spendVersion + 1, aggregator.getSpendVersion());
+    }
+
+    /**
+     * One random run; fails with the first step that diverges
+     */
+    private static void checkRun(long seed) {
+        Random random = new Random(seed);
+        ExpenseAggregator aggregator = new ExpenseAggregator();
+        Map<String, ExpenseRequest> claims = new LinkedHashMap<>();
+        List<String> ids = new ArrayList<>();
+        int nextId = 0;
+
+        for (int step = 0; step < STEPS_PER_RUN; step++) {
+            int op = random.nextInt(100);
+            String action;
+            if (op < 1) {
+                action = "reset";
+                claims.clear();
+                ids.clear();
+                aggregator.onExpensesReset();
+            } else if (op < 40 || ids.isEmpty()) {
+                action = "add";
+                ExpenseRequest claim = randomClaim(random, "claim-" + nextId++);
+                claims.put(claim.getId(), claim);
+                ids.add(claim.getId());
+                aggregator.onExpenseAdded(claim);
+            } else if (op < 85) {
+                action = "change";
+                String id = ids.get(random.nextInt(ids.size()));
+                ExpenseRequest current = randomChange(random, claims.get(id));
+                aggregator.onExpenseChanged(claims.put(id, current), current);
+            } else {
+                action = "remove";
+                String id = ids.remove(random.nextInt(ids.size()));
+                aggregator.onExpenseRemoved(claims.remove(id));
+            }
+
+            String where = String.format(Locale.US, "seed %d, step %d (%s), %d claims", seed, step, action,
+                    claims.size());
+            Expected expected = new Expected(claims.values());
+            assertSameTotals(where, expected, aggregator.snapshot());
+            assertSameSpend(where, expected, aggregator.spendSnapshot(), random);
+            assertSameTurnaround(where, expected, aggregator.turnaroundSnapshot());
+        }
+    }
+
+    /**
+     * What the aggregator should report for a list of claims, counted and summed claim by claim
+     * the way the dashboard did before it kept running totals
+     */
+    private static final class Expected {
+        // Statuses with their own count; anything else only adds to its category and the totals
+        static final List<String> COUNTED_STATUSES = Arrays.asList(
+                "PENDING", "UNDER_REVIEW", "APPROVED", "PAID", "REJECTED", "CANCELLED");
+        private static final Map<String, Long> PARSED = new HashMap<>();
+
+        final Map<String, Integer> statusCounts = new TreeMap<>();
+        final Map<String, Long> statusAmounts = new TreeMap<>();
+        final int[] categoryCounts = new int[ExpenseTotals.CATEGORIES.length];
+        final long[] categoryAmounts = new long[ExpenseTotals.CATEGORIES.length];
+        int totalCount;
+        long totalAmount;
+
+        // [category][months since January of FIRST_YEAR] of claims that are still or already spend
+        final long[][] spend = new long[ExpenseTotals.CATEGORIES.length][YEARS * 12];
+
+        final List<List<Long>> reviewByCategory = new ArrayList<>();
+        final List<List<Long>> payoutByCategory = new ArrayList<>();
+        final Map<String, List<Long>> reviewByApprover = new TreeMap<>();
+        final Map<String, List<Long>> payoutByApprover = new TreeMap<>();
+        Expected(Collection<ExpenseRequest> claims) {
+            for (int category = 0; category < ExpenseTotals.CATEGORIES.length; category++) {
+                reviewByCategory.add(new ArrayList<>());
+                payoutByCategory.add(new ArrayList<>());
+            }
+
+            for (ExpenseRequest claim : claims) {
+                String status = claim.getStatus();
+                long amount = claim.getAmountMicros();
+                int category = Arrays.asList(ExpenseTotals.CATEGORIES).indexOf(claim.getCategory());
+                if (category < 0)
+                    category = ExpenseTotals.CATEGORY_OTHER;
+
+                totalCount++;
+                totalAmount += amount;
+                categoryCounts[category]++;
+                categoryAmounts[category] += amount;
+                if (COUNTED_STATUSES.contains(status)) {
+                    statusCounts.merge(status, 1, Integer::sum);
+                    statusAmounts.merge(status, amount, Long::sum);
+                }
+
+                if ("PENDING".equals(status) || "UNDER_REVIEW".equals(status) || "APPROVED".equals(status)
+                        || "PAID".equals(status)) {
+                    int month = monthIndex(claim.getSubmittedAt());
+                    if (month >= 0)
+                        spend[category][month] += amount;
+                }
+
+                long processedAt = millis(claim.getProcessedAt());
+                if (processedAt < 0)
+                    continue;
+                long submittedAt = millis(claim.getSubmittedAt());
+                if (submittedAt >= 0) {
+                    long review = Math.max(processedAt - submittedAt, 0);
+                    reviewByCategory.get(category).add(review);
+                    if (claim.getApprovedBy() != null)
+                        reviewByApprover.computeIfAbsent(claim.getApprovedBy(), k -> new ArrayList<>()).add(review);
+                }
+                long paidAt = millis(claim.getPaidAt());
+                if (paidAt >= 0) {
+                    long payout = Math.max(paidAt - processedAt, 0);
+                    payoutByCategory.get(category).add(payout);
+                    if (claim.getApprovedBy() != null)
+                        payoutByApprover.computeIfAbsent(claim.getApprovedBy(), k -> new ArrayList<>()).add(payout);
+                }
+            }
+        }
+
+        /**
+         * Spend from one month index to another, both inclusive, clamped to the years the test uses
+         */
+        long spend(int category, int from, int to) {
+            long total = 0;
+            for (int month = Math.max(from, 0); month <= Math.min(to, YEARS * 12 - 1); month++) {
+                total += spend[category][month];
+            }
+            return total;
+        }
+
+        /**
+         * Months since January of FIRST_YEAR of a yyyy-MM... date, or -1
+         */
+        static int monthIndex(String isoDate) {
+            if (isoDate == null || isoDate.length() < 7)
+                return -1;
+            try {
+                YearMonth month = YearMonth.parse(isoDate.substring(0, 7));
+                int index = (month.getYear() - FIRST_YEAR) * 12 + month.getMonthValue() - 1;
+                return index >= 0 && index < YEARS * 12 ? index : -1;
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+
+        /**
+         * Epoch millis of an ISO timestamp, UTC when it has no offset, or -1; memoized, as every
+         * step parses every claim again
+         */
+        static long millis(String isoDate) {
+            if (isoDate == null)
+                return -1;
+            return PARSED.computeIfAbsent(isoDate, Expected::parseMillis);
+        }
+
+        private static long parseMillis(String isoDate) {
+            try {
+                TemporalAccessor parsed = DateTimeFormatter.ISO_DATE_TIME.parse(isoDate);
+                if (parsed.isSupported(ChronoField.OFFSET_SECONDS))
+                    return Instant.from(parsed).toEpochMilli();
+                return LocalDateTime.from(parsed).toInstant(ZoneOffset.UTC).toEpochMilli();
+            } catch (DateTimeParseException e) {
+                return -1;
+            }
+        }
+    }
+
+    private static void assertSameTotals(String where, Expected expected, ExpenseTotals actual) {
+        for (String status : Expected.COUNTED_STATUSES) {
+            assertEquals("Count of " + status + " diverged at " + where,
+                    (int) expected.statusCounts.getOrDefault(status, 0), actual.getCount(status));
+            assertEquals("Amount of " + status + " diverged at " + where,
+                    (long) expected.statusAmounts.getOrDefault(status, 0L), actual.getAmount(status));
+        }
+        for (int category = 0; category < ExpenseTotals.CATEGORIES.length; category++) {
+            assertEquals("Count of category " + category + " diverged at " + where,
+                    expected.categoryCounts[category], actual.getCategoryCount(category));
+            assertEquals("Amount of category " + category + " diverged at " + where,
+                    expected.categoryAmounts[category], actual.getCategoryAmount(category));
+        }
+        assertEquals("Total count diverged at " + where, expected.totalCount, actual.getTotalCount());
+        assertEquals("Total amount diverged at " + where, expected.totalAmount, actual.getTotalAmount());
+    }
+
+    /**
+     * Compares every single-month cell and one random range, which may run past the test's years
+     */
+    private static void assertSameSpend(String where, Expected expected, SpendCube.Snapshot actual,
+            Random random) {
+        int first = SpendCube.monthKey(FIRST_YEAR, 1);
+        for (int category = 0; category < ExpenseTotals.CATEGORIES.length; category++) {
+            for (int month = 0; month < YEARS * 12; month++) {
+                if (actual.getTotal(category, first + month, first + month) != expected.spend[category][month])
+                    fail("Spend diverged at " + where + " in category " + category + ", month " + month);
+            }
+        }
+        int from = -2 + random.nextInt(YEARS * 12 + 4);
+        int to = from + random.nextInt(YEARS * 12);
+        long total = 0;
+        for (int category = 0; category < ExpenseTotals.CATEGORIES.length; category++) {
+            total += expected.spend(category, from, to);
+        }
+        assertEquals("Spend range diverged at " + where, total, actual.getTotal(first + from, first + to));
+    }
+
+    private static void assertSameTurnaround(String where, Expected expected, TurnaroundStats actual) {
+        List<Long> allReviews = new ArrayList<>();
+        List<Long> allPayouts = new ArrayList<>();
+        for (int category = 0; category < ExpenseTotals.CATEGORIES.length; category++) {
+            assertClose("Review of category " + category + " diverged at " + where,
+                    expected.reviewByCategory.get(category), actual.getReviewByCategory(category));
+            assertClose("Payout of category " + category + " diverged at " + where,
+                    expected.payoutByCategory.get(category), actual.getPayoutByCategory(category));
+            allReviews.addAll(expected.reviewByCategory.get(category));
+            allPayouts.addAll(expected.payoutByCategory.get(category));
+        }
+        assertClose("Review diverged at " + where, allReviews, actual.getReview());
+        assertClose("Payout diverged at " + where, allPayouts, actual.getPayout());
+
+        assertEquals("Approvers diverged at " + where, expected.reviewByApprover.keySet(), actual.getApprovers());
+        for (Map.Entry<String, List<Long>> entry : expected.reviewByApprover.entrySet()) {
+            assertClose("Review by " + entry.getKey() + " diverged at " + where, entry.getValue(),
+                    actual.getReviewByApprover(entry.getKey()));
+        }
+        for (Map.Entry<String, List<Long>> entry : expected.payoutByApprover.entrySet()) {
+            assertClose("Payout by " + entry.getKey() + " diverged at " + where, entry.getValue(),
+                    actual.getPayoutByApprover(entry.getKey()));
+        }
+    }
+
+    /**
+     * Same count, and each percentile within the sketch's 1% (plus rounding) of the exact value
+     * at that rank of the sorted durations
+     */
+    private static void assertClose(String message, List<Long> durations, TurnaroundStats.Percentiles actual) {
+        assertEquals(message + ": count", durations.size(), actual.getCount());
+        if (durations.isEmpty()) {
+            assertEquals(message, TurnaroundStats.Percentiles.EMPTY, actual);
+            return;
+        }
+        List<Long> sorted = new ArrayList<>(durations);
+        Collections.sort(sorted);
+        assertPercentile(message + ": p50", sorted, 0.5, actual.getP50());
+        assertPercentile(message + ": p90", sorted, 0.9, actual.getP90());
+        assertPercentile(message + ": p99", sorted, 0.99, actual.getP99());
+    }
+
+    private static void assertPercentile(String message, List<Long> sorted, double quantile, long actual) {
+        long exact = sorted.get((int) (quantile * (sorted.size() - 1)));
+        assertTrue(message + ": expected about " + exact + " but was " + actual,
+                Math.abs(actual - exact) <= exact * 0.01 + 1);
+    }
+
+    private static ExpenseRequest claim(String id, String status, String category, long amountMicros) {
+        ExpenseRequest claim = new ExpenseRequest();
+        claim.setId(id);
+        claim.setStatus(status);
+        claim.setCategory(category);
+        claim.setAmountMicros(amountMicros);
+        claim.setSubmittedAt("2025-03-14T09:30:00Z");
+        return claim;
+    }
+
+    private static String randomDate(Random random) {
+        if (random.nextInt(20) == 0)
+            return BAD_DATES[random.nextInt(BAD_DATES.length)];
+        return String.format(Locale.US, "%04d-%02d-%02dT10:00:00", FIRST_YEAR + random.nextInt(YEARS),
+                1 + random.nextInt(12), 1 + random.nextInt(28));
+    }
+
+    /**
+     * Sets processedAt, approvedBy and paidAt after any submission date randomDate() makes, or
+     * leaves the claim unprocessed or unpaid
+     */
+    private static void randomProcessing(Random random, ExpenseRequest claim) {
+        claim.setProcessedAt(null);
+        claim.setApprovedBy(null);
+        claim.setPaidAt(null);
+        if (random.nextInt(3) == 0)
+            return;
+
+        long submittedAt = Instant.parse("2027-01-01T00:00:00Z").toEpochMilli();
+        long processedAt = submittedAt + (long) (random.nextDouble() * 30 * 24 * HOUR_MS);
+        claim.setProcessedAt(Instant.ofEpochMilli(processedAt).toString());
+        claim.setApprovedBy(APPROVERS[random.nextInt(APPROVERS.length)]);
+        if (random.nextBoolean()) {
+            claim.setPaidAt(Instant.ofEpochMilli(processedAt + (long) (random.nextDouble() * 72 * HOUR_MS))
+                    .toString());
+        }
+    }
+
+    private static ExpenseRequest randomClaim(Random random, String id) {
+        ExpenseRequest claim = new ExpenseRequest();
+        claim.setId(id);
+        claim.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+        claim.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+        claim.setAmountMicros(random.nextInt(5_000_000) * 1_000L);
+        claim.setSubmittedAt(randomDate(random));
+        randomProcessing(random, claim);
+        return claim;
+    }
+
+    /**
+     * A new object for the same claim with a different status, category, amount, date or
+     * processing
+     */
+    private static ExpenseRequest randomChange(Random random, ExpenseRequest previous) {
+        ExpenseRequest claim = new ExpenseRequest();
+        claim.setId(previous.getId());
+        claim.setStatus(previous.getStatus());
+        claim.setCategory(previous.getCategory());
+        claim.setAmountMicros(previous.getAmountMicros());
+        claim.setSubmittedAt(previous.getSubmittedAt());
+        claim.setProcessedAt(previous.getProcessedAt());
+        claim.setApprovedBy(previous.getApprovedBy());
+        claim.setPaidAt(previous.getPaidAt());
+        switch (random.nextInt(5)) {
+            case 0:
+                claim.setStatus(STATUSES[random.nextInt(STATUSES.length)]);
+                break;
+            case 1:
+                claim.setCategory(CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                break;
+            case 2:
+                claim.setSubmittedAt(randomDate(random));
+                break;
+            case 3:
+                randomProcessing(random, claim);
+                break;
+            default:
+                claim.setAmountMicros(random.nextInt(5_000_000) * 1_000L);
+                break;
+        }
+        return claim;
+    }
+}
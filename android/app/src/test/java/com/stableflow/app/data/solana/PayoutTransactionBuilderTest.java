@@ -0,0 +1,252 @@
+package com.stableflow.app.data.solana;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * PayoutTransactionBuilderTest
+ * Golden messages for fixed keys and a fixed blockhash, encoded independently from the wire
+ * format, plus the derivation, shortvec and packing rules the builder relies on
+ */
+public class PayoutTransactionBuilderTest {
+
+    private static final String PAYER = "B8UwBUUnKwCyKuGMbFKWaG7exYdDk2ozZrPg72NyVbfj";
+    private static final String RECIPIENT_1 = "7o36UsWR1JQLpZ9PE2gn9L4SQ69CNNiWAXd4Jt7rqz9Z";
+    private static final String RECIPIENT_2 = "DShWnroshVbeUp28oopA3Pu7oFPDBtC1DBmPECXXAQ9n";
+    private static final String BLOCKHASH = "EkSnNWid2cvwEVnVx9aBqawnmiCNiDgp3gUdkDPTKN1N";
+
+    private static final TokenRegistry.Token USDC = TokenRegistry.forCluster(false)
+            .getBySymbol(TokenRegistry.SYMBOL_USDC);
+
+    // One payout of 12.5 USDC to RECIPIENT_1: create ATA, TransferChecked, memo "claim-1"
+    private static final String LEGACY_GOLDEN = 
+            "01000609967f8529c93f8b833c01c9b86c2f058d5c77f6e857bf01302888a16727e401ceb6d16d95f031cd6fd9b28465"
+            + "68ba211be1970e1afef1a97c67051d5d003b4c4cf73b350ea1a1f75fee7ad6a1204e05a92824c1a94035bb77cad35f8f"
+            + "44fb83cb64f134ff994aaa3e829b92c9457c78c6da0fcb07f9576d6c28aea285bf8c0484c6fa7af3bedbad3a3d65f36a"
+            + "abc97431b1bbe4c2d2f6e0e47ca60203452f5d6100000000000000000000000000000000000000000000000000000000"
+            + "0000000006ddf6e1d765a193d9cbe146ceeb79ac1cb485ed5f5b37913a8cf5857eff00a98c97258f4e2489f1bb3d1029"
+            + "148e0d830b5a1399daff1084048e7bd8dbe9f859054a535a992921064d24e87160da387c7c35b5ddbc92bb81e41fa840"
+            + "4105448dcc490e928cd2e3873bb343fc95da33179ca60f4dbf46c2c36e91299d55d4e6b9030706000103040506010106"
+            + "04020401000a0c20bcbe000000000006080007636c61696d2d31";
+
+    // Compute budget (1,400,000 units at 5,000 micro-lamports), then 12.5 USDC to RECIPIENT_1
+    // with memo "claim-1" and 3 USDC to RECIPIENT_2 with memo "claim-2"
+    private static final String V0_GOLDEN = 
+            "800100080c967f8529c93f8b833c01c9b86c2f058d5c77f6e857bf01302888a16727e401ceb6d16d95f031cd6fd9b284"
+            + "6568ba211be1970e1afef1a97c67051d5d003b4c4cf73b350ea1a1f75fee7ad6a1204e05a92824c1a94035bb77cad35f"
+            + "8f44fb83cba3bcf8386efae047cc398bdd37e1fff1269a57a3e4780003f81c8eafbb06238d0306466fe5211732ffecad"
+            + "ba72c39be7bc8ce5bbc5f7126b2c439b3a4000000064f134ff994aaa3e829b92c9457c78c6da0fcb07f9576d6c28aea2"
+            + "85bf8c0484c6fa7af3bedbad3a3d65f36aabc97431b1bbe4c2d2f6e0e47ca60203452f5d610000000000000000000000"
+            + "00000000000000000000000000000000000000000006ddf6e1d765a193d9cbe146ceeb79ac1cb485ed5f5b37913a8cf5"
+            + "857eff00a98c97258f4e2489f1bb3d1029148e0d830b5a1399daff1084048e7bd8dbe9f859054a535a992921064d24e8"
+            + "7160da387c7c35b5ddbc92bb81e41fa8404105448db8e1927f2da9f65b5f42129930d617974313b6a198e03b6f2ce83b"
+            + "f714d78f81cc490e928cd2e3873bb343fc95da33179ca60f4dbf46c2c36e91299d55d4e6b90804000502c05c15000400"
+            + "09038813000000000000090600010506070801010804020601000a0c20bcbe0000000000060a0007636c61696d2d3109"
+            + "0600030b06070801010804020603000a0cc0c62d0000000000060a0007636c61696d2d3200";
+
+    // ==================
+    // GOLDEN MESSAGES
+    // ==================
+
+    @Test
+    public void legacyMessageMatchesGoldenBytes() throws Exception {
+        List<PayoutTransaction> transactions = new PayoutTransactionBuilder(PAYER, USDC)
+                .setRecentBlockhash(BLOCKHASH)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_1, 12_500_000, "claim-1"))
+                .build();
+
+        assertEquals(1, transactions.size());
+        PayoutTransaction transaction = transactions.get(0);
+        assertEquals(PayoutTransactionBuilder.Version.LEGACY, transaction.getVersion());
+        assertEquals(LEGACY_GOLDEN, hex(transaction.getMessage()));
+        assertEquals(1, transaction.getSignatureCount());
+        assertFalse(transaction.hasComputeUnitLimit());
+    }
+
+    @Test
+    public void v0MessageMatchesGoldenBytes() throws Exception {
+        PayoutTransaction transaction = buildV0();
+
+        assertEquals(PayoutTransactionBuilder.Version.V0, transaction.getVersion());
+        assertEquals(V0_GOLDEN, hex(transaction.getMessage()));
+        assertEquals(2, transaction.getPayouts().size());
+        // Two compute budget instructions, then create, transfer and memo per payout
+        assertEquals(null, transaction.getPayoutForInstruction(1));
+        assertEquals("claim-2", transaction.getPayoutForInstruction(7).getMemo());
+    }
+
+    @Test
+    public void serializedTransactionHasZeroedSignatureSlot() throws Exception {
+        PayoutTransaction transaction = buildV0();
+        byte[] wire = transaction.serialize();
+
+        assertEquals(transaction.getSize(), wire.length);
+        assertEquals(1, wire[0]);
+        assertArrayEquals(new byte[64], Arrays.copyOfRange(wire, 1, 65));
+        assertEquals(V0_GOLDEN, hex(Arrays.copyOfRange(wire, 65, wire.length)));
+    }
+
+    // ==================
+    // COMPUTE BUDGET
+    // ==================
+
+    @Test
+    public void withComputeUnitLimitPatchesOnlyTheLimit() throws Exception {
+        PayoutTransaction transaction = buildV0();
+        assertEquals(PayoutTransactionBuilder.MAX_COMPUTE_UNIT_LIMIT, transaction.getComputeUnitLimit());
+
+        PayoutTransaction patched = transaction.withComputeUnitLimit(45_000);
+
+        assertEquals(45_000, patched.getComputeUnitLimit());
+        // SetComputeUnitLimit data 02 c05c1500 becomes 02 c8af0000; nothing else moves
+        assertEquals(V0_GOLDEN.replace("0502c05c1500", "0502c8af0000"), hex(patched.getMessage()));
+        assertEquals(V0_GOLDEN, hex(transaction.getMessage()));
+        assertEquals(transaction.getSize(), patched.getSize());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void withComputeUnitLimitRequiresComputeBudget() throws Exception {
+        new PayoutTransactionBuilder(PAYER, USDC)
+                .setRecentBlockhash(BLOCKHASH)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_1, 1, "claim-1"))
+                .build()
+                .get(0)
+                .withComputeUnitLimit(45_000);
+    }
+
+    // ==================
+    // ADDRESS DERIVATION
+    // ==================
+
+    @Test
+    public void associatedTokenAddressMatchesKnownMainnetAccount() throws Exception {
+        // Vector from the spl-token test suite, under the mainnet token and ATA programs
+        assertEquals("DShWnroshVbeUp28oopA3Pu7oFPDBtC1DBmPECXXAQ9n",
+                ProgramAddress.getAssociatedTokenAddress(PAYER, RECIPIENT_1));
+    }
+
+    @Test
+    public void programAddressIsOffCurve() throws Exception {
+        byte[] address = ProgramAddress.findProgramAddress(
+                new byte[][] { Base58.decode(PAYER), Base58.decode(ProgramAddress.TOKEN_PROGRAM_ID),
+                        Base58.decode(RECIPIENT_1) },
+                Base58.decode(ProgramAddress.ASSOCIATED_TOKEN_PROGRAM_ID));
+
+        assertFalse(ProgramAddress.isOnCurve(address));
+        // A wallet key is a curve point
+        assertTrue(ProgramAddress.isOnCurve(Base58.decode(PAYER)));
+    }
+
+    // ==================
+    // COMPACT-U16
+    // ==================
+
+    @Test
+    public void compactU16AtByteBoundaries() {
+        assertCompactU16(127, "7f");
+        assertCompactU16(128, "8001");
+        assertCompactU16(16383, "ff7f");
+        assertCompactU16(16384, "808001");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void compactU16RejectsValuesAboveU16() {
+        PayoutTransactionBuilder.writeCompactU16(new byte[3], 0, 0x10000);
+    }
+
+    private static void assertCompactU16(int value, String expected) {
+        byte[] out = new byte[3];
+        int end = PayoutTransactionBuilder.writeCompactU16(out, 0, value);
+        assertEquals(expected, hex(Arrays.copyOf(out, end)));
+        assertEquals(end, PayoutTransactionBuilder.compactU16Length(value));
+    }
+
+    // ==================
+    // PACKING
+    // ==================
+
+    @Test
+    public void payoutFillingExactlyOnePacketFits() throws Exception {
+        // An 811-byte memo brings a lone payout to 1232 bytes
+        List<PayoutTransaction> transactions = new PayoutTransactionBuilder(PAYER, USDC)
+                .setRecentBlockhash(BLOCKHASH)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_1, 1, memo(811)))
+                .build();
+
+        assertEquals(1, transactions.size());
+        assertEquals(PayoutTransactionBuilder.MAX_TRANSACTION_SIZE, transactions.get(0).getSize());
+        assertEquals(PayoutTransactionBuilder.MAX_TRANSACTION_SIZE, transactions.get(0).serialize().length);
+    }
+
+    @Test
+    public void payoutOneByteOverAPacketIsRejected() throws Exception {
+        PayoutTransactionBuilder builder = new PayoutTransactionBuilder(PAYER, USDC)
+                .setRecentBlockhash(BLOCKHASH)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_1, 1, memo(812)));
+        try {
+            builder.build();
+            fail("A 1233-byte payout must not be built");
+        } catch (IllegalArgumentException expected) {
+            // Does not fit in one transaction
+        }
+    }
+
+    @Test
+    public void secondPayoutSplitsOneByteOverThePacket() throws Exception {
+        // claim-1 plus a second payout with a 710-byte memo is exactly 1232 bytes
+        List<PayoutTransaction> atLimit = buildPair(710);
+        assertEquals(1, atLimit.size());
+        assertEquals(PayoutTransactionBuilder.MAX_TRANSACTION_SIZE, atLimit.get(0).getSize());
+
+        List<PayoutTransaction> overLimit = buildPair(711);
+        assertEquals(2, overLimit.size());
+        assertEquals("claim-1", overLimit.get(0).getPayouts().get(0).getMemo());
+        assertEquals(1, overLimit.get(0).getPayouts().size());
+        assertEquals(1, overLimit.get(1).getPayouts().size());
+        for (PayoutTransaction transaction : overLimit) {
+            assertTrue(transaction.getSize() <= PayoutTransactionBuilder.MAX_TRANSACTION_SIZE);
+        }
+    }
+
+    private static List<PayoutTransaction> buildPair(int secondMemoLength) throws Exception {
+        return new PayoutTransactionBuilder(PAYER, USDC)
+                .setRecentBlockhash(BLOCKHASH)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_1, 1, "claim-1"))
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_2, 2, memo(secondMemoLength)))
+                .build();
+    }
+
+    private static PayoutTransaction buildV0() throws Exception {
+        List<PayoutTransaction> transactions = new PayoutTransactionBuilder(PAYER, USDC)
+                .setVersion(PayoutTransactionBuilder.Version.V0)
+                .setRecentBlockhash(BLOCKHASH)
+                .setComputeUnitPrice(5_000)
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_1, 12_500_000, "claim-1"))
+                .addPayout(new PayoutTransactionBuilder.Payout(RECIPIENT_2, 3_000_000, "claim-2"))
+                .build();
+        assertEquals(1, transactions.size());
+        return transactions.get(0);
+    }
+
+    private static String memo(int length) {
+        char[] memo = new char[length];
+        Arrays.fill(memo, 'm');
+        return new String(memo);
+    }
+
+    private static String hex(byte[] bytes) {
+        StringBuilder builder = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            builder.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return builder.toString();
+    }
+}
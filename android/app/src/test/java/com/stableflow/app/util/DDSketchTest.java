@@ -0,0 +1,96 @@
+package com.stableflow.app.util;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * DDSketchTest
+ * Sketch percentiles against exact ones from the sorted values, merging, and taking values back
+ */
+public class DDSketchTest {
+
+    private static final double ACCURACY = 0.01;
+    private static final int VALUES = 100_000;
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+    private static final double DAY_MS = 24 * 3_600_000.0;
+
+    @Test
+    public void quantilesStayWithinRelativeAccuracy() {
+        double[] values = logNormalDurations(42);
+        DDSketch sketch = new DDSketch(ACCURACY);
+        for (double value : values) {
+            sketch.add(value);
+        }
+        Arrays.sort(values);
+
+        for (double quantile : QUANTILES) {
+            double exact = values[(int) (quantile * (values.length - 1))];
+            double error = Math.abs(sketch.getQuantile(quantile) - exact) / exact;
+            assertTrue("p" + (int) (quantile * 100) + " off by " + error, error <= ACCURACY);
+        }
+    }
+
+    @Test
+    public void mergedHalvesAnswerLikeOneSketch() {
+        double[] values = logNormalDurations(7);
+        DDSketch whole = new DDSketch(ACCURACY);
+        DDSketch firstHalf = new DDSketch(ACCURACY);
+        DDSketch secondHalf = new DDSketch(ACCURACY);
+        for (int i = 0; i < values.length; i++) {
+            whole.add(values[i]);
+            (i % 2 == 0 ? firstHalf : secondHalf).add(values[i]);
+        }
+        firstHalf.merge(secondHalf);
+
+        assertEquals(whole.getCount(), firstHalf.getCount());
+        for (double quantile : QUANTILES) {
+            assertEquals(whole.getQuantile(quantile), firstHalf.getQuantile(quantile), 0);
+        }
+    }
+
+    @Test
+    public void removedValuesNoLongerCount() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        DDSketch reference = new DDSketch(ACCURACY);
+        for (int i = 1; i <= 1_000; i++) {
+            sketch.add(i * 60_000.0);
+            if (i <= 500) {
+                reference.add(i * 60_000.0);
+            }
+        }
+        for (int i = 501; i <= 1_000; i++) {
+            sketch.remove(i * 60_000.0);
+        }
+
+        assertEquals(500, sketch.getCount());
+        for (double quantile : QUANTILES) {
+            assertEquals(reference.getQuantile(quantile), sketch.getQuantile(quantile), 0);
+        }
+    }
+
+    @Test
+    public void zeroAndEmpty() {
+        DDSketch sketch = new DDSketch(ACCURACY);
+        assertTrue(Double.isNaN(sketch.getQuantile(0.5)));
+
+        sketch.add(0);
+        assertEquals(0, sketch.getQuantile(0.99), 0);
+    }
+
+    /**
+     * Median around a day, long tail into weeks
+     */
+    private static double[] logNormalDurations(long seed) {
+        Random random = new Random(seed);
+        double[] values = new double[VALUES];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = Math.exp(Math.log(DAY_MS) + random.nextGaussian());
+        }
+        return values;
+    }
+}